@@ -0,0 +1,50 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.util.Random;
+
+import se.kth.iv1350.pos.analytics.SalesAnalytics;
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.model.Sale;
+import se.kth.iv1350.pos.model.SaleCompletedEvent;
+
+/**
+ * Measures how fast <code>SalesAnalytics</code> records completed sales drawn from a catalog
+ * of 100 000 items, where a few items sell far more than the rest. The allocation per sale
+ * stays flat however many different items have been sold, since the sketches have a fixed size.
+ */
+public class AnalyticsBenchmark {
+    private static final int CATALOG_SIZE = 100_000;
+    private static final int DISTINCT_SALES = 4_096;
+
+    public static void main(String[] args) {
+        Random random = new Random(17);
+        SaleCompletedEvent[] events = new SaleCompletedEvent[DISTINCT_SALES];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < events.length; i++) {
+            Sale sale = new Sale();
+            int lines = 1 + random.nextInt(6);
+            for (int line = 0; line < lines; line++) {
+                int item = (int) (CATALOG_SIZE * Math.pow(random.nextDouble(), 4));
+                sale.addItemToSale(new ItemDTO("Item " + item, line % 2 == 0 ? 0.06 : 0.12, 10 + item % 90, "",
+                        Integer.toString(item)), 1 + random.nextInt(3));
+            }
+            events[i] = SaleCompletedEvent.of(sale, now + i);
+        }
+
+        SalesAnalytics analytics = new SalesAnalytics();
+        BenchmarkRunner.measure("SalesAnalytics.record", 200_000, invocations -> {
+            for (int i = 0; i < invocations; i++) {
+                analytics.record(events[i & (DISTINCT_SALES - 1)]);
+            }
+            return analytics.getSaleCount();
+        });
+        BenchmarkRunner.measure("SalesAnalytics.getTopItems(10)", 2_000, invocations -> {
+            long sum = 0;
+            for (int i = 0; i < invocations; i++) {
+                sum += analytics.getTopItems(10).size();
+            }
+            return sum;
+        });
+        System.out.println(analytics);
+    }
+}
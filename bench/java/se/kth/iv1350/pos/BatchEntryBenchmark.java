@@ -0,0 +1,81 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import se.kth.iv1350.pos.controller.Controller;
+import se.kth.iv1350.pos.discount.DiscountHandler;
+import se.kth.iv1350.pos.integration.HashedItemCatalog;
+import se.kth.iv1350.pos.integration.InventorySystem;
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.integration.ReceiptPrinter;
+import se.kth.iv1350.pos.integration.SimulatedLatencyCatalog;
+import se.kth.iv1350.pos.integration.SystemCreator;
+import se.kth.iv1350.pos.model.CashRegister;
+import se.kth.iv1350.pos.util.Amount;
+import se.kth.iv1350.pos.util.FileLogHandler;
+
+/**
+ * Enters baskets of 30 scans, drawn from 1 000 items with some scanned twice, against a
+ * catalog backend with a simulated round-trip of 200 us, and prints the latency percentiles
+ * of entering each basket item by item with <code>enterItem</code> and as one batch with
+ * <code>enterItems</code>.
+ */
+public class BatchEntryBenchmark {
+    private static final int CATALOG_SIZE = 1_000;
+    private static final int BASKET_SIZE = 30;
+    private static final int BASKETS = 200;
+
+    public static void main(String[] args) throws Exception {
+        List<ItemDTO> items = ItemCatalogBenchmark.createItems(CATALOG_SIZE);
+        SimulatedLatencyCatalog backend = new SimulatedLatencyCatalog(new HashedItemCatalog(items), 200, 0);
+        Controller controller = new Controller(new SystemCreator(), new CashRegister(), new ReceiptPrinter(),
+                FileLogHandler.getInstance(), new DiscountHandler());
+        List<List<String>> baskets = baskets(items, new Random(23));
+        InventorySystem.getInstance().setBackend(backend);
+        try {
+            printRun("item by item", controller, baskets, false, backend);
+            printRun("one batch", controller, baskets, true, backend);
+        } finally {
+            InventorySystem.getInstance().setBackend(null);
+        }
+    }
+
+    private static void printRun(String label, Controller controller, List<List<String>> baskets, boolean batch,
+                                 SimulatedLatencyCatalog backend) throws Exception {
+        long fetchesBefore = backend.getFetchCount();
+        long[] latencies = new long[baskets.size()];
+        for (int i = 0; i < baskets.size(); i++) {
+            controller.makeNewSale();
+            long started = System.nanoTime();
+            if (batch) {
+                controller.enterItems(baskets.get(i));
+            } else {
+                for (String itemId : baskets.get(i)) {
+                    controller.enterItem(itemId, new Amount(1));
+                }
+            }
+            latencies[i] = System.nanoTime() - started;
+        }
+        BenchmarkRunner.printPercentiles(label, latencies);
+        System.out.printf("  %.1f round-trips per basket%n", (backend.getFetchCount() - fetchesBefore)
+                / (double) baskets.size());
+    }
+
+    private static List<List<String>> baskets(List<ItemDTO> items, Random random) {
+        List<List<String>> baskets = new ArrayList<>(BASKETS);
+        for (int i = 0; i < BASKETS; i++) {
+            List<String> basket = new ArrayList<>(BASKET_SIZE);
+            while (basket.size() < BASKET_SIZE) {
+                String itemId = items.get(random.nextInt(CATALOG_SIZE)).getItemIdentifier();
+                basket.add(itemId);
+                if (basket.size() < BASKET_SIZE && random.nextInt(5) == 0) {
+                    basket.add(itemId);
+                }
+            }
+            baskets.add(basket);
+        }
+        return baskets;
+    }
+}
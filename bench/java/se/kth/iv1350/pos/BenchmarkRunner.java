@@ -0,0 +1,149 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A minimal benchmark harness. The <code>lib</code> folder has no JMH, so each benchmark
+ * is a plain main method that warms the code up and then reports the measured throughput,
+ * the number of bytes allocated per operation, the allocation rate and the garbage collections
+ * it caused. Latency-sensitive paths can also be sampled one call at a time and reported as
+ * percentiles, and benchmarks read their parameters from system properties. Reports go to the
+ * standard output the harness started with, so a benchmark may silence the code it measures.
+ */
+public class BenchmarkRunner {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final List<GarbageCollectorMXBean> COLLECTORS = ManagementFactory.getGarbageCollectorMXBeans();
+    private static final PrintStream REPORT = System.out;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 5;
+    private static volatile long blackhole;
+
+    /**
+     * A unit of benchmarked work.
+     */
+    public interface Operation {
+        /**
+         * Runs the benchmarked code the given number of times.
+         * @param invocations how many times to run the code.
+         * @return any value derived from the work, so the JIT cannot remove it.
+         */
+        long run(int invocations);
+    }
+
+    /**
+     * A single call of latency-sampled work.
+     */
+    public interface Call {
+        /**
+         * Runs the benchmarked code once.
+         * @return any value derived from the work, so the JIT cannot remove it.
+         * @throws Exception if the benchmarked code fails.
+         */
+        long run() throws Exception;
+    }
+
+    /**
+     * Warms up and measures the given operation, then prints its throughput, allocation and
+     * garbage collection.
+     * @param label the name printed in the report.
+     * @param invocations the number of invocations per round.
+     * @param operation the benchmarked work.
+     * @return the measured throughput in operations per second.
+     */
+    public static double measure(String label, int invocations, Operation operation) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            blackhole += operation.run(invocations);
+        }
+        long threadId = Thread.currentThread().getId();
+        long collectionsBefore = collectionCount();
+        long collectionMillisBefore = collectionMillis();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            blackhole += operation.run(invocations);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        long operations = (long) invocations * MEASURED_ROUNDS;
+        double opsPerSecond = operations / (elapsed / 1e9);
+        REPORT.printf("%-50s %,15.0f ops/s %,12.1f B/op %,9.1f MB/s gc %3d %5d ms%n", label, opsPerSecond,
+                (double) allocated / operations, allocated / (elapsed / 1e9) / (1 << 20),
+                collectionCount() - collectionsBefore, collectionMillis() - collectionMillisBefore);
+        return opsPerSecond;
+    }
+
+    /**
+     * Runs the given call as many times as there are samples after an equally long warm-up,
+     * and returns the duration of every measured call.
+     * @param samples the number of measured calls.
+     * @param call the benchmarked work.
+     * @return the latency of every call, in nanoseconds.
+     * @throws Exception if the benchmarked code fails.
+     */
+    public static long[] sampleLatencies(int samples, Call call) throws Exception {
+        for (int i = 0; i < samples; i++) {
+            blackhole += call.run();
+        }
+        long[] latencies = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            long started = System.nanoTime();
+            blackhole += call.run();
+            latencies[i] = System.nanoTime() - started;
+        }
+        return latencies;
+    }
+
+    /**
+     * Prints the median, tail and maximum of the given latencies.
+     * @param label the name printed in the report.
+     * @param latencies the measured latencies, in nanoseconds.
+     */
+    public static void printPercentiles(String label, long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        REPORT.printf("%-20s p50=%8.1fus p90=%8.1fus p99=%8.1fus p99.9=%8.1fus max=%8.1fus%n", label,
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), percentile(sorted, 99.9),
+                sorted[sorted.length - 1] / 1_000.0);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(sorted.length * percentile / 100.0) - 1;
+        return sorted[Math.max(0, index)] / 1_000.0;
+    }
+
+    /**
+     * Returns the values of an integer parameter, given on the command line as a comma-separated
+     * system property, for example <code>-Dbench.catalogSize=1000,100000</code>.
+     * @param name the name of the property.
+     * @param defaults the values used when the property is not set.
+     * @return the values to run the benchmark with.
+     */
+    public static int[] intParameter(String name, int... defaults) {
+        String value = System.getProperty(name);
+        if (value == null || value.isBlank()) {
+            return defaults;
+        }
+        return Arrays.stream(value.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : COLLECTORS) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long collectionMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : COLLECTORS) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+}
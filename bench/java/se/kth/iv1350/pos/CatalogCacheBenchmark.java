@@ -0,0 +1,55 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.util.List;
+import java.util.Random;
+
+import se.kth.iv1350.pos.integration.CachingItemCatalog;
+import se.kth.iv1350.pos.integration.CatalogBackend;
+import se.kth.iv1350.pos.integration.HashedItemCatalog;
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.integration.SimulatedLatencyCatalog;
+
+/**
+ * Scans items from a 50 000-item catalog behind a backend with a simulated round-trip of
+ * 0.5 to 1 ms, where a few items are scanned far more often than the rest, and prints the
+ * latency percentiles of the scans with and without a 2 000-item <code>CachingItemCatalog</code>.
+ * The cache is warmed up with a different sequence of scans drawn the same way.
+ */
+public class CatalogCacheBenchmark {
+    private static final int CATALOG_SIZE = 50_000;
+    private static final int SCANS = 5_000;
+
+    public static void main(String[] args) {
+        List<ItemDTO> items = ItemCatalogBenchmark.createItems(CATALOG_SIZE);
+        Random random = new Random(21);
+        String[] warmup = skewedScans(items, random);
+        String[] scans = skewedScans(items, random);
+        SimulatedLatencyCatalog backend = new SimulatedLatencyCatalog(new HashedItemCatalog(items), 500, 500);
+        CachingItemCatalog cache = new CachingItemCatalog(backend, 2_000, 60_000);
+
+        BenchmarkRunner.printPercentiles("backend only", scanAll(backend, scans));
+        scanAll(cache, warmup);
+        long hitsBefore = cache.getHitCount();
+        BenchmarkRunner.printPercentiles("with warm cache", scanAll(cache, scans));
+        System.out.printf("  hit ratio of measured scans %.3f, %s%n", (cache.getHitCount() - hitsBefore) / (double) SCANS,
+                cache);
+    }
+
+    private static String[] skewedScans(List<ItemDTO> items, Random random) {
+        String[] scans = new String[SCANS];
+        for (int i = 0; i < scans.length; i++) {
+            scans[i] = items.get((int) (CATALOG_SIZE * Math.pow(random.nextDouble(), 8))).getItemIdentifier();
+        }
+        return scans;
+    }
+
+    static long[] scanAll(CatalogBackend catalog, String[] scans) {
+        long[] latencies = new long[scans.length];
+        for (int i = 0; i < scans.length; i++) {
+            long started = System.nanoTime();
+            catalog.fetch(scans[i]);
+            latencies[i] = System.nanoTime() - started;
+        }
+        return latencies;
+    }
+}
@@ -0,0 +1,51 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import se.kth.iv1350.pos.integration.CatalogImporter;
+import se.kth.iv1350.pos.integration.ImportReport;
+import se.kth.iv1350.pos.integration.InventorySystem;
+
+/**
+ * Imports a nightly price file of 500 000 rows with one worker and with one worker per
+ * processor, and prints the rows per second of the last import of each. The allocation
+ * reported is that of the reading thread only, the workers allocate the items.
+ */
+public class CatalogImportBenchmark {
+    private static final int ROWS = 500_000;
+
+    public static void main(String[] args) throws IOException {
+        Path file = Files.createTempFile("pos-prices", ".csv");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(file)) {
+                out.write("identifier,name,price,vat,description\n");
+                for (int i = 0; i < ROWS; i++) {
+                    out.write(10_000 + i + ",Item " + i + "," + (10 + i % 90) + "." + (i % 100 < 10 ? "0" : "")
+                            + i % 100 + "," + (i % 3 == 0 ? "0.12" : "0.06") + ",\"Imported, nightly\"\n");
+                }
+            }
+            InventorySystem inventory = InventorySystem.getInstance();
+            int processors = Runtime.getRuntime().availableProcessors();
+            for (int parallelism : processors > 1 ? new int[] {1, processors} : new int[] {1}) {
+                CatalogImporter importer = new CatalogImporter(parallelism, 1 << 20, 0);
+                ImportReport[] last = new ImportReport[1];
+                BenchmarkRunner.measure("import " + ROWS + " rows, " + parallelism + " workers", 1, invocations -> {
+                    for (int i = 0; i < invocations; i++) {
+                        try {
+                            last[0] = importer.importCatalog(file, inventory);
+                        } catch (IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                    return last[0].getImportedCount();
+                });
+                System.out.println("  " + last[0]);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import se.kth.iv1350.pos.controller.Controller;
+import se.kth.iv1350.pos.discount.DiscountHandler;
+import se.kth.iv1350.pos.integration.ReceiptPrinter;
+import se.kth.iv1350.pos.integration.SystemCreator;
+import se.kth.iv1350.pos.model.CashRegister;
+import se.kth.iv1350.pos.util.Amount;
+import se.kth.iv1350.pos.util.BackpressurePolicy;
+import se.kth.iv1350.pos.util.FileLogHandler;
+
+/**
+ * Measures the latency of <code>Controller.enterItem</code> when 10% of the scans are
+ * invalid, with synchronous logging and with asynchronous, batched logging.
+ */
+public class CheckoutLatencyBenchmark {
+    private static final int SCANS = 50_000;
+    private static final String[] VALID_ITEMS = {"11127", "11123", "11132", "11135", "1"};
+
+    public static void main(String[] args) throws IOException {
+        FileLogHandler logger = FileLogHandler.getInstance();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Controller controller = new Controller(new SystemCreator(), new CashRegister(), new ReceiptPrinter(),
+                logger, new DiscountHandler());
+
+        runScans(controller);
+        long[] synchronous = runScans(controller);
+        logger.enableAsyncLogging(8_192, 256, 100, BackpressurePolicy.BLOCK, 1);
+        runScans(controller);
+        long[] asynchronous = runScans(controller);
+        logger.disableAsyncLogging();
+
+        System.setOut(originalOut);
+        report("synchronous logging", synchronous);
+        report("asynchronous logging", asynchronous);
+    }
+
+    private static long[] runScans(Controller controller) {
+        long[] latencies = new long[SCANS];
+        controller.makeNewSale();
+        for (int i = 0; i < SCANS; i++) {
+            String itemId = i % 10 == 0 ? "unknown-" + i : VALID_ITEMS[i % VALID_ITEMS.length];
+            long start = System.nanoTime();
+            try {
+                controller.enterItem(itemId, new Amount(1));
+            } catch (Exception invalidScan) {
+                // Expected for the invalid scans.
+            }
+            latencies[i] = System.nanoTime() - start;
+        }
+        return latencies;
+    }
+
+    private static void report(String label, long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-25s p50 %,8d ns  p99 %,8d ns  p99.9 %,10d ns%n", label,
+                sorted[sorted.length / 2], sorted[(int) (sorted.length * 0.99)], sorted[(int) (sorted.length * 0.999)]);
+    }
+}
@@ -0,0 +1,60 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.util.function.Supplier;
+
+import se.kth.iv1350.pos.integration.ColumnarItemCatalog;
+import se.kth.iv1350.pos.integration.HashedItemCatalog;
+import se.kth.iv1350.pos.integration.ItemCatalog;
+import se.kth.iv1350.pos.integration.ItemDTO;
+
+/**
+ * Compares the heap used by a 1M-item catalog held as <code>ItemDTO</code> objects in a
+ * <code>HashedItemCatalog</code> with the same catalog in a <code>ColumnarItemCatalog</code>,
+ * and the lookup speed of both. The footprint is the growth of the used heap after a full
+ * collection, so run with a heap of at least 1 GB.
+ */
+public class ColumnarCatalogBenchmark {
+    private static final int CATALOG_SIZE = 1_000_000;
+
+    public static void main(String[] args) {
+        HashedItemCatalog hashed = (HashedItemCatalog) measureFootprint("HashedItemCatalog + ItemDTOs",
+                () -> new HashedItemCatalog(ItemCatalogBenchmark.createItems(CATALOG_SIZE)));
+        ColumnarItemCatalog columnar = (ColumnarItemCatalog) measureFootprint("ColumnarItemCatalog",
+                () -> new ColumnarItemCatalog(ItemCatalogBenchmark.createItems(CATALOG_SIZE)));
+        System.out.printf("%-50s %,15d bytes (arrays only)%n", "ColumnarItemCatalog.getFootprintBytes",
+                columnar.getFootprintBytes());
+
+        String[] lookupKeys = ItemCatalogBenchmark.randomKeys(ItemCatalogBenchmark.createItems(CATALOG_SIZE));
+        BenchmarkRunner.measure("HashedItemCatalog.find", 100_000, invocations -> {
+            long found = 0;
+            for (int i = 0; i < invocations; i++) {
+                found += hashed.find(lookupKeys[i & (lookupKeys.length - 1)]).getPrice() > 0 ? 1 : 0;
+            }
+            return found;
+        });
+        BenchmarkRunner.measure("ColumnarItemCatalog.find", 100_000, invocations -> {
+            long found = 0;
+            for (int i = 0; i < invocations; i++) {
+                found += columnar.find(lookupKeys[i & (lookupKeys.length - 1)]).getPrice() > 0 ? 1 : 0;
+            }
+            return found;
+        });
+    }
+
+    private static ItemCatalog measureFootprint(String label, Supplier<ItemCatalog> factory) {
+        long before = usedHeap();
+        ItemCatalog catalog = factory.get();
+        long after = usedHeap();
+        System.out.printf("%-50s %,15d bytes %,8.1f B/item%n", label, after - before,
+                (after - before) / (double) catalog.size());
+        return catalog;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,45 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.util.List;
+
+import se.kth.iv1350.pos.discount.CustomerDiscountRule;
+import se.kth.iv1350.pos.discount.DiscountRuleEngine;
+import se.kth.iv1350.pos.discount.ItemDiscountRule;
+import se.kth.iv1350.pos.discount.TotalDiscountRule;
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.model.Sale;
+import se.kth.iv1350.pos.util.Money;
+
+/**
+ * Evaluates a 100-line basket against promotion sets of increasing size.
+ */
+public class DiscountRuleEngineBenchmark {
+    private static final int CATALOG_SIZE = 100_000;
+
+    public static void main(String[] args) {
+        List<ItemDTO> catalog = ItemCatalogBenchmark.createItems(CATALOG_SIZE);
+        Sale sale = new Sale();
+        for (int i = 0; i < 100; i++) {
+            sale.addItemToSale(catalog.get(i * 997 % CATALOG_SIZE), 1 + i % 4);
+        }
+        for (int promotions : new int[] {10, 1_000, 100_000}) {
+            DiscountRuleEngine engine = new DiscountRuleEngine(0.5);
+            for (int i = 0; i < promotions; i++) {
+                String itemId = catalog.get(i * 7 % CATALOG_SIZE).getItemIdentifier();
+                engine.addRule(i % 2 == 0
+                        ? new ItemDiscountRule(itemId, Money.ofMinor(100), i % 5, null)
+                        : new ItemDiscountRule(itemId, 0.15, i % 5, Money.ofMinor(2_000)));
+            }
+            engine.addRule(new TotalDiscountRule(Money.ofMinor(50_000), 0.05, 1, null));
+            engine.addRule(new CustomerDiscountRule("1234567890", 0.10, 0, null));
+            BenchmarkRunner.measure("100-line basket, " + promotions + " promotions", 50_000,
+                    invocations -> {
+                        long discount = 0;
+                        for (int i = 0; i < invocations; i++) {
+                            discount += engine.evaluate(sale, "1234567890");
+                        }
+                        return discount;
+                    });
+        }
+    }
+}
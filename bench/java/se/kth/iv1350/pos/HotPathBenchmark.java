@@ -0,0 +1,185 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import se.kth.iv1350.pos.controller.Controller;
+import se.kth.iv1350.pos.discount.DiscountHandler;
+import se.kth.iv1350.pos.integration.InventorySystem;
+import se.kth.iv1350.pos.integration.ItemCatalog;
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.integration.ItemNotFoundException;
+import se.kth.iv1350.pos.integration.ReceiptPrinter;
+import se.kth.iv1350.pos.integration.SystemCreator;
+import se.kth.iv1350.pos.model.CashPayment;
+import se.kth.iv1350.pos.model.CashRegister;
+import se.kth.iv1350.pos.model.Receipt;
+import se.kth.iv1350.pos.model.Sale;
+import se.kth.iv1350.pos.util.Amount;
+import se.kth.iv1350.pos.util.BackpressurePolicy;
+import se.kth.iv1350.pos.util.FileLogHandler;
+
+/**
+ * Runs the benchmarks of the hot paths of a sale in one go: item lookup, adding items and
+ * updating the totals of a sale, discounts, receipts, error logging and whole sales through
+ * the <code>Controller</code>. Lookups and whole sales are run for every catalog size, and the
+ * sale paths for every basket size, given as for example
+ * <code>-Dbench.catalogSize=1000,100000 -Dbench.basketSize=5,50</code>. Lookups and whole sales
+ * also print their latency percentiles. What the sales print themselves, such as receipts, is
+ * discarded.
+ */
+public class HotPathBenchmark {
+    private static final int INVOCATIONS = 20_000;
+    private static final int LOG_INVOCATIONS = 2_000;
+    private static final int LATENCY_SAMPLES = 20_000;
+    private static final int SALE_SAMPLES = 2_000;
+    private static final String MEMBER_ID = "1234567890";
+
+    public static void main(String[] args) throws Exception {
+        int[] catalogSizes = BenchmarkRunner.intParameter("bench.catalogSize", 1_000, 100_000);
+        int[] basketSizes = BenchmarkRunner.intParameter("bench.basketSize", 5, 50);
+        int largestBasket = 0;
+        for (int basketSize : basketSizes) {
+            largestBasket = Math.max(largestBasket, basketSize);
+        }
+        List<ItemDTO> basketItems = ItemCatalogBenchmark.createItems(largestBasket);
+
+        for (int basketSize : basketSizes) {
+            benchmarkSale(basketItems.subList(0, basketSize));
+        }
+        benchmarkLogging();
+
+        InventorySystem inventory = InventorySystem.getInstance();
+        ItemCatalog originalCatalog = inventory.getCatalog();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int catalogSize : catalogSizes) {
+                List<ItemDTO> items = ItemCatalogBenchmark.createItems(catalogSize);
+                inventory.loadItems(items);
+                benchmarkFindItem(inventory, items, catalogSize);
+                for (int basketSize : basketSizes) {
+                    benchmarkWholeSale(items, catalogSize, basketSize);
+                }
+            }
+        } finally {
+            System.setOut(originalOut);
+            inventory.loadCatalog(originalCatalog);
+        }
+    }
+
+    private static void benchmarkSale(List<ItemDTO> basket) {
+        int basketSize = basket.size();
+        BenchmarkRunner.measure("Sale.addItemToSale [basket=" + basketSize + "]", INVOCATIONS, invocations -> {
+            Sale sale = new Sale();
+            for (int i = 0; i < invocations; i++) {
+                if (i % basketSize == 0) {
+                    sale = new Sale();
+                }
+                sale.addItemToSale(basket.get(i % basketSize), 1);
+            }
+            return sale.getTotalPrice().getMinorUnits();
+        });
+
+        Sale sale = fill(basket);
+        BenchmarkRunner.measure("Sale.updateTotalPriceAndVAT [basket=" + basketSize + "]", INVOCATIONS, invocations -> {
+            for (int i = 0; i < invocations; i++) {
+                sale.changeQuantity(basket.get(i % basketSize).getItemIdentifier(), 1 + (i & 3));
+            }
+            return sale.getTotalPrice().getMinorUnits();
+        });
+
+        DiscountHandler discountHandler = new DiscountHandler();
+        BenchmarkRunner.measure("DiscountHandler.getDiscountAmount [basket=" + basketSize + "]", INVOCATIONS,
+                invocations -> {
+                    long discount = 0;
+                    for (int i = 0; i < invocations; i++) {
+                        discount += discountHandler.getDiscountAmount(sale, MEMBER_ID).getAmount();
+                    }
+                    return discount;
+                });
+
+        Receipt receipt = new Receipt(sale, new CashPayment(new Amount(1_000_000), sale.getTotalPriceIncludingVAT()));
+        BenchmarkRunner.measure("Receipt.toString [basket=" + basketSize + "]", INVOCATIONS / 10, invocations -> {
+            long length = 0;
+            for (int i = 0; i < invocations; i++) {
+                length += receipt.toString().length();
+            }
+            return length;
+        });
+    }
+
+    private static void benchmarkLogging() throws Exception {
+        FileLogHandler logger = FileLogHandler.getInstance();
+        ItemNotFoundException failure = new ItemNotFoundException("Benchmarked log record.");
+        BenchmarkRunner.Operation logging = invocations -> {
+            for (int i = 0; i < invocations; i++) {
+                logger.logException(failure);
+            }
+            return invocations;
+        };
+        BenchmarkRunner.measure("FileLogHandler.logException, synchronous", LOG_INVOCATIONS, logging);
+        logger.enableAsyncLogging(8_192, 256, 100, BackpressurePolicy.BLOCK, 1);
+        try {
+            BenchmarkRunner.measure("FileLogHandler.logException, asynchronous", LOG_INVOCATIONS, logging);
+        } finally {
+            logger.disableAsyncLogging();
+        }
+    }
+
+    private static void benchmarkFindItem(InventorySystem inventory, List<ItemDTO> items, int catalogSize)
+            throws Exception {
+        String[] keys = ItemCatalogBenchmark.randomKeys(items);
+        String label = "InventorySystem.findItem [catalog=" + catalogSize + "]";
+        BenchmarkRunner.measure(label, INVOCATIONS, invocations -> {
+            long found = 0;
+            try {
+                for (int i = 0; i < invocations; i++) {
+                    found += inventory.findItem(keys[i & (keys.length - 1)]).getItemIdentifier().length();
+                }
+            } catch (ItemNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+            return found;
+        });
+        int[] next = new int[1];
+        BenchmarkRunner.printPercentiles("  findItem latency", BenchmarkRunner.sampleLatencies(LATENCY_SAMPLES,
+                () -> inventory.findItem(keys[next[0]++ & (keys.length - 1)]).getItemIdentifier().length()));
+    }
+
+    private static void benchmarkWholeSale(List<ItemDTO> items, int catalogSize, int basketSize) throws Exception {
+        String[] keys = ItemCatalogBenchmark.randomKeys(items);
+        Controller controller = new Controller(new SystemCreator(), new CashRegister(), new ReceiptPrinter(),
+                FileLogHandler.getInstance(), new DiscountHandler());
+        int[] next = new int[1];
+        BenchmarkRunner.Call sale = () -> {
+            controller.makeNewSale();
+            for (int i = 0; i < basketSize; i++) {
+                controller.enterItem(keys[next[0]++ & (keys.length - 1)], new Amount(1));
+            }
+            return controller.payment(new Amount(1_000_000), MEMBER_ID).getAmount();
+        };
+        String label = "Controller sale [catalog=" + catalogSize + ", basket=" + basketSize + "]";
+        BenchmarkRunner.measure(label, SALE_SAMPLES, invocations -> {
+            long change = 0;
+            try {
+                for (int i = 0; i < invocations; i++) {
+                    change += sale.run();
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return change;
+        });
+        BenchmarkRunner.printPercentiles("  sale latency", BenchmarkRunner.sampleLatencies(SALE_SAMPLES, sale));
+    }
+
+    private static Sale fill(List<ItemDTO> basket) {
+        Sale sale = new Sale();
+        for (ItemDTO item : basket) {
+            sale.addItemToSale(item, 2);
+        }
+        return sale;
+    }
+}
@@ -0,0 +1,66 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import se.kth.iv1350.pos.integration.HashedItemCatalog;
+import se.kth.iv1350.pos.integration.ItemDTO;
+
+/**
+ * Compares the hashed item catalog with the list scan that <code>InventorySystem</code>
+ * used before, at catalog sizes of 1k, 100k and 1M items.
+ */
+public class ItemCatalogBenchmark {
+    private static final int LOOKUPS = 10_000;
+
+    public static void main(String[] args) {
+        for (int catalogSize : new int[] {1_000, 100_000, 1_000_000}) {
+            List<ItemDTO> items = createItems(catalogSize);
+            String[] keys = randomKeys(items);
+            HashedItemCatalog catalog = new HashedItemCatalog(items);
+
+            BenchmarkRunner.measure("hashed catalog, " + catalogSize + " items", LOOKUPS, invocations -> {
+                long found = 0;
+                for (int i = 0; i < invocations; i++) {
+                    found += catalog.find(keys[i % keys.length]).getPrice() > 0 ? 1 : 0;
+                }
+                return found;
+            });
+            int scanLookups = Math.max(10, LOOKUPS / (catalogSize / 1_000));
+            BenchmarkRunner.measure("list scan, " + catalogSize + " items", scanLookups, invocations -> {
+                long found = 0;
+                for (int i = 0; i < invocations; i++) {
+                    found += scan(items, keys[i % keys.length]).getPrice() > 0 ? 1 : 0;
+                }
+                return found;
+            });
+        }
+    }
+
+    private static ItemDTO scan(List<ItemDTO> items, String itemId) {
+        for (ItemDTO item : items) {
+            if (item.getItemIdentifier().equals(itemId)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    static List<ItemDTO> createItems(int count) {
+        List<ItemDTO> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new ItemDTO("Item " + i, 0.06, 10 + i % 90, "Benchmark item", String.valueOf(10_000 + i)));
+        }
+        return items;
+    }
+
+    static String[] randomKeys(List<ItemDTO> items) {
+        Random random = new Random(42);
+        String[] keys = new String[1024];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = items.get(random.nextInt(items.size())).getItemIdentifier();
+        }
+        return keys;
+    }
+}
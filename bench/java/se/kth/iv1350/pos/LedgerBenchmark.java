@@ -0,0 +1,48 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.integration.SalesLedger;
+import se.kth.iv1350.pos.model.Sale;
+
+/**
+ * Posts sales from many lanes to a <code>SalesLedger</code>, each lane waiting until its
+ * sale is durable, and reports sales per second and sales per fsync.
+ */
+public class LedgerBenchmark {
+    private static final int SALES_PER_LANE = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        Sale sale = new Sale();
+        for (int i = 0; i < 20; i++) {
+            sale.addItemToSale(new ItemDTO("Item " + i, 0.06, 10 + i, "Benchmark item", String.valueOf(10_000 + i)), 1 + i % 3);
+        }
+        for (int lanes : new int[] {1, 4, 16, 64}) {
+            Path directory = Files.createTempDirectory("pos-ledger-bench");
+            SalesLedger ledger = new SalesLedger(directory, 64 * 1024 * 1024);
+            Thread[] threads = new Thread[lanes];
+            long start = System.nanoTime();
+            for (int i = 0; i < lanes; i++) {
+                threads[i] = new Thread(() -> {
+                    try {
+                        for (int s = 0; s < SALES_PER_LANE; s++) {
+                            ledger.awaitCommit(ledger.append(sale));
+                        }
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%3d lanes: %,10.0f durable sales/s, %6.1f sales per fsync%n", lanes,
+                    ledger.getSaleCount() / seconds, (double) ledger.getSaleCount() / ledger.getCommitCount());
+            ledger.close();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import se.kth.iv1350.pos.integration.HashedItemCatalog;
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.integration.MappedItemStore;
+
+/**
+ * Compares starting up with a catalog of 1M items by building a <code>HashedItemCatalog</code>
+ * from item objects with mapping a <code>MappedItemStore</code> file, then compares their
+ * lookups and measures in-place price updates.
+ */
+public class MappedItemStoreBenchmark {
+    private static final int CATALOG_SIZE = 1_000_000;
+
+    public static void main(String[] args) throws IOException {
+        Path file = Files.createTempFile("pos-items", ".store");
+        try {
+            List<ItemDTO> items = ItemCatalogBenchmark.createItems(CATALOG_SIZE);
+            String[] keys = ItemCatalogBenchmark.randomKeys(items);
+            MappedItemStore.create(file, items).close();
+
+            BenchmarkRunner.measure("build HashedItemCatalog, 1M items", 1, invocations -> {
+                long size = 0;
+                for (int i = 0; i < invocations; i++) {
+                    size += new HashedItemCatalog(ItemCatalogBenchmark.createItems(CATALOG_SIZE)).size();
+                }
+                return size;
+            });
+            BenchmarkRunner.measure("open MappedItemStore, 1M items", 100, invocations -> {
+                long size = 0;
+                for (int i = 0; i < invocations; i++) {
+                    try (MappedItemStore store = MappedItemStore.open(file)) {
+                        size += store.size();
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return size;
+            });
+
+            HashedItemCatalog catalog = new HashedItemCatalog(items);
+            try (MappedItemStore store = MappedItemStore.open(file)) {
+                BenchmarkRunner.measure("HashedItemCatalog.find", 100_000, invocations -> {
+                    long found = 0;
+                    for (int i = 0; i < invocations; i++) {
+                        found += catalog.find(keys[i & (keys.length - 1)]).getPrice() > 0 ? 1 : 0;
+                    }
+                    return found;
+                });
+                BenchmarkRunner.measure("MappedItemStore.find", 100_000, invocations -> {
+                    long found = 0;
+                    for (int i = 0; i < invocations; i++) {
+                        found += store.find(keys[i & (keys.length - 1)]).getPrice() > 0 ? 1 : 0;
+                    }
+                    return found;
+                });
+                BenchmarkRunner.measure("MappedItemStore.updatePrice", 100_000, invocations -> {
+                    long updated = 0;
+                    for (int i = 0; i < invocations; i++) {
+                        updated += store.updatePrice(keys[i & (keys.length - 1)], 10 + i % 90) ? 1 : 0;
+                    }
+                    return updated;
+                });
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.math.RoundingMode;
+
+import se.kth.iv1350.pos.util.Amount;
+import se.kth.iv1350.pos.util.Money;
+import se.kth.iv1350.pos.util.MoneyAccumulator;
+
+/**
+ * Compares summing a basket of prices with VAT the way <code>Sale</code> and
+ * <code>CashRegister</code> used to, with <code>Amount</code> objects and doubles, against
+ * fixed-point minor units in a <code>MoneyAccumulator</code>.
+ */
+public class MoneyBenchmark {
+    private static final int LINES = 1_000;
+
+    public static void main(String[] args) {
+        double[] prices = new double[LINES];
+        long[] minorPrices = new long[LINES];
+        for (int i = 0; i < LINES; i++) {
+            prices[i] = 10 + (i % 90) + 0.25;
+            minorPrices[i] = Money.toMinor(prices[i]);
+        }
+        int vatRate = Money.toBasisPoints(0.06);
+
+        BenchmarkRunner.measure("Amount and double totals", 10_000, invocations -> {
+            long result = 0;
+            for (int i = 0; i < invocations; i++) {
+                double totalPrice = 0.0;
+                Amount cash = new Amount(0);
+                for (double price : prices) {
+                    double vat = price * 0.06;
+                    totalPrice += price + vat;
+                    cash = cash.plus(new Amount((int) Math.round(price + vat)));
+                }
+                result += new Amount((int) Math.round(totalPrice)).getAmount() + cash.getAmount();
+            }
+            return result;
+        });
+        BenchmarkRunner.measure("MoneyAccumulator totals", 10_000, invocations -> {
+            long result = 0;
+            MoneyAccumulator totalPrice = new MoneyAccumulator();
+            MoneyAccumulator cash = new MoneyAccumulator();
+            for (int i = 0; i < invocations; i++) {
+                totalPrice.reset();
+                cash.reset();
+                for (long price : minorPrices) {
+                    long priceWithVAT = price + Money.applyRate(price, vatRate, RoundingMode.HALF_UP);
+                    totalPrice.add(priceWithVAT);
+                    cash.add(priceWithVAT);
+                }
+                result += Money.toMajor(totalPrice.getMinorUnits(), RoundingMode.HALF_UP) + cash.getMinorUnits();
+            }
+            return result;
+        });
+    }
+}
@@ -0,0 +1,106 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import se.kth.iv1350.pos.controller.Controller;
+import se.kth.iv1350.pos.discount.DiscountHandler;
+import se.kth.iv1350.pos.integration.ReceiptPrinter;
+import se.kth.iv1350.pos.integration.SystemCreator;
+import se.kth.iv1350.pos.model.CashRegister;
+import se.kth.iv1350.pos.model.Receipt;
+import se.kth.iv1350.pos.util.Amount;
+import se.kth.iv1350.pos.util.FileLogHandler;
+
+/**
+ * Drives many simulated checkout lanes against one shared <code>Controller</code> and
+ * reports the completed sales per second for an increasing number of lanes.
+ * Each lane runs on a virtual thread when the JVM supports them (Java 21 and later),
+ * otherwise on a platform thread of its own.
+ */
+public class MultiLaneLoadTest {
+    private static final int SALES_PER_LANE = 200;
+    private static final String[] ITEMS = {"11127", "11123", "11132", "11135", "1"};
+
+    public static void main(String[] args) throws Exception {
+        PrintStream originalOut = System.out;
+        System.setOut(new SilentPrintStream());
+        try {
+            Controller controller = new Controller(new SystemCreator(), new CashRegister(), new SilentPrinter(),
+                    FileLogHandler.getInstance(), new DiscountHandler());
+            runLanes(controller, 8);
+            for (int lanes : new int[] {1, 2, 4, 8, 16, 64, 256, 512}) {
+                long start = System.nanoTime();
+                runLanes(controller, lanes);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                originalOut.printf("%4d lanes: %,12.0f sales/s%n", lanes, lanes * SALES_PER_LANE / seconds);
+            }
+        } finally {
+            System.setOut(originalOut);
+        }
+    }
+
+    private static void runLanes(Controller controller, int lanes) throws InterruptedException {
+        ExecutorService executor = newLaneExecutor();
+        for (int lane = 0; lane < lanes; lane++) {
+            String laneId = "lane-" + lane;
+            executor.execute(() -> runLane(controller, laneId));
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.MINUTES);
+    }
+
+    private static void runLane(Controller controller, String laneId) {
+        try {
+            controller.assignCashRegister(laneId, new CashRegister());
+            for (int sale = 0; sale < SALES_PER_LANE; sale++) {
+                controller.makeNewSale(laneId);
+                for (int scan = 0; scan < 20; scan++) {
+                    controller.enterItem(laneId, ITEMS[scan % ITEMS.length], new Amount(1));
+                }
+                controller.payment(laneId, new Amount(10_000), null);
+            }
+            controller.closeLane(laneId);
+        } catch (Exception e) {
+            throw new IllegalStateException("Lane " + laneId + " failed.", e);
+        }
+    }
+
+    private static ExecutorService newLaneExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException noVirtualThreads) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Discards receipts, so the lanes are not serialized on the console.
+     */
+    private static class SilentPrinter extends ReceiptPrinter {
+        @Override
+        public void printReceipt(Receipt receipt) {
+        }
+    }
+
+    /**
+     * Discards the status lines printed by the external system placeholders without taking
+     * the lock a regular <code>PrintStream</code> takes on every call.
+     */
+    private static class SilentPrintStream extends PrintStream {
+        SilentPrintStream() {
+            super(OutputStream.nullOutputStream());
+        }
+
+        @Override
+        public void println(String line) {
+        }
+
+        @Override
+        public void println(Object line) {
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.model.ObserverSubscription;
+import se.kth.iv1350.pos.model.Sale;
+import se.kth.iv1350.pos.model.SaleCompletedEvent;
+import se.kth.iv1350.pos.model.SaleEventDispatcher;
+import se.kth.iv1350.pos.model.SaleObserver;
+import se.kth.iv1350.pos.util.BackpressurePolicy;
+
+/**
+ * Measures how long completing a sale takes when one of two observers is slow, here taking
+ * 50 microseconds like a flushed file write. The observers are called inline the way
+ * <code>Sale.notifyObservers</code> does, then through a <code>SaleEventDispatcher</code>
+ * with the slow observer delivered asynchronously.
+ */
+public class ObserverDispatchBenchmark {
+    private static final long SLOW_OBSERVER_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static volatile double lastPrice;
+
+    public static void main(String[] args) throws InterruptedException {
+        SaleObserver slow = price -> LockSupport.parkNanos(SLOW_OBSERVER_NANOS);
+        SaleObserver fast = price -> lastPrice = price;
+
+        BenchmarkRunner.measure("Inline observers", 2_000, invocations -> {
+            for (int i = 0; i < invocations; i++) {
+                slow.newSale(i);
+                fast.newSale(i);
+            }
+            return invocations;
+        });
+
+        Sale sale = new Sale();
+        sale.addItemToSale(new ItemDTO("Milk", 0.06, 20, "", "200"), 1);
+        SaleCompletedEvent event = SaleCompletedEvent.of(sale, System.currentTimeMillis());
+        SaleEventDispatcher dispatcher = new SaleEventDispatcher(null);
+        ObserverSubscription slowSubscription = dispatcher.subscribe(slow, SaleEventDispatcher.DeliveryMode.ASYNC,
+                1024, BackpressurePolicy.DROP, 1);
+        dispatcher.subscribe(fast, SaleEventDispatcher.DeliveryMode.SYNC);
+        BenchmarkRunner.measure("Dispatcher, slow observer async with DROP", 2_000, invocations -> {
+            for (int i = 0; i < invocations; i++) {
+                dispatcher.publish(event);
+            }
+            return invocations;
+        });
+        dispatcher.shutdown(10_000);
+        System.out.println(slowSubscription);
+    }
+}
@@ -0,0 +1,89 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import se.kth.iv1350.pos.integration.Item;
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.model.CashPayment;
+import se.kth.iv1350.pos.model.EscPosReceiptBuffer;
+import se.kth.iv1350.pos.model.Receipt;
+import se.kth.iv1350.pos.model.ReceiptTemplate;
+import se.kth.iv1350.pos.model.Sale;
+import se.kth.iv1350.pos.util.Amount;
+
+/**
+ * Compares rendering receipts of 10, 100 and 1000 lines the way <code>Receipt.toString</code>
+ * used to, with <code>String.format</code> per line, against the compiled
+ * <code>ReceiptTemplate</code> writing text into a reused <code>StringBuilder</code> and
+ * ESC/POS commands into a reused <code>EscPosReceiptBuffer</code>.
+ */
+public class ReceiptBenchmark {
+    private static final int[] LINE_COUNTS = {10, 100, 1_000};
+
+    public static void main(String[] args) {
+        for (int lineCount : LINE_COUNTS) {
+            Sale sale = new Sale();
+            for (int i = 0; i < lineCount; i++) {
+                sale.addItemToSale(new ItemDTO("Item " + i, 0.06, 10 + (i % 90) + 0.25, "", String.valueOf(i)), 1 + i % 3);
+            }
+            CashPayment payment = new CashPayment(new Amount(1_000_000), sale.getTotalPriceIncludingVAT());
+            Receipt receipt = new Receipt(sale, payment);
+            int invocations = 200_000 / lineCount;
+
+            BenchmarkRunner.measure("String.format receipt, " + lineCount + " lines", invocations, count -> {
+                long result = 0;
+                for (int i = 0; i < count; i++) {
+                    result += formatLegacy(sale, payment).length();
+                }
+                return result;
+            });
+            BenchmarkRunner.measure("Template text receipt, " + lineCount + " lines", invocations, count -> {
+                long result = 0;
+                StringBuilder out = new StringBuilder(ReceiptTemplate.DEFAULT.estimateLength(receipt));
+                for (int i = 0; i < count; i++) {
+                    out.setLength(0);
+                    ReceiptTemplate.DEFAULT.render(receipt, out);
+                    result += out.length();
+                }
+                return result;
+            });
+            BenchmarkRunner.measure("Template ESC/POS receipt, " + lineCount + " lines", invocations, count -> {
+                long result = 0;
+                EscPosReceiptBuffer out = new EscPosReceiptBuffer(ReceiptTemplate.DEFAULT.estimateLength(receipt));
+                for (int i = 0; i < count; i++) {
+                    out.reset();
+                    ReceiptTemplate.DEFAULT.render(receipt, out);
+                    result += out.size();
+                }
+                return result;
+            });
+        }
+    }
+
+    /**
+     * A copy of <code>Receipt.toString</code> before it used <code>ReceiptTemplate</code>.
+     */
+    private static String formatLegacy(Sale sale, CashPayment payment) {
+        String time = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        List<Item> items = sale.getItems();
+        Amount totalPrice = sale.getTotalPriceIncludingVAT();
+        StringBuilder builder = new StringBuilder();
+        builder.append("---------- Receipt ----------").append("\n");
+        builder.append("Time: " + time).append("\n");
+        for (Item item : items) {
+            builder.append(item.getName() + " x" + item.getQuantity() + " - " + String.format("%.2f", item.getPrice()) + " sek each").append("\n");
+        }
+        builder.append("Total Price (incl. VAT): " + String.format("%.2f", (double) totalPrice.getAmount()) + " sek").append("\n");
+        builder.append("Total VAT: " + String.format("%.2f", sale.getTotalVAT()) + " sek").append("\n");
+        if (totalPrice.getAmount() > 0) {
+            builder.append("Discount applied: " + String.format("%.2f", 0.0) + " sek").append("\n");
+            builder.append("Total Price after discount (incl. VAT): " + String.format("%.2f", (double) totalPrice.getAmount()) + " sek").append("\n");
+        }
+        builder.append("Amount Paid: " + String.format("%.2f", (double) payment.getAmountPaid().getAmount()) + " sek").append("\n");
+        builder.append("Change: " + String.format("%.2f", (double) payment.getChange().getAmount()) + " sek").append("\n");
+        builder.append("------------ End ------------").append("\n");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,73 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import se.kth.iv1350.pos.integration.CatalogBackend;
+import se.kth.iv1350.pos.integration.DatabaseUnavailableException;
+import se.kth.iv1350.pos.integration.HashedItemCatalog;
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.integration.ResilientItemCatalog;
+import se.kth.iv1350.pos.integration.SimulatedLatencyCatalog;
+import se.kth.iv1350.pos.util.CircuitBreaker;
+
+/**
+ * Prints scan latency percentiles of a degraded catalog database, called directly and through
+ * a <code>ResilientItemCatalog</code>. First the database answers in 0.3 ms but 2% of the calls
+ * take 20 ms, which hedging after 2 ms hides. Then the database is down and every call fails
+ * after 5 ms, which the open circuit breaker turns into local answers from the snapshot.
+ */
+public class ResilienceBenchmark {
+    private static final int CATALOG_SIZE = 10_000;
+    private static final int SCANS = 2_000;
+    private static final long FAST_NANOS = TimeUnit.MICROSECONDS.toNanos(300);
+    private static final long SLOW_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    public static void main(String[] args) {
+        List<ItemDTO> items = ItemCatalogBenchmark.createItems(CATALOG_SIZE);
+        HashedItemCatalog snapshot = new HashedItemCatalog(items);
+        Random random = new Random(22);
+        String[] scans = new String[SCANS];
+        for (int i = 0; i < scans.length; i++) {
+            scans[i] = items.get(random.nextInt(CATALOG_SIZE)).getItemIdentifier();
+        }
+
+        CatalogBackend slowTail = itemId -> {
+            boolean slow = ThreadLocalRandom.current().nextInt(100) < 2;
+            LockSupport.parkNanos(slow ? SLOW_NANOS : FAST_NANOS);
+            return snapshot.find(itemId);
+        };
+        BenchmarkRunner.printPercentiles("slow tail, direct", CatalogCacheBenchmark.scanAll(slowTail, scans));
+        try (ResilientItemCatalog hedged = new ResilientItemCatalog(slowTail, new CircuitBreaker(5, 1_000), snapshot,
+                2, 50, CATALOG_SIZE)) {
+            BenchmarkRunner.printPercentiles("slow tail, hedged", CatalogCacheBenchmark.scanAll(hedged, scans));
+            System.out.println("  " + hedged);
+        }
+
+        SimulatedLatencyCatalog down = new SimulatedLatencyCatalog(snapshot, 5_000, 0);
+        down.setUnavailable(true);
+        BenchmarkRunner.printPercentiles("outage, direct", scanFailing(down, scans));
+        try (ResilientItemCatalog resilient = new ResilientItemCatalog(down, new CircuitBreaker(5, 1_000), snapshot,
+                2, 50, CATALOG_SIZE)) {
+            BenchmarkRunner.printPercentiles("outage, resilient", scanFailing(resilient, scans));
+            System.out.println("  " + resilient);
+        }
+    }
+
+    private static long[] scanFailing(CatalogBackend catalog, String[] scans) {
+        long[] latencies = new long[scans.length];
+        for (int i = 0; i < scans.length; i++) {
+            long started = System.nanoTime();
+            try {
+                catalog.fetch(scans[i]);
+            } catch (DatabaseUnavailableException e) {
+                // The scan failed, its latency still counts.
+            }
+            latencies[i] = System.nanoTime() - started;
+        }
+        return latencies;
+    }
+}
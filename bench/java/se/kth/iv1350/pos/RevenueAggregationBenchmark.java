@@ -0,0 +1,75 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.util.concurrent.CountDownLatch;
+
+import se.kth.iv1350.pos.model.RevenueAggregator;
+import se.kth.iv1350.pos.util.Money;
+
+/**
+ * Compares recording sales from many lanes into one synchronized <code>double</code>, the
+ * way a shared <code>RevenueObserver</code> would need to be locked, against the striped
+ * minor-unit cells of <code>RevenueAggregator</code>.
+ */
+public class RevenueAggregationBenchmark {
+    private static final int SALES_PER_LANE = 2_000_000;
+    private static final long SALE_MINOR_UNITS = Money.toMinor(123.45);
+
+    private static double lockedRevenue;
+    private static volatile long blackhole;
+
+    public static void main(String[] args) throws InterruptedException {
+        for (int lanes : new int[] {1, 2, 4, 8, 16}) {
+            Object lock = new Object();
+            report("synchronized double", lanes, lane -> {
+                long work = lane;
+                for (int sale = 0; sale < SALES_PER_LANE; sale++) {
+                    work = checkout(work);
+                    synchronized (lock) {
+                        lockedRevenue += 123.45;
+                    }
+                }
+                blackhole += work;
+            });
+            RevenueAggregator aggregator = new RevenueAggregator();
+            report("RevenueAggregator lane cells", lanes, lane -> {
+                RevenueAggregator.LaneCell cell = aggregator.laneCell("lane-" + lane);
+                long work = lane;
+                for (int sale = 0; sale < SALES_PER_LANE; sale++) {
+                    work = checkout(work);
+                    cell.record(SALE_MINOR_UNITS);
+                }
+                blackhole += work;
+            });
+        }
+    }
+
+    /**
+     * Stands in for the rest of a checkout, so the JIT can not merge the locked sections of
+     * consecutive sales.
+     */
+    private static long checkout(long seed) {
+        for (int scan = 0; scan < 8; scan++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+        }
+        return seed;
+    }
+
+    private interface Lane {
+        void run(int lane);
+    }
+
+    private static void report(String label, int lanes, Lane work) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(lanes);
+        long start = System.nanoTime();
+        for (int lane = 0; lane < lanes; lane++) {
+            int laneNumber = lane;
+            new Thread(() -> {
+                work.run(laneNumber);
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-30s %3d lanes: %,15.0f sales/s%n", label, lanes, lanes * (double) SALES_PER_LANE / seconds);
+    }
+}
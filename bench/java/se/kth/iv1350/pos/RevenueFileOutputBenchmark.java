@@ -0,0 +1,48 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import se.kth.iv1350.pos.view.TotalRevenueFileOutput;
+
+/**
+ * Compares the cost per sale of <code>TotalRevenueFileOutput</code> writing and flushing a
+ * line after every sale against the coalescing mode writing one line per second.
+ */
+public class RevenueFileOutputBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        PrintStream originalOut = System.out;
+        Path directory = Files.createTempDirectory("revenue-bench");
+        try {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            TotalRevenueFileOutput perSale = new TotalRevenueFileOutput();
+            System.setOut(originalOut);
+            BenchmarkRunner.measure("Line per sale", 2_000, invocations -> {
+                PrintStream out = System.out;
+                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                for (int i = 0; i < invocations; i++) {
+                    perSale.newSale(123.45);
+                }
+                System.setOut(out);
+                return invocations;
+            });
+            perSale.closeLogFile();
+
+            TotalRevenueFileOutput coalescing = new TotalRevenueFileOutput(directory.resolve("revenue.tsv"), 1_000,
+                    TotalRevenueFileOutput.Durability.FORCE_DATA);
+            BenchmarkRunner.measure("Coalesced, one line per second", 2_000_000, invocations -> {
+                for (int i = 0; i < invocations; i++) {
+                    coalescing.newSale(123.45);
+                }
+                return invocations;
+            });
+            coalescing.closeLogFile();
+            System.out.printf("Lines written in coalescing mode: %d%n", coalescing.getTimeSeriesWriteCount());
+        } finally {
+            System.setOut(originalOut);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package bench.java.se.kth.iv1350.pos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import se.kth.iv1350.pos.integration.Item;
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.model.Sale;
+
+/**
+ * Builds 5k-line baskets with <code>Sale</code> and with a copy of the former
+ * implementation, which scanned every line and re-summed all totals on each scan.
+ */
+public class SaleBenchmark {
+    private static final int BASKET_LINES = 5_000;
+
+    public static void main(String[] args) {
+        List<ItemDTO> catalog = ItemCatalogBenchmark.createItems(BASKET_LINES);
+
+        BenchmarkRunner.measure("indexed sale, 5k-line basket", 20, invocations -> {
+            long total = 0;
+            for (int i = 0; i < invocations; i++) {
+                Sale sale = new Sale();
+                for (ItemDTO item : catalog) {
+                    sale.addItemToSale(item, 2);
+                }
+                total += sale.getTotalPriceIncludingVAT().getAmount();
+            }
+            return total;
+        });
+        BenchmarkRunner.measure("list-scan sale, 5k-line basket", 2, invocations -> {
+            long total = 0;
+            for (int i = 0; i < invocations; i++) {
+                ListScanSale sale = new ListScanSale();
+                for (ItemDTO item : catalog) {
+                    sale.addItemToSale(item, 2);
+                }
+                total += Math.round(sale.totalPrice);
+            }
+            return total;
+        });
+    }
+
+    /**
+     * The line-item handling of <code>Sale</code> before it kept an index and running totals.
+     */
+    private static class ListScanSale {
+        private final List<Item> items = new ArrayList<>();
+        private double totalPrice;
+
+        void addItemToSale(ItemDTO itemDTO, int quantity) {
+            Item found = null;
+            for (Item item : items) {
+                if (item.getItemIdentifier().equals(itemDTO.getItemIdentifier())) {
+                    found = item;
+                }
+            }
+            if (found != null) {
+                found.increaseQuantity(quantity);
+            } else {
+                items.add(new Item(itemDTO, quantity));
+            }
+            double sum = 0.0;
+            for (Item item : items) {
+                double itemTotal = item.getPrice() * item.getQuantity();
+                sum += itemTotal + itemTotal * item.getVATRate();
+            }
+            totalPrice = sum;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package bench.java.se.kth.iv1350.pos;
+
+import se.kth.iv1350.pos.controller.Controller;
+import se.kth.iv1350.pos.controller.OperationFailedException;
+import se.kth.iv1350.pos.discount.DiscountHandler;
+import se.kth.iv1350.pos.integration.ItemNotFoundException;
+import se.kth.iv1350.pos.integration.ReceiptPrinter;
+import se.kth.iv1350.pos.integration.SystemCreator;
+import se.kth.iv1350.pos.model.CashRegister;
+import se.kth.iv1350.pos.util.Amount;
+import se.kth.iv1350.pos.util.FileLogHandler;
+
+/**
+ * Measures the scan throughput of a lane when 0, 50 and 90 percent of the scanned identifiers
+ * are unknown, through <code>enterItem</code>, which throws <code>ItemNotFoundException</code>
+ * for a miss, and through <code>tryEnterItem</code>, which returns the miss as a result.
+ */
+public class ScanMissBenchmark {
+    private static final int SCANS = 1_024;
+    private static final int INVOCATIONS = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        Controller controller = new Controller(new SystemCreator(), new CashRegister(), new ReceiptPrinter(),
+                FileLogHandler.getInstance(), new DiscountHandler());
+        for (int missPercent : new int[] {0, 50, 90}) {
+            String[] scans = scans(missPercent);
+            controller.makeNewSale();
+            BenchmarkRunner.measure("enterItem, " + missPercent + "% misses", INVOCATIONS, invocations -> {
+                long added = 0;
+                for (int i = 0; i < invocations; i++) {
+                    try {
+                        controller.enterItem(scans[i & (SCANS - 1)], new Amount(1));
+                        added++;
+                    } catch (ItemNotFoundException e) {
+                        // A miss is what is measured.
+                    } catch (OperationFailedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return added;
+            });
+            BenchmarkRunner.measure("tryEnterItem, " + missPercent + "% misses", INVOCATIONS, invocations -> {
+                long added = 0;
+                try {
+                    for (int i = 0; i < invocations; i++) {
+                        if (controller.tryEnterItem(Controller.DEFAULT_LANE, scans[i & (SCANS - 1)], 1).isAdded()) {
+                            added++;
+                        }
+                    }
+                } catch (OperationFailedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return added;
+            });
+        }
+    }
+
+    private static String[] scans(int missPercent) {
+        String[] scans = new String[SCANS];
+        for (int i = 0; i < SCANS; i++) {
+            scans[i] = i * 7_919 % 100 < missPercent ? "UNKNOWN-" + i : "11127";
+        }
+        return scans;
+    }
+}
@@ -0,0 +1,82 @@
+package se.kth.iv1350.pos.analytics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how many units customers buy per sale. Each basket size up to a limit has its own
+ * bucket, and all larger baskets share the last bucket.
+ */
+public class BasketSizeHistogram {
+    private final AtomicLongArray counts;
+    private final int maxTrackedSize;
+
+    /**
+     * Creates an empty histogram.
+     *
+     * @param maxTrackedSize The largest basket size with a bucket of its own.
+     */
+    public BasketSizeHistogram(int maxTrackedSize) {
+        this.maxTrackedSize = maxTrackedSize;
+        this.counts = new AtomicLongArray(maxTrackedSize + 2);
+    }
+
+    /**
+     * Counts one basket.
+     *
+     * @param units The number of units in the basket.
+     */
+    public void record(int units) {
+        counts.incrementAndGet(Math.max(0, Math.min(units, maxTrackedSize + 1)));
+    }
+
+    /**
+     * Returns the number of baskets with the given number of units.
+     *
+     * @param units The basket size, at most <code>maxTrackedSize</code>.
+     * @return The number of baskets of that size.
+     */
+    public long getCount(int units) {
+        return counts.get(units);
+    }
+
+    /**
+     * Returns the number of baskets larger than the largest tracked size.
+     *
+     * @return The number of larger baskets.
+     */
+    public long getOverflowCount() {
+        return counts.get(maxTrackedSize + 1);
+    }
+
+    /**
+     * Returns the number of baskets counted.
+     *
+     * @return The number of baskets.
+     */
+    public long getTotalCount() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the smallest basket size that the given share of the baskets do not exceed.
+     *
+     * @param percentile The share, between 0 and 100.
+     * @return The basket size, or <code>maxTrackedSize + 1</code> if it is in the overflow bucket.
+     */
+    public int getPercentile(double percentile) {
+        long total = getTotalCount();
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank && seen > 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,99 @@
+package se.kth.iv1350.pos.analytics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Estimates how often each key occurred using a fixed amount of memory, however many
+ * different keys there are. An estimate is never lower than the true count, and it is at most
+ * e / width of all counted occurrences too high, with probability 1 - e<sup>-depth</sup>. With
+ * the default dimensions that is about 0.033% too high with about 98% probability. The bound
+ * needs the rows to hash independently, so each key is hashed to 64 bits from its characters,
+ * not from its 32-bit <code>hashCode</code>, and every row mixes that hash with its own seed.
+ * Counting and estimating may be done by any number of threads at once.
+ */
+public class CountMinSketch {
+    private static final long[] SEEDS = {
+        0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+        0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x27D4EB2F165667C5L, 0x94D049BB133111EBL
+    };
+
+    private final int width;
+    private final int depth;
+    private final AtomicLongArray counters;
+
+    /**
+     * Creates a sketch of 4 rows of 8192 counters, 256 KB in total.
+     */
+    public CountMinSketch() {
+        this(8192, 4);
+    }
+
+    /**
+     * Creates a sketch.
+     *
+     * @param width The number of counters per row, rounded up to a power of two. Wider rows
+     *              give smaller overestimates.
+     * @param depth The number of rows, at most 8. More rows make a large overestimate less likely.
+     */
+    public CountMinSketch(int width, int depth) {
+        if (depth < 1 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("The depth must be between 1 and " + SEEDS.length + ".");
+        }
+        this.width = Integer.highestOneBit(Math.max(2, width) - 1) << 1;
+        this.depth = depth;
+        this.counters = new AtomicLongArray(this.width * depth);
+    }
+
+    /**
+     * Counts occurrences of a key.
+     *
+     * @param key The key.
+     * @param count The number of occurrences.
+     */
+    public void add(String key, long count) {
+        long hash = hash64(key);
+        for (int row = 0; row < depth; row++) {
+            counters.addAndGet(index(hash, row), count);
+        }
+    }
+
+    /**
+     * Returns the estimated number of occurrences of a key.
+     *
+     * @param key The key.
+     * @return The estimate, never lower than the true count.
+     */
+    public long estimate(String key) {
+        long hash = hash64(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(hash, row)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Returns the memory used by the counters, in bytes.
+     *
+     * @return The size of the counters in bytes.
+     */
+    public long getFootprintBytes() {
+        return (long) width * depth * Long.BYTES;
+    }
+
+    private int index(long hash, int row) {
+        long mixed = hash ^ SEEDS[row];
+        mixed = (mixed ^ (mixed >>> 30)) * 0xBF58476D1CE4E5B9L;
+        mixed = (mixed ^ (mixed >>> 27)) * 0x94D049BB133111EBL;
+        mixed ^= mixed >>> 31;
+        return row * width + (int) (mixed & (width - 1));
+    }
+
+    private static long hash64(String key) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+}
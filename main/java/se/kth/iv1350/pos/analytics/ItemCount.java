@@ -0,0 +1,49 @@
+package se.kth.iv1350.pos.analytics;
+
+/**
+ * How many units of an item were sold, as counted by {@link SpaceSavingTopItems}.
+ */
+public final class ItemCount {
+    private final String itemIdentifier;
+    private final long count;
+    private final long maxError;
+
+    ItemCount(String itemIdentifier, long count, long maxError) {
+        this.itemIdentifier = itemIdentifier;
+        this.count = count;
+        this.maxError = maxError;
+    }
+
+    /**
+     * Returns the identifier of the item.
+     *
+     * @return The identifier of the item.
+     */
+    public String getItemIdentifier() {
+        return itemIdentifier;
+    }
+
+    /**
+     * Returns the counted units. The true number lies between
+     * <code>count - maxError</code> and <code>count</code>.
+     *
+     * @return The counted units.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns how much the count may be too high.
+     *
+     * @return The largest possible overestimate.
+     */
+    public long getMaxError() {
+        return maxError;
+    }
+
+    @Override
+    public String toString() {
+        return itemIdentifier + "=" + count + (maxError > 0 ? " (+-" + maxError + ")" : "");
+    }
+}
@@ -0,0 +1,218 @@
+package se.kth.iv1350.pos.analytics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.LongAdder;
+
+import se.kth.iv1350.pos.model.SaleCompletedEvent;
+import se.kth.iv1350.pos.model.SaleObserver;
+import se.kth.iv1350.pos.util.Money;
+
+/**
+ * Live statistics about the completed sales, kept in memory and updated as each sale
+ * completes: the revenue of the last minutes, the best selling items, how many units of any
+ * item were sold, how large the baskets are and how much VAT was collected at each rate.
+ * The memory used is fixed when the engine is created and does not grow with the number of
+ * sales or items. The engine can be fed either as a {@link SaleObserver}, for example through
+ * a <code>SaleEventDispatcher</code>, or as a subscriber of a <code>SaleEventStream</code>,
+ * and may be queried by any thread at any time.
+ */
+public class SalesAnalytics implements SaleObserver, Flow.Subscriber<SaleCompletedEvent> {
+    private static final long DEFAULT_BUCKET_MILLIS = 10_000;
+    private static final int DEFAULT_BUCKET_COUNT = 30;
+    private static final int DEFAULT_TOP_ITEM_CAPACITY = 100;
+    private static final int DEFAULT_MAX_BASKET_SIZE = 64;
+
+    private final SlidingWindowRevenue window;
+    private final CountMinSketch unitsSold;
+    private final SpaceSavingTopItems topItems;
+    private final BasketSizeHistogram basketSizes;
+    private final Map<Integer, LongAdder> vatByRate = new ConcurrentHashMap<>();
+    private final LongAdder sales = new LongAdder();
+    private final LongAdder revenueMinorUnits = new LongAdder();
+
+    /**
+     * Creates an engine with a five minute revenue window in ten second steps, the 100 best
+     * selling items, a 256 KB unit sketch and baskets of up to 64 units.
+     */
+    public SalesAnalytics() {
+        this(DEFAULT_BUCKET_MILLIS, DEFAULT_BUCKET_COUNT, DEFAULT_TOP_ITEM_CAPACITY, new CountMinSketch(),
+                DEFAULT_MAX_BASKET_SIZE);
+    }
+
+    /**
+     * Creates an engine.
+     *
+     * @param bucketMillis The resolution of the revenue window.
+     * @param bucketCount The number of steps in the revenue window.
+     * @param topItemCapacity The number of best selling items tracked.
+     * @param unitsSold The sketch counting the units of every item.
+     * @param maxBasketSize The largest basket size counted on its own.
+     */
+    public SalesAnalytics(long bucketMillis, int bucketCount, int topItemCapacity, CountMinSketch unitsSold,
+                          int maxBasketSize) {
+        this.window = new SlidingWindowRevenue(bucketMillis, bucketCount);
+        this.unitsSold = unitsSold;
+        this.topItems = new SpaceSavingTopItems(topItemCapacity);
+        this.basketSizes = new BasketSizeHistogram(maxBasketSize);
+    }
+
+    /**
+     * Adds a completed sale to the statistics.
+     *
+     * @param event The completed sale.
+     */
+    public void record(SaleCompletedEvent event) {
+        int basketSize = 0;
+        for (SaleCompletedEvent.Line line : event.getLines()) {
+            basketSize += line.getQuantity();
+            unitsSold.add(line.getItemIdentifier(), line.getQuantity());
+            topItems.add(line.getItemIdentifier(), line.getQuantity());
+            vatByRate.computeIfAbsent(line.getVATRateBasisPoints(), rate -> new LongAdder())
+                    .add(line.getVATMinorUnits());
+        }
+        long revenue = event.getTotalAfterDiscountMinorUnits();
+        window.record(event.getCompletedAtMillis(), revenue);
+        basketSizes.record(basketSize);
+        revenueMinorUnits.add(revenue);
+        sales.increment();
+    }
+
+    /**
+     * Only the price is known, which is not enough for the statistics, so this does nothing.
+     * Sales are recorded through {@link #saleCompleted(SaleCompletedEvent)}.
+     *
+     * @param priceOfPurchase The total price of the completed sale.
+     */
+    @Override
+    public void newSale(double priceOfPurchase) {
+    }
+
+    @Override
+    public void saleCompleted(SaleCompletedEvent event) {
+        record(event);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(SaleCompletedEvent event) {
+        record(event);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+    }
+
+    @Override
+    public void onComplete() {
+    }
+
+    /**
+     * Returns the revenue of the sales completed in the window ending now.
+     *
+     * @return The revenue of the window.
+     */
+    public Money getWindowRevenue() {
+        return getWindowRevenue(System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the revenue of the sales completed in the window ending at the given time.
+     *
+     * @param nowMillis The end of the window.
+     * @return The revenue of the window.
+     */
+    public Money getWindowRevenue(long nowMillis) {
+        return Money.ofMinor(window.getRevenueMinorUnits(nowMillis));
+    }
+
+    /**
+     * Returns the number of sales completed in the window ending at the given time.
+     *
+     * @param nowMillis The end of the window.
+     * @return The number of sales in the window.
+     */
+    public long getWindowSaleCount(long nowMillis) {
+        return window.getSaleCount(nowMillis);
+    }
+
+    /**
+     * Returns the length of the revenue window.
+     *
+     * @return The length of the window, in milliseconds.
+     */
+    public long getWindowMillis() {
+        return window.getWindowMillis();
+    }
+
+    /**
+     * Returns the best selling items, best first.
+     *
+     * @param limit The largest number of items to return.
+     * @return The best selling items with their counted units.
+     */
+    public List<ItemCount> getTopItems(int limit) {
+        return topItems.top(limit);
+    }
+
+    /**
+     * Returns an estimate of the units sold of any item. The estimate is never too low.
+     *
+     * @param itemIdentifier The identifier of the item.
+     * @return The estimated number of units sold.
+     */
+    public long estimateUnitsSold(String itemIdentifier) {
+        return unitsSold.estimate(itemIdentifier);
+    }
+
+    /**
+     * Returns the distribution of units per sale.
+     *
+     * @return The basket size histogram.
+     */
+    public BasketSizeHistogram getBasketSizes() {
+        return basketSizes;
+    }
+
+    /**
+     * Returns the VAT collected at each rate, in minor units, ordered by rate.
+     *
+     * @return The VAT in minor units keyed by the rate in basis points.
+     */
+    public Map<Integer, Long> getVATTotals() {
+        Map<Integer, Long> totals = new TreeMap<>();
+        vatByRate.forEach((rate, vat) -> totals.put(rate, vat.sum()));
+        return totals;
+    }
+
+    /**
+     * Returns the number of sales recorded.
+     *
+     * @return The number of sales recorded.
+     */
+    public long getSaleCount() {
+        return sales.sum();
+    }
+
+    /**
+     * Returns the revenue of all sales recorded.
+     *
+     * @return The total revenue.
+     */
+    public Money getTotalRevenue() {
+        return Money.ofMinor(revenueMinorUnits.sum());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("sales=%d revenue=%s top=%s median basket=%d", getSaleCount(), getTotalRevenue(),
+                getTopItems(3), basketSizes.getPercentile(50));
+    }
+}
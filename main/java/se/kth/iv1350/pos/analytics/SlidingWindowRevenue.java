@@ -0,0 +1,104 @@
+package se.kth.iv1350.pos.analytics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The revenue and number of sales of the last few minutes, kept in a ring of time buckets.
+ * A bucket is reused once it falls out of the window, so memory does not grow with time.
+ * Sales may be recorded and the window read by any number of threads at once.
+ */
+public class SlidingWindowRevenue {
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final AtomicLongArray bucketEpochs;
+    private final AtomicLongArray minorUnits;
+    private final AtomicLongArray saleCounts;
+
+    /**
+     * Creates an empty window.
+     *
+     * @param bucketMillis The length of one bucket, the resolution of the window.
+     * @param bucketCount The number of buckets. The window covers
+     *                    <code>bucketMillis * bucketCount</code> milliseconds.
+     */
+    public SlidingWindowRevenue(long bucketMillis, int bucketCount) {
+        this.bucketMillis = bucketMillis;
+        this.bucketCount = bucketCount;
+        this.bucketEpochs = new AtomicLongArray(bucketCount);
+        this.minorUnits = new AtomicLongArray(bucketCount);
+        this.saleCounts = new AtomicLongArray(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            bucketEpochs.set(i, -1);
+        }
+    }
+
+    /**
+     * Records a sale.
+     *
+     * @param timeMillis When the sale was completed.
+     * @param saleMinorUnits The revenue of the sale, in minor units.
+     */
+    public void record(long timeMillis, long saleMinorUnits) {
+        long epoch = timeMillis / bucketMillis;
+        int index = (int) (epoch % bucketCount);
+        long bucketEpoch = bucketEpochs.get(index);
+        if (bucketEpoch != epoch) {
+            if (bucketEpoch > epoch) {
+                return;
+            }
+            rollOver(index, epoch);
+        }
+        minorUnits.addAndGet(index, saleMinorUnits);
+        saleCounts.incrementAndGet(index);
+    }
+
+    /**
+     * Returns the revenue of the window ending at the given time.
+     *
+     * @param nowMillis The end of the window.
+     * @return The revenue in minor units.
+     */
+    public long getRevenueMinorUnits(long nowMillis) {
+        return sum(minorUnits, nowMillis);
+    }
+
+    /**
+     * Returns the number of sales in the window ending at the given time.
+     *
+     * @param nowMillis The end of the window.
+     * @return The number of sales.
+     */
+    public long getSaleCount(long nowMillis) {
+        return sum(saleCounts, nowMillis);
+    }
+
+    /**
+     * Returns the length of the window.
+     *
+     * @return The length of the window, in milliseconds.
+     */
+    public long getWindowMillis() {
+        return bucketMillis * bucketCount;
+    }
+
+    private synchronized void rollOver(int index, long epoch) {
+        if (bucketEpochs.get(index) < epoch) {
+            minorUnits.set(index, 0);
+            saleCounts.set(index, 0);
+            bucketEpochs.set(index, epoch);
+        }
+    }
+
+    private long sum(AtomicLongArray values, long nowMillis) {
+        long newestEpoch = nowMillis / bucketMillis;
+        long oldestEpoch = newestEpoch - bucketCount + 1;
+        long sum = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            long epoch = bucketEpochs.get(i);
+            if (epoch >= oldestEpoch && epoch <= newestEpoch) {
+                sum += values.get(i);
+            }
+        }
+        return sum;
+    }
+}
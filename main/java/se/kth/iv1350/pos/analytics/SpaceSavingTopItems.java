@@ -0,0 +1,132 @@
+package se.kth.iv1350.pos.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the best selling items with the Space-Saving algorithm, keeping a fixed number of
+ * counters however many different items are sold. When an item without a counter is sold
+ * and all counters are taken, the counter with the lowest count is given to the new item,
+ * which inherits that count as its possible error. Every item selling more than
+ * <code>1 / capacity</code> of all units is guaranteed to have a counter. The counters are kept
+ * in a binary min-heap, so a sale costs <code>O(log capacity)</code>.
+ */
+public class SpaceSavingTopItems {
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private final Counter[] heap;
+    private int size;
+    private long totalUnits;
+
+    private static final class Counter {
+        private String itemIdentifier;
+        private long count;
+        private long error;
+        private int heapIndex;
+    }
+
+    /**
+     * Creates an empty counter set.
+     *
+     * @param capacity The number of items that are counted at the same time.
+     */
+    public SpaceSavingTopItems(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+        this.heap = new Counter[capacity];
+    }
+
+    /**
+     * Counts sold units of an item.
+     *
+     * @param itemIdentifier The identifier of the item.
+     * @param units The number of units sold.
+     */
+    public synchronized void add(String itemIdentifier, long units) {
+        totalUnits += units;
+        Counter counter = counters.get(itemIdentifier);
+        if (counter == null && size < capacity) {
+            counter = new Counter();
+            counter.itemIdentifier = itemIdentifier;
+            counter.count = units;
+            counters.put(itemIdentifier, counter);
+            heap[size] = counter;
+            siftUp(size++);
+            return;
+        }
+        if (counter == null) {
+            counter = heap[0];
+            counters.remove(counter.itemIdentifier);
+            counter.itemIdentifier = itemIdentifier;
+            counter.error = counter.count;
+            counters.put(itemIdentifier, counter);
+        }
+        counter.count += units;
+        siftDown(counter.heapIndex);
+    }
+
+    /**
+     * Returns the best selling items, best first.
+     *
+     * @param limit The largest number of items to return.
+     * @return The best selling items.
+     */
+    public synchronized List<ItemCount> top(int limit) {
+        Counter[] sorted = Arrays.copyOf(heap, size);
+        Arrays.sort(sorted, Comparator.comparingLong((Counter counter) -> counter.count).reversed());
+        List<ItemCount> top = new ArrayList<>(Math.min(limit, size));
+        for (int i = 0; i < Math.min(limit, size); i++) {
+            top.add(new ItemCount(sorted[i].itemIdentifier, sorted[i].count, sorted[i].error));
+        }
+        return top;
+    }
+
+    /**
+     * Returns the number of units counted, including those of items that lost their counter.
+     *
+     * @return The total number of units.
+     */
+    public synchronized long getTotalUnits() {
+        return totalUnits;
+    }
+
+    private void siftUp(int index) {
+        Counter counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            heap[index] = heap[parent];
+            heap[index].heapIndex = index;
+            index = parent;
+        }
+        heap[index] = counter;
+        counter.heapIndex = index;
+    }
+
+    private void siftDown(int index) {
+        Counter counter = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (heap[child].count >= counter.count) {
+                break;
+            }
+            heap[index] = heap[child];
+            heap[index].heapIndex = index;
+            index = child;
+        }
+        heap[index] = counter;
+        counter.heapIndex = index;
+    }
+}
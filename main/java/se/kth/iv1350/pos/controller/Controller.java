@@ -6,20 +6,51 @@ import se.kth.iv1350.pos.util.Amount;
 import se.kth.iv1350.pos.util.FileLogHandler;
 import se.kth.iv1350.pos.discount.DiscountHandler;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * This is the application's only controller.
  * All calls passing to the model go through this class.
+ * The controller can serve many checkout lanes at the same time. Each lane, identified
+ * by its lane id, has its own ongoing sale, while the external systems are shared.
+ * The methods without a lane id operate on the default lane.
  */
 public class Controller {
+    /**
+     * The lane used by the methods that do not take a lane id.
+     */
+    public static final String DEFAULT_LANE = "default";
+
+    /**
+     * The shortest time between two log records about an unreachable inventory system from
+     * {@link #tryEnterItem} and {@link #enterItems}. Failures in between are counted and
+     * reported with the next record.
+     */
+    public static final long UNAVAILABLE_LOG_INTERVAL_MILLIS = 1_000;
+
     private SystemCreator systemCreator;
     public Sale sale;
     private CashRegister cashRegister;
     private ReceiptPrinter printer;
     private FileLogHandler logger;
     private DiscountHandler discountHandler;
-    private List<SaleObserver> saleObservers = new ArrayList<>();
+    private SaleCompletionPipeline completionPipeline;
+    private SaleEventDispatcher eventDispatcher;
+    private SaleEventStream eventStream;
+    private List<SaleObserver> saleObservers = new CopyOnWriteArrayList<>();
+    private Map<String, Sale> salesByLane = new ConcurrentHashMap<>();
+    private Map<String, CashRegister> cashRegistersByLane = new ConcurrentHashMap<>();
+    private final AtomicLong nextUnavailableLogNanos = new AtomicLong(System.nanoTime());
+    private final LongAdder suppressedUnavailableLogs = new LongAdder();
 
     /**
      * Creates a new instance of the Controller class.
@@ -42,17 +73,103 @@ public class Controller {
     }
 
     /**
-     * Initiates a new sale.
+     * Initiates a new sale on the default lane.
      * Sets the SystemCreator for the sale and adds the sale observers.
      */
     public void makeNewSale() {
-        this.sale = new Sale();
-        sale.setSystemCreator(systemCreator); // Ensure the SystemCreator is set for the sale
-        sale.addSaleObservers(saleObservers);  // Add observers to the sale
+        makeNewSale(DEFAULT_LANE);
+    }
+
+    /**
+     * Initiates a new sale on the specified lane, replacing any earlier sale of that lane.
+     * Sets the SystemCreator for the sale and adds the sale observers. A sale on the default
+     * lane also becomes the <code>sale</code> of the controller.
+     *
+     * @param laneId The lane, or terminal, where the sale takes place.
+     * @return The new sale.
+     */
+    public Sale makeNewSale(String laneId) {
+        Sale newSale = new Sale();
+        newSale.setSystemCreator(systemCreator); // Ensure the SystemCreator is set for the sale
+        newSale.addSaleObservers(saleObservers);  // Add observers to the sale
+        newSale.setCompletionPipeline(completionPipeline);
+        newSale.setEventDispatcher(eventDispatcher);
+        newSale.setEventStream(eventStream);
+        newSale.setLaneId(laneId);
+        salesByLane.put(laneId, newSale);
+        if (DEFAULT_LANE.equals(laneId)) {
+            this.sale = newSale;
+        }
+        return newSale;
+    }
+
+    /**
+     * Makes sales started from now on complete in the background once they are paid,
+     * so <code>payment</code> returns as soon as the cash is recorded.
+     *
+     * @param completionPipeline The pipeline completing paid sales, or <code>null</code>
+     *                           to complete them before <code>payment</code> returns.
+     */
+    public void setCompletionPipeline(SaleCompletionPipeline completionPipeline) {
+        this.completionPipeline = completionPipeline;
+    }
+
+    /**
+     * Makes sales started from now on publish themselves to the given dispatcher when they are
+     * completed, in addition to notifying the observers added with <code>addSaleObserver</code>.
+     *
+     * @param eventDispatcher The dispatcher delivering sales to its subscribed observers,
+     *                        or <code>null</code> for none.
+     */
+    public void setEventDispatcher(SaleEventDispatcher eventDispatcher) {
+        this.eventDispatcher = eventDispatcher;
+    }
+
+    /**
+     * Makes sales started from now on publish their events to the given stream when they are completed.
+     *
+     * @param eventStream The stream of completed sales, or <code>null</code> for none.
+     */
+    public void setEventStream(SaleEventStream eventStream) {
+        this.eventStream = eventStream;
     }
 
     /**
-     * Registers an item in the current sale.
+     * Gives a lane its own cash register. Lanes without one use the register
+     * given to the constructor.
+     *
+     * @param laneId       The lane that shall use the register.
+     * @param cashRegister The cash register of the lane.
+     */
+    public void assignCashRegister(String laneId, CashRegister cashRegister) {
+        cashRegistersByLane.put(laneId, cashRegister);
+    }
+
+    /**
+     * Ends the session of a lane, discarding its current sale.
+     *
+     * @param laneId The lane to close.
+     */
+    public void closeLane(String laneId) {
+        salesByLane.remove(laneId);
+        cashRegistersByLane.remove(laneId);
+        if (DEFAULT_LANE.equals(laneId)) {
+            this.sale = null;
+        }
+    }
+
+    /**
+     * Returns the current sale of a lane.
+     *
+     * @param laneId The lane of the sale.
+     * @return The current sale, or <code>null</code> if no sale has been started on the lane.
+     */
+    public Sale getSale(String laneId) {
+        return salesByLane.get(laneId);
+    }
+
+    /**
+     * Registers an item in the current sale of the default lane.
      *
      * @param itemIdentifier The identifier of the item.
      * @param quantity       The quantity of the item.
@@ -61,38 +178,210 @@ public class Controller {
      * @throws OperationFailedException If an unexpected error occurs.
      */
     public ItemDTO enterItem(String itemIdentifier, Amount quantity) throws ItemNotFoundException, OperationFailedException {
+        return enterItem(DEFAULT_LANE, itemIdentifier, quantity);
+    }
+
+    /**
+     * Registers an item in the current sale of the specified lane.
+     * Unlike {@link #tryEnterItem}, a missing item is reported with an exception, which suits
+     * a user interface that shows an error message.
+     *
+     * @param laneId         The lane where the item is scanned.
+     * @param itemIdentifier The identifier of the item.
+     * @param quantity       The quantity of the item.
+     * @return The registered item.
+     * @throws ItemNotFoundException     If the item is not found.
+     * @throws OperationFailedException If no sale is started on the lane or an unexpected error occurs.
+     */
+    public ItemDTO enterItem(String laneId, String itemIdentifier, Amount quantity) throws ItemNotFoundException, OperationFailedException {
+        Sale laneSale = currentSale(laneId);
+        LookupResult result;
         try {
-            ItemDTO foundItem = systemCreator.getInventorySystem().findItem(itemIdentifier);
-            if (foundItem != null) {
-                sale.addItemToSale(foundItem, (int) quantity.getAmount());
-                return foundItem;
-            } else {
-                throw new ItemNotFoundException("Item with identifier: " + itemIdentifier + " not found, please try again.");
+            result = systemCreator.getInventorySystem().lookupItem(itemIdentifier);
+            if (result.isFound()) {
+                laneSale.addItemToSale(result.getItem(), (int) quantity.getAmount());
+                return result.getItem();
             }
-        } catch (DatabaseUnavailableException dataExc) {
-            logger.logException(dataExc);  // Ensure it is logged once
-            throw new OperationFailedException("Inventory system server is down.", dataExc);
-        } catch (ItemNotFoundException itemNotFoundExc) {
-            logger.logException(itemNotFoundExc);  // Ensure it is logged once
-            throw itemNotFoundExc;
         } catch (Exception exp) {
             logger.logException(exp);  // Ensure it is logged once
             throw new OperationFailedException("An unexpected error occurred while processing the item.", exp);
         }
+        if (result.getStatus() == LookupResult.Status.NOT_FOUND) {
+            throw new ItemNotFoundException("Item with identifier: " + itemIdentifier + " not found, please try again.");
+        }
+        logger.logException(result.getCause());  // Ensure it is logged once
+        throw new OperationFailedException("Inventory system server is down.", result.getCause());
+    }
+
+    /**
+     * Registers an item in the current sale of the specified lane and reports the outcome as a
+     * result instead of an exception, so a mistyped identifier is as cheap as a valid one.
+     * Only an unreachable inventory system is logged, at most once per
+     * {@link #UNAVAILABLE_LOG_INTERVAL_MILLIS}.
+     *
+     * @param laneId         The lane where the item is scanned.
+     * @param itemIdentifier The identifier of the item.
+     * @param quantity       The quantity of the item.
+     * @return The outcome of the entry.
+     * @throws OperationFailedException If no sale is started on the lane.
+     */
+    public ItemEntryResult tryEnterItem(String laneId, String itemIdentifier, int quantity) throws OperationFailedException {
+        Sale laneSale = currentSale(laneId);
+        if (quantity <= 0) {
+            return new ItemEntryResult(itemIdentifier, quantity, ItemEntryResult.Status.INVALID_QUANTITY, null);
+        }
+        LookupResult result = systemCreator.getInventorySystem().lookupItem(itemIdentifier);
+        switch (result.getStatus()) {
+            case FOUND:
+                laneSale.addItemToSale(result.getItem(), quantity);
+                return new ItemEntryResult(itemIdentifier, quantity, ItemEntryResult.Status.ADDED, result.getItem());
+            case NOT_FOUND:
+                return new ItemEntryResult(itemIdentifier, quantity, ItemEntryResult.Status.NOT_FOUND, null);
+            default:
+                logUnavailable(result.getCause());
+                return new ItemEntryResult(itemIdentifier, quantity, ItemEntryResult.Status.UNAVAILABLE, null);
+        }
     }
 
     /**
-     * Processes the payment for the sale.
+     * Registers a batch of scanned items in the current sale of the default lane.
+     *
+     * @param itemIdentifiers The identifiers of the items, once for every scanned unit.
+     * @return One result for every distinct identifier, in the order first scanned.
+     * @throws OperationFailedException If no sale is started on the lane.
+     */
+    public List<ItemEntryResult> enterItems(Collection<String> itemIdentifiers) throws OperationFailedException {
+        return enterItems(DEFAULT_LANE, itemIdentifiers);
+    }
+
+    /**
+     * Registers a batch of scanned items in the current sale of the specified lane.
+     * An identifier scanned several times is entered once with the summed quantity.
+     *
+     * @param laneId          The lane where the items are scanned.
+     * @param itemIdentifiers The identifiers of the items, once for every scanned unit.
+     * @return One result for every distinct identifier, in the order first scanned.
+     * @throws OperationFailedException If no sale is started on the lane.
+     */
+    public List<ItemEntryResult> enterItems(String laneId, Collection<String> itemIdentifiers) throws OperationFailedException {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (String itemIdentifier : itemIdentifiers) {
+            quantities.merge(itemIdentifier, 1, Integer::sum);
+        }
+        return enterItems(laneId, quantities);
+    }
+
+    /**
+     * Registers a batch of items in the current sale of the specified lane. All identifiers
+     * are looked up with one call to the inventory system, and the sale's totals are updated
+     * once for the whole batch. Items that are not found, or have a quantity of zero or less,
+     * are reported in the results instead of failing the batch. If the inventory system is
+     * down, the failure is logged once and every looked-up item is reported as unavailable.
+     *
+     * @param laneId     The lane where the items are scanned.
+     * @param quantities The quantity of every item, keyed by identifier.
+     * @return One result for every identifier, in the iteration order of <code>quantities</code>.
+     * @throws OperationFailedException If no sale is started on the lane.
+     */
+    public List<ItemEntryResult> enterItems(String laneId, Map<String, Integer> quantities) throws OperationFailedException {
+        Sale laneSale = currentSale(laneId);
+        List<String> wanted = new ArrayList<>(quantities.size());
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+            if (entry.getValue() > 0) {
+                wanted.add(entry.getKey());
+            }
+        }
+        Map<String, ItemDTO> found = null;
+        Set<String> unavailable = Set.of();
+        if (!wanted.isEmpty()) {
+            try {
+                found = systemCreator.getInventorySystem().findItems(wanted);
+            } catch (PartiallyUnavailableException dataExc) {
+                logUnavailable(dataExc);
+                found = dataExc.getFoundItems();
+                unavailable = dataExc.getUnavailableItemIds();
+            } catch (DatabaseUnavailableException dataExc) {
+                logUnavailable(dataExc);
+            }
+        }
+
+        List<ItemEntryResult> results = new ArrayList<>(quantities.size());
+        List<Item> lines = new ArrayList<>(wanted.size());
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+            String itemIdentifier = entry.getKey();
+            int quantity = entry.getValue();
+            ItemEntryResult.Status status;
+            ItemDTO item = null;
+            if (quantity <= 0) {
+                status = ItemEntryResult.Status.INVALID_QUANTITY;
+            } else if (found == null || unavailable.contains(itemIdentifier)) {
+                status = ItemEntryResult.Status.UNAVAILABLE;
+            } else {
+                item = found.get(itemIdentifier);
+                if (item == null) {
+                    status = ItemEntryResult.Status.NOT_FOUND;
+                } else {
+                    status = ItemEntryResult.Status.ADDED;
+                    lines.add(new Item(item, quantity));
+                }
+            }
+            results.add(new ItemEntryResult(itemIdentifier, quantity, status, item));
+        }
+        laneSale.addItemsToSale(lines);
+        return results;
+    }
+
+    /**
+     * Logs an unreachable inventory system unless it was logged less than
+     * {@link #UNAVAILABLE_LOG_INTERVAL_MILLIS} ago, in which case it is only counted.
+     */
+    private void logUnavailable(DatabaseUnavailableException cause) {
+        long now = System.nanoTime();
+        long next = nextUnavailableLogNanos.get();
+        if (now - next < 0 || !nextUnavailableLogNanos.compareAndSet(next,
+                now + TimeUnit.MILLISECONDS.toNanos(UNAVAILABLE_LOG_INTERVAL_MILLIS))) {
+            suppressedUnavailableLogs.increment();
+            return;
+        }
+        long suppressed = suppressedUnavailableLogs.sumThenReset();
+        if (suppressed == 0) {
+            logger.logException(cause);
+        } else {
+            logger.logException(new DatabaseUnavailableException(cause.getMessage() + " " + suppressed
+                    + " more lookups failed since the last report.", false));
+        }
+    }
+
+    /**
+     * Processes the payment for the sale on the default lane.
      *
      * @param paidAmount The amount paid by the customer.
      * @param customerID The customer ID for applying discounts.
      * @return The change to be given back to the customer.
      */
     public Amount payment(Amount paidAmount, String customerID) {
+        return payment(DEFAULT_LANE, paidAmount, customerID);
+    }
+
+    /**
+     * Processes the payment for the sale on the specified lane.
+     *
+     * @param laneId     The lane where the customer pays.
+     * @param paidAmount The amount paid by the customer.
+     * @param customerID The customer ID for applying discounts.
+     * @return The change to be given back to the customer.
+     * @throws IllegalStateException If no sale is started on the lane.
+     */
+    public Amount payment(String laneId, Amount paidAmount, String customerID) {
+        Sale laneSale = salesByLane.get(laneId);
+        if (laneSale == null) {
+            throw new IllegalStateException("No sale has been started on lane " + laneId + ".");
+        }
+        CashRegister laneRegister = cashRegistersByLane.getOrDefault(laneId, cashRegister);
         if (customerID == null || customerID.isEmpty()) {
-            return sale.paymentWithoutDiscount(paidAmount, cashRegister, printer);
+            return laneSale.paymentWithoutDiscount(paidAmount, laneRegister, printer);
         } else {
-            return sale.paymentWithDiscount(paidAmount, customerID, cashRegister, discountHandler, printer);
+            return laneSale.paymentWithDiscount(paidAmount, customerID, laneRegister, discountHandler, printer);
         }
     }
 
@@ -109,4 +398,13 @@ public class Controller {
     public void addSaleObserver(SaleObserver observer) {
         saleObservers.add(observer);
     }
+
+    private Sale currentSale(String laneId) throws OperationFailedException {
+        Sale laneSale = salesByLane.get(laneId);
+        if (laneSale == null) {
+            throw new OperationFailedException("No sale has been started on lane " + laneId + ".",
+                    new IllegalStateException("Missing sale for lane " + laneId));
+        }
+        return laneSale;
+    }
 }
@@ -0,0 +1,97 @@
+package se.kth.iv1350.pos.controller;
+
+import se.kth.iv1350.pos.integration.ItemDTO;
+
+/**
+ * The outcome of entering one item identifier with {@link Controller#enterItems} or
+ * {@link Controller#tryEnterItem}. A batch reports every identifier this way instead of
+ * stopping at the first one that fails.
+ */
+public final class ItemEntryResult {
+    private final String itemIdentifier;
+    private final int quantity;
+    private final Status status;
+    private final ItemDTO item;
+
+    /**
+     * The possible outcomes of entering an item.
+     */
+    public enum Status {
+        /**
+         * The item was found and added to the sale.
+         */
+        ADDED,
+
+        /**
+         * No item has the identifier.
+         */
+        NOT_FOUND,
+
+        /**
+         * The quantity was zero or less, so the item was not looked up.
+         */
+        INVALID_QUANTITY,
+
+        /**
+         * The inventory system could not be reached.
+         */
+        UNAVAILABLE
+    }
+
+    ItemEntryResult(String itemIdentifier, int quantity, Status status, ItemDTO item) {
+        this.itemIdentifier = itemIdentifier;
+        this.quantity = quantity;
+        this.status = status;
+        this.item = item;
+    }
+
+    /**
+     * Returns the entered identifier.
+     *
+     * @return The identifier of the item.
+     */
+    public String getItemIdentifier() {
+        return itemIdentifier;
+    }
+
+    /**
+     * Returns the entered quantity, summed over all entries of the identifier in the batch.
+     *
+     * @return The quantity of the item.
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Returns the outcome of the entry.
+     *
+     * @return The status of the entry.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Tells whether the item was added to the sale.
+     *
+     * @return <code>true</code> if the status is {@link Status#ADDED}.
+     */
+    public boolean isAdded() {
+        return status == Status.ADDED;
+    }
+
+    /**
+     * Returns the added item.
+     *
+     * @return The item, or <code>null</code> if it was not added.
+     */
+    public ItemDTO getItem() {
+        return item;
+    }
+
+    @Override
+    public String toString() {
+        return itemIdentifier + " x" + quantity + ": " + status;
+    }
+}
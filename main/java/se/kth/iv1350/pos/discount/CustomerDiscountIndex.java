@@ -0,0 +1,164 @@
+package se.kth.iv1350.pos.discount;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.kth.iv1350.pos.util.Money;
+
+/**
+ * A compact, read-only table of the discount strategy of every loyalty member.
+ * Customer IDs are numeric, so they are stored as a sorted <code>long</code> array with one
+ * byte per member pointing into a small table of shared strategies. A member therefore costs
+ * nine bytes instead of a map entry, a String and a strategy object, and is found by binary search.
+ * An ID with a leading zero is not a valid member ID, since it would otherwise match the
+ * member without the zero. Use a {@link Loader} to compile an index.
+ */
+public final class CustomerDiscountIndex {
+    private static final int MAX_STRATEGIES = 256;
+    private static final int ORDINAL_BITS = 8;
+    private static final long MAX_CUSTOMER_ID = Long.MAX_VALUE >>> ORDINAL_BITS;
+
+    /**
+     * An index without any members.
+     */
+    public static final CustomerDiscountIndex EMPTY = new CustomerDiscountIndex(new long[0], new byte[0], new DiscountStrategy[0]);
+
+    private final long[] customerIds;
+    private final byte[] strategyOrdinals;
+    private final DiscountStrategy[] strategies;
+
+    private CustomerDiscountIndex(long[] customerIds, byte[] strategyOrdinals, DiscountStrategy[] strategies) {
+        this.customerIds = customerIds;
+        this.strategyOrdinals = strategyOrdinals;
+        this.strategies = strategies;
+    }
+
+    /**
+     * Finds the discount strategy of a customer.
+     *
+     * @param customerID The customer ID.
+     * @return The strategy, or <code>null</code> if the customer is not a member.
+     */
+    public DiscountStrategy find(String customerID) {
+        long key = parseCustomerId(customerID);
+        if (key < 0) {
+            return null;
+        }
+        int position = Arrays.binarySearch(customerIds, key);
+        return position < 0 ? null : strategies[strategyOrdinals[position] & 0xFF];
+    }
+
+    /**
+     * Returns the number of members in the index.
+     *
+     * @return The number of members.
+     */
+    public int size() {
+        return customerIds.length;
+    }
+
+    /**
+     * Returns the number of distinct strategies shared by the members.
+     *
+     * @return The number of strategies.
+     */
+    public int strategyCount() {
+        return strategies.length;
+    }
+
+    private static long parseCustomerId(String customerID) {
+        if (customerID == null || customerID.isEmpty() || customerID.length() > 18) {
+            return -1;
+        }
+        if (customerID.length() > 1 && customerID.charAt(0) == '0') {
+            return -1;
+        }
+        long key = 0;
+        for (int i = 0; i < customerID.length(); i++) {
+            char digit = customerID.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return -1;
+            }
+            key = key * 10 + (digit - '0');
+        }
+        return key <= MAX_CUSTOMER_ID ? key : -1;
+    }
+
+    /**
+     * Collects members and compiles them into a {@link CustomerDiscountIndex}.
+     * Percentage discounts with the same rate share one strategy instance.
+     */
+    public static class Loader {
+        private final Map<Integer, DiscountStrategy> percentageStrategies = new HashMap<>();
+        private final Map<DiscountStrategy, Integer> ordinals = new HashMap<>();
+        private final List<DiscountStrategy> strategies = new ArrayList<>();
+        private long[] packedMembers = new long[1024];
+        private int memberCount;
+
+        /**
+         * Adds a member with a percentage discount on the total cost.
+         *
+         * @param customerID The numeric customer ID.
+         * @param discountPercentage The discount, for example 0.10 for ten percent.
+         */
+        public void addPercentage(String customerID, double discountPercentage) {
+            int basisPoints = Money.toBasisPoints(discountPercentage);
+            DiscountStrategy strategy = percentageStrategies.computeIfAbsent(basisPoints,
+                    points -> new CustomerBasedDiscount(points / 10_000.0));
+            add(customerID, strategy);
+        }
+
+        /**
+         * Adds a member with the given strategy. Pass shared strategy instances, since every
+         * distinct instance takes one of the 256 places in the strategy table.
+         *
+         * @param customerID The numeric customer ID.
+         * @param strategy The discount strategy of the member.
+         * @throws IllegalArgumentException If the customer ID is not numeric, has a leading zero, or the
+         *                                  strategy table is full.
+         */
+        public void add(String customerID, DiscountStrategy strategy) {
+            long key = parseCustomerId(customerID);
+            if (key < 0) {
+                throw new IllegalArgumentException("Customer ID " + customerID + " is not a valid member ID.");
+            }
+            Integer ordinal = ordinals.get(strategy);
+            if (ordinal == null) {
+                if (strategies.size() == MAX_STRATEGIES) {
+                    throw new IllegalArgumentException("More than " + MAX_STRATEGIES + " distinct discount strategies.");
+                }
+                ordinal = strategies.size();
+                strategies.add(strategy);
+                ordinals.put(strategy, ordinal);
+            }
+            if (memberCount == packedMembers.length) {
+                packedMembers = Arrays.copyOf(packedMembers, memberCount * 2);
+            }
+            packedMembers[memberCount++] = key << ORDINAL_BITS | ordinal;
+        }
+
+        /**
+         * Sorts the members and builds the index.
+         *
+         * @return The compiled index.
+         * @throws IllegalArgumentException If a customer ID was added more than once.
+         */
+        public CustomerDiscountIndex compile() {
+            long[] packed = Arrays.copyOf(packedMembers, memberCount);
+            Arrays.parallelSort(packed);
+            long[] customerIds = new long[memberCount];
+            byte[] strategyOrdinals = new byte[memberCount];
+            for (int i = 0; i < memberCount; i++) {
+                customerIds[i] = packed[i] >>> ORDINAL_BITS;
+                strategyOrdinals[i] = (byte) packed[i];
+                if (i > 0 && customerIds[i] == customerIds[i - 1]) {
+                    throw new IllegalArgumentException("Customer ID " + customerIds[i] + " was added more than once.");
+                }
+            }
+            return new CustomerDiscountIndex(customerIds, strategyOrdinals, strategies.toArray(new DiscountStrategy[0]));
+        }
+    }
+}
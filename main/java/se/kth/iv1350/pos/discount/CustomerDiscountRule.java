@@ -0,0 +1,38 @@
+package se.kth.iv1350.pos.discount;
+
+import se.kth.iv1350.pos.util.Money;
+
+/**
+ * A percentage discount for one customer.
+ */
+public class CustomerDiscountRule extends DiscountRule {
+    private final String customerID;
+    private final int percentageBasisPoints;
+
+    /**
+     * Creates a rule.
+     *
+     * @param customerID The customer who gets the discount.
+     * @param percentage The discount, for example 0.10 for ten percent.
+     * @param priority The priority of the rule.
+     * @param cap The largest discount the rule may give in one sale, or <code>null</code> for no cap.
+     */
+    public CustomerDiscountRule(String customerID, double percentage, int priority, Money cap) {
+        super(priority, cap);
+        this.customerID = customerID;
+        this.percentageBasisPoints = Money.toBasisPoints(percentage);
+    }
+
+    /**
+     * Returns the customer who gets the discount.
+     *
+     * @return The customer ID.
+     */
+    public String getCustomerID() {
+        return customerID;
+    }
+
+    int getPercentageBasisPoints() {
+        return percentageBasisPoints;
+    }
+}
@@ -7,31 +7,88 @@ import java.util.Map;
 
 /**
  * This class handles discount calculations based on customer ID and sale details.
+ * The strategy of a customer is looked up among the configured customers, then in the
+ * loyalty member index, and the result is cached per customer.
  */
 public class DiscountHandler {
+    private static final int DEFAULT_CACHE_SIZE = 10_000;
+    private static final long DEFAULT_CACHE_TTL_MILLIS = 5 * 60 * 1000;
+
     private Map<String, DiscountStrategy> customerDiscounts;
+    private volatile CustomerDiscountIndex memberIndex = CustomerDiscountIndex.EMPTY;
+    private final DiscountStrategyCache cache;
 
     public DiscountHandler() {
+        this(DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL_MILLIS);
+    }
+
+    /**
+     * Creates a handler with a cache of the given size and time to live.
+     *
+     * @param cacheSize The maximum number of customers whose strategy is cached.
+     * @param cacheTimeToLiveMillis How long, in milliseconds, a cached strategy may be used.
+     */
+    public DiscountHandler(int cacheSize, long cacheTimeToLiveMillis) {
         customerDiscounts = new HashMap<>();
         customerDiscounts.put("1234567890", new CustomerBasedDiscount(0.10)); // 10% discount for customer ID 1234567890
         customerDiscounts.put("9876543210", new CustomerBasedDiscount(0.15)); // 15% discount for customer ID 9876543210
+        cache = new DiscountStrategyCache(cacheSize, cacheTimeToLiveMillis);
     }
 
     public Amount getDiscountAmount(Sale sale, String customerID) {
-        DiscountStrategy discountStrategy = customerDiscounts.getOrDefault(customerID, new NoDiscount());
+        DiscountStrategy discountStrategy = resolveStrategy(customerID);
         
         Amount totalDiscount = discountStrategy.calculateDiscount(sale, customerID);
         
         // Ensure discount does not exceed total price
-        if (totalDiscount.getAmount() > sale.getTotalPriceIncludingVAT().getAmount()) {
-            totalDiscount = sale.getTotalPriceIncludingVAT();
+        Amount totalPrice = sale.getTotalPriceIncludingVAT();
+        if (totalDiscount.getAmount() > totalPrice.getAmount()) {
+            totalDiscount = totalPrice;
         }
 
         return totalDiscount;
     }
 
     public boolean isEligibleForDiscount(String customerID) {
-        return customerDiscounts.containsKey(customerID);
+        return resolveStrategy(customerID) != NoDiscount.INSTANCE;
+    }
+
+    /**
+     * Replaces the loyalty member index and clears the cache, so all customers
+     * are resolved against the new index.
+     *
+     * @param memberIndex The compiled member index.
+     */
+    public void setMemberIndex(CustomerDiscountIndex memberIndex) {
+        this.memberIndex = memberIndex;
+        cache.clear();
+    }
+
+    /**
+     * Returns the cache of resolved strategies, for reading its hit and miss counts.
+     *
+     * @return The strategy cache.
+     */
+    public DiscountStrategyCache getCache() {
+        return cache;
+    }
+
+    private DiscountStrategy resolveStrategy(String customerID) {
+        if (customerID == null) {
+            return NoDiscount.INSTANCE;
+        }
+        DiscountStrategy strategy = cache.get(customerID);
+        if (strategy != null) {
+            return strategy;
+        }
+        strategy = customerDiscounts.get(customerID);
+        if (strategy == null) {
+            strategy = memberIndex.find(customerID);
+        }
+        if (strategy == null) {
+            strategy = NoDiscount.INSTANCE;
+        }
+        cache.put(customerID, strategy);
+        return strategy;
     }
-    
 }
@@ -0,0 +1,42 @@
+package se.kth.iv1350.pos.discount;
+
+import se.kth.iv1350.pos.util.Money;
+
+/**
+ * A rule of the {@link DiscountRuleEngine}. Rules with a higher priority are applied first,
+ * and percentage rules are calculated on what remains after the rules before them.
+ * Each rule can be capped to a maximum discount per sale.
+ */
+public abstract class DiscountRule {
+    private final int priority;
+    private final long capMinorUnits;
+
+    /**
+     * Creates a rule.
+     *
+     * @param priority The priority of the rule; higher priorities are applied first.
+     * @param cap The largest discount the rule may give in one sale, or <code>null</code> for no cap.
+     */
+    protected DiscountRule(int priority, Money cap) {
+        this.priority = priority;
+        this.capMinorUnits = cap == null ? Long.MAX_VALUE : cap.getMinorUnits();
+    }
+
+    /**
+     * Returns the priority of the rule.
+     *
+     * @return The priority.
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Returns the largest discount the rule may give in one sale.
+     *
+     * @return The cap, in minor units.
+     */
+    public long getCapMinorUnits() {
+        return capMinorUnits;
+    }
+}
@@ -0,0 +1,154 @@
+package se.kth.iv1350.pos.discount;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.kth.iv1350.pos.integration.Item;
+import se.kth.iv1350.pos.model.Sale;
+import se.kth.iv1350.pos.util.Amount;
+import se.kth.iv1350.pos.util.Money;
+
+/**
+ * A discount strategy that stacks any number of item, total and customer rules.
+ * <p>
+ * The sale is read in a single pass over its lines. Item rules are indexed by item
+ * identifier, so each line only looks at the rules for its own item, however many
+ * promotions are active. The matching rules are then applied in priority order: fixed
+ * amounts are subtracted and percentages are taken of what remains. Each rule is capped
+ * on its own, and the sum is capped by the largest share of the total that may be discounted.
+ * <p>
+ * Rules must be added before the engine is shared between lanes.
+ */
+public class DiscountRuleEngine implements DiscountStrategy {
+    private static final Comparator<Candidate> BY_PRIORITY = (a, b) -> Integer.compare(b.priority, a.priority);
+
+    private final Map<String, List<ItemDiscountRule>> itemRules = new HashMap<>();
+    private final Map<String, List<CustomerDiscountRule>> customerRules = new HashMap<>();
+    private final List<TotalDiscountRule> totalRules = new ArrayList<>();
+    private final int maxDiscountBasisPoints;
+    private int ruleCount;
+
+    /**
+     * Creates an engine without rules.
+     *
+     * @param maxDiscountShare The largest share of the total that may be discounted, for example 0.5.
+     */
+    public DiscountRuleEngine(double maxDiscountShare) {
+        this.maxDiscountBasisPoints = Money.toBasisPoints(maxDiscountShare);
+    }
+
+    /**
+     * Adds a rule for one item.
+     *
+     * @param rule The rule to add.
+     */
+    public void addRule(ItemDiscountRule rule) {
+        itemRules.computeIfAbsent(rule.getItemId(), itemId -> new ArrayList<>(1)).add(rule);
+        ruleCount++;
+    }
+
+    /**
+     * Adds a rule for the sale total.
+     *
+     * @param rule The rule to add.
+     */
+    public void addRule(TotalDiscountRule rule) {
+        totalRules.add(rule);
+        ruleCount++;
+    }
+
+    /**
+     * Adds a rule for one customer.
+     *
+     * @param rule The rule to add.
+     */
+    public void addRule(CustomerDiscountRule rule) {
+        customerRules.computeIfAbsent(rule.getCustomerID(), customerID -> new ArrayList<>(1)).add(rule);
+        ruleCount++;
+    }
+
+    /**
+     * Returns the number of rules in the engine.
+     *
+     * @return The number of rules.
+     */
+    public int getRuleCount() {
+        return ruleCount;
+    }
+
+    @Override
+    public Amount calculateDiscount(Sale sale, String customerID) {
+        return new Amount((int) Money.toMajor(evaluate(sale, customerID), RoundingMode.DOWN));
+    }
+
+    /**
+     * Calculates the total discount of a sale with all rules that apply to it.
+     *
+     * @param sale The sale to discount.
+     * @param customerID The customer ID, may be <code>null</code>.
+     * @return The discount in minor units.
+     */
+    public long evaluate(Sale sale, String customerID) {
+        List<Candidate> candidates = new ArrayList<>();
+        long total = 0;
+        for (Item item : sale.getItemsView()) {
+            long net = Money.toMinor(item.getPrice()) * item.getQuantity();
+            long lineTotal = net + Money.applyRate(net, Money.toBasisPoints(item.getVATRate()), RoundingMode.HALF_UP);
+            total += lineTotal;
+            List<ItemDiscountRule> rules = itemRules.get(item.getItemIdentifier());
+            if (rules != null) {
+                for (ItemDiscountRule rule : rules) {
+                    long discount = Math.min(rule.discountFor(lineTotal, item.getQuantity()), lineTotal);
+                    candidates.add(new Candidate(rule.getPriority(), discount, 0, rule.getCapMinorUnits()));
+                }
+            }
+        }
+        for (TotalDiscountRule rule : totalRules) {
+            if (rule.appliesTo(total)) {
+                candidates.add(new Candidate(rule.getPriority(), -1, rule.getPercentageBasisPoints(), rule.getCapMinorUnits()));
+            }
+        }
+        List<CustomerDiscountRule> rulesOfCustomer = customerID == null ? null : customerRules.get(customerID);
+        if (rulesOfCustomer != null) {
+            for (CustomerDiscountRule rule : rulesOfCustomer) {
+                candidates.add(new Candidate(rule.getPriority(), -1, rule.getPercentageBasisPoints(), rule.getCapMinorUnits()));
+            }
+        }
+        return applyInPriorityOrder(candidates, total);
+    }
+
+    private long applyInPriorityOrder(List<Candidate> candidates, long total) {
+        candidates.sort(BY_PRIORITY);
+        long remaining = total;
+        for (Candidate candidate : candidates) {
+            long discount = candidate.fixedAmount >= 0
+                    ? candidate.fixedAmount
+                    : Money.applyRate(remaining, candidate.basisPoints, RoundingMode.DOWN);
+            remaining -= Math.min(Math.min(discount, candidate.cap), remaining);
+        }
+        long maxDiscount = Money.applyRate(total, maxDiscountBasisPoints, RoundingMode.DOWN);
+        return Math.min(total - remaining, maxDiscount);
+    }
+
+    /**
+     * A rule that applies to the evaluated sale, either with a fixed amount already
+     * calculated from its line or with a percentage of the remaining total.
+     */
+    private static final class Candidate {
+        private final int priority;
+        private final long fixedAmount;
+        private final int basisPoints;
+        private final long cap;
+
+        private Candidate(int priority, long fixedAmount, int basisPoints, long cap) {
+            this.priority = priority;
+            this.fixedAmount = fixedAmount;
+            this.basisPoints = basisPoints;
+            this.cap = cap;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package se.kth.iv1350.pos.discount;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of the discount strategy resolved for each customer.
+ * When the cache is full, the least recently used customer is evicted, and an entry
+ * older than the time to live is treated as missing, so changed discounts are picked up.
+ */
+public class DiscountStrategyCache {
+    private final int maxEntries;
+    private final long timeToLiveNanos;
+    private final Map<String, CachedStrategy> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxEntries The maximum number of customers in the cache.
+     * @param timeToLiveMillis How long, in milliseconds, an entry may be used.
+     */
+    public DiscountStrategyCache(int maxEntries, long timeToLiveMillis) {
+        this.maxEntries = maxEntries;
+        this.timeToLiveNanos = timeToLiveMillis * 1_000_000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStrategy> eldest) {
+                if (size() > DiscountStrategyCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached strategy of a customer.
+     *
+     * @param customerID The customer ID.
+     * @return The strategy, or <code>null</code> if the customer is not cached or the entry expired.
+     */
+    public synchronized DiscountStrategy get(String customerID) {
+        CachedStrategy cached = entries.get(customerID);
+        if (cached == null || System.nanoTime() - cached.cachedAt > timeToLiveNanos) {
+            if (cached != null) {
+                entries.remove(customerID);
+            }
+            misses++;
+            return null;
+        }
+        hits++;
+        return cached.strategy;
+    }
+
+    /**
+     * Caches the strategy of a customer.
+     *
+     * @param customerID The customer ID.
+     * @param strategy The resolved strategy.
+     */
+    public synchronized void put(String customerID, DiscountStrategy strategy) {
+        entries.put(customerID, new CachedStrategy(strategy, System.nanoTime()));
+    }
+
+    /**
+     * Removes all entries, for example after the discount table has been reloaded.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of lookups served from the cache.
+     *
+     * @return The number of hits.
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that were not in the cache.
+     *
+     * @return The number of misses.
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries evicted because the cache was full.
+     *
+     * @return The number of evictions.
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of cached customers.
+     *
+     * @return The number of entries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class CachedStrategy {
+        private final DiscountStrategy strategy;
+        private final long cachedAt;
+
+        private CachedStrategy(DiscountStrategy strategy, long cachedAt) {
+            this.strategy = strategy;
+            this.cachedAt = cachedAt;
+        }
+    }
+}
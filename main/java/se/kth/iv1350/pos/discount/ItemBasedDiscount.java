@@ -4,7 +4,7 @@ import se.kth.iv1350.pos.integration.Item;
 import se.kth.iv1350.pos.model.Sale;
 import se.kth.iv1350.pos.util.Amount;
 
-import java.util.List;
+import java.util.Collection;
 
 /**
  * Discount strategy based on purchased items.
@@ -18,7 +18,7 @@ public class ItemBasedDiscount implements DiscountStrategy {
 
     @Override
     public Amount calculateDiscount(Sale sale, String customerID) {
-        List<Item> items = sale.getItems();
+        Collection<Item> items = sale.getItemsView();
         int discount = 0;
         for (Item item : items) {
             discount += discountPerItem * item.getQuantity();
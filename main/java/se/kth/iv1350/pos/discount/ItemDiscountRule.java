@@ -0,0 +1,64 @@
+package se.kth.iv1350.pos.discount;
+
+import java.math.RoundingMode;
+
+import se.kth.iv1350.pos.util.Money;
+
+/**
+ * A discount on one item, either a fixed amount off each unit or a percentage of the line.
+ */
+public class ItemDiscountRule extends DiscountRule {
+    private final String itemId;
+    private final long amountOffPerUnit;
+    private final int percentageBasisPoints;
+
+    /**
+     * Creates a rule giving a fixed amount off each unit of an item.
+     *
+     * @param itemId The identifier of the discounted item.
+     * @param amountOffPerUnit The discount per unit.
+     * @param priority The priority of the rule.
+     * @param cap The largest discount the rule may give in one sale, or <code>null</code> for no cap.
+     */
+    public ItemDiscountRule(String itemId, Money amountOffPerUnit, int priority, Money cap) {
+        super(priority, cap);
+        this.itemId = itemId;
+        this.amountOffPerUnit = amountOffPerUnit.getMinorUnits();
+        this.percentageBasisPoints = 0;
+    }
+
+    /**
+     * Creates a rule giving a percentage off the line of an item, VAT included.
+     *
+     * @param itemId The identifier of the discounted item.
+     * @param percentage The discount, for example 0.20 for twenty percent.
+     * @param priority The priority of the rule.
+     * @param cap The largest discount the rule may give in one sale, or <code>null</code> for no cap.
+     */
+    public ItemDiscountRule(String itemId, double percentage, int priority, Money cap) {
+        super(priority, cap);
+        this.itemId = itemId;
+        this.amountOffPerUnit = 0;
+        this.percentageBasisPoints = Money.toBasisPoints(percentage);
+    }
+
+    /**
+     * Returns the identifier of the discounted item.
+     *
+     * @return The item identifier.
+     */
+    public String getItemId() {
+        return itemId;
+    }
+
+    /**
+     * Calculates the discount on one line of a sale.
+     *
+     * @param lineTotal The price of the line including VAT, in minor units.
+     * @param quantity The quantity of the line.
+     * @return The discount in minor units, before the cap is applied.
+     */
+    long discountFor(long lineTotal, int quantity) {
+        return amountOffPerUnit * quantity + Money.applyRate(lineTotal, percentageBasisPoints, RoundingMode.DOWN);
+    }
+}
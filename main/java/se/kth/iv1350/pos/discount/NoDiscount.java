@@ -5,10 +5,18 @@ import se.kth.iv1350.pos.util.Amount;
 
 /**
  * Default no discount strategy.
+ * The strategy has no state, so the shared {@link #INSTANCE} can be used everywhere.
  */
 public class NoDiscount implements DiscountStrategy {
+    /**
+     * The shared instance of this strategy.
+     */
+    public static final NoDiscount INSTANCE = new NoDiscount();
+
+    private static final Amount NO_AMOUNT = new Amount(0);
+
     @Override
     public Amount calculateDiscount(Sale sale, String customerID) {
-        return new Amount(0); // No discount applied
+        return NO_AMOUNT; // No discount applied
     }
 }
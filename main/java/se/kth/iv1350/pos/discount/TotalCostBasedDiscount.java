@@ -1,23 +1,26 @@
 package se.kth.iv1350.pos.discount;
 
+import java.math.RoundingMode;
+
 import se.kth.iv1350.pos.model.Sale;
 import se.kth.iv1350.pos.util.Amount;
+import se.kth.iv1350.pos.util.Money;
 
 /**
  * Discount strategy based on total cost.
  */
 public class TotalCostBasedDiscount implements DiscountStrategy {
-    private final double discountPercentage;
+    private final int discountBasisPoints;
 
     public TotalCostBasedDiscount(double discountPercentage) {
-        this.discountPercentage = discountPercentage;
+        this.discountBasisPoints = Money.toBasisPoints(discountPercentage);
     }
 
     @Override
     public Amount calculateDiscount(Sale sale, String customerID) {
-        int totalCost = sale.getTotalPriceIncludingVAT().getAmount();
-        int discount = (int) (totalCost * discountPercentage);
-        return new Amount(discount);
+        long totalCost = sale.getTotalPriceIncludingVAT().getAmount() * Money.MINOR_PER_MAJOR;
+        long discount = Money.applyRate(totalCost, discountBasisPoints, RoundingMode.DOWN);
+        return new Amount((int) Money.toMajor(discount, RoundingMode.DOWN));
     }
 }
 
@@ -0,0 +1,33 @@
+package se.kth.iv1350.pos.discount;
+
+import se.kth.iv1350.pos.util.Money;
+
+/**
+ * A percentage discount on sales whose total, VAT included, reaches a minimum.
+ */
+public class TotalDiscountRule extends DiscountRule {
+    private final long minimumTotal;
+    private final int percentageBasisPoints;
+
+    /**
+     * Creates a rule.
+     *
+     * @param minimumTotal The smallest total that gives the discount.
+     * @param percentage The discount, for example 0.05 for five percent.
+     * @param priority The priority of the rule.
+     * @param cap The largest discount the rule may give in one sale, or <code>null</code> for no cap.
+     */
+    public TotalDiscountRule(Money minimumTotal, double percentage, int priority, Money cap) {
+        super(priority, cap);
+        this.minimumTotal = minimumTotal.getMinorUnits();
+        this.percentageBasisPoints = Money.toBasisPoints(percentage);
+    }
+
+    boolean appliesTo(long total) {
+        return total >= minimumTotal;
+    }
+
+    int getPercentageBasisPoints() {
+        return percentageBasisPoints;
+    }
+}
@@ -1,13 +1,20 @@
 
 package se.kth.iv1350.pos.integration;
 
+import java.io.IOException;
+import java.util.Map;
+import java.util.WeakHashMap;
 import se.kth.iv1350.pos.model.Sale;
 
 /**
  * The class is a placeholder for the external system for the accounting.
+ * When a {@link SalesLedger} is attached, every completed sale is persisted in it.
+ * Posting a sale is idempotent: if a post fails after the sale was appended, for example
+ * while waiting for the commit, posting it again only waits for that append to be committed.
  */
 public class  AccountingSystem {
-
+    private volatile SalesLedger ledger;
+    private final Map<Sale, Long> uncommittedPosts = new WeakHashMap<>();
    
     /**
      * Creates a new instance of the  AccountingSystem class.
@@ -23,8 +30,50 @@ public class  AccountingSystem {
      */
 
     public void updateAccounting(Sale sale) {
+        SalesLedger currentLedger = ledger;
+        if (currentLedger != null) {
+            postToLedger(currentLedger, sale);
+            return;
+        }
         System.out.println("Transaction completed, accountingsystem updated");
     }
+
+    /**
+     * Makes the accounting system persist every completed sale in the given ledger.
+     *
+     * @param ledger the ledger to post sales to, or <code>null</code> to stop persisting sales.
+     */
+    public void attachLedger(SalesLedger ledger) {
+        synchronized (uncommittedPosts) {
+            uncommittedPosts.clear();
+            this.ledger = ledger;
+        }
+    }
+
+    /**
+     * Appends the sale to the ledger, unless an earlier post already did, and waits until it is durable.
+     */
+    private void postToLedger(SalesLedger currentLedger, Sale sale) {
+        try {
+            Long sequence;
+            synchronized (uncommittedPosts) {
+                sequence = uncommittedPosts.get(sale);
+                if (sequence == null) {
+                    sequence = currentLedger.append(sale);
+                    uncommittedPosts.put(sale, sequence);
+                }
+            }
+            currentLedger.awaitCommit(sequence);
+            synchronized (uncommittedPosts) {
+                uncommittedPosts.remove(sale);
+            }
+        } catch (IOException e) {
+            throw new DatabaseUnavailableException("Failed to write the sale to the ledger: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseUnavailableException("Interrupted while waiting for the ledger commit.");
+        }
+    }
     
 }
 
@@ -0,0 +1,288 @@
+package se.kth.iv1350.pos.integration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A read-through cache in front of a slow {@link CatalogBackend}, so that an item scanned
+ * again is served locally instead of by a round-trip. Unknown identifiers are cached too,
+ * so a barcode that is not in the catalog does not reach the backend on every scan.
+ * <p>
+ * The cache holds a bounded number of entries and uses TinyLFU admission: new entries enter a
+ * small recency window, and an entry leaving the window only replaces the least recently used
+ * entry of the main area if it has been looked up more often recently, as estimated by a
+ * {@link FrequencySketch}. A burst of one-off scans therefore cannot push the popular items out.
+ * Entries expire after a fixed time, and {@link #invalidate(String)} drops an item at once,
+ * for example after its price changed. The backend is called outside the cache's lock, and a
+ * fetch that overlapped an invalidation is not cached.
+ */
+public class CachingItemCatalog implements CatalogBackend {
+    private static final double WINDOW_SHARE = 0.01;
+
+    private final CatalogBackend backend;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final FrequencySketch sketch;
+    private final int windowCapacity;
+    private final int mainCapacity;
+    private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private long generation;
+
+    private static final class Entry {
+        private final ItemDTO item;
+        private final long expiresAtNanos;
+
+        private Entry(ItemDTO item, long expiresAtNanos) {
+            this.item = item;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    /**
+     * Creates a cache.
+     * @param backend the backend to read through to.
+     * @param maximumSize the largest number of cached identifiers, at least 2.
+     * @param ttlMillis how long an entry is served before it is fetched again.
+     */
+    public CachingItemCatalog(CatalogBackend backend, int maximumSize, long ttlMillis) {
+        this(backend, maximumSize, ttlMillis, System::nanoTime);
+    }
+
+    /**
+     * Creates a cache with its own clock, for testing expiry.
+     * @param backend the backend to read through to.
+     * @param maximumSize the largest number of cached identifiers, at least 2.
+     * @param ttlMillis how long an entry is served before it is fetched again.
+     * @param nanoClock the clock deciding when entries expire, in nanoseconds.
+     */
+    public CachingItemCatalog(CatalogBackend backend, int maximumSize, long ttlMillis, LongSupplier nanoClock) {
+        if (maximumSize < 2) {
+            throw new IllegalArgumentException("The cache must hold at least two items.");
+        }
+        this.backend = backend;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.nanoClock = nanoClock;
+        this.sketch = new FrequencySketch(maximumSize);
+        this.windowCapacity = Math.max(1, (int) (maximumSize * WINDOW_SHARE));
+        this.mainCapacity = maximumSize - windowCapacity;
+    }
+
+    @Override
+    public ItemDTO fetch(String itemId) throws DatabaseUnavailableException {
+        if (itemId == null) {
+            return null;
+        }
+        long fetchGeneration;
+        synchronized (this) {
+            sketch.increment(itemId);
+            Entry entry = lookup(itemId);
+            if (entry != null) {
+                hits.increment();
+                return entry.item;
+            }
+            fetchGeneration = generation;
+        }
+        misses.increment();
+        ItemDTO item = backend.fetch(itemId);
+        synchronized (this) {
+            if (generation == fetchGeneration) {
+                insert(itemId, new Entry(item, nanoClock.getAsLong() + ttlNanos));
+            }
+        }
+        return item;
+    }
+
+    /**
+     * Serves the cached items of a batch and fetches all the others in one call to the backend.
+     * @param itemIds the identifiers of the wanted items.
+     * @return the found items keyed by identifier.
+     * @throws DatabaseUnavailableException if the backend cannot be reached. If it could answer
+     *         for some of the items, the cached items are added to the ones it found.
+     */
+    @Override
+    public Map<String, ItemDTO> fetchAll(Collection<String> itemIds) throws DatabaseUnavailableException {
+        Map<String, ItemDTO> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        long fetchGeneration;
+        synchronized (this) {
+            for (String itemId : itemIds) {
+                if (itemId == null) {
+                    continue;
+                }
+                sketch.increment(itemId);
+                Entry entry = lookup(itemId);
+                if (entry == null) {
+                    missing.add(itemId);
+                } else {
+                    hits.increment();
+                    if (entry.item != null) {
+                        found.put(itemId, entry.item);
+                    }
+                }
+            }
+            fetchGeneration = generation;
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+        misses.add(missing.size());
+        Map<String, ItemDTO> fetched;
+        try {
+            fetched = backend.fetchAll(missing);
+        } catch (PartiallyUnavailableException e) {
+            found.putAll(e.getFoundItems());
+            throw new PartiallyUnavailableException(e.getMessage(), found, e.getUnavailableItemIds());
+        }
+        synchronized (this) {
+            if (generation == fetchGeneration) {
+                long expiresAtNanos = nanoClock.getAsLong() + ttlNanos;
+                for (String itemId : missing) {
+                    insert(itemId, new Entry(fetched.get(itemId), expiresAtNanos));
+                }
+            }
+        }
+        found.putAll(fetched);
+        return found;
+    }
+
+    private Entry lookup(String itemId) {
+        Entry entry = window.get(itemId);
+        if (entry == null) {
+            entry = main.get(itemId);
+        }
+        if (entry == null || entry.expiresAtNanos - nanoClock.getAsLong() > 0) {
+            return entry;
+        }
+        window.remove(itemId);
+        main.remove(itemId);
+        return null;
+    }
+
+    /**
+     * Drops an item from the cache, so the next lookup fetches it from the backend.
+     * @param itemId the identifier of the item.
+     */
+    @Override
+    public void invalidate(String itemId) {
+        synchronized (this) {
+            window.remove(itemId);
+            main.remove(itemId);
+            generation++;
+        }
+        backend.invalidate(itemId);
+    }
+
+    /**
+     * Drops all items from the cache, for example after a new catalog was published.
+     */
+    @Override
+    public void invalidateAll() {
+        synchronized (this) {
+            window.clear();
+            main.clear();
+            generation++;
+        }
+        backend.invalidateAll();
+    }
+
+    private void insert(String itemId, Entry entry) {
+        if (main.containsKey(itemId)) {
+            main.put(itemId, entry);
+            return;
+        }
+        window.put(itemId, entry);
+        if (window.size() <= windowCapacity) {
+            return;
+        }
+        Map.Entry<String, Entry> candidate = removeEldest(window);
+        if (main.size() < mainCapacity) {
+            main.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+        String victim = main.keySet().iterator().next();
+        if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim)) {
+            main.remove(victim);
+            main.put(candidate.getKey(), candidate.getValue());
+            evictions.increment();
+        } else {
+            rejections.increment();
+        }
+    }
+
+    private static Map.Entry<String, Entry> removeEldest(LinkedHashMap<String, Entry> map) {
+        Iterator<Map.Entry<String, Entry>> eldest = map.entrySet().iterator();
+        Map.Entry<String, Entry> entry = eldest.next();
+        Map.Entry<String, Entry> removed = Map.entry(entry.getKey(), entry.getValue());
+        eldest.remove();
+        return removed;
+    }
+
+    /**
+     * Returns the number of cached identifiers.
+     * @return the number of cached identifiers.
+     */
+    public synchronized int size() {
+        return window.size() + main.size();
+    }
+
+    /**
+     * Returns the number of lookups served from the cache.
+     * @return the number of hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that went to the backend.
+     * @return the number of misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of entries pushed out of the main area by more frequent ones.
+     * @return the number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the number of entries that left the window without being admitted, because they
+     * were used less often than the entry they would have replaced.
+     * @return the number of rejected entries.
+     */
+    public long getRejectionCount() {
+        return rejections.sum();
+    }
+
+    /**
+     * Returns the share of lookups served from the cache.
+     * @return the hit ratio, between 0 and 1.
+     */
+    public double getHitRatio() {
+        long lookups = hits.sum() + misses.sum();
+        return lookups == 0 ? 0 : hits.sum() / (double) lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size=%d hits=%d misses=%d ratio=%.3f evicted=%d rejected=%d", size(), getHitCount(),
+                getMissCount(), getHitRatio(), getEvictionCount(), getRejectionCount());
+    }
+}
@@ -0,0 +1,53 @@
+package se.kth.iv1350.pos.integration;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The item storage of the external inventory system, where every lookup may be a round-trip
+ * to a database. Implementations can be stacked, for example a cache in front of a remote store.
+ */
+public interface CatalogBackend {
+    /**
+     * Fetches the item with the given identifier.
+     * @param itemId the identifier of the wanted item.
+     * @return the matching item, or <code>null</code> if the backend has no such item.
+     * @throws DatabaseUnavailableException if the backend cannot be reached.
+     */
+    ItemDTO fetch(String itemId) throws DatabaseUnavailableException;
+
+    /**
+     * Fetches several items in one call. Backends that can answer a batch in one round-trip
+     * override this, by default each item is fetched on its own.
+     * @param itemIds the identifiers of the wanted items.
+     * @return the found items keyed by identifier. Identifiers without an item are left out.
+     * @throws DatabaseUnavailableException if the backend cannot be reached. A
+     *         {@link PartiallyUnavailableException} tells which items could still be found.
+     */
+    default Map<String, ItemDTO> fetchAll(Collection<String> itemIds) throws DatabaseUnavailableException {
+        Map<String, ItemDTO> found = new HashMap<>();
+        for (String itemId : itemIds) {
+            ItemDTO item = fetch(itemId);
+            if (item != null) {
+                found.put(itemId, item);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Tells the backend that an item has changed, so that layers keeping copies of it, such as
+     * caches, drop them. Layers pass the call on to the backend below them.
+     * @param itemId the identifier of the changed item.
+     */
+    default void invalidate(String itemId) {
+    }
+
+    /**
+     * Tells the backend that the whole catalog has been replaced, so that layers keeping copies
+     * of items drop all of them. Layers pass the call on to the backend below them.
+     */
+    default void invalidateAll() {
+    }
+}
@@ -0,0 +1,410 @@
+package se.kth.iv1350.pos.integration;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads a price file into the inventory. The file is comma or tab separated, and its first
+ * line names the columns: <code>identifier</code>, <code>name</code>, <code>price</code>,
+ * <code>vat</code> and optionally <code>description</code>, in any order. Fields may be quoted
+ * with <code>"</code>, but a field may not span several lines.
+ * <p>
+ * The file is read in chunks that end at a line break, and each chunk is parsed by a worker
+ * thread while the next one is read. Prices and VAT rates are parsed straight from the bytes as
+ * fixed-point numbers, so the only objects created per row are the item and its texts. A row is
+ * rejected if a required field is empty, the price is not a positive amount with at most two
+ * decimals, or the VAT rate is not one of the Swedish rates 0, 0.06, 0.12 and 0.25. The new
+ * catalog is published in one step once the whole file is parsed, so lookups never see a
+ * half-imported catalog.
+ */
+public class CatalogImporter {
+    private static final int DEFAULT_CHUNK_BYTES = 1 << 20;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final long MAX_PRICE_MINOR_UNITS = 100_000_000;
+    private static final long[] VAT_RATES_BASIS_POINTS = {0, 600, 1200, 2500};
+    private static final long INVALID = -1;
+    private static final AtomicInteger WORKER_COUNTER = new AtomicInteger();
+
+    private final int parallelism;
+    private final int chunkBytes;
+    private final long maxInvalidRows;
+
+    /**
+     * Creates an importer with one worker per processor and 1 MB chunks, which publishes a
+     * catalog only if every row is valid.
+     */
+    public CatalogImporter() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_BYTES, 0);
+    }
+
+    /**
+     * Creates an importer.
+     * @param parallelism the number of worker threads parsing chunks.
+     * @param chunkBytes the number of bytes read per chunk. Longer lines make a chunk grow.
+     * @param maxInvalidRows the most invalid rows a file may have and still be published.
+     *                       The invalid rows themselves are always left out.
+     */
+    public CatalogImporter(int parallelism, int chunkBytes, long maxInvalidRows) {
+        this.parallelism = parallelism;
+        this.chunkBytes = chunkBytes;
+        this.maxInvalidRows = maxInvalidRows;
+    }
+
+    /**
+     * Parses a price file and, if it has no more invalid rows than allowed, publishes it as
+     * the catalog of the inventory.
+     * @param file the price file.
+     * @param inventory the inventory getting the new catalog.
+     * @return what was imported and how fast.
+     * @throws IOException if the file can not be read, or its header lacks a required column.
+     */
+    public ImportReport importCatalog(Path file, InventorySystem inventory) throws IOException {
+        long started = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "pos-catalog-import-" + WORKER_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<Chunk>> futures = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            readChunks(channel, workers, futures);
+            long rows = 0;
+            long invalid = 0;
+            List<Chunk> chunks = new ArrayList<>(futures.size());
+            int itemCount = 0;
+            for (Future<Chunk> future : futures) {
+                Chunk chunk = await(future);
+                chunks.add(chunk);
+                itemCount += chunk.items.size();
+            }
+            List<ItemDTO> items = new ArrayList<>(itemCount);
+            List<String> errors = new ArrayList<>();
+            long firstLine = 2;
+            for (Chunk chunk : chunks) {
+                rows += chunk.rows;
+                invalid += chunk.invalid;
+                items.addAll(chunk.items);
+                for (int i = 0; i < chunk.errorLines.size() && errors.size() < MAX_REPORTED_ERRORS; i++) {
+                    errors.add("Line " + (firstLine + chunk.errorLines.get(i)) + ": " + chunk.errorMessages.get(i));
+                }
+                firstLine += chunk.lines;
+            }
+            boolean publish = invalid <= maxInvalidRows;
+            int imported = 0;
+            if (publish) {
+                HashedItemCatalog catalog = new HashedItemCatalog(items);
+                inventory.loadCatalog(catalog);
+                imported = catalog.size();
+            }
+            return new ImportReport(rows, imported, invalid, errors, publish, System.nanoTime() - started);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private void readChunks(FileChannel channel, ExecutorService workers, List<Future<Chunk>> futures)
+            throws IOException {
+        Columns columns = null;
+        byte[] carry = new byte[0];
+        int awaited = 0;
+        boolean endOfFile = false;
+        while (!endOfFile) {
+            byte[] data = Arrays.copyOf(carry, carry.length + chunkBytes);
+            int filled = carry.length;
+            while (filled < data.length) {
+                int read = channel.read(ByteBuffer.wrap(data, filled, data.length - filled));
+                if (read < 0) {
+                    endOfFile = true;
+                    break;
+                }
+                filled += read;
+            }
+            int end = endOfFile ? filled : lastIndexOf(data, filled, (byte) '\n') + 1;
+            if (end == 0 && !endOfFile) {
+                carry = Arrays.copyOf(data, filled);
+                continue;
+            }
+            int start = 0;
+            if (columns == null) {
+                int headerEnd = indexOf(data, 0, end, (byte) '\n');
+                columns = Columns.parse(data, 0, headerEnd);
+                start = Math.min(headerEnd + 1, end);
+            }
+            Columns chunkColumns = columns;
+            int chunkStart = start;
+            futures.add(workers.submit(() -> parse(data, chunkStart, end, chunkColumns)));
+            carry = Arrays.copyOfRange(data, end, filled);
+            while (futures.size() - awaited > 2 * parallelism) {
+                await(futures.get(awaited++));
+            }
+        }
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while importing the catalog.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * The rows of one chunk, with line numbers counted from the start of the chunk.
+     */
+    private static final class Chunk {
+        private final List<ItemDTO> items = new ArrayList<>();
+        private final List<Integer> errorLines = new ArrayList<>();
+        private final List<String> errorMessages = new ArrayList<>();
+        private int lines;
+        private long rows;
+        private long invalid;
+
+        private void reject(String message) {
+            invalid++;
+            if (errorLines.size() < MAX_REPORTED_ERRORS) {
+                errorLines.add(lines);
+                errorMessages.add(message);
+            }
+        }
+    }
+
+    /**
+     * Where each column is, as named by the header line.
+     */
+    private static final class Columns {
+        private final byte delimiter;
+        private final int count;
+        private int identifier = -1;
+        private int name = -1;
+        private int price = -1;
+        private int vat = -1;
+        private int description = -1;
+
+        private Columns(byte delimiter, int count) {
+            this.delimiter = delimiter;
+            this.count = count;
+        }
+
+        private static Columns parse(byte[] data, int start, int end) throws IOException {
+            String header = new String(data, start, end - start, StandardCharsets.UTF_8).strip();
+            if (header.isEmpty()) {
+                throw new IOException("The price file has no header line.");
+            }
+            String delimiter = header.indexOf('\t') >= 0 ? "\t" : ",";
+            String[] names = header.split(delimiter, -1);
+            Columns columns = new Columns((byte) delimiter.charAt(0), names.length);
+            for (int i = 0; i < names.length; i++) {
+                switch (names[i].strip().replace("\"", "").toLowerCase(Locale.ROOT)) {
+                    case "identifier":
+                        columns.identifier = i;
+                        break;
+                    case "name":
+                        columns.name = i;
+                        break;
+                    case "price":
+                        columns.price = i;
+                        break;
+                    case "vat":
+                        columns.vat = i;
+                        break;
+                    case "description":
+                        columns.description = i;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (columns.identifier < 0 || columns.name < 0 || columns.price < 0 || columns.vat < 0) {
+                throw new IOException("The price file header must name the columns identifier, name, price and vat: "
+                        + header);
+            }
+            return columns;
+        }
+    }
+
+    private static Chunk parse(byte[] data, int start, int end, Columns columns) {
+        Chunk chunk = new Chunk();
+        int[] fieldStarts = new int[columns.count];
+        int[] fieldEnds = new int[columns.count];
+        boolean[] escapedQuotes = new boolean[columns.count];
+        int position = start;
+        while (position < end) {
+            int lineEnd = indexOf(data, position, end, (byte) '\n');
+            int next = lineEnd + 1;
+            if (lineEnd > position && data[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+            if (lineEnd > position) {
+                chunk.rows++;
+                parseRow(data, position, lineEnd, columns, fieldStarts, fieldEnds, escapedQuotes, chunk);
+            }
+            chunk.lines++;
+            position = next;
+        }
+        return chunk;
+    }
+
+    private static void parseRow(byte[] data, int start, int end, Columns columns, int[] fieldStarts,
+                                 int[] fieldEnds, boolean[] escapedQuotes, Chunk chunk) {
+        int field = 0;
+        int position = start;
+        while (true) {
+            if (field == columns.count) {
+                chunk.reject("more than " + columns.count + " fields");
+                return;
+            }
+            escapedQuotes[field] = false;
+            if (position < end && data[position] == '"') {
+                int closing = position + 1;
+                while (true) {
+                    if (closing >= end) {
+                        chunk.reject("unclosed quote");
+                        return;
+                    }
+                    if (data[closing] == '"') {
+                        if (closing + 1 < end && data[closing + 1] == '"') {
+                            escapedQuotes[field] = true;
+                            closing += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    closing++;
+                }
+                fieldStarts[field] = position + 1;
+                fieldEnds[field] = closing;
+                position = closing + 1;
+                if (position < end && data[position] != columns.delimiter) {
+                    chunk.reject("text after a closing quote");
+                    return;
+                }
+            } else {
+                int delimiter = indexOf(data, position, end, columns.delimiter);
+                fieldStarts[field] = position;
+                fieldEnds[field] = delimiter;
+                position = delimiter;
+            }
+            field++;
+            if (position >= end) {
+                break;
+            }
+            position++;
+        }
+        if (field < columns.count) {
+            chunk.reject("expected " + columns.count + " fields but found " + field);
+            return;
+        }
+        int id = columns.identifier;
+        int name = columns.name;
+        if (fieldEnds[id] == fieldStarts[id]) {
+            chunk.reject("missing identifier");
+            return;
+        }
+        if (fieldEnds[name] == fieldStarts[name]) {
+            chunk.reject("missing name");
+            return;
+        }
+        long price = parseFixed(data, fieldStarts[columns.price], fieldEnds[columns.price], 2);
+        if (price <= 0 || price > MAX_PRICE_MINOR_UNITS) {
+            chunk.reject("invalid price '" + text(data, fieldStarts[columns.price], fieldEnds[columns.price], false)
+                    + "'");
+            return;
+        }
+        long vat = parseFixed(data, fieldStarts[columns.vat], fieldEnds[columns.vat], 4);
+        if (!isVATRate(vat)) {
+            chunk.reject("invalid VAT rate '" + text(data, fieldStarts[columns.vat], fieldEnds[columns.vat], false)
+                    + "'");
+            return;
+        }
+        int description = columns.description;
+        chunk.items.add(new ItemDTO(
+                text(data, fieldStarts[name], fieldEnds[name], escapedQuotes[name]),
+                vat / 10_000.0,
+                price / 100.0,
+                description < 0 ? "" : text(data, fieldStarts[description], fieldEnds[description],
+                        escapedQuotes[description]),
+                text(data, fieldStarts[id], fieldEnds[id], escapedQuotes[id])));
+    }
+
+    /**
+     * Parses a non-negative decimal number with at most <code>scale</code> decimals into an
+     * integer scaled by <code>10^scale</code>, without creating any objects.
+     * @return the scaled value, or <code>INVALID</code> if the text is not such a number.
+     */
+    private static long parseFixed(byte[] data, int start, int end, int scale) {
+        if (start == end) {
+            return INVALID;
+        }
+        long value = 0;
+        int decimals = -1;
+        for (int i = start; i < end; i++) {
+            byte character = data[i];
+            if (character == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (character >= '0' && character <= '9' && value < Long.MAX_VALUE / 100) {
+                if (decimals >= 0 && ++decimals > scale) {
+                    return INVALID;
+                }
+                value = value * 10 + (character - '0');
+            } else {
+                return INVALID;
+            }
+        }
+        for (int i = Math.max(decimals, 0); i < scale; i++) {
+            value *= 10;
+        }
+        return value;
+    }
+
+    private static boolean isVATRate(long basisPoints) {
+        for (long rate : VAT_RATES_BASIS_POINTS) {
+            if (rate == basisPoints) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String text(byte[] data, int start, int end, boolean escapedQuotes) {
+        String text = new String(data, start, end - start, StandardCharsets.UTF_8);
+        return escapedQuotes ? text.replace("\"\"", "\"") : text;
+    }
+
+    private static int indexOf(byte[] data, int start, int end, byte wanted) {
+        for (int i = start; i < end; i++) {
+            if (data[i] == wanted) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static int lastIndexOf(byte[] data, int end, byte wanted) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (data[i] == wanted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
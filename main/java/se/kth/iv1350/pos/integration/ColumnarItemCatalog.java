@@ -0,0 +1,299 @@
+package se.kth.iv1350.pos.integration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import se.kth.iv1350.pos.util.Money;
+
+/**
+ * An item catalog stored column by column in a few primitive arrays instead of one object
+ * per item. Prices are kept as minor units in a <code>long[]</code> and VAT rates as basis
+ * points in a <code>short[]</code>. Identifiers are packed as UTF-8 into one byte array, and
+ * names and descriptions are dictionary-encoded: each distinct text is stored once, and every
+ * item refers to it by number. A million-item catalog therefore takes a handful of large
+ * arrays, which the garbage collector scans almost for free.
+ * <p>
+ * A lookup returns a small flyweight view that is an {@link ItemDTO} and reads its fields
+ * from the columns on demand, so the rest of the system works with it unchanged. Each call
+ * to a text getter decodes a new string.
+ */
+public final class ColumnarItemCatalog implements ItemCatalog {
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    private final byte[] idBytes;
+    private final int[] idOffsets;
+    private final long[] prices;
+    private final short[] vatRates;
+    private final int[] nameCodes;
+    private final int[] descriptionCodes;
+    private final byte[] textBytes;
+    private final int[] textOffsets;
+    private final int[] index;
+    private final int mask;
+    private final int size;
+
+    /**
+     * Creates a catalog holding the given items. If several items share an identifier,
+     * the last one wins.
+     * @param items the items to load into the catalog.
+     */
+    public ColumnarItemCatalog(Collection<ItemDTO> items) {
+        this(builderOf(items));
+    }
+
+    private ColumnarItemCatalog(Builder builder) {
+        int records = builder.records;
+        idBytes = Arrays.copyOf(builder.idBytes, builder.idLength);
+        idOffsets = Arrays.copyOf(builder.idOffsets, records + 1);
+        prices = Arrays.copyOf(builder.prices, records);
+        vatRates = Arrays.copyOf(builder.vatRates, records);
+        nameCodes = Arrays.copyOf(builder.nameCodes, records);
+        descriptionCodes = Arrays.copyOf(builder.descriptionCodes, records);
+        textBytes = Arrays.copyOf(builder.textBytes, builder.textLength);
+        textOffsets = Arrays.copyOf(builder.textOffsets, builder.textCodes.size() + 1);
+        index = new int[tableCapacity(records)];
+        mask = index.length - 1;
+        int unique = 0;
+        for (int record = 0; record < records; record++) {
+            int slot = hash(idBytes, idOffsets[record], idOffsets[record + 1]) & mask;
+            while (index[slot] != 0 && !sameIdentifier(index[slot] - 1, record)) {
+                slot = (slot + 1) & mask;
+            }
+            if (index[slot] == 0) {
+                unique++;
+            }
+            index[slot] = record + 1;
+        }
+        size = unique;
+    }
+
+    /**
+     * Creates a builder that adds items field by field, so a loader does not have to create an
+     * <code>ItemDTO</code> for every item.
+     * @param expectedItems the number of items expected, used to size the columns.
+     * @return the new builder.
+     */
+    public static Builder builder(int expectedItems) {
+        return new Builder(expectedItems);
+    }
+
+    private static Builder builderOf(Collection<ItemDTO> items) {
+        Builder builder = new Builder(items.size());
+        for (ItemDTO item : items) {
+            builder.add(item.getItemIdentifier(), item.getName(), item.getPrice(), item.getVATRate(),
+                    item.getDescription());
+        }
+        return builder;
+    }
+
+    @Override
+    public ItemDTO find(String itemId) {
+        if (itemId == null) {
+            return null;
+        }
+        byte[] wanted = itemId.getBytes(StandardCharsets.UTF_8);
+        int slot = hash(wanted, 0, wanted.length) & mask;
+        while (index[slot] != 0) {
+            int record = index[slot] - 1;
+            if (Arrays.equals(idBytes, idOffsets[record], idOffsets[record + 1], wanted, 0, wanted.length)) {
+                return new ItemView(record);
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of distinct names and descriptions stored.
+     * @return the number of entries in the text dictionary.
+     */
+    public int getDistinctTextCount() {
+        return textOffsets.length - 1;
+    }
+
+    /**
+     * Returns the memory used by the columns and the index, in bytes.
+     * @return the size of all arrays in bytes.
+     */
+    public long getFootprintBytes() {
+        return arrayBytes(idBytes.length, Byte.BYTES) + arrayBytes(idOffsets.length, Integer.BYTES)
+                + arrayBytes(prices.length, Long.BYTES) + arrayBytes(vatRates.length, Short.BYTES)
+                + arrayBytes(nameCodes.length, Integer.BYTES) + arrayBytes(descriptionCodes.length, Integer.BYTES)
+                + arrayBytes(textBytes.length, Byte.BYTES) + arrayBytes(textOffsets.length, Integer.BYTES)
+                + arrayBytes(index.length, Integer.BYTES);
+    }
+
+    private static long arrayBytes(int length, int elementBytes) {
+        return ARRAY_HEADER_BYTES + ((long) length * elementBytes + 7) / 8 * 8;
+    }
+
+    private boolean sameIdentifier(int record, int other) {
+        return Arrays.equals(idBytes, idOffsets[record], idOffsets[record + 1],
+                idBytes, idOffsets[other], idOffsets[other + 1]);
+    }
+
+    private String text(int code) {
+        return new String(textBytes, textOffsets[code], textOffsets[code + 1] - textOffsets[code],
+                StandardCharsets.UTF_8);
+    }
+
+    private static int hash(byte[] bytes, int start, int end) {
+        int hash = 0x811C9DC5;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ bytes[i]) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int tableCapacity(int expectedItems) {
+        int capacity = 16;
+        while (capacity < expectedItems * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * An item of the catalog, read from the columns on demand.
+     */
+    private final class ItemView extends ItemDTO {
+        private final int record;
+
+        private ItemView(int record) {
+            super(null, 0, 0, null, null);
+            this.record = record;
+        }
+
+        @Override
+        public String getName() {
+            return text(nameCodes[record]);
+        }
+
+        @Override
+        public String getDescription() {
+            return text(descriptionCodes[record]);
+        }
+
+        @Override
+        public String getItemIdentifier() {
+            return new String(idBytes, idOffsets[record], idOffsets[record + 1] - idOffsets[record],
+                    StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public double getPrice() {
+            return prices[record] / (double) Money.MINOR_PER_MAJOR;
+        }
+
+        @Override
+        public double getVATRate() {
+            return vatRates[record] / 10_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return "ItemDTO{name='" + getName() + "', VATRate=" + getVATRate() + ", price=" + getPrice()
+                    + ", description='" + getDescription() + "', itemId='" + getItemIdentifier() + "'}";
+        }
+    }
+
+    /**
+     * Collects the columns of a catalog one item at a time.
+     */
+    public static final class Builder {
+        private final Map<String, Integer> textCodes = new HashMap<>();
+        private byte[] idBytes;
+        private int idLength;
+        private int[] idOffsets;
+        private long[] prices;
+        private short[] vatRates;
+        private int[] nameCodes;
+        private int[] descriptionCodes;
+        private byte[] textBytes;
+        private int textLength;
+        private int[] textOffsets;
+        private int records;
+
+        private Builder(int expectedItems) {
+            int capacity = Math.max(16, expectedItems);
+            idBytes = new byte[capacity * 8];
+            idOffsets = new int[capacity + 1];
+            prices = new long[capacity];
+            vatRates = new short[capacity];
+            nameCodes = new int[capacity];
+            descriptionCodes = new int[capacity];
+            textBytes = new byte[capacity * 8];
+            textOffsets = new int[capacity + 1];
+        }
+
+        /**
+         * Adds an item.
+         * @param itemId the identifier of the item.
+         * @param name the name of the item.
+         * @param price the price of the item, excluding VAT.
+         * @param vatRate the VAT rate of the item, for example 0.06.
+         * @param description the description of the item.
+         * @return this builder.
+         */
+        public Builder add(String itemId, String name, double price, double vatRate, String description) {
+            if (records == prices.length) {
+                int capacity = records * 2;
+                idOffsets = Arrays.copyOf(idOffsets, capacity + 1);
+                prices = Arrays.copyOf(prices, capacity);
+                vatRates = Arrays.copyOf(vatRates, capacity);
+                nameCodes = Arrays.copyOf(nameCodes, capacity);
+                descriptionCodes = Arrays.copyOf(descriptionCodes, capacity);
+            }
+            byte[] id = itemId.getBytes(StandardCharsets.UTF_8);
+            idBytes = ensureCapacity(idBytes, idLength + id.length);
+            System.arraycopy(id, 0, idBytes, idLength, id.length);
+            idLength += id.length;
+            idOffsets[records + 1] = idLength;
+            prices[records] = Money.toMinor(price);
+            vatRates[records] = (short) Money.toBasisPoints(vatRate);
+            nameCodes[records] = textCode(name);
+            descriptionCodes[records] = textCode(description);
+            records++;
+            return this;
+        }
+
+        /**
+         * Builds the catalog. The builder must not be used afterwards.
+         * @return the new catalog.
+         */
+        public ColumnarItemCatalog build() {
+            return new ColumnarItemCatalog(this);
+        }
+
+        private int textCode(String text) {
+            String key = text == null ? "" : text;
+            Integer code = textCodes.get(key);
+            if (code != null) {
+                return code;
+            }
+            int newCode = textCodes.size();
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            textBytes = ensureCapacity(textBytes, textLength + bytes.length);
+            System.arraycopy(bytes, 0, textBytes, textLength, bytes.length);
+            textLength += bytes.length;
+            if (newCode + 1 == textOffsets.length) {
+                textOffsets = Arrays.copyOf(textOffsets, textOffsets.length * 2);
+            }
+            textOffsets[newCode + 1] = textLength;
+            textCodes.put(key, newCode);
+            return newCode;
+        }
+
+        private static byte[] ensureCapacity(byte[] bytes, int needed) {
+            return needed <= bytes.length ? bytes : Arrays.copyOf(bytes, Math.max(needed, bytes.length * 2));
+        }
+    }
+}
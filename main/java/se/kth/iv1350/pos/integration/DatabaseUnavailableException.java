@@ -14,4 +14,15 @@ public class DatabaseUnavailableException  extends RuntimeException
       super(message);
   }
 
-}
\ No newline at end of file
+    /**
+     * Creates an instance without a stack trace. While the database is down every scan fails
+     * the same way, so the exception may be created once and shared, or created per lookup
+     * without the cost of capturing the stack.
+     *  @param message The message that describes what went wrong.
+     *  @param withStackTrace <code>false</code> to leave out the stack trace.
+     */
+    public DatabaseUnavailableException(String message, boolean withStackTrace) {
+      super(message, null, false, withStackTrace);
+  }
+
+}
@@ -6,15 +6,24 @@ import se.kth.iv1350.pos.discount.CustomerBasedDiscount;
 
 /**
  * Simulates a discount database.
+ * The strategies are immutable, so every lookup returns one of a few shared instances.
  */
 public class DiscountDatabase {
+    private static final DiscountStrategy FORTY_PERCENT = new CustomerBasedDiscount(0.4);
+    private static final DiscountStrategy SIXTY_PERCENT = new CustomerBasedDiscount(0.6);
+    private static final DiscountStrategy DEFAULT_DISCOUNT = new TotalCostBasedDiscount(0.05);
+
     public DiscountStrategy getDiscountStrategy(String customerID) {
-        if ("9312209438".equals(customerID)) {
-            return new CustomerBasedDiscount(0.4);
-        } else if ("8304102472".equals(customerID)) {
-            return new CustomerBasedDiscount(0.6);
-        } else {
-            return new TotalCostBasedDiscount(0.05); 
+        if (customerID == null) {
+            return DEFAULT_DISCOUNT;
+        }
+        switch (customerID) {
+            case "9312209438":
+                return FORTY_PERCENT;
+            case "8304102472":
+                return SIXTY_PERCENT;
+            default:
+                return DEFAULT_DISCOUNT;
         }
     }
 }
@@ -0,0 +1,94 @@
+package se.kth.iv1350.pos.integration;
+
+/**
+ * Estimates how often each key was used recently, for deciding which of two keys is more
+ * worth caching. Each key has four 4-bit counters spread over a table of longs, and its
+ * frequency is the smallest of them. Once the sketch has counted ten uses per cache entry,
+ * all counters are halved, so keys that were popular long ago fade out. Not thread-safe, the
+ * owning cache calls it under its lock.
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {
+        0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * Creates a sketch sized for a cache of the given size.
+     * @param maximumSize the number of entries in the cache.
+     */
+    FrequencySketch(int maximumSize) {
+        int size = Integer.highestOneBit(Math.max(16, maximumSize) - 1) << 1;
+        this.table = new long[size];
+        this.mask = size - 1;
+        this.sampleSize = 10 * Math.max(16, maximumSize);
+    }
+
+    /**
+     * Returns the estimated number of recent uses of a key, at most 15.
+     * @param key the key.
+     * @return the estimated frequency.
+     */
+    int frequency(String key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < SEEDS.length; row++) {
+            long mixed = mix(hash, row);
+            int shift = counterShift(mixed);
+            frequency = Math.min(frequency, (int) ((table[index(mixed)] >>> shift) & MAX_COUNT));
+        }
+        return frequency;
+    }
+
+    /**
+     * Counts one use of a key.
+     * @param key the key.
+     */
+    void increment(String key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            long mixed = mix(hash, row);
+            int index = index(mixed);
+            int shift = counterShift(mixed);
+            if (((table[index] >>> shift) & MAX_COUNT) < MAX_COUNT) {
+                table[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private static int spread(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static long mix(int hash, int row) {
+        long mixed = (hash + SEEDS[row]) * SEEDS[row];
+        return mixed ^ (mixed >>> 29);
+    }
+
+    private int index(long mixed) {
+        return (int) mixed & mask;
+    }
+
+    private static int counterShift(long mixed) {
+        return (int) ((mixed >>> 40) & 15) << 2;
+    }
+}
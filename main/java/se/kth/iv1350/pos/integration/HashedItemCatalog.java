@@ -0,0 +1,117 @@
+package se.kth.iv1350.pos.integration;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An item catalog that gives constant-time lookups by item identifier.
+ * Numeric barcodes such as "11127" are kept in an open-addressing table keyed by a
+ * primitive <code>long</code>, so looking them up neither hashes nor allocates a String.
+ * All other identifiers are kept in an ordinary hash map.
+ */
+public final class HashedItemCatalog implements ItemCatalog {
+    private static final long EMPTY = -1L;
+    private static final int MAX_NUMERIC_DIGITS = 18;
+
+    private final long[] numericKeys;
+    private final ItemDTO[] numericItems;
+    private final int mask;
+    private final Map<String, ItemDTO> otherItems = new HashMap<>();
+    private int size;
+
+    /**
+     * Creates a catalog holding the given items. If several items share an identifier,
+     * the last one wins.
+     * @param items the items to load into the catalog.
+     */
+    public HashedItemCatalog(Collection<ItemDTO> items) {
+        int capacity = tableCapacity(items.size());
+        numericKeys = new long[capacity];
+        numericItems = new ItemDTO[capacity];
+        mask = capacity - 1;
+        Arrays.fill(numericKeys, EMPTY);
+        for (ItemDTO item : items) {
+            put(item);
+        }
+    }
+
+    @Override
+    public ItemDTO find(String itemId) {
+        if (itemId == null) {
+            return null;
+        }
+        long key = numericKey(itemId);
+        if (key == EMPTY) {
+            return otherItems.get(itemId);
+        }
+        int slot = slotOf(key);
+        while (numericKeys[slot] != EMPTY) {
+            if (numericKeys[slot] == key) {
+                return numericItems[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void put(ItemDTO item) {
+        String itemId = item.getItemIdentifier();
+        long key = numericKey(itemId);
+        if (key == EMPTY) {
+            if (otherItems.put(itemId, item) == null) {
+                size++;
+            }
+            return;
+        }
+        int slot = slotOf(key);
+        while (numericKeys[slot] != EMPTY && numericKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (numericKeys[slot] == EMPTY) {
+            size++;
+        }
+        numericKeys[slot] = key;
+        numericItems[slot] = item;
+    }
+
+    private int slotOf(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+
+    /**
+     * Converts an identifier made only of digits to its numeric value. Identifiers with
+     * leading zeros are not converted, since "011" and "11" are different items.
+     * @return the numeric key, or <code>EMPTY</code> if the identifier is not a plain number.
+     */
+    private static long numericKey(String itemId) {
+        int length = itemId.length();
+        if (length == 0 || length > MAX_NUMERIC_DIGITS || (length > 1 && itemId.charAt(0) == '0')) {
+            return EMPTY;
+        }
+        long key = 0;
+        for (int i = 0; i < length; i++) {
+            char digit = itemId.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return EMPTY;
+            }
+            key = key * 10 + (digit - '0');
+        }
+        return key;
+    }
+
+    private static int tableCapacity(int expectedItems) {
+        int capacity = 16;
+        while (capacity < expectedItems * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,91 @@
+package se.kth.iv1350.pos.integration;
+
+import java.util.List;
+
+/**
+ * The outcome of one catalog import by {@link CatalogImporter}: how many rows were read and
+ * imported, which rows were rejected and why, whether the catalog was published and how fast
+ * the file was processed.
+ */
+public final class ImportReport {
+    private final long rowCount;
+    private final int importedCount;
+    private final long invalidCount;
+    private final List<String> errors;
+    private final boolean published;
+    private final long elapsedNanos;
+
+    ImportReport(long rowCount, int importedCount, long invalidCount, List<String> errors, boolean published,
+                 long elapsedNanos) {
+        this.rowCount = rowCount;
+        this.importedCount = importedCount;
+        this.invalidCount = invalidCount;
+        this.errors = List.copyOf(errors);
+        this.published = published;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the number of data rows in the file, not counting the header and empty lines.
+     * @return the number of rows read.
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of items in the new catalog.
+     * @return the number of items imported.
+     */
+    public int getImportedCount() {
+        return importedCount;
+    }
+
+    /**
+     * Returns the number of rows that were rejected.
+     * @return the number of invalid rows.
+     */
+    public long getInvalidCount() {
+        return invalidCount;
+    }
+
+    /**
+     * Returns the reasons the first invalid rows were rejected, with their line numbers.
+     * @return the error messages, in line order.
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Tells whether the new catalog replaced the old one. It is not published if there were
+     * more invalid rows than the importer allows.
+     * @return <code>true</code> if the catalog was published.
+     */
+    public boolean isPublished() {
+        return published;
+    }
+
+    /**
+     * Returns the time spent reading, parsing and publishing, in milliseconds.
+     * @return the elapsed time in milliseconds.
+     */
+    public double getElapsedMillis() {
+        return elapsedNanos / 1e6;
+    }
+
+    /**
+     * Returns the number of rows processed per second.
+     * @return the import rate in rows per second.
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowCount / (elapsedNanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: rows=%d imported=%d invalid=%d in %.1f ms (%.0f rows/s)",
+                published ? "published" : "rejected", rowCount, importedCount, invalidCount, getElapsedMillis(),
+                getRowsPerSecond());
+    }
+}
@@ -1,7 +1,12 @@
 package se.kth.iv1350.pos.integration;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import se.kth.iv1350.pos.model.Sale;
 
 /**
@@ -9,9 +14,14 @@ import se.kth.iv1350.pos.model.Sale;
  * Implemented as a singleton to ensure a single shared instance across the application.
  */
 public class InventorySystem {
-    private static InventorySystem instance;
-    private List<ItemDTO> inventory = new ArrayList<>();
-    private boolean databaseIsDown = false;  
+    private static final DatabaseUnavailableException DATABASE_DOWN =
+            new DatabaseUnavailableException("Failed to connect to the database.", false);
+    private static volatile InventorySystem instance;
+    private volatile ItemCatalog catalog;
+    private volatile CatalogBackend backend;
+    private volatile boolean databaseIsDown = false;  
+    private volatile InventoryWriteBehindBuffer writeBehindBuffer;
+    private final CatalogBackend database = new InventoryDatabase();
 
 /**
  * Private constructor to prevent external instantiation of the InventorySystem class.
@@ -38,7 +48,9 @@ private InventorySystem() {
     }
 
     /**
-     * Sets the database unavailable status for testing purposes.
+     * Sets the database unavailable status for testing purposes. The outage is simulated in
+     * {@link #getDatabase()}, so a backend built on top of it, such as a
+     * {@link ResilientItemCatalog}, sees the outage and handles it as it would a real one.
      * @param unavailable true to simulate database unavailable, false otherwise.
      */
     public void setDatabaseUnavailable(boolean unavailable) {
@@ -53,32 +65,179 @@ private InventorySystem() {
      * @throws ItemNotFoundException if the identifier does not match any item in the inventory.
      */
     public ItemDTO findItem(String itemId) throws ItemNotFoundException, DatabaseUnavailableException {
-        verifyDatabaseConnection();
+        LookupResult result = lookupItem(itemId);
+        switch (result.getStatus()) {
+            case FOUND:
+                return result.getItem();
+            case NOT_FOUND:
+                throw new ItemNotFoundException("Item with ID: " + itemId + " not found in inventory.");
+            default:
+                throw result.getCause();
+        }
+    }
 
-        for (ItemDTO item : inventory) {
-            if (item.getItemIdentifier().equals(itemId)) {
-                return item;
-            }
+    /**
+     * Looks up an item without throwing an exception when it is missing or the database is down,
+     * which makes this the method to use where many lookups may fail, such as on every scan.
+     * @param itemId the identifier of the item.
+     * @return the found item, or the reason it was not found.
+     */
+    public LookupResult lookupItem(String itemId) {
+        ItemDTO item;
+        try {
+            item = currentBackend().fetch(itemId);
+        } catch (DatabaseUnavailableException e) {
+            return LookupResult.unavailable(e);
         }
+        return item != null ? LookupResult.found(item) : LookupResult.notFound();
+    }
+
+    /**
+     * Looks up several items at once, with a single call to the catalog backend if one is set.
+     * Unknown identifiers are left out of the result instead of failing the whole lookup.
+     * @param itemIds the identifiers of the wanted items.
+     * @return the found items keyed by identifier.
+     * @throws DatabaseUnavailableException if a connection to the inventory database cannot be established.
+     *         A {@link PartiallyUnavailableException} holds the items that could be found anyway.
+     */
+    public Map<String, ItemDTO> findItems(Collection<String> itemIds) throws DatabaseUnavailableException {
+        return currentBackend().fetchAll(itemIds);
+    }
+
+    /**
+     * Makes lookups go to an external catalog backend, for example a
+     * {@link CachingItemCatalog} in front of the catalog database, instead of the local catalog.
+     * The backend is responsible for reaching the database, so the simulated outage of
+     * {@link #setDatabaseUnavailable} only affects it if it is built on {@link #getDatabase()}.
+     * @param newBackend the backend to use, or <code>null</code> to use the local catalog again.
+     */
+    public void setBackend(CatalogBackend newBackend) {
+        this.backend = newBackend;
+    }
 
-        throw new ItemNotFoundException("Item with ID: " + itemId + " not found in inventory.");
+    /**
+     * Returns the inventory database as a backend, which looks items up in the current catalog
+     * and fails while the database is unavailable. Lookups use it directly when no other
+     * backend is set, and decorators such as {@link ResilientItemCatalog} can be stacked on it.
+     * @return the inventory database.
+     */
+    public CatalogBackend getDatabase() {
+        return database;
+    }
+
+    private CatalogBackend currentBackend() {
+        CatalogBackend currentBackend = backend;
+        return currentBackend != null ? currentBackend : database;
     }
 
     /**
-     * Simulates a database connection to demonstrate handling connection issues.
+     * Replaces the current catalog with a new version. Lookups running at the same time
+     * keep using the catalog they started with, so they are never blocked by the swap.
+     * Every item cached by the backend is dropped, so a backend built on {@link #getDatabase()}
+     * answers from the new catalog at once.
+     * @param newCatalog the catalog to publish.
+     */
+    public void loadCatalog(ItemCatalog newCatalog) {
+        this.catalog = newCatalog;
+        CatalogBackend currentBackend = backend;
+        if (currentBackend != null) {
+            currentBackend.invalidateAll();
+        }
+    }
+
+    /**
+     * Builds a new catalog from the given items and publishes it in a single step.
+     * @param items all items of the new catalog version.
+     */
+    public void loadItems(Collection<ItemDTO> items) {
+        loadCatalog(new HashedItemCatalog(items));
+    }
+
+    /**
+     * Maps a catalog file written by {@link MappedItemStore#create} and publishes it. No items
+     * are parsed or created up front, so even a large catalog is ready at once. A price changed
+     * through the store is dropped from the caches of the backend while the store is published.
+     * @param file the store file.
+     * @return the published store, through which prices can be updated in place.
+     * @throws IOException if the file can not be opened or is not an item store.
+     */
+    public MappedItemStore loadStore(Path file) throws IOException {
+        MappedItemStore store = MappedItemStore.open(file);
+        store.setPriceChangeListener(itemId -> {
+            CatalogBackend currentBackend = backend;
+            if (catalog == store && currentBackend != null) {
+                currentBackend.invalidate(itemId);
+            }
+        });
+        loadCatalog(store);
+        return store;
+    }
+
+    /**
+     * Returns the catalog currently used for lookups.
+     * @return the current catalog.
+     */
+    public ItemCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Simulates a database connection to demonstrate handling connection issues. Every failed
+     * lookup throws the same exception, so scanning during an outage creates no objects.
      * @throws DatabaseUnavailableException if the database cannot be reached.
      */
     private void verifyDatabaseConnection() throws DatabaseUnavailableException {
         if (databaseIsDown) {
-            throw new DatabaseUnavailableException("Failed to connect to the database.");
+            throw DATABASE_DOWN;
         }
     }
 
     /**
-     * The function is a placeholder for when the system updates the inventory in the external system.
+     * The simulated inventory database, which answers from the catalog published at the time
+     * of each lookup.
+     */
+    private final class InventoryDatabase implements CatalogBackend {
+        @Override
+        public ItemDTO fetch(String itemId) throws DatabaseUnavailableException {
+            verifyDatabaseConnection();
+            return catalog.find(itemId);
+        }
+
+        @Override
+        public Map<String, ItemDTO> fetchAll(Collection<String> itemIds) throws DatabaseUnavailableException {
+            verifyDatabaseConnection();
+            ItemCatalog currentCatalog = catalog;
+            Map<String, ItemDTO> found = new HashMap<>();
+            for (String itemId : itemIds) {
+                ItemDTO item = currentCatalog.find(itemId);
+                if (item != null) {
+                    found.put(itemId, item);
+                }
+            }
+            return found;
+        }
+    }
+
+    /**
+     * Makes inventory updates go through a write-behind buffer, which batches the
+     * stock decrements of many sales into one write.
+     * @param buffer the buffer to use, or <code>null</code> to update the inventory directly.
+     */
+    public void setWriteBehindBuffer(InventoryWriteBehindBuffer buffer) {
+        this.writeBehindBuffer = buffer;
+    }
+
+    /**
+     * Updates the inventory in the external system with the items of a sale. With a
+     * write-behind buffer, the update is journaled and written later in a batch.
      * @param sale an object holding the information about the current sale.
      */
     public void updateInventory(Sale sale){
+        InventoryWriteBehindBuffer buffer = writeBehindBuffer;
+        if (buffer != null) {
+            buffer.record(sale);
+            return;
+        }
         System.out.println("Items logged, Inventory system updated");
     }
 
@@ -86,11 +245,13 @@ private InventorySystem() {
      * Adds sample items to the inventory. This simulates loading items from an external source.
      */
     private void addItems() {
+        List<ItemDTO> inventory = new ArrayList<>();
         inventory.add(new ItemDTO("Apples", 0.06, 23, "Fresh apples", "11127"));
         inventory.add(new ItemDTO("Bread", 0.06, 28, "Whole wheat bread", "11123"));
         inventory.add(new ItemDTO("Chicken", 0.06, 150, "Free range chicken", "11132"));
         inventory.add(new ItemDTO("Tea", 0.06, 30, "Green tea", "11135"));
         // Add test item with ID "1"
         inventory.add(new ItemDTO("Test Item", 0.06, 10, "Item for testing", "1"));
+        loadItems(inventory);
     }
 }
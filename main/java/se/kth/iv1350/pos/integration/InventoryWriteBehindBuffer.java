@@ -0,0 +1,330 @@
+package se.kth.iv1350.pos.integration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import se.kth.iv1350.pos.model.Sale;
+import se.kth.iv1350.pos.util.FileLogHandler;
+
+/**
+ * Collects the stock decrements of many sales and writes them to the {@link StockStore}
+ * as one batch, instead of doing one round-trip per sale. Decrements of the same item are
+ * added together. A batch is written when enough sales are pending or when the flush
+ * interval has passed, whichever comes first.
+ * <p>
+ * Every recorded sale is first appended to a journal file, so pending decrements survive
+ * a crash and are replayed the next time a buffer is created on the same directory.
+ * A journal file is deleted once its decrements have been written to the store.
+ * Replaying gives at-least-once delivery: a crash between writing a batch and deleting
+ * its journal file applies that batch again.
+ */
+public class InventoryWriteBehindBuffer {
+    private static final String JOURNAL_PREFIX = "inventory-journal-";
+    private static final String JOURNAL_SUFFIX = ".log";
+
+    private final StockStore store;
+    private final Path journalDirectory;
+    private final int maxPendingSales;
+    private final boolean syncJournal;
+    private final ScheduledExecutorService flusher;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Object pendingLock = new Object();
+    private final AtomicLong flushedBatches = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final FileLogHandler logger;
+    private Map<String, Long> pending = new HashMap<>();
+    private int pendingSales;
+    private long generation;
+    private FileChannel journal;
+
+    /**
+     * Creates a buffer, replays any journal left by an earlier run and starts the
+     * background flusher.
+     * @param store the store that receives the batched decrements.
+     * @param journalDirectory the directory holding the journal files.
+     * @param maxPendingSales the number of recorded sales that triggers a flush.
+     * @param flushIntervalMillis the longest time, in milliseconds, a decrement waits before it is written.
+     * @param syncJournal true to force every journal append to disk before the sale is acknowledged.
+     * @throws IOException if the journal cannot be read or created.
+     */
+    public InventoryWriteBehindBuffer(StockStore store, Path journalDirectory, int maxPendingSales,
+                                      long flushIntervalMillis, boolean syncJournal) throws IOException {
+        this(store, journalDirectory, maxPendingSales, flushIntervalMillis, syncJournal, null);
+    }
+
+    /**
+     * Creates a buffer, replays any journal left by an earlier run and starts the
+     * background flusher.
+     * @param store the store that receives the batched decrements.
+     * @param journalDirectory the directory holding the journal files.
+     * @param maxPendingSales the number of recorded sales that triggers a flush.
+     * @param flushIntervalMillis the longest time, in milliseconds, a decrement waits before it is written.
+     * @param syncJournal true to force every journal append to disk before the sale is acknowledged.
+     * @param logger logs journal failures met while flushing, may be <code>null</code>.
+     * @throws IOException if the journal cannot be read or created.
+     */
+    public InventoryWriteBehindBuffer(StockStore store, Path journalDirectory, int maxPendingSales,
+                                      long flushIntervalMillis, boolean syncJournal, FileLogHandler logger)
+            throws IOException {
+        this.store = store;
+        this.journalDirectory = journalDirectory;
+        this.maxPendingSales = maxPendingSales;
+        this.syncJournal = syncJournal;
+        this.logger = logger;
+        Files.createDirectories(journalDirectory);
+        replayJournals();
+        openJournal();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "pos-inventory-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushInBackground, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records the stock decrements of a completed sale.
+     * @param sale the completed sale.
+     */
+    public void record(Sale sale) {
+        List<Item> items = sale.getItems();
+        StringBuilder entry = new StringBuilder();
+        for (Item item : items) {
+            entry.append(item.getItemIdentifier()).append('\t').append(item.getQuantity()).append('\n');
+        }
+        boolean flushNow;
+        synchronized (pendingLock) {
+            appendToJournal(entry.toString());
+            for (Item item : items) {
+                pending.merge(item.getItemIdentifier(), (long) item.getQuantity(), Long::sum);
+            }
+            pendingSales++;
+            flushNow = pendingSales == maxPendingSales;
+        }
+        if (flushNow) {
+            flusher.execute(this::flushInBackground);
+        }
+    }
+
+    /**
+     * Writes all pending decrements to the store as one batch. If the store cannot be
+     * reached, or a new journal cannot be started, the decrements stay pending and are
+     * written by a later flush. A written journal that cannot be deleted is logged and
+     * left for a later flush to remove.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<String, Long> batch;
+            long flushedGeneration;
+            synchronized (pendingLock) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                flushedGeneration = generation;
+                try {
+                    rotateJournal();
+                } catch (UncheckedIOException e) {
+                    failedFlushes.incrementAndGet();
+                    log(e);
+                    return;
+                }
+                batch = pending;
+                pending = new HashMap<>();
+                pendingSales = 0;
+            }
+            try {
+                store.applyDecrements(batch);
+            } catch (RuntimeException e) {
+                failedFlushes.incrementAndGet();
+                synchronized (pendingLock) {
+                    batch.forEach((itemId, units) -> pending.merge(itemId, units, Long::sum));
+                }
+                return;
+            }
+            flushedBatches.incrementAndGet();
+            try {
+                deleteJournalsUpTo(flushedGeneration);
+            } catch (UncheckedIOException e) {
+                log(e);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the background flusher, writes the pending decrements and closes the journal.
+     * @throws IOException if the journal cannot be closed.
+     */
+    public void close() throws IOException {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        synchronized (pendingLock) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Stops the background flusher and closes the journal without writing the pending
+     * decrements, as a crash would. They stay in the journal and are replayed by the next
+     * buffer created on the same directory.
+     * @throws IOException if the journal cannot be closed.
+     */
+    public void abandon() throws IOException {
+        flusher.shutdownNow();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (pendingLock) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Returns the number of decrements waiting to be written, one per item identifier.
+     * @return the number of pending item rows.
+     */
+    public int getPendingItemCount() {
+        synchronized (pendingLock) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Returns the number of batches written to the store.
+     * @return the number of successful flushes.
+     */
+    public long getFlushedBatchCount() {
+        return flushedBatches.get();
+    }
+
+    /**
+     * Returns the number of flushes that failed because the store could not be reached.
+     * @return the number of failed flushes.
+     */
+    public long getFailedFlushCount() {
+        return failedFlushes.get();
+    }
+
+    private void flushInBackground() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // An exception leaving this task would cancel the scheduled flushes.
+            log(e);
+        }
+    }
+
+    private void log(Exception e) {
+        if (logger != null) {
+            logger.logException(e);
+        }
+    }
+
+    private void appendToJournal(String entry) {
+        try {
+            ByteBuffer bytes = ByteBuffer.wrap(entry.getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                journal.write(bytes);
+            }
+            if (syncJournal) {
+                journal.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not journal the inventory update.", e);
+        }
+    }
+
+    private void openJournal() throws IOException {
+        journal = FileChannel.open(journalFile(generation), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void rotateJournal() {
+        FileChannel next;
+        try {
+            next = FileChannel.open(journalFile(generation + 1), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start a new inventory journal.", e);
+        }
+        FileChannel previous = journal;
+        journal = next;
+        generation++;
+        try {
+            previous.close();
+        } catch (IOException e) {
+            log(e);
+        }
+    }
+
+    private void replayJournals() throws IOException {
+        for (long journalGeneration : existingGenerations()) {
+            for (String line : Files.readAllLines(journalFile(journalGeneration), StandardCharsets.UTF_8)) {
+                int tab = line.indexOf('\t');
+                if (tab <= 0) {
+                    continue;
+                }
+                try {
+                    long units = Long.parseLong(line.substring(tab + 1));
+                    pending.merge(line.substring(0, tab), units, Long::sum);
+                } catch (NumberFormatException tornWrite) {
+                    // The last line of a journal may be cut short by a crash.
+                }
+            }
+            generation = journalGeneration + 1;
+        }
+    }
+
+    private void deleteJournalsUpTo(long lastGeneration) {
+        try {
+            for (long journalGeneration : existingGenerations()) {
+                if (journalGeneration <= lastGeneration) {
+                    Files.deleteIfExists(journalFile(journalGeneration));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete a written inventory journal.", e);
+        }
+    }
+
+    private List<Long> existingGenerations() throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(journalDirectory, JOURNAL_PREFIX + "*" + JOURNAL_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                generations.add(Long.parseLong(name.substring(JOURNAL_PREFIX.length(), name.length() - JOURNAL_SUFFIX.length())));
+            }
+        }
+        generations.sort(null);
+        return generations;
+    }
+
+    private Path journalFile(long journalGeneration) {
+        return journalDirectory.resolve(JOURNAL_PREFIX + journalGeneration + JOURNAL_SUFFIX);
+    }
+}
@@ -20,6 +20,14 @@ public class Item {
     }
 
      
+    /**
+     * get the details of the item.
+     * @return the ItemDTO of the item
+     */
+    public ItemDTO getItemDTO(){
+        return this.itemDTO;
+    }
+
     /**
      * get the name of the item.
      * @return string name of item
@@ -0,0 +1,21 @@
+package se.kth.iv1350.pos.integration;
+
+/**
+ * A read-only lookup of the items known to the inventory, keyed by item identifier.
+ * Implementations are immutable snapshots, so a new catalog version is published
+ * by replacing the whole instance rather than by changing an existing one.
+ */
+public interface ItemCatalog {
+    /**
+     * Looks up the item with the given identifier.
+     * @param itemId the identifier of the wanted item.
+     * @return the matching item, or <code>null</code> if the catalog has no such item.
+     */
+    ItemDTO find(String itemId);
+
+    /**
+     * Returns the number of items in the catalog.
+     * @return the number of items.
+     */
+    int size();
+}
@@ -2,6 +2,8 @@ package se.kth.iv1350.pos.integration;
 
 /**
  * This exception is thrown when an item is not found in the inventory.
+ * A missing item is an expected outcome of a scan, not a programming error, so the exception
+ * does not capture a stack trace.
  */
 public class ItemNotFoundException extends Exception {
     /**
@@ -10,6 +12,6 @@ public class ItemNotFoundException extends Exception {
      * @param msg The message describing the exception.
      */
     public ItemNotFoundException(String msg) {
-        super(msg);
+        super(msg, null, false, false);
     }
 }
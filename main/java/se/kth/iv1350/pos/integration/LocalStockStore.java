@@ -0,0 +1,66 @@
+package se.kth.iv1350.pos.integration;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-memory stand-in for the stock database, used for testing. It counts the
+ * batches and rows written to it, so the effect of write-behind can be measured.
+ */
+public class LocalStockStore implements StockStore {
+    private final Map<String, Long> stock = new ConcurrentHashMap<>();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong rowCount = new AtomicLong();
+    private volatile boolean unavailable = false;
+
+    /**
+     * Sets the stock of an item.
+     * @param itemId the identifier of the item.
+     * @param units the number of units in stock.
+     */
+    public void setStock(String itemId, long units) {
+        stock.put(itemId, units);
+    }
+
+    /**
+     * Simulates that the store cannot be reached.
+     * @param unavailable true to make all writes fail, false otherwise.
+     */
+    public void setUnavailable(boolean unavailable) {
+        this.unavailable = unavailable;
+    }
+
+    @Override
+    public void applyDecrements(Map<String, Long> decrements) throws DatabaseUnavailableException {
+        if (unavailable) {
+            throw new DatabaseUnavailableException("Failed to connect to the stock database.");
+        }
+        for (Map.Entry<String, Long> decrement : decrements.entrySet()) {
+            stock.merge(decrement.getKey(), -decrement.getValue(), Long::sum);
+        }
+        batchCount.incrementAndGet();
+        rowCount.addAndGet(decrements.size());
+    }
+
+    @Override
+    public long getStock(String itemId) {
+        return stock.getOrDefault(itemId, 0L);
+    }
+
+    /**
+     * Returns the number of batches written, which is the number of round-trips.
+     * @return the number of batches.
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * Returns the number of item rows written in all batches.
+     * @return the number of rows.
+     */
+    public long getRowCount() {
+        return rowCount.get();
+    }
+}
@@ -0,0 +1,104 @@
+package se.kth.iv1350.pos.integration;
+
+/**
+ * The outcome of looking up an item with {@link InventorySystem#lookupItem(String)}. An
+ * unknown identifier, for example a mistyped one, is an ordinary result instead of an
+ * exception, so a miss costs no more than a hit.
+ */
+public final class LookupResult {
+    private final Status status;
+    private final ItemDTO item;
+    private final DatabaseUnavailableException cause;
+
+    /**
+     * The possible outcomes of a lookup.
+     */
+    public enum Status {
+        /**
+         * The item was found.
+         */
+        FOUND,
+
+        /**
+         * No item has the identifier.
+         */
+        NOT_FOUND,
+
+        /**
+         * The catalog could not be reached.
+         */
+        UNAVAILABLE
+    }
+
+    private static final LookupResult NOT_FOUND = new LookupResult(Status.NOT_FOUND, null, null);
+
+    private LookupResult(Status status, ItemDTO item, DatabaseUnavailableException cause) {
+        this.status = status;
+        this.item = item;
+        this.cause = cause;
+    }
+
+    /**
+     * Creates the result of a lookup that found its item.
+     * @param item the found item.
+     * @return the result.
+     */
+    public static LookupResult found(ItemDTO item) {
+        return new LookupResult(Status.FOUND, item, null);
+    }
+
+    /**
+     * Returns the result of a lookup whose identifier matched no item. All such results
+     * are the same instance.
+     * @return the result.
+     */
+    public static LookupResult notFound() {
+        return NOT_FOUND;
+    }
+
+    /**
+     * Creates the result of a lookup that could not reach the catalog.
+     * @param cause the reason the catalog could not be reached.
+     * @return the result.
+     */
+    public static LookupResult unavailable(DatabaseUnavailableException cause) {
+        return new LookupResult(Status.UNAVAILABLE, null, cause);
+    }
+
+    /**
+     * Returns the outcome of the lookup.
+     * @return the status of the lookup.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Tells whether the item was found.
+     * @return <code>true</code> if the status is {@link Status#FOUND}.
+     */
+    public boolean isFound() {
+        return status == Status.FOUND;
+    }
+
+    /**
+     * Returns the found item.
+     * @return the item, or <code>null</code> if it was not found.
+     */
+    public ItemDTO getItem() {
+        return item;
+    }
+
+    /**
+     * Returns the reason the catalog could not be reached.
+     * @return the cause, or <code>null</code> unless the status is {@link Status#UNAVAILABLE}.
+     */
+    public DatabaseUnavailableException getCause() {
+        return cause;
+    }
+
+    @Override
+    public String toString() {
+        return status == Status.FOUND ? "FOUND " + item.getItemIdentifier() : status.toString();
+    }
+}
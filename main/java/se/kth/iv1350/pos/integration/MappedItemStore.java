@@ -0,0 +1,303 @@
+package se.kth.iv1350.pos.integration;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import se.kth.iv1350.pos.util.Money;
+
+/**
+ * An item catalog kept in a file of fixed-width records that is memory-mapped instead of
+ * read. Opening a store only maps the file and checks its header, so a catalog of a million
+ * items is ready in milliseconds and the operating system pages records in as they are used.
+ * The file also holds an open-addressing index from item identifier to record, which is
+ * searched in place without creating any objects.
+ * <p>
+ * Unlike the other catalogs, a store is not an immutable snapshot: the price of an item can
+ * be changed in place with {@link #updatePrice}, and the change is seen at once by every
+ * lookup and, after {@link #force()}, by the next process opening the file.
+ * <p>
+ * File layout, all numbers big-endian:
+ * <pre>
+ * header   magic "POS1", record size, record count, index capacity   (4 ints)
+ * records  identifier (24 bytes), name (48), description (64),
+ *          price in minor units (long), VAT rate in basis points (int), padding (int)
+ * index    index capacity ints, each a record number plus one, or 0 for an empty slot
+ * </pre>
+ * Each text field starts with its length in bytes followed by UTF-8. Identifiers must be ASCII.
+ */
+public final class MappedItemStore implements ItemCatalog, AutoCloseable {
+    private static final int MAGIC = 0x504F5331;
+    private static final int HEADER_BYTES = 16;
+    private static final int ID_OFFSET = 0;
+    private static final int ID_BYTES = 24;
+    private static final int NAME_OFFSET = ID_OFFSET + ID_BYTES;
+    private static final int NAME_BYTES = 48;
+    private static final int DESCRIPTION_OFFSET = NAME_OFFSET + NAME_BYTES;
+    private static final int DESCRIPTION_BYTES = 64;
+    private static final int PRICE_OFFSET = DESCRIPTION_OFFSET + DESCRIPTION_BYTES;
+    private static final int VAT_OFFSET = PRICE_OFFSET + Long.BYTES;
+    private static final int RECORD_BYTES = VAT_OFFSET + 2 * Integer.BYTES;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int recordCount;
+    private final int indexOffset;
+    private final int indexMask;
+    private volatile Consumer<String> priceChangeListener;
+
+    private MappedItemStore(FileChannel channel, MappedByteBuffer buffer, Path file) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != RECORD_BYTES) {
+            throw new IOException("Not an item store: " + file);
+        }
+        this.recordCount = buffer.getInt(8);
+        int indexCapacity = buffer.getInt(12);
+        this.indexOffset = HEADER_BYTES + recordCount * RECORD_BYTES;
+        this.indexMask = indexCapacity - 1;
+        if (Integer.bitCount(indexCapacity) != 1 || indexOffset + (long) indexCapacity * Integer.BYTES != buffer.capacity()) {
+            throw new IOException("Damaged item store: " + file);
+        }
+    }
+
+    /**
+     * Maps an existing store file.
+     * @param file the store file.
+     * @return the opened store.
+     * @throws IOException if the file can not be opened or is not an item store.
+     */
+    public static MappedItemStore open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            return new MappedItemStore(channel, buffer, file);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the given items to a new store file, replacing any existing file, and opens it.
+     * If several items share an identifier, the last one wins. All items are checked before
+     * anything is written, and the store is written to a temporary file that then replaces the
+     * old file in one step, so a failed write leaves the old store as it was.
+     * @param file the store file to write.
+     * @param items the items of the catalog.
+     * @return the opened store.
+     * @throws IOException if the file can not be written.
+     * @throws IllegalArgumentException if an identifier is not ASCII, or a text does not fit its field.
+     */
+    public static MappedItemStore create(Path file, Collection<ItemDTO> items) throws IOException {
+        Map<String, ItemDTO> unique = new LinkedHashMap<>(items.size() * 2);
+        for (ItemDTO item : items) {
+            unique.put(item.getItemIdentifier(), item);
+        }
+        int indexCapacity = indexCapacity(unique.size());
+        long fileSize = HEADER_BYTES + (long) unique.size() * RECORD_BYTES + (long) indexCapacity * Integer.BYTES;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many items for one store file: " + unique.size());
+        }
+        for (ItemDTO item : unique.values()) {
+            validate(item);
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            write(temporary, unique, indexCapacity, fileSize);
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        return open(file);
+    }
+
+    private static void write(Path file, Map<String, ItemDTO> unique, int indexCapacity, long fileSize)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, RECORD_BYTES);
+            buffer.putInt(8, unique.size());
+            buffer.putInt(12, indexCapacity);
+            int indexOffset = HEADER_BYTES + unique.size() * RECORD_BYTES;
+            int record = 0;
+            for (ItemDTO item : unique.values()) {
+                writeRecord(buffer, HEADER_BYTES + record * RECORD_BYTES, item);
+                int slot = hash(item.getItemIdentifier()) & (indexCapacity - 1);
+                while (buffer.getInt(indexOffset + slot * Integer.BYTES) != 0) {
+                    slot = (slot + 1) & (indexCapacity - 1);
+                }
+                buffer.putInt(indexOffset + slot * Integer.BYTES, record + 1);
+                record++;
+            }
+            buffer.force();
+        }
+    }
+
+    @Override
+    public ItemDTO find(String itemId) {
+        int offset = recordOffset(itemId);
+        return offset < 0 ? null : readItem(offset);
+    }
+
+    @Override
+    public int size() {
+        return recordCount;
+    }
+
+    /**
+     * Changes the price of an item in the file. Lookups on other threads see either the old or
+     * the new price, never a mix of both.
+     * @param itemId the identifier of the item.
+     * @param newPrice the new price, excluding VAT.
+     * @return <code>true</code> if the item was found and updated.
+     */
+    public boolean updatePrice(String itemId, double newPrice) {
+        int offset = recordOffset(itemId);
+        if (offset < 0) {
+            return false;
+        }
+        LONGS.setVolatile(buffer, offset + PRICE_OFFSET, Money.toMinor(newPrice));
+        Consumer<String> listener = priceChangeListener;
+        if (listener != null) {
+            listener.accept(itemId);
+        }
+        return true;
+    }
+
+    /**
+     * Sets what is told the identifier of every item whose price is changed, for example to
+     * drop the item from the caches in front of the store.
+     * @param listener called after each price change, or <code>null</code> for none.
+     */
+    public void setPriceChangeListener(Consumer<String> listener) {
+        this.priceChangeListener = listener;
+    }
+
+    /**
+     * Writes changed prices to the disk.
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    /**
+     * Closes the file. The mapping itself is released when the store is garbage collected, so
+     * the store must not be used after it is closed.
+     * @throws IOException if the file can not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int recordOffset(String itemId) {
+        if (itemId == null) {
+            return -1;
+        }
+        int slot = hash(itemId) & indexMask;
+        while (true) {
+            int record = buffer.getInt(indexOffset + slot * Integer.BYTES);
+            if (record == 0) {
+                return -1;
+            }
+            int offset = HEADER_BYTES + (record - 1) * RECORD_BYTES;
+            if (identifierEquals(offset, itemId)) {
+                return offset;
+            }
+            slot = (slot + 1) & indexMask;
+        }
+    }
+
+    private boolean identifierEquals(int offset, String itemId) {
+        int length = buffer.get(offset + ID_OFFSET) & 0xFF;
+        if (length != itemId.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(offset + ID_OFFSET + 1 + i) != itemId.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ItemDTO readItem(int offset) {
+        long price = (long) LONGS.getVolatile(buffer, offset + PRICE_OFFSET);
+        int vatBasisPoints = buffer.getInt(offset + VAT_OFFSET);
+        return new ItemDTO(readText(offset + NAME_OFFSET), vatBasisPoints / 10_000.0,
+                price / (double) Money.MINOR_PER_MAJOR, readText(offset + DESCRIPTION_OFFSET),
+                readText(offset + ID_OFFSET));
+    }
+
+    private String readText(int offset) {
+        byte[] text = new byte[buffer.get(offset) & 0xFF];
+        buffer.get(offset + 1, text);
+        return new String(text, StandardCharsets.UTF_8);
+    }
+
+    private static void validate(ItemDTO item) {
+        String itemId = item.getItemIdentifier();
+        for (int i = 0; i < itemId.length(); i++) {
+            if (itemId.charAt(i) > 0x7F) {
+                throw new IllegalArgumentException("Item identifiers must be ASCII: " + itemId);
+            }
+        }
+        checkLength(itemId, ID_BYTES);
+        checkLength(item.getName(), NAME_BYTES);
+        checkLength(item.getDescription(), DESCRIPTION_BYTES);
+    }
+
+    private static void checkLength(String text, int fieldBytes) {
+        if (text != null && text.getBytes(StandardCharsets.UTF_8).length >= fieldBytes) {
+            throw new IllegalArgumentException("Longer than " + (fieldBytes - 1) + " bytes: " + text);
+        }
+    }
+
+    private static void writeRecord(MappedByteBuffer buffer, int offset, ItemDTO item) {
+        String itemId = item.getItemIdentifier();
+        writeText(buffer, offset + ID_OFFSET, ID_BYTES, itemId);
+        writeText(buffer, offset + NAME_OFFSET, NAME_BYTES, item.getName());
+        writeText(buffer, offset + DESCRIPTION_OFFSET, DESCRIPTION_BYTES, item.getDescription());
+        buffer.putLong(offset + PRICE_OFFSET, Money.toMinor(item.getPrice()));
+        buffer.putInt(offset + VAT_OFFSET, Money.toBasisPoints(item.getVATRate()));
+    }
+
+    private static void writeText(MappedByteBuffer buffer, int offset, int fieldBytes, String text) {
+        byte[] bytes = text == null ? new byte[0] : text.getBytes(StandardCharsets.UTF_8);
+        buffer.put(offset, (byte) bytes.length);
+        buffer.put(offset + 1, bytes);
+    }
+
+    private static int hash(String itemId) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < itemId.length(); i++) {
+            hash = (hash ^ itemId.charAt(i)) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int indexCapacity(int records) {
+        int capacity = 16;
+        while (capacity < records * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,47 @@
+package se.kth.iv1350.pos.integration;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This exception is thrown when a batch lookup could only answer for some of its items while
+ * the database was unavailable. It carries the items that were found anyway, so the caller can
+ * use them and report only the others as unavailable.
+ */
+public class PartiallyUnavailableException extends DatabaseUnavailableException {
+    private final Map<String, ItemDTO> foundItems;
+    private final Set<String> unavailableItemIds;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param message The message that describes what went wrong.
+     * @param foundItems The items that were found, keyed by identifier.
+     * @param unavailableItemIds The identifiers that could not be looked up.
+     */
+    public PartiallyUnavailableException(String message, Map<String, ItemDTO> foundItems,
+                                         Collection<String> unavailableItemIds) {
+        super(message);
+        this.foundItems = Map.copyOf(foundItems);
+        this.unavailableItemIds = Set.copyOf(unavailableItemIds);
+    }
+
+    /**
+     * Returns the items that were found despite the failure.
+     *
+     * @return The found items keyed by identifier.
+     */
+    public Map<String, ItemDTO> getFoundItems() {
+        return foundItems;
+    }
+
+    /**
+     * Returns the identifiers that could not be looked up.
+     *
+     * @return The unavailable identifiers.
+     */
+    public Set<String> getUnavailableItemIds() {
+        return unavailableItemIds;
+    }
+}
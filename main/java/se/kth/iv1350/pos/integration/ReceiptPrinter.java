@@ -1,20 +1,40 @@
-
 package se.kth.iv1350.pos.integration;
 
 import se.kth.iv1350.pos.model.Receipt;
 
 /**
- * A class that is a placeholder for the Receipt printer. 
+ * A class that is a placeholder for the Receipt printer. By default receipts are printed to
+ * <code>System.out</code>. A printer created with a {@link ReceiptSpooler} streams the
+ * receipts to the spooler's channel instead, and several printers may share one spooler.
  */
 
  public class ReceiptPrinter {
+    private final ReceiptSpooler spooler;
+
+    /**
+     * Creates a printer that prints to <code>System.out</code>.
+     */
+    public ReceiptPrinter() {
+        this.spooler = null;
+    }
+
+    /**
+     * Creates a printer that hands receipts to the given spooler.
+     * @param spooler the spooler that writes the receipts.
+     */
+    public ReceiptPrinter(ReceiptSpooler spooler) {
+        this.spooler = spooler;
+    }
+
     /**
      * Prints out the receipt of the current sale to the customer.
-     * @param receiptString a formatted string containing the receipt information
-     * @return a message indicating that the receipt has been printed
+     * @param receipt the receipt to print
      */
     public void printReceipt(Receipt receipt){
+        if (spooler != null) {
+            spooler.spool(receipt);
+            return;
+        }
         System.out.println(receipt.toString());
     }
 }
-
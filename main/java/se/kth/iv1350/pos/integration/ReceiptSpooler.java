@@ -0,0 +1,297 @@
+package se.kth.iv1350.pos.integration;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import se.kth.iv1350.pos.model.ByteReceiptSink;
+import se.kth.iv1350.pos.model.Receipt;
+import se.kth.iv1350.pos.model.ReceiptTemplate;
+import se.kth.iv1350.pos.util.FileLogHandler;
+import se.kth.iv1350.pos.util.RingBuffer;
+
+/**
+ * Prints receipts from any number of lanes to one <code>WritableByteChannel</code>, for
+ * example a file, a pipe or a local printer. The calling lane renders its receipt straight
+ * into pooled direct buffers, so no string of the whole receipt is built, and hands the
+ * filled buffers to the spooler through a lock-free queue. A single writer thread writes
+ * each receipt in one piece, so receipts from different lanes are never mixed, and gives
+ * the buffers back to the pool.
+ */
+public class ReceiptSpooler implements AutoCloseable {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final WritableByteChannel channel;
+    private final ReceiptTemplate template;
+    private final ByteReceiptSink.Encoding encoding;
+    private final int bufferSize;
+    private final int maxPooledBuffers;
+    private final FileLogHandler logger;
+    private final RingBuffer<List<ByteBuffer>> jobs;
+    private final ConcurrentLinkedQueue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledBuffers = new AtomicInteger();
+    private final AtomicInteger activeSpools = new AtomicInteger();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder printed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder unpooledBuffers = new LongAdder();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a spooler and starts its writer thread.
+     *
+     * @param channel Where the receipts are written. It is closed by {@link #close()}.
+     * @param template The layout of the receipts.
+     * @param encoding Whether receipts are written as text or as ESC/POS commands.
+     * @param bufferSize The size in bytes of each pooled buffer.
+     * @param maxPooledBuffers The most direct buffers kept in the pool. A receipt needing more
+     *                         buffers than are free gets short-lived heap buffers instead.
+     * @param queueCapacity The number of receipts that may wait for the writer thread.
+     * @param logger Logs receipts that could not be written, may be <code>null</code>.
+     */
+    public ReceiptSpooler(WritableByteChannel channel, ReceiptTemplate template, ByteReceiptSink.Encoding encoding,
+                          int bufferSize, int maxPooledBuffers, int queueCapacity, FileLogHandler logger) {
+        this.channel = channel;
+        this.template = template;
+        this.encoding = encoding;
+        this.bufferSize = bufferSize;
+        this.maxPooledBuffers = maxPooledBuffers;
+        this.logger = logger;
+        this.jobs = new RingBuffer<>(queueCapacity);
+        this.writerThread = new Thread(this::writeReceipts, "pos-receipt-spooler");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Creates a spooler appending receipts to a file, using the default layout and 4 KB buffers.
+     *
+     * @param file The file to append to. It is created if it does not exist.
+     * @param encoding Whether receipts are written as text or as ESC/POS commands.
+     * @return The new spooler.
+     * @throws IOException If the file can not be opened.
+     */
+    public static ReceiptSpooler toFile(Path file, ByteReceiptSink.Encoding encoding) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        return new ReceiptSpooler(channel, ReceiptTemplate.DEFAULT, encoding, 4096, 64, 1024, null);
+    }
+
+    /**
+     * Renders a receipt on the calling thread and queues it for printing. If the queue is full,
+     * the caller waits until the writer thread catches up. A receipt accepted here is always
+     * written or counted as failed, even if the spooler is closed at the same time, since the
+     * writer thread does not stop while a lane is still queueing.
+     *
+     * @param receipt The receipt to print.
+     * @throws IllegalStateException If the spooler is closed, or its writer thread has died.
+     */
+    public void spool(Receipt receipt) {
+        activeSpools.incrementAndGet();
+        try {
+            if (!running) {
+                throw new IllegalStateException("The receipt spooler is closed.");
+            }
+            List<ByteBuffer> job = render(receipt);
+            submitted.increment();
+            while (!jobs.offer(job)) {
+                if (!writerThread.isAlive()) {
+                    failed.increment();
+                    releaseAll(job);
+                    throw new IllegalStateException("The receipt spooler has stopped writing.");
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        } finally {
+            activeSpools.decrementAndGet();
+        }
+    }
+
+    /**
+     * Waits until every queued receipt has been written.
+     *
+     * @param timeoutMillis The longest time to wait.
+     * @return <code>true</code> if all receipts were written in time.
+     */
+    public boolean awaitPrinted(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (printed.sum() + failed.sum() < submitted.sum()) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * Writes the queued receipts, stops the writer thread and closes the channel.
+     *
+     * @throws IOException If the channel can not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    /**
+     * Returns the number of receipts written to the channel.
+     *
+     * @return The number of receipts written to the channel.
+     */
+    public long getPrintedCount() {
+        return printed.sum();
+    }
+
+    /**
+     * Returns the number of receipts that could not be written.
+     *
+     * @return The number of receipts that could not be written.
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Returns the number of bytes written to the channel.
+     *
+     * @return The number of bytes written to the channel.
+     */
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    /**
+     * Returns the number of direct buffers the pool has created.
+     *
+     * @return The number of direct buffers the pool has created.
+     */
+    public int getPooledBufferCount() {
+        return pooledBuffers.get();
+    }
+
+    /**
+     * Returns the number of heap buffers created because the pool was empty.
+     *
+     * @return The number of heap buffers created because the pool was empty.
+     */
+    public long getUnpooledBufferCount() {
+        return unpooledBuffers.sum();
+    }
+
+    private List<ByteBuffer> render(Receipt receipt) {
+        PooledBufferSink sink = new PooledBufferSink();
+        try {
+            template.render(receipt, sink);
+        } catch (RuntimeException e) {
+            releaseAll(sink.buffers);
+            throw e;
+        }
+        return sink.finish();
+    }
+
+    private void writeReceipts() {
+        List<List<ByteBuffer>> batch = new ArrayList<>();
+        while (running || activeSpools.get() > 0 || jobs.size() > 0) {
+            batch.clear();
+            jobs.drainTo(batch, jobs.capacity());
+            for (List<ByteBuffer> job : batch) {
+                writeReceipt(job);
+            }
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void writeReceipt(List<ByteBuffer> job) {
+        try {
+            for (ByteBuffer buffer : job) {
+                while (buffer.hasRemaining()) {
+                    bytesWritten.add(channel.write(buffer));
+                }
+            }
+            printed.increment();
+        } catch (IOException | RuntimeException e) {
+            failed.increment();
+            if (logger != null) {
+                logger.logException(e);
+            }
+        } finally {
+            releaseAll(job);
+        }
+    }
+
+    private ByteBuffer acquire() {
+        ByteBuffer buffer = freeBuffers.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        int created = pooledBuffers.get();
+        while (created < maxPooledBuffers) {
+            if (pooledBuffers.compareAndSet(created, created + 1)) {
+                return ByteBuffer.allocateDirect(bufferSize);
+            }
+            created = pooledBuffers.get();
+        }
+        unpooledBuffers.increment();
+        return ByteBuffer.allocate(bufferSize);
+    }
+
+    private void releaseAll(List<ByteBuffer> buffers) {
+        for (ByteBuffer buffer : buffers) {
+            if (buffer.isDirect()) {
+                buffer.clear();
+                freeBuffers.offer(buffer);
+            }
+        }
+    }
+
+    /**
+     * Encodes a receipt into buffers taken from the pool.
+     */
+    private final class PooledBufferSink extends ByteReceiptSink {
+        private final List<ByteBuffer> buffers = new ArrayList<>(2);
+        private ByteBuffer current;
+
+        private PooledBufferSink() {
+            super(encoding);
+            current = acquire();
+            buffers.add(current);
+        }
+
+        @Override
+        protected void put(byte value) {
+            if (!current.hasRemaining()) {
+                current.flip();
+                current = acquire();
+                buffers.add(current);
+            }
+            current.put(value);
+        }
+
+        private List<ByteBuffer> finish() {
+            current.flip();
+            return buffers;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package se.kth.iv1350.pos.integration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import se.kth.iv1350.pos.util.CircuitBreaker;
+
+/**
+ * Keeps item lookups fast when the catalog database is slow or down. Every fetch has a time
+ * limit, and a fetch that has not answered after a shorter hedge delay is sent a second time,
+ * so a single slow response does not hold up the lane. Failures and timeouts are counted by a
+ * {@link CircuitBreaker}; while it is open the database is not called at all. A lookup that
+ * fails, or is refused by the breaker, is served from the last answer the database gave for
+ * that item, or else from a local catalog snapshot. Only an item known from neither fails
+ * with {@link DatabaseUnavailableException}. At most {@value #MAX_FETCH_THREADS} fetches wait
+ * for the database at once, including abandoned ones that are still running, and a fetch
+ * beyond that fails at once instead of starting another thread.
+ */
+public class ResilientItemCatalog implements CatalogBackend, AutoCloseable {
+    /**
+     * The most fetch threads that may wait for the database at the same time.
+     */
+    public static final int MAX_FETCH_THREADS = 32;
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final CatalogBackend backend;
+    private final CircuitBreaker breaker;
+    private final ItemCatalog snapshot;
+    private final long hedgeAfterNanos;
+    private final long timeoutNanos;
+    private final int maxRememberedItems;
+    private final Map<String, ItemDTO> lastKnown = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor fetchers;
+    private final LongAdder staleServed = new LongAdder();
+    private final LongAdder hedgesSent = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    private static final class Answer<T> {
+        private final T value;
+        private final boolean fromHedge;
+
+        private Answer(T value, boolean fromHedge) {
+            this.value = value;
+            this.fromHedge = fromHedge;
+        }
+    }
+
+    /**
+     * Creates a resilient catalog.
+     * @param backend the catalog database.
+     * @param breaker the breaker guarding the database.
+     * @param snapshot the local catalog used during outages for items not fetched before,
+     *                 may be <code>null</code>.
+     * @param hedgeAfterMillis how long to wait before sending a second fetch, or 0 to never hedge.
+     * @param timeoutMillis the longest time a lookup waits for the database.
+     * @param maxRememberedItems the number of fetched items remembered for outages.
+     */
+    public ResilientItemCatalog(CatalogBackend backend, CircuitBreaker breaker, ItemCatalog snapshot,
+                                long hedgeAfterMillis, long timeoutMillis, int maxRememberedItems) {
+        this.backend = backend;
+        this.breaker = breaker;
+        this.snapshot = snapshot;
+        this.hedgeAfterNanos = TimeUnit.MILLISECONDS.toNanos(hedgeAfterMillis);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.maxRememberedItems = maxRememberedItems;
+        this.fetchers = new ThreadPoolExecutor(0, MAX_FETCH_THREADS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                task -> {
+                    Thread thread = new Thread(task, "pos-catalog-fetch-" + THREAD_COUNTER.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public ItemDTO fetch(String itemId) throws DatabaseUnavailableException {
+        if (!breaker.tryAcquire()) {
+            return serveStale(itemId, null);
+        }
+        ItemDTO item;
+        try {
+            item = callWithinTimeout("item " + itemId, () -> backend.fetch(itemId));
+        } catch (DatabaseUnavailableException e) {
+            breaker.recordFailure();
+            return serveStale(itemId, e);
+        }
+        breaker.recordSuccess();
+        remember(itemId, item);
+        return item;
+    }
+
+    /**
+     * Fetches a batch of items with one guarded call to the database. If the call fails, every
+     * item is served stale, and the items known from neither the remembered items nor the
+     * snapshot are reported as unavailable.
+     * @param itemIds the identifiers of the wanted items.
+     * @return the found items keyed by identifier.
+     * @throws PartiallyUnavailableException if the database failed and some items are not known
+     *                                       locally. It holds the items that are.
+     */
+    @Override
+    public Map<String, ItemDTO> fetchAll(Collection<String> itemIds) throws DatabaseUnavailableException {
+        if (!breaker.tryAcquire()) {
+            return serveAllStale(itemIds, null);
+        }
+        Map<String, ItemDTO> items;
+        try {
+            items = callWithinTimeout(itemIds.size() + " items", () -> backend.fetchAll(itemIds));
+        } catch (DatabaseUnavailableException e) {
+            breaker.recordFailure();
+            return serveAllStale(itemIds, e);
+        }
+        breaker.recordSuccess();
+        items.forEach(this::remember);
+        return items;
+    }
+
+    /**
+     * Forgets the last answer for an item, so a changed item is not served stale.
+     * @param itemId the identifier of the changed item.
+     */
+    @Override
+    public void invalidate(String itemId) {
+        lastKnown.remove(itemId);
+        backend.invalidate(itemId);
+    }
+
+    /**
+     * Forgets the last answers for all items.
+     */
+    @Override
+    public void invalidateAll() {
+        lastKnown.clear();
+        backend.invalidateAll();
+    }
+
+    private void remember(String itemId, ItemDTO item) {
+        if (item != null && (lastKnown.size() < maxRememberedItems || lastKnown.containsKey(itemId))) {
+            lastKnown.put(itemId, item);
+        }
+    }
+
+    private <T> T callWithinTimeout(String wanted, Supplier<T> call) {
+        CompletableFuture<Answer<T>> result = new CompletableFuture<>();
+        AtomicInteger running = new AtomicInteger(1);
+        startCall(call, result, running, false);
+        try {
+            boolean hedge = hedgeAfterNanos > 0 && hedgeAfterNanos < timeoutNanos;
+            if (hedge) {
+                try {
+                    return result.get(hedgeAfterNanos, TimeUnit.NANOSECONDS).value;
+                } catch (TimeoutException slow) {
+                    if (running.incrementAndGet() > 1 && startCall(call, result, running, true)) {
+                        hedgesSent.increment();
+                    }
+                }
+            }
+            Answer<T> answer = result.get(hedge ? timeoutNanos - hedgeAfterNanos : timeoutNanos, TimeUnit.NANOSECONDS);
+            if (answer.fromHedge) {
+                hedgeWins.increment();
+            }
+            return answer.value;
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            throw new DatabaseUnavailableException("The catalog database did not answer in time.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DatabaseUnavailableException) {
+                throw (DatabaseUnavailableException) e.getCause();
+            }
+            throw new DatabaseUnavailableException("Failed to fetch " + wanted + ": " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseUnavailableException("Interrupted while fetching " + wanted + ".");
+        }
+    }
+
+    private <T> boolean startCall(Supplier<T> call, CompletableFuture<Answer<T>> result, AtomicInteger running,
+                                  boolean hedge) {
+        try {
+            fetchers.execute(() -> {
+                try {
+                    result.complete(new Answer<>(call.get(), hedge));
+                } catch (RuntimeException e) {
+                    if (running.decrementAndGet() == 0) {
+                        result.completeExceptionally(e);
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            if (running.decrementAndGet() == 0) {
+                result.completeExceptionally(new DatabaseUnavailableException(
+                        "Too many catalog fetches are waiting for the database."));
+            }
+            return false;
+        }
+    }
+
+    private Map<String, ItemDTO> serveAllStale(Collection<String> itemIds, DatabaseUnavailableException cause) {
+        Map<String, ItemDTO> items = new HashMap<>();
+        List<String> unavailable = new ArrayList<>();
+        for (String itemId : itemIds) {
+            ItemDTO item = findStale(itemId);
+            if (item != null) {
+                items.put(itemId, item);
+            } else {
+                unavailable.add(itemId);
+            }
+        }
+        if (!unavailable.isEmpty()) {
+            String reason = cause != null ? cause.getMessage() : "The catalog database is unavailable.";
+            throw new PartiallyUnavailableException(reason + " " + unavailable.size()
+                    + " items are not known locally.", items, unavailable);
+        }
+        return items;
+    }
+
+    private ItemDTO serveStale(String itemId, DatabaseUnavailableException cause) {
+        ItemDTO item = findStale(itemId);
+        if (item != null) {
+            return item;
+        }
+        if (cause != null) {
+            throw cause;
+        }
+        throw new DatabaseUnavailableException("The catalog database is unavailable and item " + itemId
+                + " is not known locally.", false);
+    }
+
+    private ItemDTO findStale(String itemId) {
+        ItemDTO item = lastKnown.get(itemId);
+        if (item == null && snapshot != null) {
+            item = snapshot.find(itemId);
+        }
+        if (item != null) {
+            staleServed.increment();
+        }
+        return item;
+    }
+
+    /**
+     * Stops the fetch threads. Fetches still waiting for the database are abandoned.
+     */
+    @Override
+    public void close() {
+        fetchers.shutdownNow();
+    }
+
+    /**
+     * Returns the breaker guarding the database.
+     * @return the circuit breaker.
+     */
+    public CircuitBreaker getBreaker() {
+        return breaker;
+    }
+
+    /**
+     * Returns the number of lookups answered from remembered items or the snapshot.
+     * @return the number of stale answers.
+     */
+    public long getStaleServedCount() {
+        return staleServed.sum();
+    }
+
+    /**
+     * Returns the number of second fetches sent because the first one was slow.
+     * @return the number of hedged fetches.
+     */
+    public long getHedgeCount() {
+        return hedgesSent.sum();
+    }
+
+    /**
+     * Returns the number of hedged fetches that answered before the first fetch.
+     * @return the number of hedges that won.
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    /**
+     * Returns the number of lookups where the database did not answer in time.
+     * @return the number of timeouts.
+     */
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("breaker=[%s] stale=%d hedges=%d won=%d timeouts=%d", breaker, getStaleServedCount(),
+                getHedgeCount(), getHedgeWinCount(), getTimeoutCount());
+    }
+}
@@ -0,0 +1,384 @@
+package se.kth.iv1350.pos.integration;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import se.kth.iv1350.pos.model.CashPayment;
+import se.kth.iv1350.pos.model.Sale;
+import se.kth.iv1350.pos.util.Money;
+
+/**
+ * An append-only ledger of completed sales, stored in memory-mapped segment files of a
+ * fixed size. A new segment is started when a sale does not fit in the current one.
+ * <p>
+ * Appending only copies the sale into the mapped file. A commit thread forces the written
+ * bytes to disk, and every sale appended while a force is running is made durable by the
+ * next force, so many sales share one fsync (group commit).
+ * <p>
+ * Each record holds the posting time, the lines of the sale and its totals, followed by a
+ * checksum. When a ledger is opened, the existing segments are replayed to rebuild the
+ * totals, and a record cut short by a crash is overwritten by the next append.
+ */
+public class SalesLedger {
+    private static final String SEGMENT_PREFIX = "ledger-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int LENGTH_BYTES = Integer.BYTES;
+    private static final int CHECKSUM_BYTES = Integer.BYTES;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition committed = lock.newCondition();
+    private final Thread commitThread;
+    private final CRC32 checksum = new CRC32();
+    private FileChannel segmentChannel;
+    private MappedByteBuffer segment;
+    private long segmentNumber;
+    private int forcedPosition;
+    private long appendedSequence;
+    private long committedSequence;
+    private long commitCount;
+    private RuntimeException commitFailure;
+    private long saleCount;
+    private long revenue;
+    private long vat;
+    private long discounts;
+    private volatile boolean running = true;
+
+    /**
+     * Opens the ledger in the given directory, replays the existing sales and starts the
+     * commit thread.
+     * @param directory the directory holding the segment files.
+     * @param segmentSize the size in bytes of each segment file.
+     * @throws IOException if the segments cannot be read or created.
+     */
+    public SalesLedger(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        List<Long> segments = existingSegments();
+        if (segments.isEmpty()) {
+            openSegment(0);
+        } else {
+            for (long number : segments) {
+                openSegment(number);
+                replaySegment();
+            }
+        }
+        forcedPosition = segment.position();
+        commitThread = new Thread(this::commitLoop, "pos-ledger-commit");
+        commitThread.setDaemon(true);
+        commitThread.start();
+    }
+
+    /**
+     * Appends a completed sale to the ledger. The sale is durable once
+     * {@link #awaitCommit} returns for the returned sequence number.
+     * @param sale the completed sale.
+     * @return the sequence number of the appended sale.
+     * @throws IOException if a new segment is needed and cannot be created, or if the
+     *                     ledger can no longer be forced to disk.
+     */
+    public long append(Sale sale) throws IOException {
+        byte[] record = encode(sale, System.currentTimeMillis());
+        lock.lock();
+        try {
+            checkCommitFailure();
+            if (segment.remaining() < record.length + LENGTH_BYTES) {
+                rollSegment(record.length);
+            }
+            segment.put(record);
+            applyTotals(ByteBuffer.wrap(record, LENGTH_BYTES, record.length - LENGTH_BYTES - CHECKSUM_BYTES));
+            appendedSequence++;
+            appended.signal();
+            return appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the sale with the given sequence number has been forced to disk.
+     * @param sequence the sequence number returned by {@link #append}.
+     * @throws InterruptedException if interrupted while waiting.
+     * @throws IOException if the ledger could not be forced to disk.
+     */
+    public void awaitCommit(long sequence) throws InterruptedException, IOException {
+        lock.lock();
+        try {
+            while (committedSequence < sequence && running && commitFailure == null) {
+                committed.await();
+            }
+            if (committedSequence < sequence) {
+                checkCommitFailure();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces everything appended so far to disk and stops the commit thread.
+     * @throws IOException if the segment cannot be closed.
+     */
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            running = false;
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            commitThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segment.force();
+        segmentChannel.close();
+    }
+
+    /**
+     * Returns the number of sales in the ledger.
+     * @return the number of sales.
+     */
+    public long getSaleCount() {
+        lock.lock();
+        try {
+            return saleCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the total revenue, after discounts, of all sales in the ledger.
+     * @return the revenue.
+     */
+    public Money getTotalRevenue() {
+        lock.lock();
+        try {
+            return Money.ofMinor(revenue);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the total VAT of all sales in the ledger.
+     * @return the VAT.
+     */
+    public Money getTotalVAT() {
+        lock.lock();
+        try {
+            return Money.ofMinor(vat);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the total discount given in all sales in the ledger.
+     * @return the discounts.
+     */
+    public Money getTotalDiscount() {
+        lock.lock();
+        try {
+            return Money.ofMinor(discounts);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of times the ledger has been forced to disk. With group commit
+     * this is usually much lower than the number of sales.
+     * @return the number of commits.
+     */
+    public long getCommitCount() {
+        lock.lock();
+        try {
+            return commitCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void commitLoop() {
+        while (true) {
+            long target;
+            MappedByteBuffer toForce;
+            int from;
+            int to;
+            lock.lock();
+            try {
+                while (appendedSequence == committedSequence && running) {
+                    appended.awaitUninterruptibly();
+                }
+                if (appendedSequence == committedSequence) {
+                    committed.signalAll();
+                    return;
+                }
+                target = appendedSequence;
+                toForce = segment;
+                from = forcedPosition;
+                to = segment.position();
+                forcedPosition = to;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                force(toForce, from, to - from);
+            } catch (RuntimeException e) {
+                lock.lock();
+                try {
+                    commitFailure = e;
+                    committed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+            lock.lock();
+            try {
+                committedSequence = target;
+                commitCount++;
+                committed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void checkCommitFailure() throws IOException {
+        if (commitFailure != null) {
+            throw new IOException("The ledger could not be forced to disk.", commitFailure);
+        }
+    }
+
+    /**
+     * Forces part of a segment to disk. It is called by the commit thread only, without holding
+     * the ledger lock, so sales appended meanwhile wait for the next force.
+     * @param segment the segment to force.
+     * @param from the position of the first byte to force.
+     * @param length the number of bytes to force.
+     */
+    protected void force(MappedByteBuffer segment, int from, int length) {
+        segment.force(from, length);
+    }
+
+    private void rollSegment(int recordLength) throws IOException {
+        if (recordLength + LENGTH_BYTES > segmentSize) {
+            throw new IOException("A sale of " + recordLength + " bytes does not fit in a ledger segment.");
+        }
+        segment.force();
+        openSegment(segmentNumber + 1);
+        forcedPosition = 0;
+    }
+
+    private void openSegment(long number) throws IOException {
+        if (segmentChannel != null) {
+            segmentChannel.close();
+        }
+        segmentNumber = number;
+        segmentChannel = FileChannel.open(directory.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+
+    private void replaySegment() throws IOException {
+        while (segment.remaining() >= LENGTH_BYTES) {
+            int start = segment.position();
+            int length = segment.getInt(start);
+            if (length <= 0 || length > segment.limit() - start - LENGTH_BYTES - CHECKSUM_BYTES) {
+                break;
+            }
+            ByteBuffer body = segment.duplicate();
+            body.position(start + LENGTH_BYTES).limit(start + LENGTH_BYTES + length);
+            checksum.reset();
+            checksum.update(body.duplicate());
+            if ((int) checksum.getValue() != segment.getInt(start + LENGTH_BYTES + length)) {
+                break;
+            }
+            applyTotals(body);
+            segment.position(start + LENGTH_BYTES + length + CHECKSUM_BYTES);
+        }
+        int end = segment.position();
+        if (end + LENGTH_BYTES <= segment.limit()) {
+            segment.putInt(end, 0);
+        }
+    }
+
+    private void applyTotals(ByteBuffer body) {
+        ByteBuffer reader = body.duplicate();
+        reader.getLong();
+        int lineCount = reader.getInt();
+        for (int line = 0; line < lineCount; line++) {
+            int identifierLength = reader.getShort();
+            reader.position(reader.position() + identifierLength + Integer.BYTES + Long.BYTES);
+        }
+        revenue += reader.getLong();
+        vat += reader.getLong();
+        discounts += reader.getLong();
+        saleCount++;
+    }
+
+    /**
+     * Encodes a sale as a length-prefixed record followed by a CRC32 of its body.
+     */
+    private byte[] encode(Sale sale, long timeMillis) {
+        List<Item> items = sale.getItems();
+        List<byte[]> identifiers = new ArrayList<>(items.size());
+        int bodyLength = Long.BYTES + Integer.BYTES + 4 * Long.BYTES;
+        for (Item item : items) {
+            byte[] identifier = item.getItemIdentifier().getBytes(StandardCharsets.UTF_8);
+            identifiers.add(identifier);
+            bodyLength += Short.BYTES + identifier.length + Integer.BYTES + Long.BYTES;
+        }
+        ByteBuffer record = ByteBuffer.allocate(LENGTH_BYTES + bodyLength + CHECKSUM_BYTES);
+        record.putInt(bodyLength);
+        record.putLong(timeMillis);
+        record.putInt(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            record.putShort((short) identifiers.get(i).length);
+            record.put(identifiers.get(i));
+            record.putInt(item.getQuantity());
+            record.putLong(Money.toMinor(item.getPrice()));
+        }
+        CashPayment payment = sale.getPayment();
+        record.putLong(sale.getTotalPrice().getMinorUnits());
+        record.putLong(sale.getTotalVATMinorUnits());
+        record.putLong(sale.getTotalDiscount().getAmount() * Money.MINOR_PER_MAJOR);
+        record.putLong(payment == null ? 0 : payment.getAmountPaid().getAmount() * Money.MINOR_PER_MAJOR);
+        CRC32 recordChecksum = new CRC32();
+        recordChecksum.update(record.array(), LENGTH_BYTES, bodyLength);
+        record.putInt((int) recordChecksum.getValue());
+        return record.array();
+    }
+
+    private List<Long> existingSegments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        segments.sort(null);
+        return segments;
+    }
+}
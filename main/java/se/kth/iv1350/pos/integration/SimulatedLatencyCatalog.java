@@ -0,0 +1,90 @@
+package se.kth.iv1350.pos.integration;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A stand-in for a remote catalog database, used for testing and benchmarks. Every fetch
+ * waits for a simulated round-trip before looking the item up in a local catalog, and the
+ * backend can be made unavailable like {@link LocalStockStore}. A batch of items is fetched
+ * in a single round-trip.
+ */
+public class SimulatedLatencyCatalog implements CatalogBackend {
+    private final ItemCatalog catalog;
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final LongAdder fetchCount = new LongAdder();
+    private volatile ItemCatalog replacement;
+    private volatile boolean unavailable = false;
+
+    /**
+     * Creates a backend serving the given catalog.
+     * @param catalog the items of the backend.
+     * @param latencyMicros the shortest round-trip, in microseconds.
+     * @param jitterMicros the largest extra delay added at random to each round-trip, in microseconds.
+     */
+    public SimulatedLatencyCatalog(ItemCatalog catalog, long latencyMicros, long jitterMicros) {
+        this.catalog = catalog;
+        this.latencyNanos = latencyMicros * 1_000;
+        this.jitterNanos = jitterMicros * 1_000;
+    }
+
+    /**
+     * Simulates that the backend cannot be reached.
+     * @param unavailable true to make all fetches fail, false otherwise.
+     */
+    public void setUnavailable(boolean unavailable) {
+        this.unavailable = unavailable;
+    }
+
+    /**
+     * Replaces the items of the backend, for example to simulate a price change.
+     * @param newCatalog the new items, or <code>null</code> to go back to the original catalog.
+     */
+    public void setCatalog(ItemCatalog newCatalog) {
+        this.replacement = newCatalog;
+    }
+
+    @Override
+    public ItemDTO fetch(String itemId) throws DatabaseUnavailableException {
+        return roundTrip().find(itemId);
+    }
+
+    @Override
+    public Map<String, ItemDTO> fetchAll(Collection<String> itemIds) throws DatabaseUnavailableException {
+        ItemCatalog current = roundTrip();
+        Map<String, ItemDTO> found = new HashMap<>();
+        for (String itemId : itemIds) {
+            ItemDTO item = current.find(itemId);
+            if (item != null) {
+                found.put(itemId, item);
+            }
+        }
+        return found;
+    }
+
+    private ItemCatalog roundTrip() {
+        fetchCount.increment();
+        long delay = latencyNanos + (jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos) : 0);
+        if (delay > 0) {
+            LockSupport.parkNanos(delay);
+        }
+        if (unavailable) {
+            throw new DatabaseUnavailableException("Failed to connect to the catalog database.");
+        }
+        ItemCatalog current = replacement;
+        return current != null ? current : catalog;
+    }
+
+    /**
+     * Returns the number of fetches, which is the number of round-trips. A batch counts once.
+     * @return the number of fetches.
+     */
+    public long getFetchCount() {
+        return fetchCount.sum();
+    }
+}
@@ -0,0 +1,22 @@
+package se.kth.iv1350.pos.integration;
+
+import java.util.Map;
+
+/**
+ * The storage of stock levels in the external inventory system.
+ */
+public interface StockStore {
+    /**
+     * Decreases the stock of several items in one round-trip.
+     * @param decrements the number of sold units per item identifier.
+     * @throws DatabaseUnavailableException if the store cannot be reached.
+     */
+    void applyDecrements(Map<String, Long> decrements) throws DatabaseUnavailableException;
+
+    /**
+     * Returns the current stock of an item.
+     * @param itemId the identifier of the item.
+     * @return the number of units in stock.
+     */
+    long getStock(String itemId);
+}
@@ -0,0 +1,136 @@
+package se.kth.iv1350.pos.model;
+
+/**
+ * A {@link ReceiptSink} that encodes the receipt to bytes, either as UTF-8 text or as
+ * ESC/POS printer commands. With ESC/POS, the receipt starts with the command that resets
+ * the printer and ends by feeding the paper and cutting it, and characters outside ASCII are
+ * printed as <code>?</code> since the printer's default code page can not show them.
+ * Subclasses decide where the bytes go.
+ */
+public abstract class ByteReceiptSink implements ReceiptSink {
+    private static final byte ESC = 0x1B;
+    private static final byte GS = 0x1D;
+    private static final byte LINE_FEED = 0x0A;
+    private static final byte FEED_LINES_BEFORE_CUT = 3;
+    private static final byte PARTIAL_CUT = 0x01;
+
+    /**
+     * How characters are turned into bytes.
+     */
+    public enum Encoding {
+        /**
+         * Plain UTF-8 text.
+         */
+        UTF_8,
+        /**
+         * ESC/POS printer commands.
+         */
+        ESC_POS
+    }
+
+    private final Encoding encoding;
+    private char pendingHighSurrogate;
+
+    /**
+     * Creates a sink using the given encoding.
+     *
+     * @param encoding How characters are turned into bytes.
+     */
+    protected ByteReceiptSink(Encoding encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * Writes one byte.
+     *
+     * @param value The byte to write.
+     */
+    protected abstract void put(byte value);
+
+    /**
+     * Tells the sink that at least the given number of bytes is about to be written, so it
+     * can make room for them at once. Does nothing unless overridden.
+     *
+     * @param bytes The number of bytes about to be written.
+     */
+    protected void reserve(int bytes) {
+    }
+
+    /**
+     * Returns the encoding of this sink.
+     *
+     * @return The encoding of this sink.
+     */
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    @Override
+    public void beginReceipt() {
+        pendingHighSurrogate = 0;
+        if (encoding == Encoding.ESC_POS) {
+            reserve(2);
+            put(ESC);
+            put((byte) '@');
+        }
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) {
+        reserve(length);
+        for (int i = offset; i < offset + length; i++) {
+            encode(chars[i]);
+        }
+    }
+
+    @Override
+    public void write(String text) {
+        int length = text.length();
+        reserve(length);
+        for (int i = 0; i < length; i++) {
+            encode(text.charAt(i));
+        }
+    }
+
+    @Override
+    public void endLine() {
+        put(LINE_FEED);
+    }
+
+    @Override
+    public void endReceipt() {
+        if (encoding == Encoding.ESC_POS) {
+            reserve(6);
+            put(ESC);
+            put((byte) 'd');
+            put(FEED_LINES_BEFORE_CUT);
+            put(GS);
+            put((byte) 'V');
+            put(PARTIAL_CUT);
+        }
+    }
+
+    private void encode(char character) {
+        if (encoding == Encoding.ESC_POS) {
+            put(character < 0x80 && character != ESC && character != GS ? (byte) character : (byte) '?');
+        } else if (character < 0x80) {
+            put((byte) character);
+        } else if (character < 0x800) {
+            put((byte) (0xC0 | character >> 6));
+            put((byte) (0x80 | character & 0x3F));
+        } else if (Character.isHighSurrogate(character)) {
+            pendingHighSurrogate = character;
+        } else if (Character.isLowSurrogate(character) && pendingHighSurrogate != 0) {
+            int codePoint = Character.toCodePoint(pendingHighSurrogate, character);
+            pendingHighSurrogate = 0;
+            put((byte) (0xF0 | codePoint >> 18));
+            put((byte) (0x80 | codePoint >> 12 & 0x3F));
+            put((byte) (0x80 | codePoint >> 6 & 0x3F));
+            put((byte) (0x80 | codePoint & 0x3F));
+        } else {
+            put((byte) (0xE0 | character >> 12));
+            put((byte) (0x80 | character >> 6 & 0x3F));
+            put((byte) (0x80 | character & 0x3F));
+        }
+    }
+}
@@ -1,28 +1,30 @@
 package se.kth.iv1350.pos.model;
 import se.kth.iv1350.pos.util.Amount;
+import se.kth.iv1350.pos.util.Money;
+import se.kth.iv1350.pos.util.MoneyAccumulator;
 
 /**
  * * A class that represents the cash register. 
  *  It can process payments made to the register, updating the total cash held, and returning the change due to the customer.
+ *  A register may be shared by several lanes, so payments are recorded atomically.
  */
 public class CashRegister {
-    private double totalCash;
+    private final MoneyAccumulator totalCash;
     
     
    /**
      * Constructs a new cash register with an initial amount of cash set to zero.
      */
     public CashRegister() {
-        this.totalCash = 0;
+        this.totalCash = new MoneyAccumulator();
     }
      /**
      * Processes a payment received from a customer, adding the payment to the register's total cash.
      * @param payment The payment object containing the amount of money to be added to the register.
      * @return The amount of change to be given back to the customer.
      */
-    public Amount addPayment(CashPayment payment) {
-        double paidAmount = payment.getTotalCost().getAmount();
-        this.totalCash += paidAmount;
+    public synchronized Amount addPayment(CashPayment payment) {
+        totalCash.add(payment.getTotalCost().getAmount() * Money.MINOR_PER_MAJOR);
         return payment.getChange();
     }
     
@@ -30,8 +32,8 @@ public class CashRegister {
      * Returns the total amount of cash currently held in the cash register.
      * @return The total cash in the cash register.
      */
-    public double getTotalCash() {
-        return totalCash;
+    public synchronized double getTotalCash() {
+        return totalCash.toDouble();
     }
 
 }
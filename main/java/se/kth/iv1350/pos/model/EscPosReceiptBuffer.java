@@ -0,0 +1,84 @@
+package se.kth.iv1350.pos.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A reusable byte buffer holding a receipt as ESC/POS printer commands, see
+ * {@link ByteReceiptSink}. Call {@link #reset()} to reuse the buffer for the next receipt.
+ */
+public final class EscPosReceiptBuffer extends ByteReceiptSink {
+    private byte[] bytes;
+    private int size;
+
+    /**
+     * Creates an empty buffer.
+     *
+     * @param initialCapacity The number of bytes the buffer holds before it must grow.
+     */
+    public EscPosReceiptBuffer(int initialCapacity) {
+        super(Encoding.ESC_POS);
+        this.bytes = new byte[Math.max(16, initialCapacity)];
+    }
+
+    /**
+     * Empties the buffer but keeps its memory.
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * Returns the number of bytes in the buffer.
+     *
+     * @return The number of bytes in the buffer.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a copy of the bytes in the buffer.
+     *
+     * @return A copy of the bytes in the buffer.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    /**
+     * Returns a read-only view of the bytes in the buffer, valid until the buffer is changed.
+     *
+     * @return A read-only view of the bytes in the buffer.
+     */
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(bytes, 0, size).asReadOnlyBuffer();
+    }
+
+    /**
+     * Writes the bytes in the buffer to a stream.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the stream fails.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+
+    @Override
+    protected void put(byte value) {
+        if (size == bytes.length) {
+            reserve(1);
+        }
+        bytes[size++] = value;
+    }
+
+    @Override
+    protected void reserve(int additional) {
+        if (size + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package se.kth.iv1350.pos.model;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import se.kth.iv1350.pos.util.BackpressurePolicy;
+import se.kth.iv1350.pos.util.FileLogHandler;
+import se.kth.iv1350.pos.util.RingBuffer;
+
+/**
+ * One observer registered with a {@link SaleEventDispatcher}, together with how sales are
+ * delivered to it and metrics about the deliveries. An asynchronous subscription has its own
+ * bounded queue and thread, so a slow observer only delays its own notifications. Exceptions
+ * thrown by the observer are counted and logged, never passed on to the sale.
+ */
+public class ObserverSubscription {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long FULL_QUEUE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final int BATCH_SIZE = 64;
+
+    private final SaleObserver observer;
+    private final SaleEventDispatcher.DeliveryMode mode;
+    private final BackpressurePolicy policy;
+    private final long slowThresholdNanos;
+    private final FileLogHandler logger;
+    private final RingBuffer<SaleEventDispatcher.PendingSale> queue;
+    private final Thread consumer;
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder slowDeliveries = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+    private volatile boolean running = true;
+    private volatile boolean idle;
+    private volatile boolean slow;
+
+    ObserverSubscription(SaleObserver observer, SaleEventDispatcher.DeliveryMode mode, int queueCapacity,
+                         BackpressurePolicy policy, long slowThresholdMillis, FileLogHandler logger) {
+        if (policy == BackpressurePolicy.SAMPLE) {
+            throw new IllegalArgumentException("Sale notifications can be blocked or dropped, not sampled.");
+        }
+        this.observer = observer;
+        this.mode = mode;
+        this.policy = policy;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.logger = logger;
+        if (mode == SaleEventDispatcher.DeliveryMode.SYNC) {
+            this.queue = null;
+            this.consumer = null;
+        } else {
+            this.queue = new RingBuffer<>(queueCapacity);
+            this.consumer = newThread(mode, this::deliverQueued);
+            consumer.setName("pos-observer-" + observer.getClass().getSimpleName());
+            consumer.setDaemon(true);
+            consumer.start();
+        }
+    }
+
+    void publish(SaleEventDispatcher.PendingSale sale) {
+        if (queue == null) {
+            deliver(sale);
+            return;
+        }
+        while (!queue.offer(sale)) {
+            markSlow();
+            if (policy == BackpressurePolicy.DROP || !running) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.parkNanos(FULL_QUEUE_PARK_NANOS);
+        }
+        if (idle) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    boolean close(long timeoutMillis) throws InterruptedException {
+        running = false;
+        if (consumer == null) {
+            return true;
+        }
+        LockSupport.unpark(consumer);
+        consumer.join(timeoutMillis);
+        return !consumer.isAlive();
+    }
+
+    private void deliverQueued() {
+        List<SaleEventDispatcher.PendingSale> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || queue.size() > 0) {
+            batch.clear();
+            queue.drainTo(batch, BATCH_SIZE);
+            for (SaleEventDispatcher.PendingSale sale : batch) {
+                deliver(sale);
+            }
+            if (batch.isEmpty()) {
+                idle = true;
+                if (queue.size() == 0 && running) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                idle = false;
+            } else if (queue.size() < queue.capacity() / 4) {
+                slow = false;
+            }
+        }
+    }
+
+    private void deliver(SaleEventDispatcher.PendingSale sale) {
+        long started = System.nanoTime();
+        try {
+            observer.saleCompleted(sale.getEvent());
+            delivered.increment();
+        } catch (RuntimeException e) {
+            failed.increment();
+            if (logger != null) {
+                logger.logException(e);
+            }
+        }
+        long finished = System.nanoTime();
+        long latency = finished - sale.getPublishedNanos();
+        totalLatencyNanos.add(latency);
+        maxLatencyNanos.accumulate(latency);
+        if (finished - started > slowThresholdNanos) {
+            markSlow();
+        }
+    }
+
+    private void markSlow() {
+        slowDeliveries.increment();
+        slow = true;
+    }
+
+    private static Thread newThread(SaleEventDispatcher.DeliveryMode mode, Runnable task) {
+        if (mode == SaleEventDispatcher.DeliveryMode.VIRTUAL) {
+            try {
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                Method unstarted = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+                return (Thread) unstarted.invoke(builder, task);
+            } catch (ReflectiveOperationException noVirtualThreads) {
+                // Virtual threads need Java 21, fall back to a platform thread.
+            }
+        }
+        return new Thread(task);
+    }
+
+    /**
+     * Returns the observer of this subscription.
+     *
+     * @return The observer of this subscription.
+     */
+    public SaleObserver getObserver() {
+        return observer;
+    }
+
+    /**
+     * Returns how sales are delivered to the observer.
+     *
+     * @return How sales are delivered to the observer.
+     */
+    public SaleEventDispatcher.DeliveryMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the number of sales the observer handled without throwing an exception.
+     *
+     * @return The number of sales the observer handled.
+     */
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    /**
+     * Returns the number of sales dropped because the queue was full.
+     *
+     * @return The number of dropped sales.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Returns the number of sales for which the observer threw an exception.
+     *
+     * @return The number of failed deliveries.
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Returns the number of times the observer took longer than the slow threshold, or its
+     * queue was full.
+     *
+     * @return The number of slow deliveries.
+     */
+    public long getSlowDeliveryCount() {
+        return slowDeliveries.sum();
+    }
+
+    /**
+     * Tells whether the observer currently can not keep up. The flag is set by a slow delivery
+     * or a full queue, and cleared once the queue is less than a quarter full again.
+     *
+     * @return <code>true</code> if the observer is a slow consumer.
+     */
+    public boolean isSlow() {
+        return slow;
+    }
+
+    /**
+     * Returns the number of sales waiting in the queue.
+     *
+     * @return The number of sales waiting in the queue.
+     */
+    public int getQueueDepth() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * Returns the mean time from publishing a sale until the observer handled it, in microseconds.
+     *
+     * @return The mean delivery latency, in microseconds.
+     */
+    public double getAverageLatencyMicros() {
+        long finished = delivered.sum() + failed.sum();
+        return finished == 0 ? 0 : totalLatencyNanos.sum() / 1_000.0 / finished;
+    }
+
+    /**
+     * Returns the longest time from publishing a sale until the observer handled it, in microseconds.
+     *
+     * @return The longest delivery latency, in microseconds.
+     */
+    public double getMaxLatencyMicros() {
+        return maxLatencyNanos.get() / 1_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%s): delivered=%d dropped=%d failed=%d slow=%d queued=%d avg=%.1fus max=%.1fus",
+                observer.getClass().getSimpleName(), mode, getDeliveredCount(), getDroppedCount(), getFailedCount(),
+                getSlowDeliveryCount(), getQueueDepth(), getAverageLatencyMicros(), getMaxLatencyMicros());
+    }
+}
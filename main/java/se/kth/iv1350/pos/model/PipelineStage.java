@@ -0,0 +1,242 @@
+package se.kth.iv1350.pos.model;
+
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import se.kth.iv1350.pos.util.FileLogHandler;
+
+/**
+ * One stage of the {@link SaleCompletionPipeline}, for example updating the inventory.
+ * A stage runs its tasks in order on its own thread, reading them from a bounded queue.
+ * If the queue is full, the submitting thread waits for room, which slows the producer
+ * down without losing work or changing the order of the tasks. A task submitted after the
+ * stage was shut down is logged and run on the submitting thread. Failed tasks are retried, and the stage keeps
+ * metrics about how many tasks it ran and how long they took. Work with several independent
+ * side effects is submitted as a group, so that only the failed part is retried.
+ */
+public class PipelineStage {
+    private static final long RETRY_BACKOFF_MILLIS = 10;
+
+    private final String name;
+    private final int maxAttempts;
+    private final FileLogHandler logger;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLong threadCounter = new AtomicLong();
+
+    /**
+     * Creates a stage and starts its thread.
+     *
+     * @param name The name of the stage, used for its thread and in the metrics.
+     * @param queueCapacity The number of tasks that may wait for the stage.
+     * @param maxAttempts How many times a task is tried before it counts as failed.
+     * @param logger Logs tasks that fail on the last attempt, may be <code>null</code>.
+     */
+    public PipelineStage(String name, int queueCapacity, int maxAttempts, FileLogHandler logger) {
+        this.name = name;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.logger = logger;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "pos-" + name + "-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, this::waitForRoom);
+    }
+
+    /**
+     * Queues a task for the stage, waiting for room if the queue is full.
+     *
+     * @param task The work to do.
+     */
+    public void submit(Runnable task) {
+        long submitted = System.nanoTime();
+        executor.execute(() -> finish(runWithRetries(task), submitted));
+    }
+
+    /**
+     * Queues a group of tasks, created on the stage's thread and then run one after the other,
+     * each with its own retries. A failed task is therefore retried without running the tasks
+     * that already succeeded again. The group counts as one task in the metrics, which fails
+     * if any of its tasks fails.
+     *
+     * @param tasks Creates the tasks of the group.
+     */
+    public void submitEach(Supplier<? extends Collection<Runnable>> tasks) {
+        long submitted = System.nanoTime();
+        executor.execute(() -> {
+            boolean succeeded = true;
+            try {
+                for (Runnable task : tasks.get()) {
+                    succeeded &= runWithRetries(task);
+                }
+            } catch (RuntimeException e) {
+                succeeded = false;
+                log(e);
+            }
+            finish(succeeded, submitted);
+        });
+    }
+
+    private void waitForRoom(Runnable task, ThreadPoolExecutor rejectingExecutor) {
+        boolean interrupted = false;
+        try {
+            while (!rejectingExecutor.isShutdown()) {
+                try {
+                    rejectingExecutor.getQueue().put(task);
+                    if (!rejectingExecutor.isShutdown() || !rejectingExecutor.getQueue().remove(task)) {
+                        return;
+                    }
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log(new IllegalStateException("The " + name + " stage is shut down, running the task on the submitting thread."));
+        task.run();
+    }
+
+    private boolean runWithRetries(Runnable task) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                task.run();
+                return true;
+            } catch (RuntimeException e) {
+                if (attempt == maxAttempts) {
+                    log(e);
+                    return false;
+                }
+                retries.increment();
+                pauseBeforeRetry(attempt);
+            }
+        }
+        return false;
+    }
+
+    private void finish(boolean succeeded, long submitted) {
+        if (succeeded) {
+            completed.increment();
+        } else {
+            failed.increment();
+        }
+        recordLatency(submitted);
+    }
+
+    private void log(RuntimeException e) {
+        if (logger != null) {
+            logger.logException(e);
+        }
+    }
+
+    private void pauseBeforeRetry(int attempt) {
+        try {
+            Thread.sleep(RETRY_BACKOFF_MILLIS * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void recordLatency(long submitted) {
+        long latency = System.nanoTime() - submitted;
+        totalLatencyNanos.add(latency);
+        maxLatencyNanos.accumulate(latency);
+    }
+
+    /**
+     * Stops accepting tasks and waits for the queued ones to finish.
+     *
+     * @param timeoutMillis The longest time to wait.
+     * @return <code>true</code> if all tasks finished in time.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean shutdown(long timeoutMillis) throws InterruptedException {
+        executor.shutdown();
+        return executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the name of the stage.
+     *
+     * @return The name of the stage.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of tasks that completed, possibly after retries.
+     *
+     * @return The number of tasks that completed, possibly after retries.
+     */
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    /**
+     * Returns the number of tasks that failed on every attempt.
+     *
+     * @return The number of tasks that failed on every attempt.
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Returns the number of retried attempts.
+     *
+     * @return The number of retried attempts.
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * Returns the number of tasks waiting in the queue.
+     *
+     * @return The number of tasks waiting in the queue.
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Returns the mean time from submitting a task until it finished, in microseconds.
+     *
+     * @return The mean time from submitting a task until it finished, in microseconds.
+     */
+    public double getAverageLatencyMicros() {
+        long finished = completed.sum() + failed.sum();
+        return finished == 0 ? 0 : totalLatencyNanos.sum() / 1_000.0 / finished;
+    }
+
+    /**
+     * Returns the longest time from submitting a task until it finished, in microseconds.
+     *
+     * @return The longest time from submitting a task until it finished, in microseconds.
+     */
+    public double getMaxLatencyMicros() {
+        return maxLatencyNanos.get() / 1_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: completed=%d failed=%d retries=%d queued=%d avg=%.1fus max=%.1fus",
+                name, getCompletedCount(), getFailedCount(), getRetryCount(), getQueueDepth(),
+                getAverageLatencyMicros(), getMaxLatencyMicros());
+    }
+}
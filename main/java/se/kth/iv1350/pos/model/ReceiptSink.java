@@ -0,0 +1,40 @@
+package se.kth.iv1350.pos.model;
+
+/**
+ * Where a {@link ReceiptTemplate} writes a rendered receipt, for example a
+ * <code>StringBuilder</code> or an {@link EscPosReceiptBuffer}.
+ */
+public interface ReceiptSink {
+    /**
+     * Called before the first line of a receipt is written.
+     */
+    default void beginReceipt() {
+    }
+
+    /**
+     * Writes characters from an array.
+     *
+     * @param chars The array holding the characters.
+     * @param offset The index of the first character to write.
+     * @param length The number of characters to write.
+     */
+    void write(char[] chars, int offset, int length);
+
+    /**
+     * Writes a piece of text.
+     *
+     * @param text The text to write.
+     */
+    void write(String text);
+
+    /**
+     * Ends the current line.
+     */
+    void endLine();
+
+    /**
+     * Called after the last line of a receipt is written.
+     */
+    default void endReceipt() {
+    }
+}
@@ -0,0 +1,323 @@
+package se.kth.iv1350.pos.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import se.kth.iv1350.pos.integration.Item;
+import se.kth.iv1350.pos.util.DecimalFormatter;
+
+/**
+ * A receipt layout that is parsed once and can then render any number of receipts. Each
+ * line of the layout is text with placeholders in braces, for example
+ * <code>Change: {change} sek</code>. A line using an <code>item.</code> placeholder is
+ * repeated for every item of the sale, and a line using a discount placeholder is only
+ * printed when a discount was applied. Numbers are written by {@link DecimalFormatter}
+ * straight into a {@link ReceiptSink}, so rendering does not create any strings of its own.
+ */
+public final class ReceiptTemplate {
+    /**
+     * The layout of the receipts printed by the system.
+     */
+    public static final ReceiptTemplate DEFAULT = compile(String.join("\n",
+            "---------- Receipt ----------",
+            "Time: {time}",
+            "{item.name} x{item.quantity} - {item.price} sek each",
+            "Total Price (incl. VAT): {total} sek",
+            "Total VAT: {vat} sek",
+            "Discount applied: {discount} sek",
+            "Total Price after discount (incl. VAT): {discountedTotal} sek",
+            "Amount Paid: {paid} sek",
+            "Change: {change} sek",
+            "------------ End ------------"));
+
+    private static final int ESTIMATED_FIELD_LENGTH = 12;
+
+    private enum Field {
+        TIME("time"), ITEM_NAME("item.name"), ITEM_QUANTITY("item.quantity"), ITEM_PRICE("item.price"),
+        TOTAL("total"), VAT("vat"), DISCOUNT("discount"), DISCOUNTED_TOTAL("discountedTotal"),
+        PAID("paid"), CHANGE("change");
+
+        private final String placeholder;
+
+        Field(String placeholder) {
+            this.placeholder = placeholder;
+        }
+
+        private boolean isItemField() {
+            return this == ITEM_NAME || this == ITEM_QUANTITY || this == ITEM_PRICE;
+        }
+
+        private boolean isDiscountField() {
+            return this == DISCOUNT || this == DISCOUNTED_TOTAL;
+        }
+
+        private static Field of(String placeholder) {
+            for (Field field : values()) {
+                if (field.placeholder.equals(placeholder)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("Unknown receipt placeholder: {" + placeholder + "}");
+        }
+    }
+
+    private enum LineKind { PLAIN, ITEM, DISCOUNT }
+
+    private static final class Line {
+        private final LineKind kind;
+        private final String[] literals;
+        private final Field[] fields;
+        private final int literalLength;
+
+        private Line(LineKind kind, String[] literals, Field[] fields) {
+            this.kind = kind;
+            this.literals = literals;
+            this.fields = fields;
+            int length = 0;
+            for (String literal : literals) {
+                length += literal.length();
+            }
+            this.literalLength = length;
+        }
+    }
+
+    private final Line[] lines;
+
+    private ReceiptTemplate(Line[] lines) {
+        this.lines = lines;
+    }
+
+    /**
+     * Parses a layout. Lines are separated by <code>\n</code>.
+     *
+     * @param layout The layout to parse.
+     * @return The parsed layout.
+     * @throws IllegalArgumentException If the layout has an unknown or unclosed placeholder,
+     *                                  or mixes item and discount placeholders on one line.
+     */
+    public static ReceiptTemplate compile(String layout) {
+        String[] layoutLines = layout.split("\n", -1);
+        Line[] lines = new Line[layoutLines.length];
+        for (int i = 0; i < layoutLines.length; i++) {
+            lines[i] = compileLine(layoutLines[i]);
+        }
+        return new ReceiptTemplate(lines);
+    }
+
+    private static Line compileLine(String text) {
+        List<String> literals = new ArrayList<>();
+        List<Field> fields = new ArrayList<>();
+        LineKind kind = LineKind.PLAIN;
+        int position = 0;
+        while (true) {
+            int open = text.indexOf('{', position);
+            if (open < 0) {
+                literals.add(text.substring(position));
+                break;
+            }
+            int close = text.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed receipt placeholder: " + text);
+            }
+            literals.add(text.substring(position, open));
+            Field field = Field.of(text.substring(open + 1, close));
+            fields.add(field);
+            LineKind fieldKind = field.isItemField() ? LineKind.ITEM
+                    : field.isDiscountField() ? LineKind.DISCOUNT : LineKind.PLAIN;
+            if (fieldKind != LineKind.PLAIN) {
+                if (kind != LineKind.PLAIN && kind != fieldKind) {
+                    throw new IllegalArgumentException("Item and discount placeholders on one line: " + text);
+                }
+                kind = fieldKind;
+            }
+            position = close + 1;
+        }
+        return new Line(kind, literals.toArray(new String[0]), fields.toArray(new Field[0]));
+    }
+
+    /**
+     * Returns a length that is usually enough to hold the given receipt, for sizing buffers.
+     *
+     * @param receipt The receipt that will be rendered.
+     * @return The estimated number of characters.
+     */
+    public int estimateLength(Receipt receipt) {
+        int itemCount = receipt.getItems().size();
+        int length = 0;
+        for (Line line : lines) {
+            int lineLength = line.literalLength + line.fields.length * ESTIMATED_FIELD_LENGTH + 1;
+            length += line.kind == LineKind.ITEM ? lineLength * itemCount : lineLength;
+        }
+        return length;
+    }
+
+    /**
+     * Renders a receipt as text.
+     *
+     * @param receipt The receipt to render.
+     * @param out The builder the text is appended to.
+     */
+    public void render(Receipt receipt, StringBuilder out) {
+        render(receipt, new AppendableSink(out));
+    }
+
+    /**
+     * Renders a receipt as text.
+     *
+     * @param receipt The receipt to render.
+     * @param out Where the text is appended.
+     * @throws IOException If <code>out</code> fails.
+     */
+    public void render(Receipt receipt, Appendable out) throws IOException {
+        try {
+            render(receipt, new AppendableSink(out));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Renders a receipt into a sink, for example an {@link EscPosReceiptBuffer}.
+     *
+     * @param receipt The receipt to render.
+     * @param out The sink the receipt is written to.
+     */
+    public void render(Receipt receipt, ReceiptSink out) {
+        out.beginReceipt();
+        char[] scratch = new char[DecimalFormatter.MAX_LENGTH];
+        boolean discountApplied = receipt.getDiscountedTotal().getAmount() > 0;
+        for (Line line : lines) {
+            if (line.kind == LineKind.ITEM) {
+                for (Item item : receipt.getItems()) {
+                    renderLine(line, receipt, item, out, scratch);
+                }
+            } else if (line.kind == LineKind.PLAIN || discountApplied) {
+                renderLine(line, receipt, null, out, scratch);
+            }
+        }
+        out.endReceipt();
+    }
+
+    private static void renderLine(Line line, Receipt receipt, Item item, ReceiptSink out, char[] scratch) {
+        for (int i = 0; i < line.fields.length; i++) {
+            writeLiteral(line.literals[i], out);
+            renderField(line.fields[i], receipt, item, out, scratch);
+        }
+        writeLiteral(line.literals[line.fields.length], out);
+        out.endLine();
+    }
+
+    private static void writeLiteral(String literal, ReceiptSink out) {
+        if (!literal.isEmpty()) {
+            out.write(literal);
+        }
+    }
+
+    private static void renderField(Field field, Receipt receipt, Item item, ReceiptSink out, char[] scratch) {
+        int length;
+        switch (field) {
+            case TIME:
+                length = formatTime(receipt.getTime(), scratch);
+                break;
+            case ITEM_NAME:
+                out.write(item.getName());
+                return;
+            case ITEM_QUANTITY:
+                length = DecimalFormatter.formatLong(item.getQuantity(), scratch, 0);
+                break;
+            case ITEM_PRICE:
+                length = DecimalFormatter.formatFixed2(item.getPrice(), scratch, 0);
+                break;
+            case TOTAL:
+                length = DecimalFormatter.formatWhole(receipt.getTotalPrice().getAmount(), scratch, 0);
+                break;
+            case VAT:
+                length = DecimalFormatter.formatFixed2(receipt.getTotalVAT(), scratch, 0);
+                break;
+            case DISCOUNT:
+                length = DecimalFormatter.formatWhole((long) receipt.getTotalPrice().getAmount()
+                        - receipt.getDiscountedTotal().getAmount(), scratch, 0);
+                break;
+            case DISCOUNTED_TOTAL:
+                length = DecimalFormatter.formatWhole(receipt.getDiscountedTotal().getAmount(), scratch, 0);
+                break;
+            case PAID:
+                length = DecimalFormatter.formatWhole(receipt.getAmountPaid().getAmount(), scratch, 0);
+                break;
+            case CHANGE:
+                length = DecimalFormatter.formatWhole(receipt.getChange().getAmount(), scratch, 0);
+                break;
+            default:
+                throw new IllegalStateException("Unhandled receipt field: " + field);
+        }
+        out.write(scratch, 0, length);
+    }
+
+    private static int formatTime(LocalDateTime time, char[] buffer) {
+        int position = DecimalFormatter.formatPadded(time.getYear(), 4, buffer, 0);
+        buffer[position++] = '-';
+        position = DecimalFormatter.formatPadded(time.getMonthValue(), 2, buffer, position);
+        buffer[position++] = '-';
+        position = DecimalFormatter.formatPadded(time.getDayOfMonth(), 2, buffer, position);
+        buffer[position++] = ' ';
+        position = DecimalFormatter.formatPadded(time.getHour(), 2, buffer, position);
+        buffer[position++] = ':';
+        position = DecimalFormatter.formatPadded(time.getMinute(), 2, buffer, position);
+        buffer[position++] = ':';
+        return DecimalFormatter.formatPadded(time.getSecond(), 2, buffer, position);
+    }
+
+    private static final class AppendableSink implements ReceiptSink {
+        private final Appendable out;
+        private final StringBuilder builder;
+
+        private AppendableSink(Appendable out) {
+            this.out = out;
+            this.builder = out instanceof StringBuilder ? (StringBuilder) out : null;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            if (builder != null) {
+                builder.append(chars, offset, length);
+                return;
+            }
+            for (int i = offset; i < offset + length; i++) {
+                append(chars[i]);
+            }
+        }
+
+        @Override
+        public void write(String text) {
+            if (builder != null) {
+                builder.append(text);
+                return;
+            }
+            try {
+                out.append(text);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void endLine() {
+            append('\n');
+        }
+
+        private void append(char character) {
+            if (builder != null) {
+                builder.append(character);
+                return;
+            }
+            try {
+                out.append(character);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package se.kth.iv1350.pos.model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import se.kth.iv1350.pos.util.Money;
+
+/**
+ * Sums the revenue of sales from any number of lanes without making them wait for each
+ * other. Revenue is kept in minor units in striped <code>LongAdder</code>s, so the sums are
+ * exact and a lane recording a sale only touches its own cell; the cells are only summed when
+ * a total is read. Listeners do not see every
+ * sale; instead an immutable {@link RevenueSnapshot} is published to them periodically, and
+ * only if revenue was recorded since the last one.
+ * <p>
+ * The aggregator is itself a {@link SaleObserver}. Registered once, it records every completed
+ * sale in the cell of the sale's lane, and any number of displays can share it by listening to
+ * its snapshots, without recording the sale again.
+ */
+public class RevenueAggregator implements SaleObserver {
+    private final LongAdder unassignedMinorUnits = new LongAdder();
+    private final LongAdder unassignedSaleCount = new LongAdder();
+    private final Map<String, LaneCell> lanes = new ConcurrentHashMap<>();
+    private final List<Consumer<RevenueSnapshot>> listeners = new CopyOnWriteArrayList<>();
+    private final LongAdder failedListenerCalls = new LongAdder();
+    private ScheduledExecutorService publisher;
+    private long publishedSequence;
+    private long publishedSaleCount = -1;
+
+    /**
+     * The revenue cell of one lane. A lane keeps its cell and records its sales through it,
+     * so recording does not look the lane up.
+     */
+    public final class LaneCell {
+        private final String laneId;
+        private final LongAdder minorUnits = new LongAdder();
+        private final LongAdder saleCount = new LongAdder();
+
+        private LaneCell(String laneId) {
+            this.laneId = laneId;
+        }
+
+        /**
+         * Records the revenue of a completed sale in this lane.
+         *
+         * @param saleMinorUnits The revenue of the sale, in minor units.
+         */
+        public void record(long saleMinorUnits) {
+            minorUnits.add(saleMinorUnits);
+            saleCount.increment();
+        }
+
+        /**
+         * Returns the identifier of the lane.
+         *
+         * @return The identifier of the lane.
+         */
+        public String getLaneId() {
+            return laneId;
+        }
+    }
+
+    /**
+     * Returns the cell of a lane, creating it the first time.
+     *
+     * @param laneId The identifier of the lane.
+     * @return The cell of the lane.
+     */
+    public LaneCell laneCell(String laneId) {
+        return lanes.computeIfAbsent(laneId, LaneCell::new);
+    }
+
+    /**
+     * Records a completed sale that is not tied to a lane.
+     *
+     * @param priceOfPurchase The total price of the completed sale.
+     */
+    @Override
+    public void newSale(double priceOfPurchase) {
+        record(Money.toMinor(priceOfPurchase));
+    }
+
+    /**
+     * Records a completed sale in the cell of its lane, or as unassigned if it was not made by a lane.
+     *
+     * @param event The completed sale.
+     */
+    @Override
+    public void saleCompleted(SaleCompletedEvent event) {
+        long saleMinorUnits = (long) event.getPriceOfPurchase() * Money.MINOR_PER_MAJOR;
+        String laneId = event.getLaneId();
+        if (laneId == null) {
+            record(saleMinorUnits);
+        } else {
+            laneCell(laneId).record(saleMinorUnits);
+        }
+    }
+
+    /**
+     * Records the revenue of a completed sale that is not tied to a lane cell.
+     *
+     * @param saleMinorUnits The revenue of the sale, in minor units.
+     */
+    public void record(long saleMinorUnits) {
+        unassignedMinorUnits.add(saleMinorUnits);
+        unassignedSaleCount.increment();
+    }
+
+    /**
+     * Returns the revenue recorded so far, in minor units. Sales recorded while this method
+     * runs may or may not be included.
+     *
+     * @return The revenue recorded so far.
+     */
+    public long getTotalMinorUnits() {
+        long total = unassignedMinorUnits.sum();
+        for (LaneCell cell : lanes.values()) {
+            total += cell.minorUnits.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of sales recorded so far.
+     *
+     * @return The number of sales recorded so far.
+     */
+    public long getSaleCount() {
+        long count = unassignedSaleCount.sum();
+        for (LaneCell cell : lanes.values()) {
+            count += cell.saleCount.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times a listener threw an exception when given a snapshot. A failing
+     * listener does not stop the other listeners or the periodic publication.
+     *
+     * @return The number of failed listener calls.
+     */
+    public long getFailedListenerCalls() {
+        return failedListenerCalls.sum();
+    }
+
+    /**
+     * Adds a listener that receives the published snapshots.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(Consumer<RevenueSnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener(Consumer<RevenueSnapshot> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Takes a snapshot of the revenue without publishing it.
+     *
+     * @return The current revenue.
+     */
+    public synchronized RevenueSnapshot snapshot() {
+        return takeSnapshot(publishedSequence);
+    }
+
+    /**
+     * Publishes a snapshot to the listeners if revenue was recorded since the last one.
+     *
+     * @return <code>true</code> if a snapshot was published.
+     */
+    public synchronized boolean publish() {
+        long sales = getSaleCount();
+        if (sales == publishedSaleCount) {
+            return false;
+        }
+        publishedSaleCount = sales;
+        RevenueSnapshot snapshot = takeSnapshot(++publishedSequence);
+        for (Consumer<RevenueSnapshot> listener : listeners) {
+            try {
+                listener.accept(snapshot);
+            } catch (RuntimeException e) {
+                failedListenerCalls.increment();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Starts publishing snapshots on a background thread. Publications are aligned to the
+     * wall clock, so with a period of one second a snapshot is published at the start of every
+     * second.
+     *
+     * @param periodMillis The time between two publications.
+     */
+    public synchronized void start(long periodMillis) {
+        if (publisher != null) {
+            return;
+        }
+        publisher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "pos-revenue-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long initialDelay = periodMillis - System.currentTimeMillis() % periodMillis;
+        publisher.scheduleAtFixedRate(this::publish, initialDelay, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background publication and publishes the last snapshot.
+     */
+    public void stop() {
+        ScheduledExecutorService stopped;
+        synchronized (this) {
+            stopped = publisher;
+            publisher = null;
+        }
+        if (stopped != null) {
+            stopped.shutdown();
+            try {
+                stopped.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        publish();
+    }
+
+    private RevenueSnapshot takeSnapshot(long sequence) {
+        Map<String, Long> byLane = new HashMap<>();
+        long total = unassignedMinorUnits.sum();
+        long sales = unassignedSaleCount.sum();
+        for (LaneCell cell : lanes.values()) {
+            long laneMinorUnits = cell.minorUnits.sum();
+            byLane.put(cell.laneId, laneMinorUnits);
+            total += laneMinorUnits;
+            sales += cell.saleCount.sum();
+        }
+        return new RevenueSnapshot(sequence, System.currentTimeMillis(), sales, total, byLane);
+    }
+}
@@ -0,0 +1,86 @@
+package se.kth.iv1350.pos.model;
+
+import java.util.Collections;
+import java.util.Map;
+
+import se.kth.iv1350.pos.util.Money;
+
+/**
+ * The revenue recorded by a {@link RevenueAggregator} at one point in time. Instances are
+ * immutable, so they can be handed to any number of observers.
+ */
+public final class RevenueSnapshot {
+    private final long sequence;
+    private final long timeMillis;
+    private final long saleCount;
+    private final long totalMinorUnits;
+    private final Map<String, Long> minorUnitsByLane;
+
+    RevenueSnapshot(long sequence, long timeMillis, long saleCount, long totalMinorUnits,
+                    Map<String, Long> minorUnitsByLane) {
+        this.sequence = sequence;
+        this.timeMillis = timeMillis;
+        this.saleCount = saleCount;
+        this.totalMinorUnits = totalMinorUnits;
+        this.minorUnitsByLane = Collections.unmodifiableMap(minorUnitsByLane);
+    }
+
+    /**
+     * Returns a number that grows by one for each snapshot published by the same aggregator.
+     *
+     * @return The number of this snapshot.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns when the snapshot was taken, in milliseconds since the epoch.
+     *
+     * @return When the snapshot was taken.
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Returns the number of sales recorded.
+     *
+     * @return The number of sales recorded.
+     */
+    public long getSaleCount() {
+        return saleCount;
+    }
+
+    /**
+     * Returns the total revenue.
+     *
+     * @return The total revenue.
+     */
+    public Money getTotalRevenue() {
+        return Money.ofMinor(totalMinorUnits);
+    }
+
+    /**
+     * Returns the total revenue as a <code>double</code>, for the revenue observers.
+     *
+     * @return The total revenue.
+     */
+    public double getTotalRevenueAsDouble() {
+        return (double) totalMinorUnits / Money.MINOR_PER_MAJOR;
+    }
+
+    /**
+     * Returns the revenue of each lane that recorded its sales through a lane cell.
+     *
+     * @return The revenue in minor units, by lane identifier.
+     */
+    public Map<String, Long> getMinorUnitsByLane() {
+        return minorUnitsByLane;
+    }
+
+    @Override
+    public String toString() {
+        return "RevenueSnapshot #" + sequence + ": " + saleCount + " sales, " + getTotalRevenue();
+    }
+}
@@ -1,8 +1,13 @@
 package se.kth.iv1350.pos.model;
 
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import se.kth.iv1350.pos.discount.DiscountHandler;
 import se.kth.iv1350.pos.integration.Item;
@@ -10,18 +15,25 @@ import se.kth.iv1350.pos.integration.ItemDTO;
 import se.kth.iv1350.pos.integration.ReceiptPrinter;
 import se.kth.iv1350.pos.integration.SystemCreator;
 import se.kth.iv1350.pos.util.Amount;
+import se.kth.iv1350.pos.util.Money;
+import se.kth.iv1350.pos.util.MoneyAccumulator;
 
 /**
  * This class contains everything a sale should contain and methods to perform a sale.
  */
 public class Sale {
     private LocalDateTime startTime;
-    private List<Item> items;
-    private Amount totalPriceIncludingVAT;
-    private double totalVAT;
+    private Map<String, Item> items;
+    private MoneyAccumulator totalPriceIncludingVAT;
+    private MoneyAccumulator totalVAT;
     private SystemCreator externalSystemCreator;
+    private SaleCompletionPipeline completionPipeline;
+    private SaleEventDispatcher eventDispatcher;
+    private SaleEventStream eventStream;
+    private String laneId;
     private List<SaleObserver> saleObservers = new ArrayList<>();
     private Amount totalDiscount;
+    private CashPayment payment;
 
     /**
      * Creates a new instance of a sale, initializing the start time and date, 
@@ -29,9 +41,9 @@ public class Sale {
      */
     public Sale() {
         this.startTime = LocalDateTime.now();
-        this.items = new ArrayList<>();
-        this.totalVAT = 0;
-        this.totalPriceIncludingVAT = new Amount(0);
+        this.items = new LinkedHashMap<>();
+        this.totalVAT = new MoneyAccumulator();
+        this.totalPriceIncludingVAT = new MoneyAccumulator();
         this.totalDiscount = new Amount(0);
     }
 
@@ -43,6 +55,49 @@ public class Sale {
         this.externalSystemCreator = systemCreator;
     }
 
+    /**
+     * Makes the sale complete itself in the background once it is paid, instead of
+     * updating the external systems, printing and notifying observers before returning.
+     * @param completionPipeline the pipeline to hand the paid sale to, or <code>null</code>
+     *                           to complete the sale on the caller's thread.
+     */
+    public void setCompletionPipeline(SaleCompletionPipeline completionPipeline) {
+        this.completionPipeline = completionPipeline;
+    }
+
+    /**
+     * Makes the sale also publish itself to the given dispatcher when it is completed, so the
+     * observers subscribed there are notified in isolation from the sale.
+     * @param eventDispatcher the dispatcher to publish to, or <code>null</code> for none.
+     */
+    public void setEventDispatcher(SaleEventDispatcher eventDispatcher) {
+        this.eventDispatcher = eventDispatcher;
+    }
+
+    /**
+     * Makes the sale also publish its event to the given stream when it is completed.
+     * @param eventStream the stream to publish to, or <code>null</code> for none.
+     */
+    public void setEventStream(SaleEventStream eventStream) {
+        this.eventStream = eventStream;
+    }
+
+    /**
+     * Sets the lane where the sale is made.
+     * @param laneId the identifier of the lane.
+     */
+    public void setLaneId(String laneId) {
+        this.laneId = laneId;
+    }
+
+    /**
+     * Returns the lane where the sale is made.
+     * @return the identifier of the lane, or <code>null</code> if the sale is not made by a lane.
+     */
+    public String getLaneId() {
+        return laneId;
+    }
+
     /**
      * Adds an item to the current sale based on the provided item details and quantity.
      * If the item already exists in the sale, it increases the quantity; 
@@ -52,32 +107,116 @@ public class Sale {
      */
     public void addItemToSale(ItemDTO itemDTO, int quantity) {
         Item item = findItem(itemDTO.getItemIdentifier());
+        int oldQuantity = 0;
         if (item != null) {
+            oldQuantity = item.getQuantity();
             item.increaseQuantity(quantity);
         } else {
-            items.add(new Item(itemDTO, quantity));
+            item = new Item(itemDTO, quantity);
+            items.put(itemDTO.getItemIdentifier(), item);
         }
-        updateTotalPriceAndVAT();
+        updateTotalPriceAndVAT(item, oldQuantity, item.getQuantity());
     }
 
     /**
-     * Completes the sale by calculating the total price including VAT and notifying all registered observers.
+     * Adds several items to the sale at once, for example a whole basket entered in one go.
+     * Each line is merged into the sale like {@link #addItemToSale(ItemDTO, int)} does, but the
+     * running totals are updated only once, with the summed change of all lines.
+     * @param lines The items to add, each with the quantity to add.
+     */
+    public void addItemsToSale(Collection<Item> lines) {
+        long priceChange = 0;
+        long vatChange = 0;
+        for (Item line : lines) {
+            Item item = findItem(line.getItemIdentifier());
+            int oldQuantity = 0;
+            if (item != null) {
+                oldQuantity = item.getQuantity();
+                item.increaseQuantity(line.getQuantity());
+            } else {
+                item = new Item(line.getItemDTO(), line.getQuantity());
+                items.put(line.getItemIdentifier(), item);
+            }
+            long unitPrice = Money.toMinor(item.getPrice());
+            int vatRate = Money.toBasisPoints(item.getVATRate());
+            long lineVATChange = lineVAT(unitPrice, item.getQuantity(), vatRate) - lineVAT(unitPrice, oldQuantity, vatRate);
+            priceChange += unitPrice * (item.getQuantity() - oldQuantity) + lineVATChange;
+            vatChange += lineVATChange;
+        }
+        totalPriceIncludingVAT.add(priceChange);
+        totalVAT.add(vatChange);
+    }
+
+    /**
+     * Removes an item, with its whole quantity, from the sale.
+     * @param itemIdentifier Identifier of the item to remove.
+     * @return <code>true</code> if the item was part of the sale, otherwise <code>false</code>.
+     */
+    public boolean removeItemFromSale(String itemIdentifier) {
+        Item item = items.remove(itemIdentifier);
+        if (item == null) {
+            return false;
+        }
+        updateTotalPriceAndVAT(item, item.getQuantity(), 0);
+        return true;
+    }
+
+    /**
+     * Sets the quantity of an item that is already part of the sale.
+     * A quantity of zero or less removes the item from the sale.
+     * @param itemIdentifier Identifier of the item to change.
+     * @param newQuantity The new quantity of the item.
+     * @return <code>true</code> if the item was part of the sale, otherwise <code>false</code>.
+     */
+    public boolean changeQuantity(String itemIdentifier, int newQuantity) {
+        if (newQuantity <= 0) {
+            return removeItemFromSale(itemIdentifier);
+        }
+        Item item = findItem(itemIdentifier);
+        if (item == null) {
+            return false;
+        }
+        int oldQuantity = item.getQuantity();
+        item.increaseQuantity(newQuantity - oldQuantity);
+        updateTotalPriceAndVAT(item, oldQuantity, newQuantity);
+        return true;
+    }
+
+    /**
+     * Completes the sale by creating its {@link SaleCompletedEvent} and notifying all registered observers.
      * This method should be called once all items have been added to the sale and the sale is ready to be finalized.
      */
     public void completeSale() {
-        int totalPriceAfterDiscount = getTotalPriceIncludingVAT().getAmount();
-        notifyObservers(totalPriceAfterDiscount);
+        for (Runnable notification : createNotifications()) {
+            notification.run();
+        }
     }
 
     /**
-     * Notifies all observers that have been registered to this sale about the total price including VAT.
-     * Each observer will receive the total price as part of the notification.
-     * @param totalPriceAfterDiscount The total price of the sale that observers are notified about.
+     * Creates the notifications about the completed sale: one for every registered observer, and
+     * one each for the event dispatcher and the event stream, if they are set. All notifications
+     * carry the same event. Each can be run, and retried, on its own, so one failing observer
+     * does not make the others see the sale twice.
+     * @return The notifications, empty if nobody listens to the sale.
      */
-    private void notifyObservers(int totalPriceAfterDiscount) {
+    List<Runnable> createNotifications() {
+        if (saleObservers.isEmpty() && eventDispatcher == null && eventStream == null) {
+            return List.of();
+        }
+        SaleCompletedEvent event = SaleCompletedEvent.of(this, System.currentTimeMillis());
+        List<Runnable> notifications = new ArrayList<>(saleObservers.size() + 2);
         for (SaleObserver observer : saleObservers) {
-            observer.newSale(totalPriceAfterDiscount);
+            notifications.add(() -> observer.saleCompleted(event));
         }
+        SaleEventDispatcher dispatcher = eventDispatcher;
+        if (dispatcher != null) {
+            notifications.add(() -> dispatcher.publish(event));
+        }
+        SaleEventStream stream = eventStream;
+        if (stream != null) {
+            notifications.add(() -> stream.publish(event));
+        }
+        return notifications;
     }
 
     /**
@@ -95,7 +234,15 @@ public class Sale {
      * @return Total VAT as a double.
      */
     public double getTotalVAT() {
-        return totalVAT;
+        return totalVAT.toDouble();
+    }
+
+    /**
+     * Returns the total VAT for the sale without rounding it.
+     * @return Total VAT in minor units.
+     */
+    public long getTotalVATMinorUnits() {
+        return totalVAT.getMinorUnits();
     }
 
     /**
@@ -103,12 +250,31 @@ public class Sale {
      * @return Total price after discount as an Amount.
      */
     public Amount getTotalPriceIncludingVAT() {
-        return new Amount(totalPriceIncludingVAT.getAmount() - totalDiscount.getAmount());
+        return new Amount(Math.toIntExact(Money.toMajor(totalPriceIncludingVAT.getMinorUnits(), RoundingMode.HALF_UP)) - totalDiscount.getAmount());
+    }
+
+    /**
+     * Returns the total price of the sale after applying the discount, without rounding
+     * it to whole units.
+     * @return Total price after discount, in minor units.
+     */
+    public Money getTotalPrice() {
+        return Money.ofMinor(totalPriceIncludingVAT.getMinorUnits() - totalDiscount.getAmount() * Money.MINOR_PER_MAJOR);
+    }
+
+    /**
+     * Returns the discount that has been applied to the sale.
+     * @return The discount, zero if no discount has been applied.
+     */
+    public Amount getTotalDiscount() {
+        return totalDiscount;
     }
 
     /**
      * Processes the payment for the sale without applying any discount, 
      * updates the external systems, and calculates the change due.
+     * If a completion pipeline is set, the external systems, the receipt and the observers
+     * are handled in the background and the change is returned once the cash is recorded.
      * @param paidAmount The amount paid by the customer.
      * @param cashRegister The cash register used for the payment.
      * @param printer The receipt printer.
@@ -116,8 +282,14 @@ public class Sale {
      */
     public Amount paymentWithoutDiscount(Amount paidAmount, CashRegister cashRegister, ReceiptPrinter printer) {
         CashPayment payment = new CashPayment(paidAmount, getTotalPriceIncludingVAT());
+        this.payment = payment;
         Amount change = cashRegister.addPayment(payment);
 
+        if (completionPipeline != null) {
+            completionPipeline.submit(this, payment, printer);
+            return change;
+        }
+
         externalSystemCreator.getInventorySystem().updateInventory(this);
         externalSystemCreator.getAccountingSystem().updateAccounting(this);
 
@@ -169,28 +341,41 @@ public class Sale {
         saleObservers.addAll(observers);
     }
 
+    /**
+     * Returns a read-only view of the items in the current sale, in the order they were
+     * first added. Unlike {@link #getItems()}, the items are not copied.
+     * @return A read-only view of the items.
+     */
+    public Collection<Item> getItemsView() {
+        return Collections.unmodifiableCollection(items.values());
+    }
+
     /**
      * Returns a list of all items in the current sale.
      * @return A shallow copy of the items list.
      */
     public List<Item> getItems() {
-        return new ArrayList<>(items);
+        return new ArrayList<>(items.values());
     }
 
     /**
-     * Updates the total price and VAT based on the items in the sale.
+     * Updates the running total price and VAT with the change of a single item,
+     * so the cost does not depend on how many items the sale holds.
+     * All amounts are kept in minor units, and the VAT of each line is rounded once.
+     * @param item The item whose quantity changed.
+     * @param oldQuantity The quantity of the item before the change.
+     * @param newQuantity The quantity of the item after the change.
      */
-    private void updateTotalPriceAndVAT() {
-        double totalPrice = 0.0;
-        double totalVAT = 0.0;
-        for (Item item : items) {
-            double itemTotal = item.getPrice() * item.getQuantity();
-            double itemVAT = itemTotal * item.getVATRate();
-            totalPrice += itemTotal + itemVAT;
-            totalVAT += itemVAT;
-        }
-        this.totalPriceIncludingVAT = new Amount((int) Math.round(totalPrice));
-        this.totalVAT = totalVAT;
+    private void updateTotalPriceAndVAT(Item item, int oldQuantity, int newQuantity) {
+        long unitPrice = Money.toMinor(item.getPrice());
+        int vatRate = Money.toBasisPoints(item.getVATRate());
+        long vatChange = lineVAT(unitPrice, newQuantity, vatRate) - lineVAT(unitPrice, oldQuantity, vatRate);
+        totalPriceIncludingVAT.add(unitPrice * (newQuantity - oldQuantity) + vatChange);
+        totalVAT.add(vatChange);
+    }
+
+    static long lineVAT(long unitPrice, int quantity, int vatRate) {
+        return Money.applyRate(unitPrice * quantity, vatRate, RoundingMode.HALF_UP);
     }
     
     
@@ -200,12 +385,15 @@ public class Sale {
      * @return The Item if found, otherwise null.
      */
     private Item findItem(String itemId) {
-        for (Item item : items) {
-            if (item.getItemIdentifier().equals(itemId)) {
-                return item;
-            }
-        }
-        return null;
+        return items.get(itemId);
+    }
+
+    /**
+     * Returns the payment of the sale.
+     * @return The payment, or <code>null</code> if the sale has not been paid.
+     */
+    public CashPayment getPayment() {
+        return payment;
     }
 
     /**
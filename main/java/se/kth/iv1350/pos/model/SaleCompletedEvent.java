@@ -0,0 +1,239 @@
+package se.kth.iv1350.pos.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import se.kth.iv1350.pos.integration.Item;
+import se.kth.iv1350.pos.util.Money;
+
+/**
+ * Everything about a completed sale that observers may need: its lines, VAT, discount,
+ * payment, lane and time. Instances are immutable and are created once per sale, so the same
+ * event can be handed to any number of observers and threads without copying.
+ */
+public final class SaleCompletedEvent {
+    private final String laneId;
+    private final long completedAtMillis;
+    private final List<Line> lines;
+    private final long totalIncludingVATMinorUnits;
+    private final long totalVATMinorUnits;
+    private final long discountMinorUnits;
+    private final long amountPaidMinorUnits;
+    private final long changeMinorUnits;
+    private final int priceOfPurchase;
+
+    /**
+     * One line of a completed sale.
+     */
+    public static final class Line {
+        private final String itemIdentifier;
+        private final String name;
+        private final int quantity;
+        private final long unitPriceMinorUnits;
+        private final int vatRateBasisPoints;
+        private final long vatMinorUnits;
+
+        private Line(Item item) {
+            this.itemIdentifier = item.getItemIdentifier();
+            this.name = item.getName();
+            this.quantity = item.getQuantity();
+            this.unitPriceMinorUnits = Money.toMinor(item.getPrice());
+            this.vatRateBasisPoints = Money.toBasisPoints(item.getVATRate());
+            this.vatMinorUnits = Sale.lineVAT(unitPriceMinorUnits, quantity, vatRateBasisPoints);
+        }
+
+        /**
+         * Returns the identifier of the item.
+         *
+         * @return The identifier of the item.
+         */
+        public String getItemIdentifier() {
+            return itemIdentifier;
+        }
+
+        /**
+         * Returns the name of the item.
+         *
+         * @return The name of the item.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the quantity sold.
+         *
+         * @return The quantity sold.
+         */
+        public int getQuantity() {
+            return quantity;
+        }
+
+        /**
+         * Returns the price of one unit, without VAT, in minor units.
+         *
+         * @return The unit price in minor units.
+         */
+        public long getUnitPriceMinorUnits() {
+            return unitPriceMinorUnits;
+        }
+
+        /**
+         * Returns the VAT rate of the item, in basis points.
+         *
+         * @return The VAT rate in basis points.
+         */
+        public int getVATRateBasisPoints() {
+            return vatRateBasisPoints;
+        }
+
+        /**
+         * Returns the VAT of the whole line, in minor units.
+         *
+         * @return The VAT of the line in minor units.
+         */
+        public long getVATMinorUnits() {
+            return vatMinorUnits;
+        }
+
+        /**
+         * Returns the price of the whole line including VAT, in minor units.
+         *
+         * @return The price of the line in minor units.
+         */
+        public long getTotalMinorUnits() {
+            return unitPriceMinorUnits * quantity + vatMinorUnits;
+        }
+    }
+
+    private SaleCompletedEvent(Sale sale, long completedAtMillis) {
+        this.laneId = sale.getLaneId();
+        this.completedAtMillis = completedAtMillis;
+        List<Line> saleLines = new ArrayList<>(sale.getItemsView().size());
+        long total = 0;
+        long vat = 0;
+        for (Item item : sale.getItemsView()) {
+            Line line = new Line(item);
+            saleLines.add(line);
+            total += line.getTotalMinorUnits();
+            vat += line.vatMinorUnits;
+        }
+        this.lines = Collections.unmodifiableList(saleLines);
+        this.totalIncludingVATMinorUnits = total;
+        this.totalVATMinorUnits = vat;
+        this.discountMinorUnits = sale.getTotalDiscount().getAmount() * Money.MINOR_PER_MAJOR;
+        CashPayment payment = sale.getPayment();
+        this.amountPaidMinorUnits = payment == null ? 0 : payment.getAmountPaid().getAmount() * Money.MINOR_PER_MAJOR;
+        this.changeMinorUnits = payment == null ? 0 : payment.getChange().getAmount() * Money.MINOR_PER_MAJOR;
+        this.priceOfPurchase = sale.getTotalPriceIncludingVAT().getAmount();
+    }
+
+    /**
+     * Creates the event of a completed sale.
+     *
+     * @param sale The completed sale.
+     * @param completedAtMillis When the sale was completed, in milliseconds since the epoch.
+     * @return The event.
+     */
+    public static SaleCompletedEvent of(Sale sale, long completedAtMillis) {
+        return new SaleCompletedEvent(sale, completedAtMillis);
+    }
+
+    /**
+     * Returns the lane where the sale was made.
+     *
+     * @return The identifier of the lane, or <code>null</code> if the sale was not made by a lane.
+     */
+    public String getLaneId() {
+        return laneId;
+    }
+
+    /**
+     * Returns when the sale was completed.
+     *
+     * @return When the sale was completed, in milliseconds since the epoch.
+     */
+    public long getCompletedAtMillis() {
+        return completedAtMillis;
+    }
+
+    /**
+     * Returns the lines of the sale, in the order the items were first added.
+     *
+     * @return The lines of the sale.
+     */
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    /**
+     * Returns the total price including VAT before the discount, in minor units.
+     *
+     * @return The total price including VAT.
+     */
+    public long getTotalIncludingVATMinorUnits() {
+        return totalIncludingVATMinorUnits;
+    }
+
+    /**
+     * Returns the total VAT, in minor units.
+     *
+     * @return The total VAT.
+     */
+    public long getTotalVATMinorUnits() {
+        return totalVATMinorUnits;
+    }
+
+    /**
+     * Returns the discount, in minor units.
+     *
+     * @return The discount, zero if none was applied.
+     */
+    public long getDiscountMinorUnits() {
+        return discountMinorUnits;
+    }
+
+    /**
+     * Returns the total price after the discount, in minor units.
+     *
+     * @return The total price after the discount.
+     */
+    public long getTotalAfterDiscountMinorUnits() {
+        return totalIncludingVATMinorUnits - discountMinorUnits;
+    }
+
+    /**
+     * Returns the amount paid, in minor units.
+     *
+     * @return The amount paid, zero if the sale was completed without a payment.
+     */
+    public long getAmountPaidMinorUnits() {
+        return amountPaidMinorUnits;
+    }
+
+    /**
+     * Returns the change given back, in minor units.
+     *
+     * @return The change, zero if the sale was completed without a payment.
+     */
+    public long getChangeMinorUnits() {
+        return changeMinorUnits;
+    }
+
+    /**
+     * Returns the price of the purchase the way it is passed to {@link SaleObserver#newSale(double)}:
+     * the total including VAT rounded to whole units, minus the discount.
+     *
+     * @return The price of the purchase.
+     */
+    public int getPriceOfPurchase() {
+        return priceOfPurchase;
+    }
+
+    @Override
+    public String toString() {
+        return "SaleCompletedEvent[lane=" + laneId + ", lines=" + lines.size() + ", total="
+                + Money.ofMinor(getTotalAfterDiscountMinorUnits()) + "]";
+    }
+}
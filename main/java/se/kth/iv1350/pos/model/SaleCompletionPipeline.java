@@ -0,0 +1,80 @@
+package se.kth.iv1350.pos.model;
+
+import java.util.List;
+
+import se.kth.iv1350.pos.integration.ReceiptPrinter;
+import se.kth.iv1350.pos.integration.SystemCreator;
+import se.kth.iv1350.pos.util.FileLogHandler;
+
+/**
+ * Completes paid sales in the background. Once the payment has been recorded, the sale is
+ * handed to four independent stages that run at the same time: updating the inventory,
+ * updating the accounting, printing the receipt and notifying the sale observers.
+ * The customer therefore only waits for the cash register.
+ * <p>
+ * Each observer is notified, and retried, on its own, so an observer that fails once does not
+ * make the others see the sale twice.
+ */
+public class SaleCompletionPipeline {
+    private final SystemCreator systemCreator;
+    private final PipelineStage inventoryStage;
+    private final PipelineStage accountingStage;
+    private final PipelineStage receiptStage;
+    private final PipelineStage observerStage;
+
+    /**
+     * Creates a pipeline and starts the threads of its stages.
+     *
+     * @param systemCreator Provides the external systems to update.
+     * @param queueCapacity The number of sales that may wait in each stage.
+     * @param maxAttempts How many times each stage tries to process a sale.
+     * @param logger Logs sales that a stage failed to process, may be <code>null</code>.
+     */
+    public SaleCompletionPipeline(SystemCreator systemCreator, int queueCapacity, int maxAttempts, FileLogHandler logger) {
+        this.systemCreator = systemCreator;
+        this.inventoryStage = new PipelineStage("inventory", queueCapacity, maxAttempts, logger);
+        this.accountingStage = new PipelineStage("accounting", queueCapacity, maxAttempts, logger);
+        this.receiptStage = new PipelineStage("receipt", queueCapacity, maxAttempts, logger);
+        this.observerStage = new PipelineStage("observers", queueCapacity, maxAttempts, logger);
+    }
+
+    /**
+     * Hands a paid sale to all stages. Returns as soon as the sale has been queued, waiting
+     * for room in a stage that is full. After {@link #shutdown}, the sale is completed on the
+     * calling thread instead.
+     *
+     * @param sale The paid sale. It must not be changed after this call.
+     * @param payment The payment of the sale.
+     * @param printer The printer for the receipt.
+     */
+    public void submit(Sale sale, CashPayment payment, ReceiptPrinter printer) {
+        inventoryStage.submit(() -> systemCreator.getInventorySystem().updateInventory(sale));
+        accountingStage.submit(() -> systemCreator.getAccountingSystem().updateAccounting(sale));
+        receiptStage.submit(() -> printer.printReceipt(new Receipt(sale, payment)));
+        observerStage.submitEach(sale::createNotifications);
+    }
+
+    /**
+     * Returns the stages, for reading their metrics.
+     *
+     * @return The inventory, accounting, receipt and observer stages.
+     */
+    public List<PipelineStage> getStages() {
+        return List.of(inventoryStage, accountingStage, receiptStage, observerStage);
+    }
+
+    /**
+     * Stops accepting sales and waits for all queued sales to be completed.
+     *
+     * @param timeoutMillis The longest time to wait for each stage.
+     * @return <code>true</code> if all stages finished in time.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean shutdown(long timeoutMillis) throws InterruptedException {
+        boolean finished = true;
+        for (PipelineStage stage : getStages()) {
+            finished &= stage.shutdown(timeoutMillis);
+        }
+        return finished;
+    }
+}
@@ -0,0 +1,151 @@
+package se.kth.iv1350.pos.model;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import se.kth.iv1350.pos.util.BackpressurePolicy;
+import se.kth.iv1350.pos.util.FileLogHandler;
+
+/**
+ * Delivers completed sales to observers so that the observers are isolated from the sale
+ * and from each other. Each observer is subscribed with its own delivery mode: synchronous
+ * observers are called by the completing thread, asynchronous ones get a bounded queue and a
+ * thread of their own. A full queue either blocks the publishing lane or drops the
+ * notification, as chosen per observer.
+ */
+public class SaleEventDispatcher {
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final long DEFAULT_SLOW_THRESHOLD_MILLIS = 50;
+
+    private final List<ObserverSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final FileLogHandler logger;
+
+    /**
+     * How sales are delivered to an observer.
+     */
+    public enum DeliveryMode {
+        /**
+         * The observer is called by the thread completing the sale.
+         */
+        SYNC,
+        /**
+         * The observer is called by a platform thread of its own.
+         */
+        ASYNC,
+        /**
+         * The observer is called by a virtual thread of its own, or a platform thread if the
+         * JVM has no virtual threads (before Java 21).
+         */
+        VIRTUAL
+    }
+
+    /**
+     * A completed sale waiting to be delivered. One instance is shared by all subscriptions.
+     */
+    static final class PendingSale {
+        private final SaleCompletedEvent event;
+        private final long publishedNanos;
+
+        private PendingSale(SaleCompletedEvent event, long publishedNanos) {
+            this.event = event;
+            this.publishedNanos = publishedNanos;
+        }
+
+        SaleCompletedEvent getEvent() {
+            return event;
+        }
+
+        long getPublishedNanos() {
+            return publishedNanos;
+        }
+    }
+
+    /**
+     * Creates a dispatcher without observers.
+     *
+     * @param logger Logs exceptions thrown by observers, may be <code>null</code>.
+     */
+    public SaleEventDispatcher(FileLogHandler logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Subscribes an observer with a queue of 1024 sales that blocks the publishing lane when
+     * full, and a slow threshold of 50 ms.
+     *
+     * @param observer The observer to notify.
+     * @param mode How sales are delivered to the observer.
+     * @return The subscription, holding its metrics.
+     */
+    public ObserverSubscription subscribe(SaleObserver observer, DeliveryMode mode) {
+        return subscribe(observer, mode, DEFAULT_QUEUE_CAPACITY, BackpressurePolicy.BLOCK, DEFAULT_SLOW_THRESHOLD_MILLIS);
+    }
+
+    /**
+     * Subscribes an observer.
+     *
+     * @param observer The observer to notify.
+     * @param mode How sales are delivered to the observer.
+     * @param queueCapacity The number of sales that may wait for an asynchronous observer.
+     * @param policy <code>BLOCK</code> or <code>DROP</code>, what to do when the queue is full.
+     * @param slowThresholdMillis A delivery taking longer than this marks the observer as slow.
+     * @return The subscription, holding its metrics.
+     * @throws IllegalArgumentException If the policy is <code>SAMPLE</code>.
+     */
+    public ObserverSubscription subscribe(SaleObserver observer, DeliveryMode mode, int queueCapacity,
+                                          BackpressurePolicy policy, long slowThresholdMillis) {
+        ObserverSubscription subscription = new ObserverSubscription(observer, mode, queueCapacity, policy,
+                slowThresholdMillis, logger);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Stops delivering sales to the observer of a subscription, after the queued ones.
+     *
+     * @param subscription The subscription to end.
+     * @throws InterruptedException If interrupted while waiting for the queue to drain.
+     */
+    public void unsubscribe(ObserverSubscription subscription) throws InterruptedException {
+        if (subscriptions.remove(subscription)) {
+            subscription.close(Long.MAX_VALUE / 2);
+        }
+    }
+
+    /**
+     * Delivers a completed sale to all subscribed observers.
+     *
+     * @param event The completed sale.
+     */
+    public void publish(SaleCompletedEvent event) {
+        PendingSale sale = new PendingSale(event, System.nanoTime());
+        for (ObserverSubscription subscription : subscriptions) {
+            subscription.publish(sale);
+        }
+    }
+
+    /**
+     * Returns the current subscriptions.
+     *
+     * @return The current subscriptions.
+     */
+    public List<ObserverSubscription> getSubscriptions() {
+        return List.copyOf(subscriptions);
+    }
+
+    /**
+     * Delivers the queued sales and stops the observer threads.
+     *
+     * @param timeoutMillis The longest time to wait for each observer.
+     * @return <code>true</code> if every observer finished in time.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean shutdown(long timeoutMillis) throws InterruptedException {
+        boolean finished = true;
+        for (ObserverSubscription subscription : subscriptions) {
+            finished &= subscription.close(timeoutMillis);
+        }
+        subscriptions.clear();
+        return finished;
+    }
+}
@@ -0,0 +1,120 @@
+package se.kth.iv1350.pos.model;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import se.kth.iv1350.pos.util.BackpressurePolicy;
+
+/**
+ * An in-process stream of {@link SaleCompletedEvent}s that any number of consumers, for
+ * example live dashboards, can subscribe to with the <code>java.util.concurrent.Flow</code>
+ * API. Each subscriber has a bounded buffer and receives no more events than it has requested.
+ * When a subscriber falls behind, publishing either waits for it or drops the event for that
+ * subscriber only.
+ */
+public class SaleEventStream implements AutoCloseable {
+    private final SubmissionPublisher<SaleCompletedEvent> publisher;
+    private final ExecutorService executor;
+    private final BackpressurePolicy policy;
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Creates a stream. Subscribers are called on daemon threads owned by the stream.
+     *
+     * @param bufferCapacity The number of events buffered for each subscriber.
+     * @param policy <code>BLOCK</code> to wait for slow subscribers, <code>DROP</code> to skip them.
+     * @throws IllegalArgumentException If the policy is <code>SAMPLE</code>.
+     */
+    public SaleEventStream(int bufferCapacity, BackpressurePolicy policy) {
+        if (policy == BackpressurePolicy.SAMPLE) {
+            throw new IllegalArgumentException("Sale events can be blocked or dropped, not sampled.");
+        }
+        AtomicLong threadCounter = new AtomicLong();
+        this.executor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "pos-sale-stream-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.publisher = new SubmissionPublisher<>(executor, bufferCapacity);
+        this.policy = policy;
+    }
+
+    /**
+     * Subscribes a consumer to the events published from now on.
+     *
+     * @param subscriber The consumer.
+     */
+    public void subscribe(Flow.Subscriber<? super SaleCompletedEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Publishes the event of a completed sale to all subscribers.
+     *
+     * @param event The event to publish.
+     */
+    public void publish(SaleCompletedEvent event) {
+        if (!publisher.hasSubscribers()) {
+            return;
+        }
+        published.increment();
+        if (policy == BackpressurePolicy.BLOCK) {
+            publisher.submit(event);
+        } else {
+            publisher.offer(event, (subscriber, dropped) -> {
+                this.dropped.increment();
+                return false;
+            });
+        }
+    }
+
+    /**
+     * Returns the number of events published while there were subscribers.
+     *
+     * @return The number of published events.
+     */
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    /**
+     * Returns the number of times an event was dropped for a subscriber that fell behind.
+     *
+     * @return The number of dropped deliveries.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Returns the largest number of events any subscriber has not consumed yet.
+     *
+     * @return The largest subscriber lag.
+     */
+    public int getMaximumLag() {
+        return publisher.estimateMaximumLag();
+    }
+
+    /**
+     * Returns the number of subscribers.
+     *
+     * @return The number of subscribers.
+     */
+    public int getSubscriberCount() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    /**
+     * Completes the stream. Subscribers receive the buffered events and then <code>onComplete</code>.
+     */
+    @Override
+    public void close() {
+        publisher.close();
+        executor.shutdown();
+    }
+}
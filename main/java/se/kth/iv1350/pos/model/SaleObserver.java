@@ -10,4 +10,15 @@ public interface SaleObserver {
      * @param priceOfPurchase The total price of the completed sale.
      */
     void newSale(double priceOfPurchase);
+
+    /**
+     * Invoked when a new sale is completed, with everything known about the sale. Calls
+     * {@link #newSale(double)} with the price of the purchase unless overridden, so observers
+     * that only need the price do not have to implement this method.
+     *
+     * @param event The completed sale.
+     */
+    default void saleCompleted(SaleCompletedEvent event) {
+        newSale(event.getPriceOfPurchase());
+    }
 }
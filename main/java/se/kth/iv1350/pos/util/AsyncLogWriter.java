@@ -0,0 +1,164 @@
+package se.kth.iv1350.pos.util;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes log records on a background thread. Callers only put the exception and the time
+ * it happened into a lock-free ring buffer; formatting, writing and flushing are done by the
+ * writer thread in batches.
+ */
+class AsyncLogWriter implements Runnable {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final RingBuffer<LogRecord> buffer;
+    private final PrintWriter logFile;
+    private final LogFormatter formatter;
+    private final int flushSize;
+    private final long flushIntervalNanos;
+    private final BackpressurePolicy policy;
+    private final int sampleRate;
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final AtomicLong droppedRecords = new AtomicLong();
+    private final AtomicInteger activeProducers = new AtomicInteger();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    /**
+     * Formats a record to the text written to the log file.
+     */
+    interface LogFormatter {
+        String format(Exception exception, long timeMillis);
+    }
+
+    /**
+     * Creates a new writer and starts its background thread.
+     *
+     * @param logFile The file to write to.
+     * @param formatter Creates the text of a record.
+     * @param capacity The number of records the buffer can hold.
+     * @param flushSize The number of written records after which the file is flushed.
+     * @param flushIntervalMillis The longest time a written record may wait for a flush.
+     * @param policy What to do when the buffer fills up.
+     * @param sampleRate With the <code>SAMPLE</code> policy, every n:th record is kept under pressure.
+     */
+    AsyncLogWriter(PrintWriter logFile, LogFormatter formatter, int capacity, int flushSize,
+                   long flushIntervalMillis, BackpressurePolicy policy, int sampleRate) {
+        this.buffer = new RingBuffer<>(capacity);
+        this.logFile = logFile;
+        this.formatter = formatter;
+        this.flushSize = flushSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.policy = policy;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.writerThread = new Thread(this, "pos-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Hands a record to the writer thread, applying the backpressure policy if the buffer is full.
+     * A record accepted while the writer is shut down is still written, since the writer thread
+     * does not stop while a caller is enqueueing.
+     *
+     * @param exception The exception to log.
+     * @return <code>true</code> if the record was accepted or dropped by the backpressure policy,
+     *         <code>false</code> if the writer has stopped and the caller must write the record itself.
+     */
+    boolean enqueue(Exception exception) {
+        activeProducers.incrementAndGet();
+        try {
+            if (!running) {
+                return false;
+            }
+            if (policy == BackpressurePolicy.SAMPLE && buffer.size() > buffer.capacity() / 2
+                    && sampleCounter.incrementAndGet() % sampleRate != 0) {
+                droppedRecords.incrementAndGet();
+                return true;
+            }
+            LogRecord logRecord = new LogRecord(exception, System.currentTimeMillis());
+            while (!buffer.offer(logRecord)) {
+                if (!writerThread.isAlive()) {
+                    return false;
+                }
+                if (policy != BackpressurePolicy.BLOCK) {
+                    droppedRecords.incrementAndGet();
+                    return true;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+            return true;
+        } finally {
+            activeProducers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of records dropped because of backpressure.
+     *
+     * @return The number of dropped records.
+     */
+    long getDroppedRecords() {
+        return droppedRecords.get();
+    }
+
+    /**
+     * Stops the writer thread after it has written and flushed all buffered records.
+     */
+    void shutdown() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        List<LogRecord> batch = new ArrayList<>(flushSize);
+        int unflushed = 0;
+        long lastFlush = System.nanoTime();
+        long reportedDrops = 0;
+        while (running || activeProducers.get() > 0 || buffer.size() > 0) {
+            batch.clear();
+            buffer.drainTo(batch, flushSize);
+            for (LogRecord logRecord : batch) {
+                logFile.println(formatter.format(logRecord.exception, logRecord.timeMillis));
+            }
+            unflushed += batch.size();
+            long dropped = droppedRecords.get();
+            if (dropped != reportedDrops) {
+                logFile.println((dropped - reportedDrops) + " log records dropped because the log buffer was full.");
+                reportedDrops = dropped;
+                unflushed++;
+            }
+            long now = System.nanoTime();
+            if (unflushed > 0 && (unflushed >= flushSize || now - lastFlush >= flushIntervalNanos)) {
+                logFile.flush();
+                unflushed = 0;
+                lastFlush = now;
+            }
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        logFile.flush();
+    }
+
+    private static final class LogRecord {
+        private final Exception exception;
+        private final long timeMillis;
+
+        private LogRecord(Exception exception, long timeMillis) {
+            this.exception = exception;
+            this.timeMillis = timeMillis;
+        }
+    }
+}
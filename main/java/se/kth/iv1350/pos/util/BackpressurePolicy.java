@@ -0,0 +1,22 @@
+package se.kth.iv1350.pos.util;
+
+/**
+ * Decides what happens when a producer hands work to a bounded buffer that cannot keep up.
+ */
+public enum BackpressurePolicy {
+    /**
+     * The producer waits until there is room in the buffer.
+     */
+    BLOCK,
+
+    /**
+     * The new entry is dropped if the buffer is full.
+     */
+    DROP,
+
+    /**
+     * Once the buffer is more than half full, only every n:th entry is kept
+     * and the rest are dropped. Entries are still dropped if the buffer is full.
+     */
+    SAMPLE
+}
@@ -0,0 +1,142 @@
+package se.kth.iv1350.pos.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops calls to a failing dependency for a while, so that callers fail at once instead of
+ * each waiting for the dependency to time out. After a number of failures in a row the breaker
+ * opens and refuses all calls. Once the open period has passed, a single probe call is let
+ * through: if it succeeds the breaker closes, otherwise it opens again for another period.
+ */
+public class CircuitBreaker {
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean probeInFlight;
+    private long rejectedCount;
+    private long openCount;
+
+    /**
+     * The states of a circuit breaker.
+     */
+    public enum State {
+        /**
+         * Calls are let through.
+         */
+        CLOSED,
+
+        /**
+         * Calls are refused until the open period has passed.
+         */
+        OPEN,
+
+        /**
+         * One probe call is let through to test whether the dependency has recovered.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Creates a closed breaker.
+     *
+     * @param failureThreshold The number of failures in a row that opens the breaker.
+     * @param openMillis How long the breaker stays open before it lets a probe through.
+     */
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this(failureThreshold, openMillis, System::nanoTime);
+    }
+
+    /**
+     * Creates a closed breaker with its own clock, for testing.
+     *
+     * @param failureThreshold The number of failures in a row that opens the breaker.
+     * @param openMillis How long the breaker stays open before it lets a probe through.
+     * @param nanoClock The clock measuring the open period, in nanoseconds.
+     */
+    public CircuitBreaker(int failureThreshold, long openMillis, LongSupplier nanoClock) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Asks whether a call may be made now. A caller that gets <code>true</code> must report
+     * the outcome with {@link #recordSuccess()} or {@link #recordFailure()}.
+     *
+     * @return <code>true</code> if the call may be made, <code>false</code> if it must fail fast.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAtNanos >= openNanos) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return true;
+        }
+        rejectedCount++;
+        return false;
+    }
+
+    /**
+     * Reports that a call succeeded, which closes a half-open breaker.
+     */
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        state = State.CLOSED;
+    }
+
+    /**
+     * Reports that a call failed. A failed probe, or the last of too many failures in a row,
+     * opens the breaker.
+     */
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAtNanos = nanoClock.getAsLong();
+            openCount++;
+        }
+        probeInFlight = false;
+    }
+
+    /**
+     * Returns the current state.
+     *
+     * @return The current state.
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Returns the number of calls refused because the breaker was open.
+     *
+     * @return The number of refused calls.
+     */
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Returns the number of times the breaker has opened.
+     *
+     * @return The number of times the breaker opened.
+     */
+    public synchronized long getOpenCount() {
+        return openCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s failures=%d opened=%d rejected=%d", state, consecutiveFailures, openCount,
+                rejectedCount);
+    }
+}
@@ -0,0 +1,135 @@
+package se.kth.iv1350.pos.util;
+
+import java.util.Locale;
+
+/**
+ * Formats amounts with two decimals into a caller supplied <code>char</code> array, giving the
+ * same text as <code>String.format("%.2f", value)</code> without creating a <code>Formatter</code>
+ * or any intermediate strings. The decimal separator is always a point.
+ */
+public final class DecimalFormatter {
+    /**
+     * The number of characters a formatted value can need, including sign and separator.
+     */
+    public static final int MAX_LENGTH = 24;
+    private static final double MAX_FAST_PATH_VALUE = 1e15;
+
+    private DecimalFormatter() {
+    }
+
+    /**
+     * Writes the given number of minor units as a value with two decimals, for example
+     * <code>1205</code> as <code>12.05</code>.
+     * @param minorUnits the value in minor units.
+     * @param buffer the array the characters are written to.
+     * @param offset the index of the first character written.
+     * @return the index after the last character written.
+     */
+    public static int formatMinor(long minorUnits, char[] buffer, int offset) {
+        return formatMinor(minorUnits, minorUnits < 0, buffer, offset);
+    }
+
+    /**
+     * Writes a whole amount with two zero decimals, for example <code>20</code> as <code>20.00</code>.
+     * @param wholeUnits the value in whole units.
+     * @param buffer the array the characters are written to.
+     * @param offset the index of the first character written.
+     * @return the index after the last character written.
+     */
+    public static int formatWhole(long wholeUnits, char[] buffer, int offset) {
+        int position = formatLong(wholeUnits, buffer, offset);
+        buffer[position++] = '.';
+        buffer[position++] = '0';
+        buffer[position++] = '0';
+        return position;
+    }
+
+    /**
+     * Writes the given value rounded half up to two decimals. Values that are exactly a number
+     * of hundredths, which covers every price and total in the system, are written without
+     * allocating. Any other value is handed to <code>Formatter</code>.
+     * @param value the value to format.
+     * @param buffer the array the characters are written to.
+     * @param offset the index of the first character written.
+     * @return the index after the last character written.
+     */
+    public static int formatFixed2(double value, char[] buffer, int offset) {
+        if (Math.abs(value) < MAX_FAST_PATH_VALUE) {
+            long minorUnits = Math.round(value * Money.MINOR_PER_MAJOR);
+            if (minorUnits / (double) Money.MINOR_PER_MAJOR == value) {
+                boolean negative = Double.doubleToRawLongBits(value) < 0;
+                return formatMinor(minorUnits, negative, buffer, offset);
+            }
+        }
+        String text = String.format(Locale.ROOT, "%.2f", value);
+        text.getChars(0, text.length(), buffer, offset);
+        return offset + text.length();
+    }
+
+    /**
+     * Writes the given value, padded with zeros to at least the given number of digits.
+     * @param value a value that is not negative.
+     * @param digits the minimum number of digits.
+     * @param buffer the array the characters are written to.
+     * @param offset the index of the first character written.
+     * @return the index after the last character written.
+     */
+    public static int formatPadded(int value, int digits, char[] buffer, int offset) {
+        int length = Math.max(digits, digitCount(value));
+        int position = offset + length;
+        for (int i = position - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return position;
+    }
+
+    /**
+     * Writes the given value without any decimals.
+     * @param value the value to format.
+     * @param buffer the array the characters are written to.
+     * @param offset the index of the first character written.
+     * @return the index after the last character written.
+     */
+    public static int formatLong(long value, char[] buffer, int offset) {
+        if (value == Long.MIN_VALUE) {
+            String text = Long.toString(value);
+            text.getChars(0, text.length(), buffer, offset);
+            return offset + text.length();
+        }
+        int position = offset;
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int end = position + digitCount(value);
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    private static int formatMinor(long minorUnits, boolean negative, char[] buffer, int offset) {
+        int position = offset;
+        if (negative) {
+            buffer[position++] = '-';
+        }
+        long magnitude = Math.abs(minorUnits);
+        position = formatLong(magnitude / Money.MINOR_PER_MAJOR, buffer, position);
+        int fraction = (int) (magnitude % Money.MINOR_PER_MAJOR);
+        buffer[position++] = '.';
+        buffer[position++] = (char) ('0' + fraction / 10);
+        buffer[position++] = (char) ('0' + fraction % 10);
+        return position;
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
@@ -3,16 +3,23 @@ package se.kth.iv1350.pos.util;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 
 /**
  * Singleton class responsible for logging exceptions to a file.
+ * By default every exception is written and flushed on the caller's thread. After
+ * {@link #enableAsyncLogging} the caller only enqueues the exception, and a background
+ * thread writes the log records in batches.
  */
 public class FileLogHandler {
     private static final String LOG_FILE_NAME = "pos-application-log.txt";
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private static FileLogHandler instance;
     private PrintWriter logFile;
+    private volatile AsyncLogWriter asyncWriter;
 
     /**
      * Private constructor to prevent external instantiation.
@@ -29,7 +36,7 @@ public class FileLogHandler {
      * @return The single instance of FileLogHandler.
      * @throws IOException If an I/O error occurs.
      */
-    public static FileLogHandler getInstance() throws IOException {
+    public static synchronized FileLogHandler getInstance() throws IOException {
         if (instance == null) {
             instance = new FileLogHandler();
         }
@@ -37,27 +44,71 @@ public class FileLogHandler {
     }
 
     /**
-     * Logs the provided exception to the log file.
+     * Logs the provided exception to the log file. If asynchronous logging is being disabled at
+     * the same time, or its writer thread has died, the exception is written on the caller's thread.
      * @param exception The exception to be logged.
      */
     public void logException(Exception exception) {
-        logFile.println(createLogMessage(exception));
+        AsyncLogWriter writer = asyncWriter;
+        if (writer != null && writer.enqueue(exception)) {
+            return;
+        }
+        logFile.println(createLogMessage(exception, System.currentTimeMillis()));
         logFile.flush();
         // Removed to avoid exposing log operations to the user
     }
 
+    /**
+     * Switches to asynchronous logging, where callers enqueue exceptions into a bounded
+     * ring buffer and a background thread writes them to the log file in batches.
+     * Has no effect if asynchronous logging is already enabled.
+     * @param capacity The number of log records the buffer can hold.
+     * @param flushSize The number of written records after which the file is flushed.
+     * @param flushIntervalMillis The longest time, in milliseconds, a written record may wait for a flush.
+     * @param policy What to do when the buffer is full.
+     * @param sampleRate With the <code>SAMPLE</code> policy, every n:th record is kept under pressure.
+     */
+    public synchronized void enableAsyncLogging(int capacity, int flushSize, long flushIntervalMillis,
+                                                BackpressurePolicy policy, int sampleRate) {
+        if (asyncWriter == null) {
+            asyncWriter = new AsyncLogWriter(logFile, this::createLogMessage, capacity, flushSize,
+                    flushIntervalMillis, policy, sampleRate);
+        }
+    }
+
+    /**
+     * Writes all buffered log records and goes back to logging on the caller's thread.
+     */
+    public synchronized void disableAsyncLogging() {
+        AsyncLogWriter writer = asyncWriter;
+        if (writer != null) {
+            asyncWriter = null;
+            writer.shutdown();
+        }
+    }
+
+    /**
+     * Returns the number of log records that were dropped because of backpressure.
+     * @return The number of dropped records, zero if asynchronous logging is disabled.
+     */
+    public long getDroppedLogRecords() {
+        AsyncLogWriter writer = asyncWriter;
+        return writer == null ? 0 : writer.getDroppedRecords();
+    }
+
     /**
      * Creates a formatted log message for the provided exception.
      * @param exception The exception to create a log message for.
+     * @param timeMillis The time when the exception was logged.
      * @return A formatted log message string.
      */
-    private String createLogMessage(Exception exception) {
+    private String createLogMessage(Exception exception, long timeMillis) {
         StringBuilder logMsgBuilder = new StringBuilder();
         logMsgBuilder.append("Exception occurred: ");
         logMsgBuilder.append(exception.getMessage());
         logMsgBuilder.append(System.lineSeparator());
         logMsgBuilder.append("Time: ");
-        logMsgBuilder.append(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+        logMsgBuilder.append(LocalDateTime.ofInstant(Instant.ofEpochMilli(timeMillis), ZoneId.systemDefault()).format(TIME_FORMATTER));
         logMsgBuilder.append(System.lineSeparator());
 
         for (StackTraceElement stackTraceElement : exception.getStackTrace()) {
@@ -72,6 +123,7 @@ public class FileLogHandler {
      * Closes the log file if it is open.
      */
     public void closeLogFile() {
+        disableAsyncLogging();
         if (logFile != null) {
             logFile.close();
         }
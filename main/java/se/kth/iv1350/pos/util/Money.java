@@ -0,0 +1,244 @@
+package se.kth.iv1350.pos.util;
+
+import java.math.RoundingMode;
+
+/**
+ * The <code>Money</code> class represents an amount of money as a <code>long</code> number of
+ * minor units, with a fixed scale of two decimals. Instances are immutable.
+ * The static methods work directly on minor units, so hot paths can do all their
+ * arithmetic on primitives and only create objects at the edges.
+ */
+public final class Money {
+    /**
+     * The number of decimals of the minor unit.
+     */
+    public static final int SCALE = 2;
+
+    /**
+     * The number of minor units in one major unit.
+     */
+    public static final long MINOR_PER_MAJOR = 100;
+
+    /**
+     * The rounding mode used when no other mode is given.
+     */
+    public static final RoundingMode DEFAULT_ROUNDING = RoundingMode.HALF_UP;
+
+    /**
+     * Money with the value zero.
+     */
+    public static final Money ZERO = new Money(0);
+
+    private static final long BASIS_POINTS_PER_UNIT = 10_000;
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    /**
+     * Creates an instance holding the specified number of minor units.
+     *
+     * @param minorUnits The amount in minor units.
+     * @return The created instance.
+     */
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * Creates an instance from an amount in whole major units.
+     *
+     * @param amount The amount in major units.
+     * @return The created instance.
+     */
+    public static Money of(Amount amount) {
+        return ofMinor(amount.getAmount() * MINOR_PER_MAJOR);
+    }
+
+    /**
+     * Converts an amount in major units, such as a price read from the inventory,
+     * to minor units, rounding half up.
+     *
+     * @param majorUnits The amount in major units.
+     * @return The amount in minor units.
+     */
+    public static long toMinor(double majorUnits) {
+        return Math.round(majorUnits * MINOR_PER_MAJOR);
+    }
+
+    /**
+     * Converts a rate, such as a VAT rate of 0.06, to basis points (600), so it can
+     * be applied with exact integer arithmetic.
+     *
+     * @param rate The rate as a fraction.
+     * @return The rate in basis points.
+     */
+    public static int toBasisPoints(double rate) {
+        return (int) Math.round(rate * BASIS_POINTS_PER_UNIT);
+    }
+
+    /**
+     * Multiplies an amount of minor units by a rate in basis points.
+     *
+     * @param minorUnits The amount in minor units.
+     * @param basisPoints The rate in basis points.
+     * @param rounding How to round a result that falls between two minor units.
+     * @return The result in minor units.
+     */
+    public static long applyRate(long minorUnits, int basisPoints, RoundingMode rounding) {
+        return divide(minorUnits * basisPoints, BASIS_POINTS_PER_UNIT, rounding);
+    }
+
+    /**
+     * Converts an amount of minor units to whole major units.
+     *
+     * @param minorUnits The amount in minor units.
+     * @param rounding How to round a result that falls between two major units.
+     * @return The amount in whole major units.
+     */
+    public static long toMajor(long minorUnits, RoundingMode rounding) {
+        return divide(minorUnits, MINOR_PER_MAJOR, rounding);
+    }
+
+    /**
+     * Divides two longs, rounding the quotient with the given rounding mode.
+     *
+     * @param dividend The dividend.
+     * @param divisor The divisor, must be positive.
+     * @param rounding How to round an inexact quotient.
+     * @return The rounded quotient.
+     * @throws ArithmeticException If the rounding mode is <code>UNNECESSARY</code> and the quotient is inexact.
+     */
+    static long divide(long dividend, long divisor, RoundingMode rounding) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        int sign = dividend < 0 ? -1 : 1;
+        long twiceRemainder = Math.abs(remainder) * 2;
+        boolean roundAway;
+        switch (rounding) {
+            case UP:
+                roundAway = true;
+                break;
+            case DOWN:
+                roundAway = false;
+                break;
+            case CEILING:
+                roundAway = sign > 0;
+                break;
+            case FLOOR:
+                roundAway = sign < 0;
+                break;
+            case HALF_UP:
+                roundAway = twiceRemainder >= divisor;
+                break;
+            case HALF_DOWN:
+                roundAway = twiceRemainder > divisor;
+                break;
+            case HALF_EVEN:
+                roundAway = twiceRemainder > divisor || (twiceRemainder == divisor && (quotient & 1) != 0);
+                break;
+            default:
+                throw new ArithmeticException("Rounding necessary for " + dividend + " / " + divisor);
+        }
+        return roundAway ? quotient + sign : quotient;
+    }
+
+    /**
+     * Returns the amount of this object in minor units.
+     *
+     * @return The amount in minor units.
+     */
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    /**
+     * Adds the specified money to this money.
+     *
+     * @param other The money to add.
+     * @return The sum.
+     */
+    public Money plus(Money other) {
+        return ofMinor(minorUnits + other.minorUnits);
+    }
+
+    /**
+     * Subtracts the specified money from this money.
+     *
+     * @param other The money to subtract.
+     * @return The difference.
+     */
+    public Money minus(Money other) {
+        return ofMinor(minorUnits - other.minorUnits);
+    }
+
+    /**
+     * Multiplies this money with the specified factor.
+     *
+     * @param factor The factor of the multiplication.
+     * @return The product.
+     */
+    public Money times(long factor) {
+        return ofMinor(minorUnits * factor);
+    }
+
+    /**
+     * Returns the given rate of this money, for example the VAT or a discount.
+     *
+     * @param basisPoints The rate in basis points.
+     * @param rounding How to round a result that falls between two minor units.
+     * @return The rate of this money.
+     */
+    public Money percentage(int basisPoints, RoundingMode rounding) {
+        return ofMinor(applyRate(minorUnits, basisPoints, rounding));
+    }
+
+    /**
+     * Converts this money to an <code>Amount</code> of whole major units.
+     *
+     * @param rounding How to round a value that falls between two major units.
+     * @return The converted amount.
+     */
+    public Amount toAmount(RoundingMode rounding) {
+        return new Amount(Math.toIntExact(toMajor(minorUnits, rounding)));
+    }
+
+    /**
+     * Returns this money in major units as a <code>double</code>, for display.
+     *
+     * @return The amount in major units.
+     */
+    public double toDouble() {
+        return (double) minorUnits / MINOR_PER_MAJOR;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof Money)) {
+            return false;
+        }
+        return ((Money) obj).minorUnits == minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    /**
+     * Returns the amount in major units with two decimals, for example "12.05".
+     *
+     * @return A string representation of the money.
+     */
+    @Override
+    public String toString() {
+        long major = Math.abs(minorUnits / MINOR_PER_MAJOR);
+        long minor = Math.abs(minorUnits % MINOR_PER_MAJOR);
+        return (minorUnits < 0 ? "-" : "") + major + (minor < 10 ? ".0" : ".") + minor;
+    }
+}
@@ -0,0 +1,81 @@
+package se.kth.iv1350.pos.util;
+
+import java.math.RoundingMode;
+
+/**
+ * A mutable running total of money, kept in minor units. Adding to it does not
+ * allocate, which makes it suitable for totals that change on every scan or payment.
+ * Instances are not thread safe; callers sharing one must synchronize.
+ */
+public final class MoneyAccumulator {
+    private long minorUnits;
+
+    /**
+     * Creates an accumulator starting at zero.
+     */
+    public MoneyAccumulator() {
+        this.minorUnits = 0;
+    }
+
+    /**
+     * Adds an amount of minor units, which may be negative.
+     *
+     * @param minorUnitsToAdd The amount to add.
+     */
+    public void add(long minorUnitsToAdd) {
+        this.minorUnits += minorUnitsToAdd;
+    }
+
+    /**
+     * Adds the specified money.
+     *
+     * @param money The money to add.
+     */
+    public void add(Money money) {
+        add(money.getMinorUnits());
+    }
+
+    /**
+     * Sets the total back to zero.
+     */
+    public void reset() {
+        this.minorUnits = 0;
+    }
+
+    /**
+     * Returns the current total in minor units.
+     *
+     * @return The total in minor units.
+     */
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    /**
+     * Returns the current total as an immutable <code>Money</code>.
+     *
+     * @return The total.
+     */
+    public Money toMoney() {
+        return Money.ofMinor(minorUnits);
+    }
+
+    /**
+     * Returns the current total as whole major units.
+     *
+     * @param rounding How to round a total that falls between two major units.
+     * @return The total as an <code>Amount</code>.
+     */
+    public Amount toAmount(RoundingMode rounding) {
+        return new Amount(Math.toIntExact(Money.toMajor(minorUnits, rounding)));
+    }
+
+    /**
+     * Returns the current total in major units as a <code>double</code>, for display.
+     *
+     * @return The total in major units.
+     */
+    public double toDouble() {
+        return (double) minorUnits / Money.MINOR_PER_MAJOR;
+    }
+}
@@ -0,0 +1,119 @@
+package se.kth.iv1350.pos.util;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, lock-free queue for many producers and a single consumer.
+ * Each slot has a sequence number that tells whether it is free to write or ready to read,
+ * so producers only compete on one compare-and-set and never block each other.
+ *
+ * @param <T> The type of the entries.
+ */
+public final class RingBuffer<T> {
+    private final Object[] entries;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    /**
+     * Creates a ring buffer holding at most the specified number of entries.
+     *
+     * @param capacity The capacity, rounded up to the nearest power of two.
+     */
+    public RingBuffer(int capacity) {
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        entries = new Object[size];
+        sequences = new AtomicLongArray(size);
+        mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an entry, if there is room for it. May be called by any thread.
+     *
+     * @param entry The entry to add.
+     * @return <code>true</code> if the entry was added, <code>false</code> if the buffer was full.
+     */
+    public boolean offer(T entry) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    entries[index] = entry;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the oldest entry. Must only be called by the single consumer thread.
+     *
+     * @return The oldest entry, or <code>null</code> if the buffer is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        T entry = (T) entries[index];
+        entries[index] = null;
+        sequences.set(index, position + entries.length);
+        head = position + 1;
+        return entry;
+    }
+
+    /**
+     * Moves up to the specified number of entries to the given list, oldest first.
+     * Must only be called by the single consumer thread.
+     *
+     * @param batch The list to add the entries to.
+     * @param maxEntries The maximum number of entries to move.
+     * @return The number of entries moved.
+     */
+    public int drainTo(List<T> batch, int maxEntries) {
+        int drained = 0;
+        T entry;
+        while (drained < maxEntries && (entry = poll()) != null) {
+            batch.add(entry);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Returns an estimate of the number of entries in the buffer.
+     *
+     * @return The approximate number of entries.
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(entries.length, tail.get() - head));
+    }
+
+    /**
+     * Returns the maximum number of entries the buffer can hold.
+     *
+     * @return The capacity.
+     */
+    public int capacity() {
+        return entries.length;
+    }
+}
@@ -1,24 +1,72 @@
 package se.kth.iv1350.pos.view;
 
+import se.kth.iv1350.pos.model.RevenueAggregator;
+import se.kth.iv1350.pos.model.RevenueSnapshot;
 import se.kth.iv1350.pos.model.SaleObserver;
+import se.kth.iv1350.pos.util.Money;
 
 /**
- * A template for observers that handle revenue updates.
+ * A template for observers that handle revenue updates. Revenue is summed in minor units by a
+ * {@link RevenueAggregator}, so observers may be notified from several lanes at once. An
+ * observer created without an aggregator shows the total after every sale. An observer
+ * sharing an aggregator does not record sales, since the aggregator is registered as an
+ * observer itself, and only shows the snapshots the aggregator publishes.
  */
 public abstract class RevenueObserver implements SaleObserver {
-    private double totalRevenue;
+    private final RevenueAggregator aggregator;
+    private final boolean showEverySale;
+    private final boolean recordsSales;
 
     public RevenueObserver() {
-        totalRevenue = 0;
+        this.aggregator = new RevenueAggregator();
+        this.showEverySale = true;
+        this.recordsSales = true;
+    }
+
+    /**
+     * Creates an observer that shows the snapshots published by the given aggregator. The
+     * aggregator must be registered as a sale observer itself, since this observer does not
+     * record any sales in it. It may therefore be shared by several observers.
+     *
+     * @param aggregator The aggregator that sums the revenue.
+     */
+    public RevenueObserver(RevenueAggregator aggregator) {
+        this(aggregator, false);
+    }
+
+    /**
+     * Creates an observer that shows the snapshots published by the given aggregator.
+     *
+     * @param aggregator The aggregator that sums the revenue.
+     * @param recordsSales <code>true</code> if the aggregator belongs to this observer alone,
+     *                     which then records every sale it is notified of in it.
+     */
+    protected RevenueObserver(RevenueAggregator aggregator, boolean recordsSales) {
+        this.aggregator = aggregator;
+        this.showEverySale = false;
+        this.recordsSales = recordsSales;
+        aggregator.addListener(this::showSnapshot);
     }
 
     @Override
     public void newSale(double priceOfPurchase) {
-        totalRevenue += priceOfPurchase;
-        showTotalRevenue();
+        if (recordsSales) {
+            aggregator.record(Money.toMinor(priceOfPurchase));
+        }
+        if (showEverySale) {
+            showTotalRevenue((double) aggregator.getTotalMinorUnits() / Money.MINOR_PER_MAJOR);
+        }
+    }
+
+    private void showSnapshot(RevenueSnapshot snapshot) {
+        try {
+            doShowSnapshot(snapshot);
+        } catch (Exception e) {
+            handleErrors(e);
+        }
     }
 
-    private void showTotalRevenue() {
+    private void showTotalRevenue(double totalRevenue) {
         try {
             doShowTotalRevenue(totalRevenue);
         } catch (Exception e) {
@@ -26,6 +74,16 @@ public abstract class RevenueObserver implements SaleObserver {
         }
     }
 
+    /**
+     * Shows a snapshot published by the aggregator. Shows its total revenue unless overridden.
+     *
+     * @param snapshot The published snapshot.
+     * @throws Exception If the snapshot could not be shown.
+     */
+    protected void doShowSnapshot(RevenueSnapshot snapshot) throws Exception {
+        doShowTotalRevenue(snapshot.getTotalRevenueAsDouble());
+    }
+
     protected abstract void doShowTotalRevenue(double totalRevenue) throws Exception;
 
     protected abstract void handleErrors(Exception e);
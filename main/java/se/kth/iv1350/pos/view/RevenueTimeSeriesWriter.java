@@ -0,0 +1,129 @@
+package se.kth.iv1350.pos.view;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import se.kth.iv1350.pos.model.RevenueSnapshot;
+import se.kth.iv1350.pos.util.DecimalFormatter;
+
+/**
+ * Appends revenue snapshots to a file as a tab separated time series, one line per snapshot:
+ * the time of the snapshot, the sales and revenue since the previous line, and the total sales
+ * and revenue. Each line is written with a single <code>FileChannel</code> write.
+ */
+class RevenueTimeSeriesWriter implements Closeable {
+    private static final DateTimeFormatter TIME_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS", Locale.US).withZone(ZoneId.systemDefault());
+    private static final String HEADER = "# time\tsales\trevenue\ttotal_sales\ttotal_revenue\n";
+
+    private final FileChannel channel;
+    private final TotalRevenueFileOutput.Durability durability;
+    private final ByteBuffer line = ByteBuffer.allocateDirect(256);
+    private final char[] digits = new char[DecimalFormatter.MAX_LENGTH];
+    private long previousSaleCount;
+    private long previousMinorUnits;
+    private long writeCount;
+
+    /**
+     * Opens the file, creating it with a header line if it does not exist.
+     *
+     * @param file The file to append to.
+     * @param durability When written lines are forced to the storage device.
+     * @throws IOException If the file can not be opened.
+     */
+    RevenueTimeSeriesWriter(Path file, TotalRevenueFileOutput.Durability durability) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.durability = durability;
+        if (channel.size() == 0) {
+            appendText(HEADER);
+            writeLine();
+            force();
+        }
+    }
+
+    /**
+     * Appends one line for the given snapshot. If the line can not be written, the next one
+     * still covers the sales since the last written line.
+     *
+     * @param snapshot The snapshot to write.
+     * @throws IOException If the line could not be written.
+     */
+    synchronized void write(RevenueSnapshot snapshot) throws IOException {
+        line.clear();
+        long saleCount = snapshot.getSaleCount();
+        long minorUnits = snapshot.getTotalRevenue().getMinorUnits();
+        appendText(TIME_FORMATTER.format(Instant.ofEpochMilli(snapshot.getTimeMillis())));
+        appendTab();
+        appendDigits(DecimalFormatter.formatLong(saleCount - previousSaleCount, digits, 0));
+        appendTab();
+        appendDigits(DecimalFormatter.formatMinor(minorUnits - previousMinorUnits, digits, 0));
+        appendTab();
+        appendDigits(DecimalFormatter.formatLong(saleCount, digits, 0));
+        appendTab();
+        appendDigits(DecimalFormatter.formatMinor(minorUnits, digits, 0));
+        line.put((byte) '\n');
+        writeLine();
+        previousSaleCount = saleCount;
+        previousMinorUnits = minorUnits;
+        force();
+    }
+
+    /**
+     * Returns the number of lines written, including the header.
+     *
+     * @return The number of lines written.
+     */
+    synchronized long getWriteCount() {
+        return writeCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void writeLine() throws IOException {
+        line.flip();
+        try {
+            while (line.hasRemaining()) {
+                channel.write(line);
+            }
+        } finally {
+            line.clear();
+        }
+        writeCount++;
+    }
+
+    private void force() throws IOException {
+        if (durability == TotalRevenueFileOutput.Durability.FORCE_DATA) {
+            channel.force(false);
+        } else if (durability == TotalRevenueFileOutput.Durability.FORCE_ALL) {
+            channel.force(true);
+        }
+    }
+
+    private void appendText(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            line.put((byte) text.charAt(i));
+        }
+    }
+
+    private void appendDigits(int length) {
+        for (int i = 0; i < length; i++) {
+            line.put((byte) digits[i]);
+        }
+    }
+
+    private void appendTab() {
+        line.put((byte) '\t');
+    }
+}
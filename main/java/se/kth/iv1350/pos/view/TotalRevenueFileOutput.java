@@ -3,29 +3,102 @@ package se.kth.iv1350.pos.view;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
+import se.kth.iv1350.pos.model.RevenueAggregator;
+import se.kth.iv1350.pos.model.RevenueSnapshot;
 import se.kth.iv1350.pos.util.FileLogHandler;
 
 /**
- * Outputs the total revenue to a file.
+ * Outputs the total revenue to a file. By default a line is written after every sale. In
+ * coalescing mode, sales are only summed, and a background thread appends one line per time
+ * bucket to a tab separated time series, so writing the file costs nothing per sale.
  */
 public class TotalRevenueFileOutput extends RevenueObserver {
     private static final String REVENUE_LOG_FILE_NAME = "totalRevenue.txt";
     private PrintWriter revenueLogFile;
     private DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss", Locale.US);
     private FileLogHandler errorLogger;
+    private RevenueAggregator bucketAggregator;
+    private RevenueTimeSeriesWriter timeSeries;
+
+    /**
+     * When the lines written in coalescing mode are forced to the storage device.
+     */
+    public enum Durability {
+        /**
+         * Lines are handed to the operating system, which writes them when it chooses.
+         */
+        WRITE_ONLY,
+        /**
+         * The content of the file is forced to the device after every line.
+         */
+        FORCE_DATA,
+        /**
+         * The content and the metadata of the file are forced to the device after every line.
+         */
+        FORCE_ALL
+    }
+
     /**
      * Creates a new instance and opens the revenue log file.
      * @throws IOException If there is an issue opening the file.
      */
     public TotalRevenueFileOutput() throws IOException {
+        super();
+        openLogFile();
+    }
+
+    /**
+     * Creates a new instance that writes the snapshots published by the given aggregator
+     * instead of every sale, and opens the revenue log file. The aggregator must be registered
+     * as a sale observer itself.
+     * @param aggregator the aggregator summing the revenue.
+     * @throws IOException If there is an issue opening the file.
+     */
+    public TotalRevenueFileOutput(RevenueAggregator aggregator) throws IOException {
+        super(aggregator);
+        openLogFile();
+    }
+
+    /**
+     * Creates a new instance in coalescing mode, appending one line per time bucket in which
+     * sales were made to the given file.
+     * @param file the time series file, created with a header line if it does not exist.
+     * @param bucketMillis the length of a time bucket, for example 1000 for one line per second.
+     * @param durability when written lines are forced to the storage device.
+     * @throws IOException If there is an issue opening the file.
+     */
+    public TotalRevenueFileOutput(Path file, long bucketMillis, Durability durability) throws IOException {
+        this(new RevenueAggregator(), file, bucketMillis, durability);
+    }
+
+    private TotalRevenueFileOutput(RevenueAggregator aggregator, Path file, long bucketMillis,
+                                   Durability durability) throws IOException {
+        super(aggregator, true);
+        errorLogger = FileLogHandler.getInstance();
+        timeSeries = new RevenueTimeSeriesWriter(file, durability);
+        bucketAggregator = aggregator;
+        aggregator.start(bucketMillis);
+    }
+
+    private void openLogFile() throws IOException {
         revenueLogFile = new PrintWriter(new FileWriter(REVENUE_LOG_FILE_NAME, true));
         errorLogger = FileLogHandler.getInstance(); // Initialize the error logger
         System.out.println("TotalRevenueFileOutput: Log file created/opened successfully.");
     }
 
+    @Override
+    protected void doShowSnapshot(RevenueSnapshot snapshot) throws Exception {
+        if (timeSeries == null) {
+            super.doShowSnapshot(snapshot);
+            return;
+        }
+        timeSeries.write(snapshot);
+    }
+
     @Override
     protected void doShowTotalRevenue(double totalRevenue) {
         String currentTime = LocalDateTime.now().format(formatter);
@@ -38,18 +111,37 @@ public class TotalRevenueFileOutput extends RevenueObserver {
     @Override
     protected void handleErrors(Exception e) {
         // Log the error without displaying detailed exception message to the user
-        revenueLogFile.println("Failed to update total revenue: " + LocalDateTime.now().format(formatter));
-        revenueLogFile.flush();
+        if (revenueLogFile != null) {
+            revenueLogFile.println("Failed to update total revenue: " + LocalDateTime.now().format(formatter));
+            revenueLogFile.flush();
+        }
         System.err.println("Could not write total revenue to file. Check the log for details.");
         errorLogger.logException(e); // Log the exception using FileLogHandler
     }
+
+    /**
+     * Returns the number of lines written to the time series file in coalescing mode.
+     * @return the number of lines written, including the header, or 0 if not in coalescing mode.
+     */
+    public long getTimeSeriesWriteCount() {
+        return timeSeries == null ? 0 : timeSeries.getWriteCount();
+    }
    
         /**
-     * Closes the revenue log file.
+     * Closes the revenue log file. In coalescing mode, the sales of the current time bucket
+     * are written first.
      */
     public void closeLogFile() {
         if (revenueLogFile != null) {
             revenueLogFile.close();
         }
+        if (timeSeries != null) {
+            bucketAggregator.stop();
+            try {
+                timeSeries.close();
+            } catch (IOException e) {
+                handleErrors(e);
+            }
+        }
     }
 }
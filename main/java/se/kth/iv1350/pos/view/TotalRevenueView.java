@@ -4,6 +4,8 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
 
+import se.kth.iv1350.pos.model.RevenueAggregator;
+
 /**
  * TotalRevenueView writes to the console when notified of a sale completion.
  */
@@ -18,6 +20,16 @@ public class TotalRevenueView extends RevenueObserver {
         super();
     }
 
+    /**
+     * Constructs a new instance of TotalRevenueView that shows the snapshots
+     * published by the given aggregator instead of every sale. The aggregator must be
+     * registered as a sale observer itself.
+     * @param aggregator the aggregator summing the revenue.
+     */
+    public TotalRevenueView(RevenueAggregator aggregator) {
+        super(aggregator);
+    }
+
     @Override
     protected void doShowTotalRevenue(double totalRevenue) {
         String currentTime = LocalDateTime.now().format(formatter);
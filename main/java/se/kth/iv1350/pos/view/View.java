@@ -2,6 +2,7 @@ package se.kth.iv1350.pos.view;
 
 import se.kth.iv1350.pos.controller.Controller;
 import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.integration.ItemNotFoundException;
 import se.kth.iv1350.pos.util.Amount;
 import se.kth.iv1350.pos.util.FileLogHandler;
 import se.kth.iv1350.pos.controller.OperationFailedException;
@@ -88,6 +89,8 @@ public class View {
         try {
             ItemDTO item = controller.enterItem(itemIdentifier, quantity);
             System.out.println("Registered item: " + item + ".");
+        } catch (ItemNotFoundException e) {
+            errorMessageHandler.displayErrorMessage(e.getMessage());
         } catch (OperationFailedException e) {
             errorMessageHandler.displayErrorMessage("Error processing item. Please check the logs for more details.");
             logger.logException(e);  
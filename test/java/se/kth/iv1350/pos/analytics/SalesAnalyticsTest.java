@@ -0,0 +1,105 @@
+package test.java.se.kth.iv1350.pos.analytics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import se.kth.iv1350.pos.analytics.CountMinSketch;
+import se.kth.iv1350.pos.analytics.ItemCount;
+import se.kth.iv1350.pos.analytics.SalesAnalytics;
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.integration.SystemCreator;
+import se.kth.iv1350.pos.model.Sale;
+import se.kth.iv1350.pos.model.SaleCompletedEvent;
+import se.kth.iv1350.pos.util.Money;
+
+public class SalesAnalyticsTest {
+    private static final long START = 1_700_000_000_000L;
+
+    private SalesAnalytics analytics;
+
+    @BeforeEach
+    public void setUp() {
+        analytics = new SalesAnalytics(1_000, 60, 10, new CountMinSketch(1024, 4), 8);
+    }
+
+    private static SaleCompletedEvent sale(long completedAtMillis, Object... itemsAndQuantities) {
+        Sale sale = new Sale();
+        sale.setSystemCreator(new SystemCreator());
+        for (int i = 0; i < itemsAndQuantities.length; i += 2) {
+            sale.addItemToSale((ItemDTO) itemsAndQuantities[i], (Integer) itemsAndQuantities[i + 1]);
+        }
+        return SaleCompletedEvent.of(sale, completedAtMillis);
+    }
+
+    private static ItemDTO milk() {
+        return new ItemDTO("Milk", 0.06, 20, "", "200");
+    }
+
+    private static ItemDTO cheese() {
+        return new ItemDTO("Cheese", 0.12, 50, "", "201");
+    }
+
+    @Test
+    public void testWindowRevenueForgetsOldSales() {
+        analytics.record(sale(START, milk(), 1));
+        analytics.record(sale(START + 30_000, milk(), 2));
+
+        assertEquals(Money.ofMinor(2120 + 4240), analytics.getWindowRevenue(START + 30_000),
+                "Both sales should be in the window");
+        assertEquals(Money.ofMinor(4240), analytics.getWindowRevenue(START + 61_000),
+                "The first sale should have left the window");
+        assertEquals(0, analytics.getWindowSaleCount(START + 200_000), "All sales should have left the window");
+        assertEquals(2, analytics.getSaleCount(), "The total should keep every sale");
+    }
+
+    @Test
+    public void testWindowBucketIsReusedAfterOneLap() {
+        analytics.record(sale(START, milk(), 1));
+        analytics.record(sale(START + 60_000, cheese(), 1));
+
+        assertEquals(1, analytics.getWindowSaleCount(START + 60_000), "The reused bucket should be reset");
+        assertEquals(Money.ofMinor(5600), analytics.getWindowRevenue(START + 60_000),
+                "Only the newer sale should be counted");
+    }
+
+    @Test
+    public void testTopItemsAndUnitEstimates() {
+        analytics.record(sale(START, milk(), 3, cheese(), 1));
+        analytics.record(sale(START, milk(), 2));
+
+        List<ItemCount> top = analytics.getTopItems(5);
+        assertEquals(2, top.size(), "Two items were sold");
+        assertEquals("200", top.get(0).getItemIdentifier(), "Milk should sell best");
+        assertEquals(5, top.get(0).getCount(), "Five units of milk were sold");
+        assertTrue(analytics.estimateUnitsSold("200") >= 5, "The estimate should never be too low");
+        assertEquals(0, analytics.estimateUnitsSold("999"), "An unsold item should be estimated at zero");
+    }
+
+    @Test
+    public void testBasketSizesAndVATTotals() {
+        analytics.record(sale(START, milk(), 1));
+        analytics.record(sale(START, milk(), 1, cheese(), 1));
+        analytics.record(sale(START, milk(), 20));
+
+        assertEquals(1, analytics.getBasketSizes().getCount(1), "One basket had one unit");
+        assertEquals(1, analytics.getBasketSizes().getCount(2), "One basket had two units");
+        assertEquals(1, analytics.getBasketSizes().getOverflowCount(), "One basket was larger than tracked");
+        assertEquals(2, analytics.getBasketSizes().getPercentile(50), "The median basket had two units");
+
+        Map<Integer, Long> vat = analytics.getVATTotals();
+        assertEquals(Long.valueOf(120 * 22), vat.get(600), "VAT at 6% should be summed over all milk");
+        assertEquals(Long.valueOf(600), vat.get(1200), "VAT at 12% should come from the cheese");
+    }
+
+    @Test
+    public void testPriceOnlyNotificationIsIgnored() {
+        analytics.newSale(100);
+
+        assertEquals(0, analytics.getSaleCount(), "A price alone should not be recorded");
+    }
+}
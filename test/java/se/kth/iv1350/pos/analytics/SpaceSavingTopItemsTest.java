@@ -0,0 +1,67 @@
+package test.java.se.kth.iv1350.pos.analytics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import se.kth.iv1350.pos.analytics.CountMinSketch;
+import se.kth.iv1350.pos.analytics.ItemCount;
+import se.kth.iv1350.pos.analytics.SpaceSavingTopItems;
+
+public class SpaceSavingTopItemsTest {
+
+    @Test
+    public void testFrequentItemsSurviveManyRareOnes() {
+        SpaceSavingTopItems topItems = new SpaceSavingTopItems(8);
+        for (int round = 0; round < 1_000; round++) {
+            topItems.add("bread", 3);
+            topItems.add("milk", 2);
+            topItems.add("rare-" + round, 1);
+        }
+
+        List<ItemCount> top = topItems.top(2);
+        assertEquals("bread", top.get(0).getItemIdentifier(), "The most sold item should be first");
+        assertEquals("milk", top.get(1).getItemIdentifier(), "The second most sold item should be second");
+        assertTrue(top.get(0).getCount() - top.get(0).getMaxError() <= 3_000, "The error bound should hold");
+        assertTrue(top.get(0).getCount() >= 3_000, "Counts should never be too low");
+        assertEquals(6_000, topItems.getTotalUnits(), "Every unit should be counted");
+    }
+
+    @Test
+    public void testEvictedItemInheritsMinimumAsError() {
+        SpaceSavingTopItems topItems = new SpaceSavingTopItems(2);
+        topItems.add("a", 5);
+        topItems.add("b", 2);
+        topItems.add("c", 1);
+
+        List<ItemCount> top = topItems.top(2);
+        assertEquals("a", top.get(0).getItemIdentifier(), "The largest counter should be kept");
+        assertEquals("c", top.get(1).getItemIdentifier(), "The smallest counter should be taken over");
+        assertEquals(3, top.get(1).getCount(), "The new item should start from the evicted count");
+        assertEquals(2, top.get(1).getMaxError(), "The evicted count should be the error");
+    }
+
+    @Test
+    public void testSketchNeverUnderestimates() {
+        CountMinSketch sketch = new CountMinSketch(64, 4);
+        for (int i = 0; i < 1_000; i++) {
+            sketch.add("item-" + i, i % 7 + 1);
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(sketch.estimate("item-" + i) >= i % 7 + 1, "Estimates should never be too low");
+        }
+        assertEquals(64 * 4 * Long.BYTES, sketch.getFootprintBytes(), "The footprint should match the dimensions");
+    }
+
+    @Test
+    public void testSketchRowsDoNotShareHashCodeCollisions() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        assertEquals("Aa".hashCode(), "BB".hashCode(), "The keys should have the same hash code");
+        sketch.add("Aa", 100);
+
+        assertEquals(0, sketch.estimate("BB"), "Keys with the same hash code should not collide in every row");
+    }
+}
@@ -1,12 +1,20 @@
 package test.java.se.kth.iv1350.pos.controller;
 
 import se.kth.iv1350.pos.controller.Controller;
+import se.kth.iv1350.pos.controller.ItemEntryResult;
 import se.kth.iv1350.pos.controller.OperationFailedException;
 import se.kth.iv1350.pos.integration.*;
 import se.kth.iv1350.pos.model.*;
 import se.kth.iv1350.pos.util.*;
 import se.kth.iv1350.pos.discount.DiscountHandler;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.junit.jupiter.api.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -91,4 +99,189 @@ public class ControllerTest {
             systemCreator.getInventorySystem().setDatabaseUnavailable(false);
         }
     }
+
+    @Test
+    public void testLanesHaveSeparateSales() throws Exception {
+        controller.makeNewSale("lane-1");
+        controller.makeNewSale("lane-2");
+        controller.enterItem("lane-1", "11127", new Amount(2));
+        controller.enterItem("lane-2", "11135", new Amount(1));
+
+        assertEquals(2, controller.getSale("lane-1").getQuantityOfItem("11127"), "Lane 1 should hold its own item");
+        assertEquals(0, controller.getSale("lane-2").getQuantityOfItem("11127"), "Lane 2 should not see items of lane 1");
+    }
+
+    @Test
+    public void testLaneWithOwnCashRegister() throws Exception {
+        CashRegister laneRegister = new CashRegister();
+        controller.assignCashRegister("lane-1", laneRegister);
+        controller.makeNewSale("lane-1");
+        controller.enterItem("lane-1", "1", new Amount(1));
+        controller.payment("lane-1", new Amount(100), null);
+
+        assertEquals(11, laneRegister.getTotalCash(), "Payment should be recorded in the register of the lane");
+        assertEquals(0, cashRegister.getTotalCash(), "The shared register should not be used by the lane");
+    }
+
+    @Test
+    public void testEnterItemOnClosedLane() {
+        controller.makeNewSale("lane-1");
+        controller.closeLane("lane-1");
+        assertThrows(OperationFailedException.class, () -> controller.enterItem("lane-1", "1", new Amount(1)));
+    }
+
+    @Test
+    public void testSaleFollowsDefaultLane() {
+        Sale defaultSale = controller.makeNewSale(Controller.DEFAULT_LANE);
+        assertSame(defaultSale, controller.sale, "A sale on the default lane should be the controller's sale");
+        controller.makeNewSale("lane-1");
+        assertSame(defaultSale, controller.sale, "A sale on another lane should not replace it");
+        controller.closeLane(Controller.DEFAULT_LANE);
+        assertNull(controller.sale, "Closing the default lane should discard its sale");
+    }
+
+    @Test
+    public void testEnterItemsAggregatesQuantities() throws Exception {
+        controller.makeNewSale();
+        List<ItemEntryResult> results = controller.enterItems(List.of("11127", "1", "11127", "11127"));
+
+        assertEquals(2, results.size(), "There should be one result per distinct identifier");
+        assertEquals(ItemEntryResult.Status.ADDED, results.get(0).getStatus(), "The apples should be added");
+        assertEquals(3, results.get(0).getQuantity(), "The quantities of the apples should be summed");
+        assertEquals(3, controller.sale.getQuantityOfItem("11127"), "The sale should hold all apples");
+        assertEquals(1, controller.sale.getQuantityOfItem("1"), "The sale should hold the test item");
+    }
+
+    @Test
+    public void testEnterItemsMatchesSingleEntries() throws Exception {
+        controller.makeNewSale("batch");
+        controller.enterItems("batch", List.of("11127", "11123", "11127", "11135"));
+        controller.makeNewSale("single");
+        controller.enterItem("single", "11127", new Amount(1));
+        controller.enterItem("single", "11123", new Amount(1));
+        controller.enterItem("single", "11127", new Amount(1));
+        controller.enterItem("single", "11135", new Amount(1));
+
+        assertEquals(controller.getSale("single").getTotalPrice(), controller.getSale("batch").getTotalPrice(),
+                "A batch should give the same total as entering the items one by one");
+        assertEquals(controller.getSale("single").getTotalVAT(), controller.getSale("batch").getTotalVAT(), 0.0001,
+                "A batch should give the same VAT as entering the items one by one");
+    }
+
+    @Test
+    public void testEnterItemsReportsMissesWithoutFailing() throws Exception {
+        controller.makeNewSale();
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        quantities.put("11123", 2);
+        quantities.put("invalidID", 1);
+        quantities.put("11135", 0);
+        List<ItemEntryResult> results = controller.enterItems(Controller.DEFAULT_LANE, quantities);
+
+        assertEquals(ItemEntryResult.Status.ADDED, results.get(0).getStatus(), "A known item should be added");
+        assertEquals(ItemEntryResult.Status.NOT_FOUND, results.get(1).getStatus(), "An unknown item should be reported");
+        assertEquals(ItemEntryResult.Status.INVALID_QUANTITY, results.get(2).getStatus(),
+                "A quantity of zero should be reported");
+        assertNull(results.get(1).getItem(), "An unknown item should have no details");
+        assertEquals(1, controller.sale.getItems().size(), "Only the known item should be in the sale");
+    }
+
+    @Test
+    public void testEnterItemsWhenDatabaseIsDown() throws Exception {
+        controller.makeNewSale();
+        InventorySystem.getInstance().setDatabaseUnavailable(true);
+        try {
+            List<ItemEntryResult> results = controller.enterItems(List.of("1", "11127"));
+
+            assertTrue(results.stream().allMatch(result -> result.getStatus() == ItemEntryResult.Status.UNAVAILABLE),
+                    "Every item should be reported as unavailable");
+            assertTrue(controller.sale.getItems().isEmpty(), "No item should be added");
+        } finally {
+            InventorySystem.getInstance().setDatabaseUnavailable(false);
+        }
+    }
+
+    @Test
+    public void testResilientBackendHandlesDatabaseOutage() throws Exception {
+        InventorySystem inventory = InventorySystem.getInstance();
+        ResilientItemCatalog resilient = new ResilientItemCatalog(inventory.getDatabase(),
+                new CircuitBreaker(2, 60_000), null, 0, 1_000, 100);
+        inventory.setBackend(resilient);
+        controller.makeNewSale();
+        try {
+            controller.enterItem("11127", new Amount(1));
+            inventory.setDatabaseUnavailable(true);
+
+            controller.enterItem("11127", new Amount(1));
+            assertEquals(2, controller.sale.getQuantityOfItem("11127"), "A fetched item should be served during the outage");
+            assertEquals(1, resilient.getStaleServedCount(), "The outage should reach the resilient catalog");
+            assertThrows(OperationFailedException.class, () -> controller.enterItem("11123", new Amount(1)),
+                    "An item never fetched should fail during the outage");
+        } finally {
+            inventory.setDatabaseUnavailable(false);
+            inventory.setBackend(null);
+            resilient.close();
+        }
+    }
+
+    @Test
+    public void testEnterItemsDuringOutageAddsKnownItems() throws Exception {
+        InventorySystem inventory = InventorySystem.getInstance();
+        ResilientItemCatalog resilient = new ResilientItemCatalog(inventory.getDatabase(),
+                new CircuitBreaker(2, 60_000), null, 0, 1_000, 100);
+        inventory.setBackend(resilient);
+        controller.makeNewSale();
+        try {
+            controller.enterItems(List.of("11127"));
+            inventory.setDatabaseUnavailable(true);
+
+            List<ItemEntryResult> results = controller.enterItems(List.of("11127", "11123"));
+            assertEquals(ItemEntryResult.Status.ADDED, results.get(0).getStatus(), "A remembered item should be added");
+            assertEquals(ItemEntryResult.Status.UNAVAILABLE, results.get(1).getStatus(),
+                    "Only the item never fetched should be unavailable");
+            assertEquals(2, controller.sale.getQuantityOfItem("11127"), "The remembered item should be in the sale");
+        } finally {
+            inventory.setDatabaseUnavailable(false);
+            inventory.setBackend(null);
+            resilient.close();
+        }
+    }
+
+    @Test
+    public void testEnterItemsWithoutSale() {
+        assertThrows(OperationFailedException.class, () -> controller.enterItems(List.of("1")));
+    }
+
+    @Test
+    public void testTryEnterItemReportsMiss() throws Exception {
+        controller.makeNewSale();
+        ItemEntryResult miss = controller.tryEnterItem(Controller.DEFAULT_LANE, "invalidID", 1);
+        ItemEntryResult hit = controller.tryEnterItem(Controller.DEFAULT_LANE, "11127", 2);
+
+        assertEquals(ItemEntryResult.Status.NOT_FOUND, miss.getStatus(), "A miss should be reported, not thrown");
+        assertTrue(hit.isAdded(), "A known item should be added");
+        assertEquals(2, controller.sale.getQuantityOfItem("11127"), "The known item should be in the sale");
+    }
+
+    @Test
+    public void testTryEnterItemRateLimitsOutageLog() throws Exception {
+        controller.makeNewSale();
+        long recordsBefore = countOutageRecords();
+        InventorySystem.getInstance().setDatabaseUnavailable(true);
+        try {
+            for (int i = 0; i < 1_000; i++) {
+                assertEquals(ItemEntryResult.Status.UNAVAILABLE,
+                        controller.tryEnterItem(Controller.DEFAULT_LANE, "11127", 1).getStatus(),
+                        "Every scan should be reported as unavailable");
+            }
+        } finally {
+            InventorySystem.getInstance().setDatabaseUnavailable(false);
+        }
+        assertTrue(countOutageRecords() - recordsBefore <= 2, "Repeated failures should be logged once per interval");
+    }
+
+    private static long countOutageRecords() throws IOException {
+        try (var lines = Files.lines(Path.of("pos-application-log.txt"))) {
+            return lines.filter(line -> line.startsWith("Exception occurred: Failed to connect to the database.")).count();
+        }
+    }
 }
@@ -0,0 +1,91 @@
+package test.java.se.kth.iv1350.pos.discount;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import se.kth.iv1350.pos.discount.CustomerDiscountIndex;
+import se.kth.iv1350.pos.discount.DiscountHandler;
+import se.kth.iv1350.pos.discount.DiscountStrategyCache;
+import se.kth.iv1350.pos.discount.NoDiscount;
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.model.Sale;
+
+public class DiscountHandlerTest {
+    private DiscountHandler discountHandler;
+    private Sale sale;
+
+    @BeforeEach
+    public void setUp() {
+        discountHandler = new DiscountHandler(100, 60_000);
+        sale = new Sale();
+        sale.addItemToSale(new ItemDTO("Chicken", 0.0, 200, "Free range chicken", "11132"), 1);
+    }
+
+    @Test
+    public void testConfiguredCustomerDiscount() {
+        assertEquals(20, discountHandler.getDiscountAmount(sale, "1234567890").getAmount(), "10% of 200 should be 20");
+        assertTrue(discountHandler.isEligibleForDiscount("9876543210"), "Configured customer should be eligible");
+        assertFalse(discountHandler.isEligibleForDiscount("0000000001"), "Unknown customer should not be eligible");
+    }
+
+    @Test
+    public void testLookupsAreCached() {
+        discountHandler.getDiscountAmount(sale, "1234567890");
+        discountHandler.getDiscountAmount(sale, "1234567890");
+        discountHandler.getDiscountAmount(sale, "1234567890");
+        DiscountStrategyCache cache = discountHandler.getCache();
+        assertEquals(1, cache.getMissCount(), "Only the first lookup should miss");
+        assertEquals(2, cache.getHitCount(), "Repeated lookups should hit the cache");
+    }
+
+    @Test
+    public void testMemberIndex() {
+        CustomerDiscountIndex.Loader loader = new CustomerDiscountIndex.Loader();
+        for (int i = 0; i < 1_000; i++) {
+            loader.addPercentage(String.valueOf(5_000_000_000L + i), i % 2 == 0 ? 0.05 : 0.25);
+        }
+        CustomerDiscountIndex index = loader.compile();
+        assertEquals(1_000, index.size(), "All members should be indexed");
+        assertEquals(2, index.strategyCount(), "Members with the same rate should share a strategy");
+        assertSame(index.find("5000000000"), index.find("5000000002"), "Equal rates should resolve to the same instance");
+
+        discountHandler.setMemberIndex(index);
+        assertEquals(50, discountHandler.getDiscountAmount(sale, "5000000001").getAmount(), "25% of 200 should be 50");
+        assertEquals(0, discountHandler.getDiscountAmount(sale, "5000001000").getAmount(), "Non-member should get no discount");
+    }
+
+    @Test
+    public void testIndexRejectsLeadingZeros() {
+        CustomerDiscountIndex.Loader loader = new CustomerDiscountIndex.Loader();
+        loader.addPercentage("1234", 0.10);
+        loader.addPercentage("0", 0.05);
+        CustomerDiscountIndex index = loader.compile();
+        assertNotNull(index.find("1234"), "The member should be found by its exact ID");
+        assertNull(index.find("01234"), "An ID with a leading zero should not match another member");
+        assertNotNull(index.find("0"), "The ID 0 itself should be valid");
+        assertThrows(IllegalArgumentException.class, () -> loader.addPercentage("0042", 0.10),
+                "A member ID with a leading zero should be rejected");
+    }
+
+    @Test
+    public void testExpiredEntryIsReloaded() throws InterruptedException {
+        DiscountStrategyCache cache = new DiscountStrategyCache(10, 1);
+        cache.put("1", NoDiscount.INSTANCE);
+        Thread.sleep(5);
+        assertNull(cache.get("1"), "Expired entry should not be returned");
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        DiscountStrategyCache cache = new DiscountStrategyCache(2, 60_000);
+        cache.put("1", NoDiscount.INSTANCE);
+        cache.put("2", NoDiscount.INSTANCE);
+        cache.get("1");
+        cache.put("3", NoDiscount.INSTANCE);
+        assertNotNull(cache.get("1"), "Recently used entry should stay");
+        assertNull(cache.get("2"), "Least recently used entry should be evicted");
+        assertEquals(1, cache.getEvictionCount(), "One entry should be evicted");
+    }
+}
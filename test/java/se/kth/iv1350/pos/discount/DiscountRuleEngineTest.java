@@ -0,0 +1,61 @@
+package test.java.se.kth.iv1350.pos.discount;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import se.kth.iv1350.pos.discount.CustomerDiscountRule;
+import se.kth.iv1350.pos.discount.DiscountRuleEngine;
+import se.kth.iv1350.pos.discount.ItemDiscountRule;
+import se.kth.iv1350.pos.discount.TotalDiscountRule;
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.model.Sale;
+import se.kth.iv1350.pos.util.Money;
+
+public class DiscountRuleEngineTest {
+    private DiscountRuleEngine engine;
+    private Sale sale;
+
+    @BeforeEach
+    public void setUp() {
+        engine = new DiscountRuleEngine(1.0);
+        sale = new Sale();
+        sale.addItemToSale(new ItemDTO("Tea", 0.0, 30, "Green tea", "11135"), 2);
+        sale.addItemToSale(new ItemDTO("Chicken", 0.0, 140, "Free range chicken", "11132"), 1);
+    }
+
+    @Test
+    public void testItemRuleOnlyMatchesItsItem() {
+        engine.addRule(new ItemDiscountRule("11135", Money.ofMinor(500), 10, null));
+        engine.addRule(new ItemDiscountRule("99999", Money.ofMinor(10_000), 10, null));
+        assertEquals(1000, engine.evaluate(sale, null), "5 off each of two teas should be 10");
+    }
+
+    @Test
+    public void testRulesStackInPriorityOrder() {
+        engine.addRule(new ItemDiscountRule("11132", Money.ofMinor(4000), 20, null));
+        engine.addRule(new TotalDiscountRule(Money.ofMinor(10_000), 0.10, 10, null));
+        engine.addRule(new CustomerDiscountRule("1234567890", 0.50, 5, null));
+        // 200 - 40 = 160, minus 10% = 144, minus 50% = 72, so the discount is 128.
+        assertEquals(12_800, engine.evaluate(sale, "1234567890"), "Rules should stack on the remaining total");
+        assertEquals(5_600, engine.evaluate(sale, "someone else"), "Customer rule should only apply to its customer");
+    }
+
+    @Test
+    public void testCaps() {
+        engine.addRule(new ItemDiscountRule("11135", 0.50, 10, Money.ofMinor(1000)));
+        assertEquals(1000, engine.evaluate(sale, null), "Rule discount should be capped");
+
+        DiscountRuleEngine capped = new DiscountRuleEngine(0.25);
+        capped.addRule(new CustomerDiscountRule("1", 0.90, 1, null));
+        assertEquals(5_000, capped.evaluate(sale, "1"), "Total discount should be capped at 25%");
+    }
+
+    @Test
+    public void testTotalRuleNeedsMinimum() {
+        engine.addRule(new TotalDiscountRule(Money.ofMinor(50_000), 0.10, 10, null));
+        assertEquals(0, engine.evaluate(sale, null), "Total below the minimum should not be discounted");
+        assertEquals(0, engine.calculateDiscount(sale, null).getAmount(), "No discount as Amount");
+    }
+}
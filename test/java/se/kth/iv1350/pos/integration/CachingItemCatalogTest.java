@@ -0,0 +1,164 @@
+package test.java.se.kth.iv1350.pos.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import se.kth.iv1350.pos.integration.CachingItemCatalog;
+import se.kth.iv1350.pos.integration.DatabaseUnavailableException;
+import se.kth.iv1350.pos.integration.HashedItemCatalog;
+import se.kth.iv1350.pos.integration.InventorySystem;
+import se.kth.iv1350.pos.integration.ItemCatalog;
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.integration.ItemNotFoundException;
+import se.kth.iv1350.pos.integration.SimulatedLatencyCatalog;
+
+public class CachingItemCatalogTest {
+    private static final long TTL_MILLIS = 60_000;
+
+    private SimulatedLatencyCatalog backend;
+    private AtomicLong clock;
+    private CachingItemCatalog cache;
+
+    @BeforeEach
+    public void setUp() {
+        backend = new SimulatedLatencyCatalog(new HashedItemCatalog(List.of(
+                new ItemDTO("Apples", 0.06, 23, "Fresh apples", "11127"),
+                new ItemDTO("Bread", 0.06, 28, "Whole wheat bread", "11123"))), 0, 0);
+        clock = new AtomicLong();
+        cache = new CachingItemCatalog(backend, 100, TTL_MILLIS, clock::get);
+    }
+
+    @Test
+    public void testRepeatedLookupIsServedLocally() {
+        cache.fetch("11127");
+        ItemDTO item = cache.fetch("11127");
+
+        assertEquals("Apples", item.getName(), "The cached item should be returned");
+        assertEquals(1, backend.getFetchCount(), "The second lookup should not reach the backend");
+        assertEquals(1, cache.getHitCount(), "One lookup should be a hit");
+        assertEquals(0.5, cache.getHitRatio(), 0.0001, "Half of the lookups should be hits");
+    }
+
+    @Test
+    public void testBatchFetchesOnlyMissesInOneCall() {
+        cache.fetch("11127");
+        Map<String, ItemDTO> items = cache.fetchAll(List.of("11127", "11123", "99999"));
+
+        assertEquals(2, items.size(), "The unknown item should be left out");
+        assertEquals("Bread", items.get("11123").getName(), "The missing item should be fetched");
+        assertEquals(2, backend.getFetchCount(), "The misses of the batch should take one round-trip");
+        assertNull(cache.fetch("99999"), "The unknown item should be cached by the batch");
+        assertEquals(2, backend.getFetchCount(), "The cached unknown item should not reach the backend");
+    }
+
+    @Test
+    public void testUnknownItemIsCached() {
+        assertNull(cache.fetch("99999"), "An unknown item should not be found");
+        assertNull(cache.fetch("99999"), "An unknown item should still not be found");
+
+        assertEquals(1, backend.getFetchCount(), "The unknown item should be fetched once");
+    }
+
+    @Test
+    public void testEntryExpires() {
+        cache.fetch("11127");
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(TTL_MILLIS));
+        cache.fetch("11127");
+
+        assertEquals(2, backend.getFetchCount(), "An expired entry should be fetched again");
+    }
+
+    @Test
+    public void testInvalidationFetchesNewPrice() {
+        cache.fetch("11127");
+        backend.setCatalog(new HashedItemCatalog(List.of(new ItemDTO("Apples", 0.06, 19, "On sale", "11127"))));
+        assertEquals(23, cache.fetch("11127").getPrice(), 0.0001, "The cache should serve the old price until told");
+
+        cache.invalidate("11127");
+
+        assertEquals(19, cache.fetch("11127").getPrice(), 0.0001, "The new price should be fetched");
+    }
+
+    @Test
+    public void testUnavailableBackendIsNotCached() {
+        backend.setUnavailable(true);
+        assertThrows(DatabaseUnavailableException.class, () -> cache.fetch("11127"),
+                "A backend failure should reach the caller");
+
+        backend.setUnavailable(false);
+
+        assertEquals("Apples", cache.fetch("11127").getName(), "The failure should not be cached");
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        CachingItemCatalog small = new CachingItemCatalog(backend, 10, TTL_MILLIS, clock::get);
+        for (int i = 0; i < 1_000; i++) {
+            small.fetch("scan-" + i);
+        }
+
+        assertEquals(10, small.size(), "The cache should not grow beyond its size");
+    }
+
+    @Test
+    public void testPopularItemsSurviveOneOffScans() {
+        CachingItemCatalog small = new CachingItemCatalog(backend, 100, TTL_MILLIS, clock::get);
+        for (int round = 0; round < 5; round++) {
+            small.fetch("11127");
+            small.fetch("11123");
+        }
+        for (int i = 0; i < 300; i++) {
+            small.fetch("scan-" + i);
+        }
+        long fetchesBefore = backend.getFetchCount();
+        small.fetch("11127");
+        small.fetch("11123");
+
+        assertEquals(fetchesBefore, backend.getFetchCount(), "Popular items should still be cached");
+        assertTrue(small.getRejectionCount() > 0, "One-off scans should be rejected");
+    }
+
+    @Test
+    public void testInventoryUsesBackend() throws ItemNotFoundException {
+        InventorySystem inventory = InventorySystem.getInstance();
+        inventory.setBackend(cache);
+        try {
+            assertEquals("Bread", inventory.findItem("11123").getName(), "Lookups should go to the backend");
+            assertEquals(1, backend.getFetchCount(), "The backend should be called through the cache");
+        } finally {
+            inventory.setBackend(null);
+        }
+    }
+
+    @Test
+    public void testNewCatalogReachesCachedLookups() throws ItemNotFoundException {
+        InventorySystem inventory = InventorySystem.getInstance();
+        ItemCatalog previous = inventory.getCatalog();
+        inventory.setBackend(new CachingItemCatalog(inventory.getDatabase(), 100, TTL_MILLIS, clock::get));
+        try {
+            assertEquals("Apples", inventory.findItem("11127").getName(), "The item should be cached");
+            inventory.loadItems(List.of(new ItemDTO("Green apples", 0.06, 25, "Granny Smith", "11127")));
+
+            assertEquals("Green apples", inventory.findItem("11127").getName(),
+                    "A new catalog should not be hidden by the cache");
+        } finally {
+            inventory.setBackend(null);
+            inventory.loadCatalog(previous);
+        }
+    }
+
+    @Test
+    public void testNullIdentifierIsNotFound() {
+        assertNull(cache.fetch(null), "A null identifier should not be found");
+        assertTrue(cache.fetchAll(Arrays.asList("11127", null)).containsKey("11127"),
+                "A null identifier should not fail a batch");
+    }
+}
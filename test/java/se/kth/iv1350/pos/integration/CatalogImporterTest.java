@@ -0,0 +1,131 @@
+package test.java.se.kth.iv1350.pos.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import se.kth.iv1350.pos.integration.CatalogImporter;
+import se.kth.iv1350.pos.integration.ImportReport;
+import se.kth.iv1350.pos.integration.InventorySystem;
+import se.kth.iv1350.pos.integration.ItemCatalog;
+import se.kth.iv1350.pos.integration.ItemDTO;
+
+public class CatalogImporterTest {
+    @TempDir
+    Path tempDir;
+
+    private InventorySystem inventory;
+    private ItemCatalog originalCatalog;
+
+    @BeforeEach
+    public void setUp() {
+        inventory = InventorySystem.getInstance();
+        originalCatalog = inventory.getCatalog();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        inventory.loadCatalog(originalCatalog);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(tempDir.resolve(name), content);
+    }
+
+    @Test
+    public void testCsvIsImportedAndPublished() throws IOException {
+        Path file = write("prices.csv", "identifier,name,price,vat,description\r\n"
+                + "11127,Apples,23,0.06,Fresh apples\r\n"
+                + "COF-1,\"Coffee, dark\",45.50,0.12,\"The \"\"best\"\" roast\"\r\n");
+
+        ImportReport report = new CatalogImporter().importCatalog(file, inventory);
+
+        assertTrue(report.isPublished(), "A valid file should be published");
+        assertEquals(2, report.getRowCount(), "Two rows should be read");
+        assertEquals(2, report.getImportedCount(), "Two items should be imported");
+        ItemDTO coffee = inventory.getCatalog().find("COF-1");
+        assertEquals("Coffee, dark", coffee.getName(), "A quoted delimiter should be part of the name");
+        assertEquals("The \"best\" roast", coffee.getDescription(), "Doubled quotes should be unescaped");
+        assertEquals(45.5, coffee.getPrice(), 0.0001, "The price should be parsed");
+        assertEquals(0.12, coffee.getVATRate(), 0.0001, "The VAT rate should be parsed");
+        assertNull(inventory.getCatalog().find("1"), "The old catalog should be replaced");
+    }
+
+    @Test
+    public void testTsvWithColumnsInAnyOrder() throws IOException {
+        Path file = write("prices.tsv", "vat\tprice\tname\tidentifier\n0.25\t9.90\tSoda\t500\n");
+
+        ImportReport report = new CatalogImporter().importCatalog(file, inventory);
+
+        assertTrue(report.isPublished(), "A valid file should be published");
+        ItemDTO soda = inventory.getCatalog().find("500");
+        assertEquals("Soda", soda.getName(), "Columns should be found by name");
+        assertEquals("", soda.getDescription(), "A missing description column should give an empty description");
+    }
+
+    @Test
+    public void testInvalidRowsPreventPublishing() throws IOException {
+        Path file = write("prices.csv", "identifier,name,price,vat\n"
+                + "1,Good,10,0.06\n"
+                + "2,Bad VAT,10,0.07\n"
+                + "\n"
+                + "3,Bad price,-5,0.06\n"
+                + ",No identifier,10,0.06\n"
+                + "5,Too many decimals,1.005,0.06\n");
+
+        ImportReport report = new CatalogImporter().importCatalog(file, inventory);
+
+        assertFalse(report.isPublished(), "A file with invalid rows should not be published by default");
+        assertSame(originalCatalog, inventory.getCatalog(), "The old catalog should stay in use");
+        assertEquals(5, report.getRowCount(), "Empty lines should not count as rows");
+        assertEquals(4, report.getInvalidCount(), "Four rows should be rejected");
+        assertEquals("Line 3: invalid VAT rate '0.07'", report.getErrors().get(0), "The error should name its line");
+        assertEquals("Line 5: invalid price '-5'", report.getErrors().get(1), "Line numbers should count empty lines");
+        assertEquals("Line 6: missing identifier", report.getErrors().get(2), "A missing identifier should be reported");
+    }
+
+    @Test
+    public void testInvalidRowsBelowLimitAreSkipped() throws IOException {
+        Path file = write("prices.csv", "identifier,name,price,vat\n1,Good,10,0.06\n2,Bad,10,0.07\n");
+
+        ImportReport report = new CatalogImporter(2, 1 << 16, 1).importCatalog(file, inventory);
+
+        assertTrue(report.isPublished(), "One invalid row should be allowed");
+        assertEquals(1, report.getImportedCount(), "Only the valid row should be imported");
+        assertNull(inventory.getCatalog().find("2"), "The invalid row should be left out");
+    }
+
+    @Test
+    public void testSmallChunksGiveSameResult() throws IOException {
+        StringBuilder content = new StringBuilder("identifier,name,price,vat\n");
+        for (int i = 0; i < 1_000; i++) {
+            content.append(i).append(",Item ").append(i).append(',').append(1 + i % 50).append(".25,0.12\n");
+        }
+        content.append("x,Bad,1,0.5");
+        Path file = write("prices.csv", content.toString());
+
+        ImportReport report = new CatalogImporter(3, 16, 1).importCatalog(file, inventory);
+
+        assertEquals(1_001, report.getRowCount(), "Every row should be read across chunk borders");
+        assertEquals(1_000, report.getImportedCount(), "Every valid row should be imported");
+        assertEquals("Line 1002: invalid VAT rate '0.5'", report.getErrors().get(0),
+                "Line numbers should be counted across chunks");
+        assertEquals("Item 999", inventory.getCatalog().find("999").getName(), "The last row should be complete");
+        assertTrue(report.getRowsPerSecond() > 0, "The import rate should be reported");
+    }
+
+    @Test
+    public void testMissingColumnIsRejected() throws IOException {
+        Path file = write("prices.csv", "identifier,name,price\n1,Item,10\n");
+
+        assertThrows(IOException.class, () -> new CatalogImporter().importCatalog(file, inventory),
+                "A header without a VAT column should be rejected");
+    }
+}
@@ -0,0 +1,82 @@
+package test.java.se.kth.iv1350.pos.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import se.kth.iv1350.pos.integration.ColumnarItemCatalog;
+import se.kth.iv1350.pos.integration.Item;
+import se.kth.iv1350.pos.integration.ItemDTO;
+
+public class ColumnarItemCatalogTest {
+    private ColumnarItemCatalog catalog;
+
+    @BeforeEach
+    public void setUp() {
+        catalog = new ColumnarItemCatalog(List.of(
+                new ItemDTO("Apples", 0.06, 23, "Fresh produce", "11127"),
+                new ItemDTO("Pears", 0.06, 25.5, "Fresh produce", "11128"),
+                new ItemDTO("Old coffee", 0.12, 40, "Replaced below", "COF-1"),
+                new ItemDTO("Coffee", 0.12, 45, "Dark roast", "COF-1"),
+                new ItemDTO("Sm\u00f6r", 0.12, 52, "Fresh produce", "\u00e5-1")));
+    }
+
+    @Test
+    public void testViewReadsAllFields() {
+        ItemDTO pears = catalog.find("11128");
+
+        assertEquals("Pears", pears.getName(), "The name should be read from the dictionary");
+        assertEquals("Fresh produce", pears.getDescription(), "The description should be read from the dictionary");
+        assertEquals(25.5, pears.getPrice(), 0.0001, "The price should be read from the price column");
+        assertEquals(0.06, pears.getVATRate(), 0.0001, "The VAT rate should be read from the VAT column");
+        assertEquals("11128", pears.getItemIdentifier(), "The identifier should be read");
+    }
+
+    @Test
+    public void testNonAsciiTexts() {
+        ItemDTO butter = catalog.find("\u00e5-1");
+
+        assertEquals("Sm\u00f6r", butter.getName(), "Texts should survive UTF-8 encoding");
+    }
+
+    @Test
+    public void testDuplicateIdentifierKeepsLastItem() {
+        assertEquals(4, catalog.size(), "Duplicates should be counted once");
+        assertEquals("Coffee", catalog.find("COF-1").getName(), "The last item with an identifier should win");
+    }
+
+    @Test
+    public void testMissingItemIsNull() {
+        assertNull(catalog.find("99999"), "An unknown identifier should not be found");
+        assertNull(catalog.find(null), "A null identifier should not be found");
+    }
+
+    @Test
+    public void testRepeatedTextsAreStoredOnce() {
+        assertEquals(8, catalog.getDistinctTextCount(), "A shared description should be stored once");
+        assertTrue(catalog.getFootprintBytes() > 0, "The footprint should be reported");
+    }
+
+    @Test
+    public void testViewWorksAsItem() {
+        Item item = new Item(catalog.find("11127"), 2);
+
+        assertEquals("Apples", item.getName(), "An item should read through the view");
+        assertEquals(23, item.getPrice(), 0.0001, "An item should read the price through the view");
+        assertTrue(catalog.find("11127").toString().contains("name='Apples'"), "The view should print its fields");
+    }
+
+    @Test
+    public void testBuilderWithoutItemObjects() {
+        ColumnarItemCatalog built = ColumnarItemCatalog.builder(1)
+                .add("1", "Tea", 30, 0.06, "Green tea")
+                .add("2", "Milk", 20, 0.06, "")
+                .build();
+
+        assertEquals(2, built.size(), "Both items should be added although more than expected");
+        assertEquals("Milk", built.find("2").getName(), "The added item should be found");
+    }
+}
@@ -0,0 +1,70 @@
+package test.java.se.kth.iv1350.pos.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import se.kth.iv1350.pos.integration.HashedItemCatalog;
+import se.kth.iv1350.pos.integration.InventorySystem;
+import se.kth.iv1350.pos.integration.ItemCatalog;
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.integration.ItemNotFoundException;
+
+public class HashedItemCatalogTest {
+    private HashedItemCatalog catalog;
+
+    @BeforeEach
+    public void setUp() {
+        catalog = new HashedItemCatalog(List.of(
+                new ItemDTO("Apples", 0.06, 23, "Fresh apples", "11127"),
+                new ItemDTO("Leading zero", 0.06, 5, "Zero-padded barcode", "011127"),
+                new ItemDTO("Coffee", 0.12, 45, "Dark roast", "COF-1")));
+    }
+
+    @Test
+    public void testFindNumericIdentifier() {
+        assertEquals("Apples", catalog.find("11127").getName(), "Numeric identifier should be found");
+    }
+
+    @Test
+    public void testLeadingZeroIsDifferentItem() {
+        assertEquals("Leading zero", catalog.find("011127").getName(), "Zero-padded identifier should not collide with the plain number");
+    }
+
+    @Test
+    public void testFindTextIdentifier() {
+        assertEquals("Coffee", catalog.find("COF-1").getName(), "Non-numeric identifier should be found");
+    }
+
+    @Test
+    public void testMissingItemReturnsNull() {
+        assertNull(catalog.find("99999"), "Unknown numeric identifier should not be found");
+        assertNull(catalog.find("unknown"), "Unknown text identifier should not be found");
+        assertEquals(3, catalog.size(), "Catalog should contain three items");
+    }
+
+    @Test
+    public void testDuplicateIdentifierLastWins() {
+        ItemCatalog duplicates = new HashedItemCatalog(List.of(
+                new ItemDTO("Old", 0.06, 10, "Old price", "42"),
+                new ItemDTO("New", 0.06, 12, "New price", "42")));
+        assertEquals("New", duplicates.find("42").getName(), "The last loaded item should replace earlier ones");
+        assertEquals(1, duplicates.size(), "Duplicates should only be counted once");
+    }
+
+    @Test
+    public void testHotSwapCatalog() throws ItemNotFoundException {
+        InventorySystem inventorySystem = InventorySystem.getInstance();
+        ItemCatalog original = inventorySystem.getCatalog();
+        try {
+            inventorySystem.loadCatalog(catalog);
+            assertEquals("Coffee", inventorySystem.findItem("COF-1").getName(), "Lookups should use the new catalog");
+        } finally {
+            inventorySystem.loadCatalog(original);
+        }
+        assertThrows(ItemNotFoundException.class, () -> inventorySystem.findItem("COF-1"));
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import se.kth.iv1350.pos.integration.InventorySystem;
 import se.kth.iv1350.pos.integration.ItemDTO;
 import se.kth.iv1350.pos.integration.ItemNotFoundException;
+import se.kth.iv1350.pos.integration.LookupResult;
 import se.kth.iv1350.pos.integration.DatabaseUnavailableException;
 
 public class InventorySystemTest {
@@ -45,4 +46,40 @@ public class InventorySystemTest {
 
         inventorySystem.setDatabaseUnavailable(false); // Reset the database status
     }
+
+    @Test
+    public void testLookupExistingItem() {
+        LookupResult result = inventorySystem.lookupItem("11127");
+        assertTrue(result.isFound(), "The item should be found");
+        assertEquals("11127", result.getItem().getItemIdentifier(), "The found item should match the identifier");
+    }
+
+    @Test
+    public void testLookupNonExistingItem() {
+        LookupResult result = inventorySystem.lookupItem("99999");
+        assertEquals(LookupResult.Status.NOT_FOUND, result.getStatus(), "A miss should be a result, not an exception");
+        assertNull(result.getItem(), "A miss should have no item");
+    }
+
+    @Test
+    public void testLookupWhenDatabaseUnavailable() {
+        inventorySystem.setDatabaseUnavailable(true);
+        try {
+            LookupResult result = inventorySystem.lookupItem("11127");
+            assertEquals(LookupResult.Status.UNAVAILABLE, result.getStatus(), "The outage should be reported");
+            assertNotNull(result.getCause(), "The reason for the outage should be kept");
+            assertSame(result.getCause(), inventorySystem.lookupItem("11123").getCause(),
+                    "Every failed lookup should share one exception");
+            assertEquals(0, result.getCause().getStackTrace().length, "The shared exception should be stackless");
+        } finally {
+            inventorySystem.setDatabaseUnavailable(false);
+        }
+    }
+
+    @Test
+    public void testItemNotFoundExceptionIsStackless() {
+        ItemNotFoundException exception = assertThrows(ItemNotFoundException.class,
+                () -> inventorySystem.findItem("99999"));
+        assertEquals(0, exception.getStackTrace().length, "A missing item should not capture a stack trace");
+    }
 }
@@ -0,0 +1,124 @@
+package test.java.se.kth.iv1350.pos.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import se.kth.iv1350.pos.integration.InventoryWriteBehindBuffer;
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.integration.LocalStockStore;
+import se.kth.iv1350.pos.model.Sale;
+
+public class InventoryWriteBehindBufferTest {
+    private static final long NEVER = 3_600_000;
+
+    @TempDir
+    Path journalDirectory;
+
+    private LocalStockStore store;
+
+    @BeforeEach
+    public void setUp() {
+        store = new LocalStockStore();
+        store.setStock("11127", 100);
+        store.setStock("11123", 50);
+    }
+
+    @Test
+    public void testSalesAreCoalescedIntoOneBatch() throws IOException {
+        InventoryWriteBehindBuffer buffer = new InventoryWriteBehindBuffer(store, journalDirectory, 1_000, NEVER, false);
+        for (int i = 0; i < 10; i++) {
+            buffer.record(createSale(2, 1));
+        }
+        assertEquals(2, buffer.getPendingItemCount(), "Decrements should be coalesced per item");
+        buffer.flush();
+
+        assertEquals(1, store.getBatchCount(), "Ten sales should be written in one batch");
+        assertEquals(80, store.getStock("11127"), "Stock of apples should decrease by 20");
+        assertEquals(40, store.getStock("11123"), "Stock of bread should decrease by 10");
+        buffer.close();
+    }
+
+    @Test
+    public void testPendingDecrementsSurviveRestart() throws IOException {
+        InventoryWriteBehindBuffer crashed = new InventoryWriteBehindBuffer(store, journalDirectory, 1_000, NEVER, true);
+        crashed.record(createSale(3, 0));
+        crashed.abandon();
+        assertEquals(100, store.getStock("11127"), "An abandoned buffer should not write its decrements");
+
+        InventoryWriteBehindBuffer restarted = new InventoryWriteBehindBuffer(store, journalDirectory, 1_000, NEVER, false);
+        assertEquals(1, restarted.getPendingItemCount(), "The journaled sale should be replayed");
+        restarted.flush();
+        assertEquals(97, store.getStock("11127"), "Replayed decrement should reach the store");
+
+        InventoryWriteBehindBuffer afterFlush = new InventoryWriteBehindBuffer(store, journalDirectory, 1_000, NEVER, false);
+        assertEquals(0, afterFlush.getPendingItemCount(), "Written decrements should not be replayed again");
+        afterFlush.close();
+        restarted.close();
+    }
+
+    @Test
+    public void testFailedFlushKeepsDecrements() throws IOException {
+        InventoryWriteBehindBuffer buffer = new InventoryWriteBehindBuffer(store, journalDirectory, 1_000, NEVER, false);
+        buffer.record(createSale(1, 1));
+        store.setUnavailable(true);
+        buffer.flush();
+        assertEquals(1, buffer.getFailedFlushCount(), "The flush should fail while the store is down");
+        assertEquals(2, buffer.getPendingItemCount(), "Decrements should stay pending");
+
+        store.setUnavailable(false);
+        buffer.record(createSale(1, 0));
+        buffer.flush();
+        assertEquals(98, store.getStock("11127"), "Both sales should be written after recovery");
+        assertEquals(49, store.getStock("11123"), "The first sale should be written after recovery");
+        buffer.close();
+    }
+
+    @Test
+    public void testFailedRotationKeepsDecrements() throws IOException {
+        InventoryWriteBehindBuffer buffer = new InventoryWriteBehindBuffer(store, journalDirectory, 1_000, NEVER, false);
+        buffer.record(createSale(1, 0));
+        Path blocked = Files.createDirectory(journalDirectory.resolve("inventory-journal-1.log"));
+        buffer.flush();
+        assertEquals(1, buffer.getFailedFlushCount(), "The flush should fail when no new journal can be started");
+        assertEquals(1, buffer.getPendingItemCount(), "Decrements should stay pending");
+        assertEquals(100, store.getStock("11127"), "Nothing should be written without a new journal");
+
+        Files.delete(blocked);
+        buffer.flush();
+        assertEquals(99, store.getStock("11127"), "The sale should be written once the journal can be rotated");
+        buffer.close();
+    }
+
+    @Test
+    public void testFailedJournalDeleteDoesNotRepeatBatch() throws IOException {
+        InventoryWriteBehindBuffer buffer = new InventoryWriteBehindBuffer(store, journalDirectory, 1_000, NEVER, false);
+        buffer.record(createSale(2, 0));
+        Path undeletable = Files.createDirectory(journalDirectory.resolve("inventory-journal--1.log"));
+        Files.createFile(undeletable.resolve("entry"));
+        buffer.flush();
+        buffer.flush();
+
+        assertEquals(0, buffer.getFailedFlushCount(), "A journal that cannot be deleted should not fail the flush");
+        assertEquals(0, buffer.getPendingItemCount(), "The written batch should not be pending again");
+        assertEquals(98, store.getStock("11127"), "The batch should be written exactly once");
+        buffer.close();
+    }
+
+    private Sale createSale(int apples, int bread) {
+        Sale sale = new Sale();
+        if (apples > 0) {
+            sale.addItemToSale(new ItemDTO("Apples", 0.06, 23, "Fresh apples", "11127"), apples);
+        }
+        if (bread > 0) {
+            sale.addItemToSale(new ItemDTO("Bread", 0.06, 28, "Whole wheat bread", "11123"), bread);
+        }
+        return sale;
+    }
+}
@@ -0,0 +1,141 @@
+package test.java.se.kth.iv1350.pos.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import se.kth.iv1350.pos.integration.CachingItemCatalog;
+import se.kth.iv1350.pos.integration.InventorySystem;
+import se.kth.iv1350.pos.integration.ItemCatalog;
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.integration.ItemNotFoundException;
+import se.kth.iv1350.pos.integration.MappedItemStore;
+
+public class MappedItemStoreTest {
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private MappedItemStore store;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        file = tempDir.resolve("items.store");
+        store = MappedItemStore.create(file, List.of(
+                new ItemDTO("Apples", 0.06, 23, "Fresh apples", "11127"),
+                new ItemDTO("R\u00e4ksm\u00f6rg\u00e5s", 0.12, 89.5, "Shrimp sandwich", "SAND-1"),
+                new ItemDTO("Old bread", 0.06, 30, "Replaced below", "11123"),
+                new ItemDTO("Bread", 0.06, 28, "Whole wheat bread", "11123")));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    public void testFindReadsAllFields() {
+        ItemDTO item = store.find("SAND-1");
+
+        assertEquals("R\u00e4ksm\u00f6rg\u00e5s", item.getName(), "The name should survive UTF-8 encoding");
+        assertEquals("Shrimp sandwich", item.getDescription(), "The description should be read");
+        assertEquals(89.5, item.getPrice(), 0.0001, "The price should be read");
+        assertEquals(0.12, item.getVATRate(), 0.0001, "The VAT rate should be read");
+        assertEquals("SAND-1", item.getItemIdentifier(), "The identifier should be read");
+    }
+
+    @Test
+    public void testDuplicateIdentifierKeepsLastItem() {
+        assertEquals(3, store.size(), "Duplicates should be stored once");
+        assertEquals("Bread", store.find("11123").getName(), "The last item with an identifier should win");
+    }
+
+    @Test
+    public void testMissingItemIsNull() {
+        assertNull(store.find("99999"), "An unknown identifier should not be found");
+        assertNull(store.find("1112"), "A prefix of an identifier should not be found");
+        assertNull(store.find(null), "A null identifier should not be found");
+    }
+
+    @Test
+    public void testPriceUpdateIsPersisted() throws IOException {
+        assertTrue(store.updatePrice("11127", 25.5), "A known item should be updated");
+        assertFalse(store.updatePrice("99999", 1), "An unknown item should not be updated");
+        assertEquals(25.5, store.find("11127").getPrice(), 0.0001, "The new price should be seen at once");
+        store.force();
+        store.close();
+
+        store = MappedItemStore.open(file);
+        assertEquals(25.5, store.find("11127").getPrice(), 0.0001, "The new price should be in the file");
+        assertEquals("Fresh apples", store.find("11127").getDescription(), "The rest of the record should be kept");
+    }
+
+    @Test
+    public void testTooLongTextIsRejected() {
+        String longName = "x".repeat(48);
+
+        assertThrows(IllegalArgumentException.class, () -> MappedItemStore.create(tempDir.resolve("long.store"),
+                List.of(new ItemDTO(longName, 0.06, 1, "", "1"))), "A name longer than its field should be rejected");
+    }
+
+    @Test
+    public void testPriceUpdateReachesCachedLookups() throws Exception {
+        InventorySystem inventory = InventorySystem.getInstance();
+        ItemCatalog previous = inventory.getCatalog();
+        inventory.setBackend(new CachingItemCatalog(inventory.getDatabase(), 100, 60_000));
+        try (MappedItemStore loaded = inventory.loadStore(file)) {
+            assertEquals(23, inventory.findItem("11127").getPrice(), 0.0001, "The item should be cached");
+            loaded.updatePrice("11127", 25.5);
+
+            assertEquals(25.5, inventory.findItem("11127").getPrice(), 0.0001,
+                    "A changed price should not be hidden by the cache");
+        } finally {
+            inventory.setBackend(null);
+            inventory.loadCatalog(previous);
+        }
+    }
+
+    @Test
+    public void testFailedCreateKeepsOldStore() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> MappedItemStore.create(file, List.of(
+                new ItemDTO("Milk", 0.06, 12, "", "2"),
+                new ItemDTO("x".repeat(48), 0.06, 1, "", "3"))), "An invalid item should fail the whole store");
+
+        try (MappedItemStore reopened = MappedItemStore.open(file)) {
+            assertEquals(3, reopened.size(), "The old store should be kept");
+            assertEquals("Apples", reopened.find("11127").getName(), "The old items should still be found");
+        }
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.count(), "No temporary file should be left behind");
+        }
+    }
+
+    @Test
+    public void testOtherFileIsNotOpened() throws IOException {
+        Path other = Files.writeString(tempDir.resolve("other.txt"), "This is not an item store.");
+
+        assertThrows(IOException.class, () -> MappedItemStore.open(other), "A foreign file should be rejected");
+    }
+
+    @Test
+    public void testInventoryLoadsStore() throws Exception {
+        InventorySystem inventory = InventorySystem.getInstance();
+        ItemCatalog previous = inventory.getCatalog();
+        try (MappedItemStore loaded = inventory.loadStore(file)) {
+            assertSame(loaded, inventory.getCatalog(), "The store should be published");
+            assertEquals("Apples", inventory.findItem("11127").getName(), "Lookups should use the store");
+            assertThrows(ItemNotFoundException.class, () -> inventory.findItem("1"),
+                    "Items outside the store should not be found");
+        } finally {
+            inventory.loadCatalog(previous);
+        }
+    }
+}
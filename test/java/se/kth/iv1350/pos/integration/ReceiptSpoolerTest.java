@@ -0,0 +1,169 @@
+package test.java.se.kth.iv1350.pos.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.integration.ReceiptPrinter;
+import se.kth.iv1350.pos.integration.ReceiptSpooler;
+import se.kth.iv1350.pos.model.ByteReceiptSink;
+import se.kth.iv1350.pos.model.CashPayment;
+import se.kth.iv1350.pos.model.Receipt;
+import se.kth.iv1350.pos.model.ReceiptTemplate;
+import se.kth.iv1350.pos.model.Sale;
+import se.kth.iv1350.pos.util.Amount;
+
+public class ReceiptSpoolerTest {
+    @TempDir
+    Path directory;
+
+    private static Receipt createReceipt(String name, int lines) {
+        Sale sale = new Sale();
+        for (int i = 0; i < lines; i++) {
+            sale.addItemToSale(new ItemDTO(name, 0.06, 20, "", name + i), 1);
+        }
+        return new Receipt(sale, new CashPayment(new Amount(100_000), sale.getTotalPriceIncludingVAT()));
+    }
+
+    private ReceiptSpooler createSpooler(Path file, ByteReceiptSink.Encoding encoding) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        return new ReceiptSpooler(channel, ReceiptTemplate.DEFAULT, encoding, 64, 4, 8, null);
+    }
+
+    @Test
+    public void testLargeReceiptSpansBuffers() throws IOException {
+        Path file = directory.resolve("receipts.txt");
+        ReceiptSpooler spooler = createSpooler(file, ByteReceiptSink.Encoding.UTF_8);
+        Receipt receipt = createReceipt("Milk", 50);
+        new ReceiptPrinter(spooler).printReceipt(receipt);
+        assertTrue(spooler.awaitPrinted(5_000), "Receipt should be printed");
+        spooler.close();
+        String printed = Files.readString(file, StandardCharsets.UTF_8);
+        assertEquals(receipt.toString().replaceFirst("Time: [^\n]*", ""), printed.replaceFirst("Time: [^\n]*", ""),
+                "Streamed receipt should match the text receipt");
+        assertEquals(printed.length(), spooler.getBytesWritten(), "All bytes should be counted");
+        assertTrue(spooler.getPooledBufferCount() <= 4, "The pool should not grow past its limit");
+    }
+
+    @Test
+    public void testLanesDoNotInterleave() throws Exception {
+        Path file = directory.resolve("lanes.txt");
+        ReceiptSpooler spooler = createSpooler(file, ByteReceiptSink.Encoding.UTF_8);
+        List<Thread> lanes = new ArrayList<>();
+        for (int lane = 0; lane < 4; lane++) {
+            Receipt receipt = createReceipt("Lane" + lane, 20);
+            ReceiptPrinter printer = new ReceiptPrinter(spooler);
+            lanes.add(new Thread(() -> {
+                for (int i = 0; i < 25; i++) {
+                    printer.printReceipt(receipt);
+                }
+            }));
+        }
+        lanes.forEach(Thread::start);
+        for (Thread lane : lanes) {
+            lane.join();
+        }
+        assertTrue(spooler.awaitPrinted(5_000), "All receipts should be printed");
+        spooler.close();
+        assertEquals(100, spooler.getPrintedCount(), "Every receipt should be printed");
+        String[] receipts = Files.readString(file).split("---------- Receipt ----------\n");
+        assertEquals(101, receipts.length, "Every receipt should start with a header");
+        for (int i = 1; i < receipts.length; i++) {
+            String lane = receipts[i].substring(receipts[i].indexOf('\n') + 1, receipts[i].indexOf(' ', receipts[i].indexOf('\n')));
+            assertEquals(20, receipts[i].split(lane + " x1").length - 1, "Lines of one receipt should stay together");
+        }
+    }
+
+    @Test
+    public void testEscPosOutput() throws IOException {
+        Path file = directory.resolve("receipts.bin");
+        ReceiptSpooler spooler = createSpooler(file, ByteReceiptSink.Encoding.ESC_POS);
+        spooler.spool(createReceipt("Ost\u00e5", 1));
+        assertTrue(spooler.awaitPrinted(5_000), "Receipt should be printed");
+        spooler.close();
+        byte[] bytes = Files.readAllBytes(file);
+        assertEquals(0x1B, bytes[0], "Receipt should start by resetting the printer");
+        assertEquals('V', bytes[bytes.length - 2], "Receipt should end by cutting the paper");
+        assertTrue(new String(bytes, StandardCharsets.US_ASCII).contains("Ost? x1"), "Non-ASCII should be replaced");
+    }
+
+    @Test
+    public void testClosedSpoolerRejectsReceipts() throws IOException {
+        ReceiptSpooler spooler = createSpooler(directory.resolve("closed.txt"), ByteReceiptSink.Encoding.UTF_8);
+        spooler.close();
+        assertThrows(IllegalStateException.class, () -> spooler.spool(createReceipt("Milk", 1)),
+                "A closed spooler should not accept receipts");
+    }
+
+    @Test
+    public void testCloseWhileLanesSpoolLosesNoReceipt() throws Exception {
+        ReceiptSpooler spooler = createSpooler(directory.resolve("closing.txt"), ByteReceiptSink.Encoding.UTF_8);
+        AtomicInteger accepted = new AtomicInteger();
+        List<Thread> lanes = new ArrayList<>();
+        for (int lane = 0; lane < 4; lane++) {
+            Receipt receipt = createReceipt("Lane" + lane, 5);
+            lanes.add(new Thread(() -> {
+                try {
+                    while (true) {
+                        spooler.spool(receipt);
+                        accepted.incrementAndGet();
+                    }
+                } catch (IllegalStateException e) {
+                    // The spooler was closed.
+                }
+            }));
+        }
+        lanes.forEach(Thread::start);
+        Thread.sleep(50);
+        spooler.close();
+        for (Thread lane : lanes) {
+            lane.join(5_000);
+            assertFalse(lane.isAlive(), "A lane should not wait for a closed spooler");
+        }
+        assertEquals(accepted.get(), spooler.getPrintedCount() + spooler.getFailedCount(),
+                "Every accepted receipt should be written before the spooler closes");
+    }
+
+    @Test
+    public void testFailingChannelDoesNotStopTheWriter() throws Exception {
+        WritableByteChannel broken = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer source) {
+                throw new IllegalStateException("Printer jammed.");
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        ReceiptSpooler spooler = new ReceiptSpooler(broken, ReceiptTemplate.DEFAULT, ByteReceiptSink.Encoding.UTF_8,
+                64, 4, 2, null);
+        Receipt receipt = createReceipt("Milk", 1);
+        for (int i = 0; i < 20; i++) {
+            spooler.spool(receipt);
+        }
+        assertTrue(spooler.awaitPrinted(5_000), "Failed receipts should be accounted for");
+        spooler.close();
+        assertEquals(20, spooler.getFailedCount(), "Every receipt should be counted as failed");
+        assertEquals(0, spooler.getPrintedCount(), "No receipt should be counted as printed");
+    }
+}
@@ -0,0 +1,162 @@
+package test.java.se.kth.iv1350.pos.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import se.kth.iv1350.pos.integration.CatalogBackend;
+import se.kth.iv1350.pos.integration.DatabaseUnavailableException;
+import se.kth.iv1350.pos.integration.HashedItemCatalog;
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.integration.PartiallyUnavailableException;
+import se.kth.iv1350.pos.integration.ResilientItemCatalog;
+import se.kth.iv1350.pos.integration.SimulatedLatencyCatalog;
+import se.kth.iv1350.pos.util.CircuitBreaker;
+
+public class ResilientItemCatalogTest {
+    private static final ItemDTO APPLES = new ItemDTO("Apples", 0.06, 23, "Fresh apples", "11127");
+    private static final ItemDTO BREAD = new ItemDTO("Bread", 0.06, 28, "Whole wheat bread", "11123");
+
+    private SimulatedLatencyCatalog backend;
+    private ResilientItemCatalog catalog;
+
+    @BeforeEach
+    public void setUp() {
+        backend = new SimulatedLatencyCatalog(new HashedItemCatalog(List.of(APPLES, BREAD)), 0, 0);
+        catalog = new ResilientItemCatalog(backend, new CircuitBreaker(2, 60_000),
+                new HashedItemCatalog(List.of(BREAD)), 0, 1_000, 100);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        catalog.close();
+    }
+
+    @Test
+    public void testHealthyBackendIsUsed() {
+        assertEquals("Apples", catalog.fetch("11127").getName(), "The item should be fetched");
+        assertNull(catalog.fetch("99999"), "An unknown item should not be found");
+        assertEquals(2, backend.getFetchCount(), "Both lookups should reach the backend");
+    }
+
+    @Test
+    public void testOutageServesLastKnownItem() {
+        catalog.fetch("11127");
+        backend.setUnavailable(true);
+
+        assertEquals("Apples", catalog.fetch("11127").getName(), "The last fetched item should be served");
+        assertEquals(1, catalog.getStaleServedCount(), "The stale answer should be counted");
+    }
+
+    @Test
+    public void testOutageServesSnapshot() {
+        backend.setUnavailable(true);
+
+        assertEquals("Bread", catalog.fetch("11123").getName(), "The snapshot should be served");
+        assertThrows(DatabaseUnavailableException.class, () -> catalog.fetch("11127"),
+                "An item known from nowhere should fail");
+    }
+
+    @Test
+    public void testBatchOutageServesStaleOrFails() {
+        catalog.fetchAll(List.of("11127"));
+        backend.setUnavailable(true);
+
+        assertEquals(2, catalog.fetchAll(List.of("11127", "11123")).size(),
+                "A batch of locally known items should be served stale");
+        PartiallyUnavailableException partial = assertThrows(PartiallyUnavailableException.class,
+                () -> catalog.fetchAll(List.of("11123", "99999")), "A batch with an item known from nowhere should fail");
+        assertEquals("Bread", partial.getFoundItems().get("11123").getName(), "The known item should still be served");
+        assertEquals(Set.of("99999"), partial.getUnavailableItemIds(), "Only the unknown item should be unavailable");
+    }
+
+    @Test
+    public void testOpenBreakerSkipsBackend() {
+        backend.setUnavailable(true);
+        catalog.fetch("11123");
+        catalog.fetch("11123");
+        long fetchesWhenOpened = backend.getFetchCount();
+
+        assertEquals("Bread", catalog.fetch("11123").getName(), "The snapshot should still be served");
+        assertEquals(CircuitBreaker.State.OPEN, catalog.getBreaker().getState(), "Two failures should open the breaker");
+        assertEquals(fetchesWhenOpened, backend.getFetchCount(), "An open breaker should not call the backend");
+    }
+
+    @Test
+    public void testSlowBackendTimesOut() {
+        CountDownLatch release = new CountDownLatch(1);
+        CatalogBackend hanging = itemId -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return APPLES;
+        };
+        try (ResilientItemCatalog bounded = new ResilientItemCatalog(hanging, new CircuitBreaker(5, 60_000),
+                new HashedItemCatalog(List.of(BREAD)), 0, 50, 100)) {
+            long started = System.nanoTime();
+            assertEquals("Bread", bounded.fetch("11123").getName(), "The snapshot should be served after the timeout");
+            assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(1), "The lookup should be bounded");
+            assertEquals(1, bounded.getTimeoutCount(), "The timeout should be counted");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testHedgeAnswersSlowFirstFetch() {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CatalogBackend firstCallHangs = itemId -> {
+            if (calls.incrementAndGet() == 1) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return APPLES;
+        };
+        try (ResilientItemCatalog hedged = new ResilientItemCatalog(firstCallHangs, new CircuitBreaker(5, 60_000),
+                null, 20, 5_000, 100)) {
+            assertEquals("Apples", hedged.fetch("11127").getName(), "The hedged fetch should answer");
+            assertEquals(1, hedged.getHedgeCount(), "One hedge should be sent");
+            assertEquals(1, hedged.getHedgeWinCount(), "The hedge should win");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testFetchThreadsAreBounded() {
+        CountDownLatch release = new CountDownLatch(1);
+        CatalogBackend hanging = itemId -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return APPLES;
+        };
+        try (ResilientItemCatalog bounded = new ResilientItemCatalog(hanging, new CircuitBreaker(1_000, 60_000),
+                new HashedItemCatalog(List.of(BREAD)), 0, 10, 100)) {
+            for (int i = 0; i < ResilientItemCatalog.MAX_FETCH_THREADS; i++) {
+                bounded.fetch("11123");
+            }
+            assertEquals("Bread", bounded.fetch("11123").getName(), "The snapshot should be served when all threads are busy");
+            assertEquals(ResilientItemCatalog.MAX_FETCH_THREADS, bounded.getTimeoutCount(),
+                    "A fetch beyond the limit should fail at once instead of waiting for the timeout");
+        } finally {
+            release.countDown();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package test.java.se.kth.iv1350.pos.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.integration.SalesLedger;
+import se.kth.iv1350.pos.model.Sale;
+import se.kth.iv1350.pos.util.Money;
+
+public class SalesLedgerTest {
+    @TempDir
+    Path ledgerDirectory;
+
+    @Test
+    public void testTotalsAreRebuiltOnReplay() throws Exception {
+        SalesLedger ledger = new SalesLedger(ledgerDirectory, 64 * 1024);
+        for (int i = 0; i < 3; i++) {
+            ledger.awaitCommit(ledger.append(createPaidSale()));
+        }
+        ledger.close();
+
+        SalesLedger reopened = new SalesLedger(ledgerDirectory, 64 * 1024);
+        assertEquals(3, reopened.getSaleCount(), "All sales should be replayed");
+        assertEquals(Money.ofMinor(3 * 4240), reopened.getTotalRevenue(), "Revenue should be rebuilt from the ledger");
+        assertEquals(Money.ofMinor(3 * 240), reopened.getTotalVAT(), "VAT should be rebuilt from the ledger");
+        reopened.close();
+    }
+
+    @Test
+    public void testSegmentsAreRolled() throws Exception {
+        SalesLedger ledger = new SalesLedger(ledgerDirectory, 256);
+        for (int i = 0; i < 10; i++) {
+            ledger.append(createPaidSale());
+        }
+        ledger.close();
+        assertTrue(Files.exists(ledgerDirectory.resolve("ledger-1.seg")), "A full segment should roll over to a new one");
+
+        SalesLedger reopened = new SalesLedger(ledgerDirectory, 256);
+        assertEquals(10, reopened.getSaleCount(), "Sales in all segments should be replayed");
+        reopened.append(createPaidSale());
+        reopened.close();
+        SalesLedger continued = new SalesLedger(ledgerDirectory, 256);
+        assertEquals(11, continued.getSaleCount(), "Appending after replay should continue the ledger");
+        continued.close();
+    }
+
+    @Test
+    public void testConcurrentAppendsShareCommits() throws Exception {
+        CountDownLatch forcing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SalesLedger ledger = new SalesLedger(ledgerDirectory, 1024 * 1024) {
+            @Override
+            protected void force(MappedByteBuffer segment, int from, int length) {
+                forcing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.force(segment, from, length);
+            }
+        };
+        long first = ledger.append(createPaidSale());
+        forcing.await();
+        Thread[] lanes = new Thread[8];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Thread(() -> {
+                for (int sale = 0; sale < 50; sale++) {
+                    try {
+                        ledger.awaitCommit(ledger.append(createPaidSale()));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            lanes[i].start();
+        }
+        while (ledger.getSaleCount() < 1 + lanes.length) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        ledger.awaitCommit(first);
+        for (Thread lane : lanes) {
+            lane.join();
+        }
+        assertEquals(401, ledger.getSaleCount(), "Every sale should be appended");
+        assertTrue(ledger.getCommitCount() < ledger.getSaleCount(),
+                "Sales appended during a force should share the next commit");
+        ledger.close();
+    }
+
+    @Test
+    public void testFailedForceIsReportedToWaiters() throws Exception {
+        SalesLedger ledger = new SalesLedger(ledgerDirectory, 64 * 1024) {
+            @Override
+            protected void force(MappedByteBuffer segment, int from, int length) {
+                throw new UncheckedIOException(new IOException("Disk failure."));
+            }
+        };
+        long sequence = ledger.append(createPaidSale());
+        IOException failure = assertThrows(IOException.class, () -> ledger.awaitCommit(sequence),
+                "A sale that could not be forced should not be reported as committed");
+        assertTrue(failure.getCause() instanceof UncheckedIOException, "The force failure should be the cause");
+        assertThrows(IOException.class, () -> ledger.append(createPaidSale()),
+                "Appends should be refused once the ledger cannot be forced");
+        ledger.close();
+    }
+
+    private Sale createPaidSale() {
+        Sale sale = new Sale();
+        sale.addItemToSale(new ItemDTO("Bread", 0.06, 20, "Fresh bread", "1001"), 2);
+        return sale;
+    }
+}
@@ -0,0 +1,75 @@
+package test.java.se.kth.iv1350.pos.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Locale;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.model.CashPayment;
+import se.kth.iv1350.pos.model.EscPosReceiptBuffer;
+import se.kth.iv1350.pos.model.Receipt;
+import se.kth.iv1350.pos.model.ReceiptTemplate;
+import se.kth.iv1350.pos.model.Sale;
+import se.kth.iv1350.pos.util.Amount;
+
+public class ReceiptTemplateTest {
+
+    private Sale sale;
+    private Receipt receipt;
+
+    @BeforeEach
+    public void setUp() {
+        sale = new Sale();
+        sale.addItemToSale(new ItemDTO("Milk", 0.06, 20, "Whole milk", "200"), 1);
+        sale.addItemToSale(new ItemDTO("Cheese", 0.12, 12.05, "Hard cheese", "201"), 3);
+        receipt = new Receipt(sale, new CashPayment(new Amount(100), sale.getTotalPriceIncludingVAT()));
+    }
+
+    @Test
+    public void testTextMatchesFormattedReceipt() {
+        String text = receipt.toString();
+        String[] lines = text.split("\n");
+        assertEquals("---------- Receipt ----------", lines[0], "Header is wrong");
+        assertTrue(lines[1].matches("Time: \\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}"), "Time is wrong: " + lines[1]);
+        assertEquals("Milk x1 - 20.00 sek each", lines[2], "Item line is wrong");
+        assertEquals("Cheese x3 - 12.05 sek each", lines[3], "Item line is wrong");
+        assertEquals("Total Price (incl. VAT): "
+                + String.format(Locale.ROOT, "%.2f", (double) sale.getTotalPriceIncludingVAT().getAmount()) + " sek",
+                lines[4], "Total is wrong");
+        assertEquals("Total VAT: " + String.format(Locale.ROOT, "%.2f", sale.getTotalVAT()) + " sek", lines[5], "VAT is wrong");
+        assertEquals("------------ End ------------", lines[lines.length - 1], "Footer is wrong");
+        assertTrue(text.endsWith("\n"), "Last line should end with a newline");
+    }
+
+    @Test
+    public void testCustomTemplate() {
+        ReceiptTemplate template = ReceiptTemplate.compile("{item.quantity}*{item.name}\nPaid {paid}");
+        StringBuilder out = new StringBuilder();
+        template.render(receipt, out);
+        assertEquals("1*Milk\n3*Cheese\nPaid 100.00\n", out.toString(), "Custom layout is wrong");
+    }
+
+    @Test
+    public void testUnknownPlaceholder() {
+        assertThrows(IllegalArgumentException.class, () -> ReceiptTemplate.compile("{price}"),
+                "Unknown placeholders should be rejected");
+    }
+
+    @Test
+    public void testEscPosOutput() {
+        EscPosReceiptBuffer buffer = new EscPosReceiptBuffer(64);
+        ReceiptTemplate.DEFAULT.render(receipt, buffer);
+        byte[] bytes = buffer.toByteArray();
+        assertEquals(0x1B, bytes[0], "Receipt should start by resetting the printer");
+        assertEquals('@', bytes[1], "Receipt should start by resetting the printer");
+        assertEquals('V', bytes[bytes.length - 2], "Receipt should end by cutting the paper");
+        String text = new String(bytes, 2, bytes.length - 8, java.nio.charset.StandardCharsets.US_ASCII);
+        assertEquals(receipt.toString().replaceFirst("Time: [^\n]*", ""), text.replaceFirst("Time: [^\n]*", ""),
+                "Printed text should match the text receipt");
+        buffer.reset();
+        assertEquals(0, buffer.size(), "Reset should empty the buffer");
+    }
+}
@@ -0,0 +1,82 @@
+package test.java.se.kth.iv1350.pos.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import se.kth.iv1350.pos.model.RevenueAggregator;
+import se.kth.iv1350.pos.model.RevenueSnapshot;
+import se.kth.iv1350.pos.util.Money;
+
+public class RevenueAggregatorTest {
+
+    @Test
+    public void testConcurrentLanesSumExactly() throws InterruptedException {
+        RevenueAggregator aggregator = new RevenueAggregator();
+        List<Thread> lanes = new ArrayList<>();
+        for (int lane = 0; lane < 8; lane++) {
+            RevenueAggregator.LaneCell cell = aggregator.laneCell("lane-" + lane);
+            lanes.add(new Thread(() -> {
+                for (int sale = 0; sale < 10_000; sale++) {
+                    cell.record(1);
+                }
+            }));
+        }
+        lanes.forEach(Thread::start);
+        for (Thread lane : lanes) {
+            lane.join();
+        }
+        RevenueSnapshot snapshot = aggregator.snapshot();
+        assertEquals(Money.ofMinor(80_000), snapshot.getTotalRevenue(), "No sale should be lost");
+        assertEquals(80_000, snapshot.getSaleCount(), "Every sale should be counted");
+        assertEquals(10_000L, snapshot.getMinorUnitsByLane().get("lane-3"), "Lane revenue is wrong");
+    }
+
+    @Test
+    public void testPublishOnlyWhenChanged() {
+        RevenueAggregator aggregator = new RevenueAggregator();
+        List<RevenueSnapshot> published = new ArrayList<>();
+        aggregator.addListener(published::add);
+        aggregator.record(10050);
+        assertTrue(aggregator.publish(), "New revenue should be published");
+        assertFalse(aggregator.publish(), "Unchanged revenue should not be published again");
+        aggregator.record(20075);
+        aggregator.publish();
+        assertEquals(2, published.size(), "Two snapshots should be published");
+        assertEquals(301.25, published.get(1).getTotalRevenueAsDouble(), "Revenue should be summed exactly");
+        assertEquals(2, published.get(1).getSequence(), "Snapshots should be numbered");
+    }
+
+    @Test
+    public void testFailingListenerDoesNotStopOthers() {
+        RevenueAggregator aggregator = new RevenueAggregator();
+        List<RevenueSnapshot> published = new ArrayList<>();
+        aggregator.addListener(snapshot -> {
+            throw new IllegalStateException("Display is broken");
+        });
+        aggregator.addListener(published::add);
+        aggregator.record(100);
+        aggregator.publish();
+        assertEquals(1, published.size(), "The working listener should get the snapshot");
+        assertEquals(1, aggregator.getFailedListenerCalls(), "The failure should be counted");
+    }
+
+    @Test
+    public void testPeriodicPublication() throws InterruptedException {
+        RevenueAggregator aggregator = new RevenueAggregator();
+        List<RevenueSnapshot> published = new java.util.concurrent.CopyOnWriteArrayList<>();
+        aggregator.addListener(published::add);
+        aggregator.start(10);
+        aggregator.record(500);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (published.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        aggregator.stop();
+        assertFalse(published.isEmpty(), "A snapshot should be published in the background");
+        assertEquals(Money.ofMinor(500), published.get(0).getTotalRevenue(), "Published revenue is wrong");
+    }
+}
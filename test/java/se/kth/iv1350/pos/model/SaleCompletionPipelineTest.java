@@ -0,0 +1,175 @@
+package test.java.se.kth.iv1350.pos.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.integration.ReceiptPrinter;
+import se.kth.iv1350.pos.integration.SystemCreator;
+import se.kth.iv1350.pos.model.CashRegister;
+import se.kth.iv1350.pos.model.PipelineStage;
+import se.kth.iv1350.pos.model.Receipt;
+import se.kth.iv1350.pos.model.Sale;
+import se.kth.iv1350.pos.model.SaleCompletionPipeline;
+import se.kth.iv1350.pos.util.Amount;
+
+public class SaleCompletionPipelineTest {
+    private PrintStream originalOut;
+    private SaleCompletionPipeline pipeline;
+
+    @BeforeEach
+    public void setUp() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(new ByteArrayOutputStream()));
+        pipeline = new SaleCompletionPipeline(new SystemCreator(), 16, 3, null);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    public void testPaymentReturnsBeforeReceiptIsPrinted() throws InterruptedException {
+        CountDownLatch printerMayContinue = new CountDownLatch(1);
+        CountDownLatch observerNotified = new CountDownLatch(1);
+        ReceiptPrinter slowPrinter = new ReceiptPrinter() {
+            @Override
+            public void printReceipt(Receipt receipt) {
+                try {
+                    printerMayContinue.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        Sale sale = new Sale();
+        sale.setSystemCreator(new SystemCreator());
+        sale.setCompletionPipeline(pipeline);
+        sale.addSaleObserver(priceOfPurchase -> observerNotified.countDown());
+        sale.addItemToSale(new ItemDTO("Bread", 0.06, 20, "Fresh bread", "1001"), 1);
+
+        Amount change = sale.paymentWithoutDiscount(new Amount(50), new CashRegister(), slowPrinter);
+
+        assertEquals(29, change.getAmount(), "Change should be returned while the receipt is still printing");
+        assertTrue(observerNotified.await(5, TimeUnit.SECONDS), "Observers should not wait for the printer");
+        printerMayContinue.countDown();
+        assertTrue(pipeline.shutdown(5_000), "Pipeline should finish all queued work");
+        for (PipelineStage stage : pipeline.getStages()) {
+            assertEquals(1, stage.getCompletedCount(), "Every stage should complete the sale once: " + stage);
+        }
+    }
+
+    @Test
+    public void testFailingStageIsRetried() throws InterruptedException {
+        int[] attempts = new int[1];
+        ReceiptPrinter flakyPrinter = new ReceiptPrinter() {
+            @Override
+            public void printReceipt(Receipt receipt) {
+                if (++attempts[0] < 2) {
+                    throw new IllegalStateException("Printer out of paper");
+                }
+            }
+        };
+        Sale sale = new Sale();
+        sale.setSystemCreator(new SystemCreator());
+        sale.setCompletionPipeline(pipeline);
+        sale.paymentWithoutDiscount(new Amount(0), new CashRegister(), flakyPrinter);
+        pipeline.shutdown(5_000);
+
+        PipelineStage receiptStage = pipeline.getStages().get(2);
+        assertEquals(1, receiptStage.getRetryCount(), "The failed print should be retried once");
+        assertEquals(1, receiptStage.getCompletedCount(), "The retried print should succeed");
+        assertEquals(0, receiptStage.getFailedCount(), "No print should fail permanently");
+    }
+
+    @Test
+    public void testFailingObserverDoesNotRenotifyOthers() throws InterruptedException {
+        AtomicInteger firstNotified = new AtomicInteger();
+        AtomicInteger flakyAttempts = new AtomicInteger();
+        AtomicInteger lastNotified = new AtomicInteger();
+        Sale sale = new Sale();
+        sale.setSystemCreator(new SystemCreator());
+        sale.setCompletionPipeline(pipeline);
+        sale.addSaleObserver(priceOfPurchase -> firstNotified.incrementAndGet());
+        sale.addSaleObserver(priceOfPurchase -> {
+            if (flakyAttempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("Observer failed once");
+            }
+        });
+        sale.addSaleObserver(priceOfPurchase -> lastNotified.incrementAndGet());
+        sale.paymentWithoutDiscount(new Amount(0), new CashRegister(), new ReceiptPrinter());
+        pipeline.shutdown(5_000);
+
+        PipelineStage observerStage = pipeline.getStages().get(3);
+        assertEquals(2, flakyAttempts.get(), "The failing observer should be retried");
+        assertEquals(1, firstNotified.get(), "An observer notified before the failure should see the sale once");
+        assertEquals(1, lastNotified.get(), "An observer notified after the failure should see the sale once");
+        assertEquals(1, observerStage.getCompletedCount(), "The sale should count as completed once");
+        assertEquals(1, observerStage.getRetryCount(), "Only the failed notification should be retried");
+    }
+
+    @Test
+    public void testFullStageKeepsTaskOrder() throws InterruptedException {
+        PipelineStage stage = new PipelineStage("ordered", 1, 1, null);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> runners = Collections.synchronizedList(new ArrayList<>());
+        Thread cashier = new Thread(() -> {
+            for (int i = 0; i < 20; i++) {
+                int task = i;
+                stage.submit(() -> {
+                    if (task == 0) {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    runners.add(Thread.currentThread());
+                    order.add(task);
+                });
+            }
+        });
+        cashier.start();
+        while (cashier.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        cashier.join();
+        assertTrue(stage.shutdown(5_000), "The stage should finish all queued work");
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, order.get(i), "Tasks should run in the order they were submitted");
+        }
+        assertFalse(runners.contains(cashier), "A full stage should not run tasks on the submitting thread");
+    }
+
+    @Test
+    public void testTaskSubmittedAfterShutdownIsRun() throws InterruptedException {
+        assertTrue(pipeline.shutdown(5_000), "An idle pipeline should shut down at once");
+        Sale sale = new Sale();
+        sale.setSystemCreator(new SystemCreator());
+        sale.setCompletionPipeline(pipeline);
+        AtomicInteger notified = new AtomicInteger();
+        sale.addSaleObserver(priceOfPurchase -> notified.incrementAndGet());
+        sale.paymentWithoutDiscount(new Amount(0), new CashRegister(), new ReceiptPrinter());
+
+        assertEquals(1, notified.get(), "A sale paid after shutdown should still be completed");
+        for (PipelineStage stage : pipeline.getStages()) {
+            assertEquals(1, stage.getCompletedCount(), "No stage should drop the sale: " + stage);
+        }
+    }
+}
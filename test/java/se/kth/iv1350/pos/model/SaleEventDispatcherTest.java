@@ -0,0 +1,121 @@
+package test.java.se.kth.iv1350.pos.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.model.ObserverSubscription;
+import se.kth.iv1350.pos.model.Sale;
+import se.kth.iv1350.pos.model.SaleCompletedEvent;
+import se.kth.iv1350.pos.model.SaleEventDispatcher;
+import se.kth.iv1350.pos.util.BackpressurePolicy;
+
+public class SaleEventDispatcherTest {
+    private SaleEventDispatcher dispatcher;
+
+    private static SaleCompletedEvent event(int price) {
+        Sale sale = new Sale();
+        sale.addItemToSale(new ItemDTO("Item", 0, price, "", "1"), 1);
+        return SaleCompletedEvent.of(sale, System.currentTimeMillis());
+    }
+
+    @BeforeEach
+    public void setUp() {
+        dispatcher = new SaleEventDispatcher(null);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        dispatcher.shutdown(1_000);
+    }
+
+    @Test
+    public void testSlowObserverDoesNotDelayOthers() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Double> fast = new CopyOnWriteArrayList<>();
+        ObserverSubscription slow = dispatcher.subscribe(price -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, SaleEventDispatcher.DeliveryMode.ASYNC);
+        dispatcher.subscribe(fast::add, SaleEventDispatcher.DeliveryMode.SYNC);
+
+        Sale sale = new Sale();
+        sale.setEventDispatcher(dispatcher);
+        sale.addItemToSale(new ItemDTO("Milk", 0.06, 20, "", "200"), 1);
+        long start = System.nanoTime();
+        sale.completeSale();
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "The sale should not wait for the slow observer");
+        assertEquals(List.of(21.0), fast, "The synchronous observer should be notified at once");
+        release.countDown();
+        dispatcher.shutdown(1_000);
+        assertEquals(1, slow.getDeliveredCount(), "The slow observer should get the sale eventually");
+    }
+
+    @Test
+    public void testDropPolicyAndSlowConsumerDetection() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        ObserverSubscription subscription = dispatcher.subscribe(price -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, SaleEventDispatcher.DeliveryMode.VIRTUAL, 4, BackpressurePolicy.DROP, 50);
+        SaleCompletedEvent event = event(10);
+        for (int sale = 0; sale < 20; sale++) {
+            dispatcher.publish(event);
+        }
+        assertTrue(subscription.getDroppedCount() > 0, "Sales should be dropped when the queue is full");
+        assertTrue(subscription.isSlow(), "The observer should be detected as slow");
+        release.countDown();
+        dispatcher.shutdown(1_000);
+        assertEquals(20, subscription.getDeliveredCount() + subscription.getDroppedCount(),
+                "Every sale should be delivered or dropped");
+    }
+
+    @Test
+    public void testBlockPolicyLosesNothing() throws InterruptedException {
+        List<Double> received = new CopyOnWriteArrayList<>();
+        ObserverSubscription subscription = dispatcher.subscribe(received::add,
+                SaleEventDispatcher.DeliveryMode.ASYNC, 2, BackpressurePolicy.BLOCK, 50);
+        List<SaleCompletedEvent> events = new java.util.ArrayList<>();
+        for (int sale = 0; sale < 1_000; sale++) {
+            events.add(event(sale));
+        }
+        events.forEach(dispatcher::publish);
+        dispatcher.shutdown(5_000);
+        assertEquals(1_000, received.size(), "No sale should be lost");
+        assertEquals(999.0, received.get(999), "Sales should be delivered in order");
+        assertEquals(0, subscription.getDroppedCount(), "Nothing should be dropped");
+    }
+
+    @Test
+    public void testFailingObserverIsIsolated() {
+        List<Double> received = new CopyOnWriteArrayList<>();
+        ObserverSubscription failing = dispatcher.subscribe(price -> {
+            throw new IllegalStateException("Broken display");
+        }, SaleEventDispatcher.DeliveryMode.SYNC);
+        dispatcher.subscribe(received::add, SaleEventDispatcher.DeliveryMode.SYNC);
+        dispatcher.publish(event(5));
+        assertEquals(1, failing.getFailedCount(), "The failure should be counted");
+        assertEquals(List.of(5.0), received, "Other observers should still be notified");
+    }
+
+    @Test
+    public void testSamplingIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> dispatcher.subscribe(price -> { },
+                SaleEventDispatcher.DeliveryMode.ASYNC, 4, BackpressurePolicy.SAMPLE, 50),
+                "Sale notifications can not be sampled");
+    }
+}
@@ -0,0 +1,121 @@
+package test.java.se.kth.iv1350.pos.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.integration.ReceiptPrinter;
+import se.kth.iv1350.pos.integration.SystemCreator;
+import se.kth.iv1350.pos.model.CashRegister;
+import se.kth.iv1350.pos.model.Receipt;
+import se.kth.iv1350.pos.model.Sale;
+import se.kth.iv1350.pos.model.SaleCompletedEvent;
+import se.kth.iv1350.pos.model.SaleEventStream;
+import se.kth.iv1350.pos.util.Amount;
+import se.kth.iv1350.pos.util.BackpressurePolicy;
+
+public class SaleEventStreamTest {
+
+    private static class CollectingSubscriber implements Flow.Subscriber<SaleCompletedEvent> {
+        private final List<SaleCompletedEvent> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private final long initialRequest;
+
+        CollectingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(SaleCompletedEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+
+    private static class SilentPrinter extends ReceiptPrinter {
+        @Override
+        public void printReceipt(Receipt receipt) {
+        }
+    }
+
+    @Test
+    public void testPaidSaleIsPublishedWithDetails() throws InterruptedException {
+        SaleEventStream stream = new SaleEventStream(16, BackpressurePolicy.BLOCK);
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        stream.subscribe(subscriber);
+
+        Sale sale = new Sale();
+        sale.setSystemCreator(new SystemCreator());
+        sale.setEventStream(stream);
+        sale.setLaneId("lane-7");
+        sale.addItemToSale(new ItemDTO("Milk", 0.06, 20, "", "200"), 2);
+        sale.addItemToSale(new ItemDTO("Cheese", 0.12, 12.05, "", "201"), 1);
+        sale.paymentWithoutDiscount(new Amount(100), new CashRegister(), new SilentPrinter());
+        stream.close();
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS), "The stream should complete");
+
+        assertEquals(1, subscriber.events.size(), "One event should be published");
+        SaleCompletedEvent event = subscriber.events.get(0);
+        assertEquals("lane-7", event.getLaneId(), "Lane is wrong");
+        assertEquals(2, event.getLines().size(), "Lines are wrong");
+        assertEquals(2, event.getLines().get(0).getQuantity(), "Quantity is wrong");
+        assertEquals(1205, event.getLines().get(1).getUnitPriceMinorUnits(), "Unit price is wrong");
+        assertEquals(240 + 145, event.getTotalVATMinorUnits(), "VAT is wrong");
+        assertEquals(4000 + 1205 + 240 + 145, event.getTotalIncludingVATMinorUnits(), "Total is wrong");
+        assertEquals(10_000, event.getAmountPaidMinorUnits(), "Payment is wrong");
+        assertEquals(sale.getTotalPriceIncludingVAT().getAmount(), event.getPriceOfPurchase(), "Price of purchase is wrong");
+    }
+
+    @Test
+    public void testSlowSubscriberDropsOnlyItsOwnEvents() throws InterruptedException {
+        SaleEventStream stream = new SaleEventStream(4, BackpressurePolicy.DROP);
+        CollectingSubscriber stalled = new CollectingSubscriber(0);
+        CollectingSubscriber reading = new CollectingSubscriber(Long.MAX_VALUE);
+        stream.subscribe(stalled);
+        stream.subscribe(reading);
+        Sale sale = new Sale();
+        sale.addItemToSale(new ItemDTO("Milk", 0.06, 20, "", "200"), 1);
+        SaleCompletedEvent event = SaleCompletedEvent.of(sale, System.currentTimeMillis());
+        for (int i = 0; i < 100; i++) {
+            stream.publish(event);
+            Thread.sleep(1);
+        }
+        stream.close();
+        assertTrue(reading.completed.await(5, TimeUnit.SECONDS), "The stream should complete");
+        assertEquals(100, reading.events.size(), "The reading subscriber should get every event");
+        assertTrue(stream.getDroppedCount() >= 90, "Events for the stalled subscriber should be dropped");
+        assertTrue(stalled.events.isEmpty(), "The stalled subscriber requested nothing");
+    }
+
+    @Test
+    public void testObserverBridgeGetsPrice() {
+        List<Double> prices = new CopyOnWriteArrayList<>();
+        Sale sale = new Sale();
+        sale.addSaleObserver(prices::add);
+        sale.addItemToSale(new ItemDTO("Milk", 0.06, 20, "", "200"), 1);
+        sale.completeSale();
+        assertEquals(List.of(21.0), prices, "newSale should get the rounded total");
+    }
+}
@@ -6,7 +6,9 @@ import org.junit.Test;
 import static org.junit.Assert.*;
 
 import java.time.LocalDate;
+import java.util.List;
 
+import se.kth.iv1350.pos.integration.Item;
 import se.kth.iv1350.pos.integration.ItemDTO;
 import se.kth.iv1350.pos.model.CashPayment;
 import se.kth.iv1350.pos.model.CashRegister;
@@ -45,6 +47,43 @@ public class SaleTest {
         assertEquals("Failed to update quantity of existing item.", 4, sale.getQuantityOfItem("002"));
     }
 
+    @Test
+    public void testAddItemsMatchesSingleAdds() {
+        ItemDTO grapes = new ItemDTO("Grapes", 0.06, 30, "Fresh Green Grapes", "001");
+        ItemDTO mushrooms = new ItemDTO("Mushrooms", 0.12, 15, "Fresh Wild Mushrooms", "002");
+        Sale single = new Sale();
+        single.addItemToSale(grapes, 1);
+        single.addItemToSale(mushrooms, 3);
+        single.addItemToSale(grapes, 2);
+        sale.addItemToSale(grapes, 1);
+        sale.addItemsToSale(List.of(new Item(mushrooms, 3), new Item(grapes, 2)));
+
+        assertEquals("Quantities should be merged into the sale.", 3, sale.getQuantityOfItem("001"));
+        assertEquals("The batch should give the same total.", single.getTotalPrice(), sale.getTotalPrice());
+        assertEquals("The batch should give the same VAT.", single.getTotalVAT(), sale.getTotalVAT(), 0.0001);
+    }
+
+    @Test
+    public void testRemoveItem() {
+        sale.addItemToSale(new ItemDTO("Grapes", 0.06, 30, "Fresh Green Grapes", "001"), 2);
+        sale.addItemToSale(new ItemDTO("Mushrooms", 0.06, 15, "Fresh Wild Mushrooms", "002"), 1);
+        assertTrue("Item in the sale should be removed.", sale.removeItemFromSale("001"));
+        assertFalse("Removing an item twice should fail.", sale.removeItemFromSale("001"));
+        assertEquals("Removed item should have no quantity.", 0, sale.getQuantityOfItem("001"));
+        assertEquals("Total should only include the remaining item.", 16, sale.getTotalPriceIncludingVAT().getAmount());
+    }
+
+    @Test
+    public void testChangeQuantity() {
+        sale.addItemToSale(new ItemDTO("Mushrooms", 0.06, 15, "Fresh Wild Mushrooms", "002"), 1);
+        assertTrue("Quantity of existing item should change.", sale.changeQuantity("002", 4));
+        assertEquals("Failed to change quantity.", 4, sale.getQuantityOfItem("002"));
+        assertEquals("Total should follow the new quantity.", 64, sale.getTotalPriceIncludingVAT().getAmount());
+        assertTrue("Zero quantity should remove the item.", sale.changeQuantity("002", 0));
+        assertEquals("Empty sale should cost nothing.", 0, sale.getTotalPriceIncludingVAT().getAmount());
+        assertEquals("Empty sale should have no VAT.", 0.0, sale.getTotalVAT(), 0.0);
+    }
+
     @Test
     public void testPaymentAndChange() {
         ItemDTO item = new ItemDTO("Grapes", 0.06, 30, "Fresh Green Grapes", "001");
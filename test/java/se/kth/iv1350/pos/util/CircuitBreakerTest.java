@@ -0,0 +1,78 @@
+package test.java.se.kth.iv1350.pos.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import se.kth.iv1350.pos.util.CircuitBreaker;
+
+public class CircuitBreakerTest {
+    private static final long OPEN_MILLIS = 1_000;
+
+    private AtomicLong clock;
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    public void setUp() {
+        clock = new AtomicLong();
+        breaker = new CircuitBreaker(3, OPEN_MILLIS, clock::get);
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertTrue(breaker.tryAcquire(), "A closed breaker should let calls through");
+            breaker.recordFailure();
+        }
+    }
+
+    @Test
+    public void testOpensAfterThresholdFailures() {
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(), "Two failures should not open the breaker");
+
+        fail(1);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(), "The third failure should open the breaker");
+        assertFalse(breaker.tryAcquire(), "An open breaker should refuse calls");
+        assertEquals(1, breaker.getRejectedCount(), "The refused call should be counted");
+    }
+
+    @Test
+    public void testSuccessResetsFailureCount() {
+        fail(2);
+        breaker.tryAcquire();
+        breaker.recordSuccess();
+        fail(2);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(), "Failures should have to be in a row");
+    }
+
+    @Test
+    public void testHalfOpenLetsOneProbeThrough() {
+        fail(3);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(OPEN_MILLIS));
+
+        assertTrue(breaker.tryAcquire(), "The probe should be let through after the open period");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState(), "The breaker should be half-open");
+        assertFalse(breaker.tryAcquire(), "Only one probe should be let through");
+        breaker.recordSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(), "A successful probe should close the breaker");
+    }
+
+    @Test
+    public void testFailedProbeOpensAgain() {
+        fail(3);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(OPEN_MILLIS));
+        breaker.tryAcquire();
+        breaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(), "A failed probe should open the breaker again");
+        assertFalse(breaker.tryAcquire(), "The new open period should refuse calls");
+        assertEquals(2, breaker.getOpenCount(), "Both openings should be counted");
+    }
+}
@@ -0,0 +1,31 @@
+package test.java.se.kth.iv1350.pos.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import se.kth.iv1350.pos.util.DecimalFormatter;
+
+public class DecimalFormatterTest {
+
+    private static String fixed2(double value) {
+        char[] buffer = new char[DecimalFormatter.MAX_LENGTH];
+        return new String(buffer, 0, DecimalFormatter.formatFixed2(value, buffer, 0));
+    }
+
+    @Test
+    public void testFixed2MatchesStringFormat() {
+        double[] values = {0, 20, 12.05, 0.29, 1.005, 0.125, 3.14159, -1.5, -0.001, 1e17, 123456789.99};
+        for (double value : values) {
+            assertEquals(String.format(java.util.Locale.ROOT, "%.2f", value), fixed2(value), "Formatted " + value);
+        }
+    }
+
+    @Test
+    public void testMinorAndWhole() {
+        char[] buffer = new char[DecimalFormatter.MAX_LENGTH];
+        assertEquals("-12.05", new String(buffer, 0, DecimalFormatter.formatMinor(-1205, buffer, 0)), "Minor units are wrong");
+        assertEquals("20.00", new String(buffer, 0, DecimalFormatter.formatWhole(20, buffer, 0)), "Whole units are wrong");
+        assertEquals("007", new String(buffer, 0, DecimalFormatter.formatPadded(7, 3, buffer, 0)), "Padding is wrong");
+    }
+}
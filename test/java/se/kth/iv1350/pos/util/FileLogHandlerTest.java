@@ -0,0 +1,145 @@
+package test.java.se.kth.iv1350.pos.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import se.kth.iv1350.pos.util.BackpressurePolicy;
+import se.kth.iv1350.pos.util.FileLogHandler;
+
+public class FileLogHandlerTest {
+    private static final Path LOG_FILE = Path.of("pos-application-log.txt");
+    private static final AtomicInteger TEST_COUNTER = new AtomicInteger();
+
+    private FileLogHandler logger;
+    private String marker;
+
+    /**
+     * Blocks the writer thread while it formats the record, so the test controls how full the
+     * buffer is.
+     */
+    private static final class BlockingException extends Exception {
+        private static final long serialVersionUID = 1L;
+        private final CountDownLatch formatting = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String getMessage() {
+            formatting.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "Blocking record.";
+        }
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        logger = FileLogHandler.getInstance();
+        marker = "log-test-" + TEST_COUNTER.incrementAndGet() + "-" + System.nanoTime();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        logger.disableAsyncLogging();
+    }
+
+    @Test
+    public void testDisableWritesBufferedRecords() throws IOException {
+        logger.enableAsyncLogging(1_024, 1_000, 60_000, BackpressurePolicy.BLOCK, 1);
+        for (int i = 0; i < 100; i++) {
+            logger.logException(new Exception(marker));
+        }
+        logger.disableAsyncLogging();
+
+        assertEquals(100, countRecords(), "Every buffered record should be written when logging is disabled");
+    }
+
+    @Test
+    public void testRecordsAreFlushedWithinTheInterval() throws Exception {
+        logger.enableAsyncLogging(1_024, 1_000, 20, BackpressurePolicy.BLOCK, 1);
+        logger.logException(new Exception(marker));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (countRecords() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, countRecords(), "A record should be flushed without waiting for a full batch");
+    }
+
+    @Test
+    public void testDropPolicyCountsDroppedRecords() throws Exception {
+        logger.enableAsyncLogging(4, 1_000, 60_000, BackpressurePolicy.DROP, 1);
+        BlockingException blocker = new BlockingException();
+        logger.logException(blocker);
+        blocker.formatting.await();
+        for (int i = 0; i < 14; i++) {
+            logger.logException(new Exception(marker));
+        }
+
+        assertEquals(10, logger.getDroppedLogRecords(), "Records beyond the capacity should be dropped");
+        blocker.release.countDown();
+        logger.disableAsyncLogging();
+        assertEquals(4, countRecords(), "The records that fit should be written");
+    }
+
+    @Test
+    public void testSamplePolicyKeepsEveryNthRecord() throws Exception {
+        logger.enableAsyncLogging(8, 1_000, 60_000, BackpressurePolicy.SAMPLE, 2);
+        BlockingException blocker = new BlockingException();
+        logger.logException(blocker);
+        blocker.formatting.await();
+        for (int i = 0; i < 11; i++) {
+            logger.logException(new Exception(marker));
+        }
+
+        assertEquals(3, logger.getDroppedLogRecords(), "Every other record past half capacity should be dropped");
+        blocker.release.countDown();
+        logger.disableAsyncLogging();
+        assertEquals(8, countRecords(), "The kept records should be written");
+    }
+
+    @Test
+    public void testNoRecordIsLostWhileDisabling() throws Exception {
+        logger.enableAsyncLogging(64, 16, 10, BackpressurePolicy.BLOCK, 1);
+        AtomicInteger logged = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(4);
+        List<Thread> lanes = new ArrayList<>();
+        for (int lane = 0; lane < 4; lane++) {
+            lanes.add(new Thread(() -> {
+                started.countDown();
+                for (int i = 0; i < 500; i++) {
+                    logger.logException(new Exception(marker));
+                    logged.incrementAndGet();
+                }
+            }));
+        }
+        lanes.forEach(Thread::start);
+        started.await();
+        logger.disableAsyncLogging();
+        for (Thread lane : lanes) {
+            lane.join();
+        }
+
+        assertEquals(logged.get(), countRecords(), "Records logged during the switch should be written");
+    }
+
+    private long countRecords() throws IOException {
+        String line = "Exception occurred: " + marker;
+        try (var lines = Files.lines(LOG_FILE)) {
+            return lines.filter(line::equals).count();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package test.java.se.kth.iv1350.pos.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.RoundingMode;
+
+import org.junit.jupiter.api.Test;
+
+import se.kth.iv1350.pos.util.Amount;
+import se.kth.iv1350.pos.util.Money;
+import se.kth.iv1350.pos.util.MoneyAccumulator;
+
+public class MoneyTest {
+
+    @Test
+    public void testToMinor() {
+        assertEquals(2305, Money.toMinor(23.05), "Price should be converted to minor units");
+        assertEquals(600, Money.toBasisPoints(0.06), "VAT rate should be converted to basis points");
+    }
+
+    @Test
+    public void testApplyRateRounding() {
+        assertEquals(3, Money.applyRate(50, 600, RoundingMode.HALF_UP), "6% of 50 minor units is 3 minor units");
+        assertEquals(2, Money.applyRate(25, 1000, RoundingMode.DOWN), "10% of 25 minor units rounded down is 2 minor units");
+        assertEquals(3, Money.applyRate(25, 1000, RoundingMode.HALF_UP), "10% of 25 minor units rounded half up is 3 minor units");
+        assertEquals(2, Money.applyRate(25, 1000, RoundingMode.HALF_EVEN), "10% of 25 minor units rounded half even is 2 minor units");
+        assertEquals(-3, Money.applyRate(-25, 1000, RoundingMode.HALF_UP), "Negative amounts round away from zero");
+    }
+
+    @Test
+    public void testToAmount() {
+        assertEquals(new Amount(11), Money.ofMinor(1060).toAmount(RoundingMode.HALF_UP), "10.60 should round up to 11");
+        assertEquals(new Amount(10), Money.ofMinor(1060).toAmount(RoundingMode.DOWN), "10.60 should round down to 10");
+    }
+
+    @Test
+    public void testArithmetic() {
+        Money price = Money.of(new Amount(20));
+        assertEquals(Money.ofMinor(6000), price.times(3), "Multiplication is wrong");
+        assertEquals(Money.ofMinor(2120), price.plus(price.percentage(600, RoundingMode.HALF_UP)), "Adding VAT is wrong");
+        assertEquals(Money.ZERO, price.minus(price), "Subtraction is wrong");
+        assertEquals("-0.05", Money.ofMinor(-5).toString(), "String representation is wrong");
+    }
+
+    @Test
+    public void testAccumulator() {
+        MoneyAccumulator accumulator = new MoneyAccumulator();
+        accumulator.add(1050);
+        accumulator.add(Money.ofMinor(-50));
+        assertEquals(1000, accumulator.getMinorUnits(), "Accumulated total is wrong");
+        assertEquals(10.0, accumulator.toDouble(), "Total in major units is wrong");
+        accumulator.reset();
+        assertEquals(Money.ZERO, accumulator.toMoney(), "Reset should clear the total");
+    }
+}
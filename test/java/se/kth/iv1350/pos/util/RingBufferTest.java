@@ -0,0 +1,63 @@
+package test.java.se.kth.iv1350.pos.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import se.kth.iv1350.pos.util.RingBuffer;
+
+public class RingBufferTest {
+
+    @Test
+    public void testOfferAndPollInOrder() {
+        RingBuffer<String> buffer = new RingBuffer<>(4);
+        assertTrue(buffer.offer("a"));
+        assertTrue(buffer.offer("b"));
+        assertEquals("a", buffer.poll(), "Oldest entry should come first");
+        assertEquals("b", buffer.poll(), "Entries should keep their order");
+        assertNull(buffer.poll(), "Empty buffer should return null");
+    }
+
+    @Test
+    public void testFullBufferRejectsEntries() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i), "Buffer should accept entries up to its capacity");
+        }
+        assertFalse(buffer.offer(4), "Full buffer should reject the entry");
+        buffer.poll();
+        assertTrue(buffer.offer(4), "A freed slot should be reused");
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        RingBuffer<Integer> buffer = new RingBuffer<>(1 << 16);
+        int producers = 4;
+        int entriesPerProducer = 10_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int first = p * entriesPerProducer;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < entriesPerProducer; i++) {
+                    buffer.offer(first + i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        List<Integer> drained = new ArrayList<>();
+        buffer.drainTo(drained, Integer.MAX_VALUE);
+        Set<Integer> unique = new HashSet<>(drained);
+        assertEquals(producers * entriesPerProducer, unique.size(), "Every entry should be delivered exactly once");
+        assertEquals(drained.size(), unique.size(), "No entry should be delivered twice");
+    }
+}
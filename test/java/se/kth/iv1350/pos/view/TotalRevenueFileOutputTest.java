@@ -0,0 +1,51 @@
+package test.java.se.kth.iv1350.pos.view;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import se.kth.iv1350.pos.view.TotalRevenueFileOutput;
+
+public class TotalRevenueFileOutputTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testSalesAreCoalescedIntoBuckets() throws IOException {
+        Path file = directory.resolve("revenue.tsv");
+        TotalRevenueFileOutput output = new TotalRevenueFileOutput(file, 60_000, TotalRevenueFileOutput.Durability.WRITE_ONLY);
+        for (int sale = 0; sale < 1_000; sale++) {
+            output.newSale(12.5);
+        }
+        output.closeLogFile();
+        List<String> lines = Files.readAllLines(file);
+        assertTrue(lines.size() <= 3, "A thousand sales should be written as at most two buckets");
+        assertTrue(lines.get(0).startsWith("#"), "The file should start with a header");
+        String[] last = lines.get(lines.size() - 1).split("\t");
+        assertEquals("1000", last[3], "Total sales are wrong");
+        assertEquals("12500.00", last[4], "Total revenue is wrong");
+    }
+
+    @Test
+    public void testBucketsFormATimeSeries() throws Exception {
+        Path file = directory.resolve("series.tsv");
+        TotalRevenueFileOutput output = new TotalRevenueFileOutput(file, 20, TotalRevenueFileOutput.Durability.FORCE_DATA);
+        output.newSale(100);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (output.getTimeSeriesWriteCount() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        output.newSale(50.25);
+        output.closeLogFile();
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(3, lines.size(), "Each bucket with sales should have one line");
+        assertEquals("1\t100.00\t1\t100.00", lines.get(1).substring(lines.get(1).indexOf('\t') + 1), "First bucket is wrong");
+        assertEquals("1\t50.25\t2\t150.25", lines.get(2).substring(lines.get(2).indexOf('\t') + 1), "Second bucket is wrong");
+    }
+}
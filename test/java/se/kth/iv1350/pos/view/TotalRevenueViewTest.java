@@ -5,6 +5,10 @@ import java.io.PrintStream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import se.kth.iv1350.pos.integration.ItemDTO;
+import se.kth.iv1350.pos.model.RevenueAggregator;
+import se.kth.iv1350.pos.model.RevenueSnapshot;
+import se.kth.iv1350.pos.model.Sale;
 import se.kth.iv1350.pos.view.TotalRevenueView;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -49,4 +53,27 @@ public class TotalRevenueViewTest {
         String expectedRevenuePart = "is: " + expectedTotal;
         assertTrue(output.contains(expectedRevenuePart), "The total revenue after multiple sales is not correctly printed to system.out");
     }
+
+    @Test
+    public void testSharedAggregatorRecordsEverySaleOnce() {
+        RevenueAggregator aggregator = new RevenueAggregator();
+        TotalRevenueView console = new TotalRevenueView(aggregator);
+        TotalRevenueView secondDisplay = new TotalRevenueView(aggregator);
+        for (String laneId : new String[] {"lane-1", "lane-2"}) {
+            Sale sale = new Sale();
+            sale.setLaneId(laneId);
+            sale.addSaleObserver(aggregator);
+            sale.addSaleObserver(console);
+            sale.addSaleObserver(secondDisplay);
+            sale.addItemToSale(new ItemDTO("Bread", 0.0, 20, "Fresh bread", "1001"), 1);
+            sale.completeSale();
+        }
+        aggregator.publish();
+
+        RevenueSnapshot snapshot = aggregator.snapshot();
+        assertEquals(2, snapshot.getSaleCount(), "Each sale should be recorded once");
+        assertEquals(40.0, snapshot.getTotalRevenueAsDouble(), "Shared displays should not double the revenue");
+        assertEquals(2_000L, snapshot.getMinorUnitsByLane().get("lane-2"), "Sales should be recorded per lane");
+        assertTrue(outContent.toString().contains("is: 40.0"), "The displays should show the shared total");
+    }
 }